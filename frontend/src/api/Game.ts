@@ -21,7 +21,24 @@ export type Game = {
   problems: Problem[],
   playAgain: boolean,
   allSolved: boolean,
+  problemSolveCounts: number[],
   gameEnded: boolean,
+  // The sequence of the last game update applied, if known.
+  sequence?: number,
+};
+
+// A JSON Patch operation, at a JSON Pointer path (e.g. /players/0/code).
+export type GamePatchOperation = {
+  op: 'add' | 'remove' | 'replace',
+  path: string,
+  value: any,
+};
+
+// Sent on the game socket: the complete game, or a patch to the previous update.
+export type GameUpdate = {
+  sequence: number,
+  game?: Game,
+  patch?: GamePatchOperation[],
 };
 
 export type StartGameParams = {
@@ -80,6 +97,25 @@ export type Submission = {
   submissionType: SubmissionType,
 };
 
+export enum SubmissionStatus {
+  Queued = 'QUEUED',
+  Running = 'RUNNING',
+  Completed = 'COMPLETED',
+  Failed = 'FAILED',
+}
+
+// Returned by the async endpoints, then sent again on the submission socket.
+export type SubmissionTicket = {
+  submissionId: string,
+  status: SubmissionStatus,
+  type: SubmissionType,
+  queuePosition: number | null,
+  resultIndex: number | null,
+  result: SubmissionResult | null,
+  submission: Submission | null,
+  error: { message: string, type: string } | null,
+};
+
 export type SpectateGame = {
   user: User,
   problem: Problem,
@@ -90,12 +126,61 @@ export type SpectateGame = {
   languageList?: Language[],
 };
 
+// Apply the operation at the given keys, copying only the objects along the path.
+const applyOperation = (node: any, keys: string[], operation: GamePatchOperation): any => {
+  if (!keys.length) {
+    return operation.value;
+  }
+
+  const [key, ...rest] = keys;
+  if (Array.isArray(node)) {
+    const copy = [...node];
+    const index = Number(key);
+    if (rest.length) {
+      copy[index] = applyOperation(copy[index], rest, operation);
+    } else if (operation.op === 'remove') {
+      copy.splice(index, 1);
+    } else if (key === '-') {
+      copy.push(operation.value);
+    } else if (operation.op === 'add') {
+      copy.splice(index, 0, operation.value);
+    } else {
+      copy[index] = operation.value;
+    }
+    return copy;
+  }
+
+  const copy = { ...node };
+  if (rest.length) {
+    copy[key] = applyOperation(copy[key], rest, operation);
+  } else if (operation.op === 'remove') {
+    delete copy[key];
+  } else {
+    copy[key] = operation.value;
+  }
+  return copy;
+};
+
+// Apply the patch of a game update, leaving the given game unchanged.
+export const applyGamePatch = (game: Game, patch: GamePatchOperation[],
+  sequence: number): Game => {
+  const patched = patch.reduce((node, operation) => {
+    const keys = operation.path.split('/').slice(1)
+      .map((key) => key.replace(/~1/g, '/').replace(/~0/g, '~'));
+    return applyOperation(node, keys, operation);
+  }, game);
+
+  return { ...patched, sequence };
+};
+
 const basePath = '/api/v1';
 const routes = {
   startGame: (roomId: string) => `${basePath}/rooms/${roomId}/start`,
   getGame: (roomId: string) => `${basePath}/games/${roomId}`,
   runCode: (roomId: string) => `${basePath}/games/${roomId}/run-code`,
+  runCodeAsync: (roomId: string) => `${basePath}/games/${roomId}/run-code/async`,
   submitSolution: (roomId: string) => `${basePath}/games/${roomId}/submission`,
+  submitSolutionAsync: (roomId: string) => `${basePath}/games/${roomId}/submission/async`,
   endGame: (roomId: string) => `${basePath}/games/${roomId}/game-over`,
   playAgain: (roomId: string) => `${basePath}/games/${roomId}/restart`,
 };
@@ -128,6 +213,20 @@ export const submitSolution = (roomId: string, params: SubmitSolutionParams):
     throw axiosErrorHandler(err);
   });
 
+export const runSolutionAsync = (roomId: string, params: RunSolutionParams):
+  Promise<SubmissionTicket> => axios.post<SubmissionTicket>(routes.runCodeAsync(roomId), params)
+  .then((res) => res.data)
+  .catch((err) => {
+    throw axiosErrorHandler(err);
+  });
+
+export const submitSolutionAsync = (roomId: string, params: SubmitSolutionParams):
+  Promise<SubmissionTicket> => axios.post<SubmissionTicket>(routes.submitSolutionAsync(roomId), params)
+  .then((res) => res.data)
+  .catch((err) => {
+    throw axiosErrorHandler(err);
+  });
+
 export const playAgain = (roomId: string, params: PlayAgainParams):
   Promise<Room> => axios.post<Room>(routes.playAgain(roomId), params)
   .then((res) => res.data)
@@ -18,6 +18,8 @@ export type Room = {
   problems: SelectableProblem[],
   size: number,
   numProblems: number,
+  cacheResults: boolean,
+  failFast: boolean,
 };
 
 export type CreateRoomParams = {
@@ -35,6 +37,8 @@ export type UpdateSettingsParams = {
   problems?: ProblemIdParam[],
   size?: number,
   numProblems?: number,
+  cacheResults?: boolean,
+  failFast?: boolean,
 };
 
 export type ChangeHostParams = {
@@ -13,6 +13,7 @@ export const routes = (roomId?: string, userId?: string) => ({
   subscribe_game: `${basePath}/${roomId}/subscribe-game`,
   subscribe_notification: `${basePath}/${roomId}/subscribe-notification`,
   subscribe_player: `${basePath}/${roomId}/subscribe-player/${userId}`,
+  subscribe_submission: `${basePath}/${roomId}/subscribe-submission/${userId}`,
 });
 
 /**
@@ -1,5 +1,8 @@
 import { createAsyncThunk, createSlice, PayloadAction } from '@reduxjs/toolkit';
-import { Game, getGame } from '../api/Game';
+import {
+  applyGamePatch, Game, GameUpdate, getGame,
+} from '../api/Game';
+import { AppDispatch, RootState } from './Store';
 
 const initialState = null as Game | null;
 
@@ -20,10 +23,41 @@ const gameSlice = createSlice({
     },
   },
   extraReducers: (builder) => {
-    builder.addCase(fetchGame.fulfilled, (state,
-      action) => action.payload);
+    builder.addCase(fetchGame.fulfilled, (state, action) => {
+      // Keep the game if a later update was applied while it was fetched.
+      if (state?.sequence !== undefined && action.payload.sequence !== undefined
+        && action.payload.sequence < state.sequence) {
+        return state;
+      }
+      return action.payload;
+    });
   },
 });
 
 export const { setGame } = gameSlice.actions;
+
+/**
+ * Apply an update from the game socket: set the complete game, or patch
+ * the game if it's at the previous update. Otherwise, an update was missed
+ * (or the game not yet fetched), so fetch the game instead.
+ */
+export const receiveGameUpdate = (roomId: string, update: GameUpdate) => (
+  dispatch: AppDispatch, getState: () => RootState,
+) => {
+  const { game } = getState();
+
+  if (update.game) {
+    dispatch(setGame({ ...update.game, sequence: update.sequence }));
+  } else if (game && update.patch && game.sequence === update.sequence - 1) {
+    dispatch(setGame(applyGamePatch(game, update.patch, update.sequence)));
+  } else {
+    dispatch(fetchGame(roomId)).then(() => {
+      // The game fetched may predate this update, which then still applies.
+      const fetched = getState().game;
+      if (fetched && update.patch && fetched.sequence === update.sequence - 1) {
+        dispatch(setGame(applyGamePatch(fetched, update.patch, update.sequence)));
+      }
+    });
+  }
+};
 export default gameSlice.reducer;
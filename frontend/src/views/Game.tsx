@@ -14,7 +14,7 @@ import { checkLocationState, leaveRoom } from '../util/Utility';
 import Loading from '../components/core/Loading';
 import { User } from '../api/User';
 import { Difficulty } from '../api/Difficulty';
-import { Game, manuallyEndGame } from '../api/Game';
+import { Game, GameUpdate, manuallyEndGame } from '../api/Game';
 import GameTimerContainer from '../components/game/GameTimerContainer';
 import { GameTimer } from '../api/GameTimer';
 import { TextButton, DangerButton } from '../components/core/Button';
@@ -22,7 +22,7 @@ import {
   connect, routes, subscribe,
 } from '../api/Socket';
 import { useAppDispatch, useAppSelector } from '../util/Hook';
-import { fetchGame, setGame } from '../redux/Game';
+import { fetchGame, receiveGameUpdate } from '../redux/Game';
 import { setCurrentUser } from '../redux/User';
 import PlayerGameView from '../components/game/PlayerGameView';
 import SpectatorGameView from '../components/game/SpectatorGameView';
@@ -110,8 +110,8 @@ function GamePage() {
   // Re-subscribe in order to get the correct subscription callback.
   const subscribePrimary = useCallback((roomIdParam: string, userId: string) => {
     const subscribeUserCallback = (result: Message) => {
-      const updatedGame: Game = JSON.parse(result.body);
-      dispatch(setGame(updatedGame));
+      const update: GameUpdate = JSON.parse(result.body);
+      dispatch(receiveGameUpdate(roomIdParam, update));
     };
 
     // Connect to the socket if not already
@@ -5,7 +5,7 @@ import { useLocation, useHistory } from 'react-router-dom';
 import { Message } from 'stompjs';
 import { unwrapResult } from '@reduxjs/toolkit';
 import { LargeText, MainHeaderText } from '../components/core/Text';
-import { Game, Player, playAgain } from '../api/Game';
+import { GameUpdate, Player, playAgain } from '../api/Game';
 import { checkLocationState, leaveRoom } from '../util/Utility';
 import { errorHandler } from '../api/Error';
 import { TextButton, PrimaryButton, SecondaryRedButton } from '../components/core/Button';
@@ -21,7 +21,7 @@ import ResultsTable from '../components/results/ResultsTable';
 import Modal from '../components/core/Modal';
 import FeedbackPopup from '../components/results/FeedbackPopup';
 import { useAppDispatch, useAppSelector, useMousePosition } from '../util/Hook';
-import { fetchGame, setGame } from '../redux/Game';
+import { fetchGame, receiveGameUpdate } from '../redux/Game';
 import { setCurrentUser } from '../redux/User';
 import { setRoom } from '../redux/Room';
 import PreviewCodeContent from '../components/results/PreviewCodeContent';
@@ -162,8 +162,8 @@ function GameResultsPage() {
   useEffect(() => {
     if (!connected && roomId && currentUser?.userId) {
       const subscribeCallback = (result: Message) => {
-        const updatedGame: Game = JSON.parse(result.body);
-        dispatch(setGame(updatedGame));
+        const update: GameUpdate = JSON.parse(result.body);
+        dispatch(receiveGameUpdate(roomId, update));
       };
 
       connect(currentUser!.userId!).then(() => {
@@ -18,11 +18,16 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     
     public static final String NOTIFICATION_SOCKET_PATH = BaseRestController.BASE_SOCKET_URL + "/%s/subscribe-notification";
 
+    public static final String SUBMISSION_SOCKET_PATH = BaseRestController.BASE_SOCKET_URL + "/%s/subscribe-submission/%s";
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Sets the base URL for message subscription and sending, respectively.
         config.enableSimpleBroker(BaseRestController.BASE_SOCKET_URL);
         config.setApplicationDestinationPrefixes(BaseRestController.BASE_SOCKET_URL);
+
+        // Game updates are patches to the previous one, so must arrive in order.
+        config.setPreservePublishOrder(true);
     }
 
     @Override
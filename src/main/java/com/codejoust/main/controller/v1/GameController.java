@@ -1,6 +1,9 @@
 package com.codejoust.main.controller.v1;
 
+import com.codejoust.main.dto.game.CodePatchRequest;
+import com.codejoust.main.dto.game.CodeSyncDto;
 import com.codejoust.main.dto.game.EndGameRequest;
+import com.codejoust.main.dto.game.GameEventDto;
 import com.codejoust.main.dto.game.GameDto;
 import com.codejoust.main.dto.game.GameNotificationDto;
 import com.codejoust.main.dto.game.GameNotificationRequest;
@@ -8,9 +11,12 @@ import com.codejoust.main.dto.game.PlayAgainRequest;
 import com.codejoust.main.dto.game.StartGameRequest;
 import com.codejoust.main.dto.game.SubmissionDto;
 import com.codejoust.main.dto.game.SubmissionRequest;
+import com.codejoust.main.dto.game.SubmissionTicketDto;
 import com.codejoust.main.dto.room.RoomDto;
 import com.codejoust.main.service.GameManagementService;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -58,6 +64,34 @@ public class GameController extends BaseRestController {
         return new ResponseEntity<>(service.submitSolution(roomId, request), HttpStatus.OK);
     }
 
+    @PostMapping("/games/{roomId}/run-code/async")
+    public ResponseEntity<SubmissionTicketDto> runCodeAsync(@PathVariable String roomId,
+                                                            @RequestBody SubmissionRequest request) {
+        return new ResponseEntity<>(service.runCodeAsync(roomId, request), HttpStatus.ACCEPTED);
+    }
+
+    @PostMapping("/games/{roomId}/submission/async")
+    public ResponseEntity<SubmissionTicketDto> submitSolutionAsync(@PathVariable String roomId,
+                                                                   @RequestBody SubmissionRequest request) {
+        return new ResponseEntity<>(service.submitSolutionAsync(roomId, request), HttpStatus.ACCEPTED);
+    }
+
+    @PostMapping("/games/{roomId}/code")
+    public ResponseEntity<CodeSyncDto> patchCode(@PathVariable String roomId,
+                                                 @RequestBody CodePatchRequest request) {
+        return new ResponseEntity<>(service.patchCode(roomId, request), HttpStatus.OK);
+    }
+
+    @GetMapping("/games/{roomId}/code/{userId}")
+    public ResponseEntity<CodeSyncDto> getCode(@PathVariable String roomId, @PathVariable String userId) {
+        return new ResponseEntity<>(service.getCode(roomId, userId), HttpStatus.OK);
+    }
+
+    @GetMapping("/games/{roomId}/replay")
+    public ResponseEntity<List<GameEventDto>> getReplay(@PathVariable String roomId) {
+        return new ResponseEntity<>(service.getReplay(roomId), HttpStatus.OK);
+    }
+
     @PostMapping("/games/{roomId}/game-over")
     public ResponseEntity<GameDto> manuallyEndGame(@PathVariable String roomId,
                                              @RequestBody EndGameRequest request) {
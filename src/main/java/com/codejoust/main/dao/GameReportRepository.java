@@ -0,0 +1,12 @@
+package com.codejoust.main.dao;
+
+import org.springframework.data.repository.CrudRepository;
+
+import com.codejoust.main.model.report.GameReport;
+
+// This will be AUTO IMPLEMENTED by Spring into a Bean called gameReportRepository
+// CRUD refers Create, Read, Update, Delete
+public interface GameReportRepository extends CrudRepository<GameReport, Integer> {
+
+    GameReport findGameReportByGameReportId(String gameReportId);
+}
@@ -8,5 +8,4 @@ public interface UserRepository extends CrudRepository<User, Integer> {
 
     // Auto generated by CrudRepository
     User findUserByUserId(String userId);
-    User findUserBySessionId(String sessionId);
 }
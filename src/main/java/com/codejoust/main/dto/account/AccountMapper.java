@@ -1,19 +1,35 @@
 package com.codejoust.main.dto.account;
 
+import com.codejoust.main.dto.problem.ProblemMapper;
 import com.codejoust.main.model.Account;
-import org.modelmapper.ModelMapper;
+import com.codejoust.main.util.Utility;
 
 public class AccountMapper {
 
     protected AccountMapper() {}
 
-    private static final ModelMapper mapper = new ModelMapper();
-
     public static AccountDto toDto(Account entity) {
         if (entity == null) {
             return null;
         }
 
-        return mapper.map(entity, AccountDto.class);
+        AccountDto accountDto = new AccountDto();
+        accountDto.setUid(entity.getUid());
+        accountDto.setProblems(Utility.mapList(entity.getProblems(), ProblemMapper::toDto));
+        accountDto.setProblemTags(Utility.mapList(entity.getProblemTags(), ProblemMapper::toProblemTagDto));
+        accountDto.setRole(entity.getRole());
+
+        return accountDto;
+    }
+
+    public static AccountUidDto toUidDto(Account entity) {
+        if (entity == null) {
+            return null;
+        }
+
+        AccountUidDto accountUidDto = new AccountUidDto();
+        accountUidDto.setUid(entity.getUid());
+
+        return accountUidDto;
     }
 }
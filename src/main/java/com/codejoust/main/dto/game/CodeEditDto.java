@@ -0,0 +1,14 @@
+package com.codejoust.main.dto.game;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@EqualsAndHashCode
+public class CodeEditDto {
+    private int start;
+    private int end;
+    private String text;
+}
@@ -0,0 +1,23 @@
+package com.codejoust.main.dto.game;
+
+import java.util.List;
+
+import com.codejoust.main.dto.user.UserDto;
+import com.codejoust.main.model.report.CodeLanguage;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A batch of edits to the initiator's code, made against the given version.
+ * Each edit is relative to the code left by the edits before it; the
+ * language is only changed if one is given.
+ */
+@Getter
+@Setter
+public class CodePatchRequest {
+    private UserDto initiator;
+    private Integer baseVersion;
+    private CodeLanguage language;
+    private List<CodeEditDto> edits;
+}
@@ -0,0 +1,20 @@
+package com.codejoust.main.dto.game;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+import com.codejoust.main.model.report.CodeLanguage;
+
+/**
+ * A version of a player's code. Patches are acknowledged with just the new
+ * version; a full resync also carries the code and language.
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+public class CodeSyncDto {
+    private int version;
+    private String code;
+    private CodeLanguage language;
+}
@@ -9,6 +9,8 @@ import java.util.List;
 
 import com.codejoust.main.dto.problem.ProblemDto;
 import com.codejoust.main.dto.room.RoomDto;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 @Getter
 @Setter
@@ -20,5 +22,16 @@ public class GameDto {
     private List<PlayerDto> players = new ArrayList<>();
     private Boolean playAgain = false;
     private Boolean allSolved;
+    private int[] problemSolveCounts;
     private Boolean gameEnded;
+
+    // Order in which game states were built; later states have higher versions.
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private long version;
+
+    // The sequence of the last update sent for this state, if fetched.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @EqualsAndHashCode.Exclude
+    private Long sequence;
 }
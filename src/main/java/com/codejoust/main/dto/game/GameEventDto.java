@@ -0,0 +1,55 @@
+package com.codejoust.main.dto.game;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.codejoust.main.game_object.Submission;
+import com.codejoust.main.model.report.CodeLanguage;
+import com.codejoust.main.model.report.GameEndType;
+import com.codejoust.main.util.InstantDeserializer;
+import com.codejoust.main.util.InstantSerializer;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * An event in a game, as recorded in the game log and returned by the
+ * replay endpoint. Only the fields relevant to its type are set.
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GameEventDto {
+    // Position of the event in this node's log, assigned when it is appended.
+    private long sequence;
+
+    private String gameId;
+    private String roomId;
+    private GameEventType type;
+
+    @JsonSerialize(using = InstantSerializer.class)
+    @JsonDeserialize(using = InstantDeserializer.class)
+    private Instant time;
+
+    // The player the event concerns, if any.
+    private String userId;
+
+    // The whole game, for GAME_STARTED and SNAPSHOT events.
+    private GameSnapshotDto snapshot;
+
+    // The new code (CODE_UPDATED), or the language switched to (CODE_PATCHED).
+    private String code;
+    private CodeLanguage language;
+
+    // The edits as they were applied, after any rebasing (CODE_PATCHED).
+    private List<CodeEditDto> edits;
+
+    private Submission submission;
+    private GameNotificationDto notification;
+    private GameEndType endType;
+}
@@ -0,0 +1,6 @@
+package com.codejoust.main.dto.game;
+
+// The kinds of event recorded in the game log.
+public enum GameEventType {
+    GAME_STARTED, CODE_UPDATED, CODE_PATCHED, CODE_RUN, SUBMISSION, NOTIFICATION, GAME_ENDED, SNAPSHOT, GAME_ARCHIVED
+}
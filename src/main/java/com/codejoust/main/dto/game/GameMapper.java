@@ -1,23 +1,24 @@
 package com.codejoust.main.dto.game;
 
-import org.modelmapper.ModelMapper;
-import org.modelmapper.convention.MatchingStrategies;
-
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.codejoust.main.dto.problem.ProblemDto;
 import com.codejoust.main.dto.problem.ProblemMapper;
 import com.codejoust.main.dto.problem.ProblemTestCaseDto;
 import com.codejoust.main.dto.room.RoomMapper;
+import com.codejoust.main.dto.user.UserMapper;
+import com.codejoust.main.game_object.CodeDocument;
+import com.codejoust.main.game_object.CodeEdit;
 import com.codejoust.main.game_object.Game;
 import com.codejoust.main.game_object.Player;
 import com.codejoust.main.game_object.Submission;
+import com.codejoust.main.game_object.SubmissionResult;
 import com.codejoust.main.model.Room;
 import com.codejoust.main.model.User;
 import com.codejoust.main.model.problem.Problem;
@@ -26,7 +27,8 @@ import com.codejoust.main.util.Utility;
 
 public class GameMapper {
 
-    private static final ModelMapper mapper = new ModelMapper();
+    // Game states are built within each game's mailbox, so this orders a room's states.
+    private static final AtomicLong VERSIONS = new AtomicLong();
 
     protected GameMapper() {}
 
@@ -37,24 +39,41 @@ public class GameMapper {
         }
 
         GameDto gameDto = new GameDto();
+        gameDto.setVersion(VERSIONS.incrementAndGet());
         gameDto.setRoom(RoomMapper.toDto(game.getRoom()));
         gameDto.setGameTimer(GameTimerMapper.toDto(game.getGameTimer()));
         gameDto.setPlayAgain(game.getPlayAgain());
         gameDto.setGameEnded(game.getGameEnded());
 
-        // Set loose matching to allow flattening of variables in DTO objects
-        mapper.getConfiguration().setMatchingStrategy(MatchingStrategies.LOOSE);
-
+        // Players are already kept in leaderboard order
         List<PlayerDto> players = gameDto.getPlayers();
-        game.getPlayers().values().forEach(player -> players.add(mapper.map(player, PlayerDto.class)));
-        sortLeaderboard(players);
+        game.getLeaderboard().getPlayers().forEach(player -> players.add(playerToDto(player)));
 
-        List<ProblemDto> problems = new ArrayList<>();
-        ProblemDto problemDto;
+        // Problems don't change during a game, so reuse the payloads built at game creation
+        List<ProblemDto> problems = game.getProblemDtos();
+        if (problems == null) {
+            problems = toProblemDtos(game.getProblems());
+        }
+
+        gameDto.setProblems(problems);
+        gameDto.setAllSolved(game.getAllSolved());
+        gameDto.setProblemSolveCounts(game.getProblemSolveCounts().clone());
+
+        return gameDto;
+    }
+
+    /**
+     * Map the problems of a game to the payloads sent to its players, with
+     * the output removed from every test case and the input removed from
+     * hidden test cases. The returned list is unmodifiable and is shared by
+     * every GameDto of the game, so its elements must not be modified.
+     */
+    public static List<ProblemDto> toProblemDtos(List<Problem> problems) {
+        List<ProblemDto> problemDtos = new ArrayList<>(problems.size());
+
+        for (Problem problem : problems) {
+            ProblemDto problemDto = ProblemMapper.toDto(problem);
 
-        for (Problem problem : game.getProblems()) {
-            problemDto = ProblemMapper.toDto(problem);
-            
             for (ProblemTestCaseDto testcase : problemDto.getTestCases()) {
                 if (testcase.isHidden()) {
                     testcase.setInput("");
@@ -63,13 +82,10 @@ public class GameMapper {
                 testcase.setOutput("");
             }
 
-            problems.add(problemDto);
+            problemDtos.add(problemDto);
         }
 
-        gameDto.setProblems(problems);
-        gameDto.setAllSolved(game.getAllSolved());
-
-        return gameDto;
+        return Collections.unmodifiableList(problemDtos);
     }
 
     public static Game fromRoom(Room room) {
@@ -82,7 +98,6 @@ public class GameMapper {
 
         // Create players and assign colors in random order.
         int index = 0;
-        Map<String, Player> players = game.getPlayers();
         List<Color> colorList = new ArrayList<>(Utility.COLOR_LIST);
         Collections.shuffle(colorList);
 
@@ -92,7 +107,7 @@ public class GameMapper {
                 Player player = PlayerMapper.playerFromUser(user);
                 player.setColor(colorList.get(index));
                 player.setSolved(new boolean[room.getNumProblems()]);
-                players.put(user.getUserId(), player);
+                game.addPlayer(player);
                 index = (index + 1) % colorList.size();
             }
         }
@@ -109,29 +124,116 @@ public class GameMapper {
         List<SubmissionResultDto> testCases = new ArrayList<>();
 
         if (submission.getResults() != null) {
-            for (int i = 0; i < submission.getResults().size(); i++) {
-                SubmissionResultDto testCase = mapper.map(submission.getResults().get(i), SubmissionResultDto.class);
-                testCase.setCorrectOutput("");
-
-                if (testCase.isHidden()) {
-                    testCase.setInput("");
-                    testCase.setConsole("");
-                    testCase.setUserOutput("");
-                }
-
-                testCases.add(testCase);
+            for (SubmissionResult result : submission.getResults()) {
+                testCases.add(submissionResultToClientDto(result));
             }
         }
 
-
-        mapper.getConfiguration().setMatchingStrategy(MatchingStrategies.LOOSE);
-        SubmissionDto submissionDto = mapper.map(submission, SubmissionDto.class);
+        SubmissionDto submissionDto = mapSubmission(submission);
         submissionDto.setResults(testCases);
 
         return submissionDto;
     }
 
-    // Sort by numCorrect followed by startTime
+    // Clears correctOutput from the result, and input, console, and userOutput if it is hidden
+    public static SubmissionResultDto submissionResultToClientDto(SubmissionResult result) {
+        SubmissionResultDto testCase = submissionResultToDto(result);
+        testCase.setCorrectOutput("");
+
+        if (testCase.isHidden()) {
+            testCase.setInput("");
+            testCase.setConsole("");
+            testCase.setUserOutput("");
+        }
+
+        return testCase;
+    }
+
+    public static CodeEdit toCodeEdit(CodeEditDto editDto) {
+        if (editDto == null) {
+            return null;
+        }
+
+        return new CodeEdit(editDto.getStart(), editDto.getEnd(), editDto.getText());
+    }
+
+    public static CodeEditDto toCodeEditDto(CodeEdit edit) {
+        if (edit == null) {
+            return null;
+        }
+
+        CodeEditDto editDto = new CodeEditDto();
+        editDto.setStart(edit.getStart());
+        editDto.setEnd(edit.getEnd());
+        editDto.setText(edit.getText());
+        return editDto;
+    }
+
+    // The whole code at its current version, for a client to resync from.
+    public static CodeSyncDto toCodeSyncDto(CodeDocument document) {
+        CodeSyncDto codeSyncDto = new CodeSyncDto();
+        codeSyncDto.setVersion(document.getVersion());
+
+        if (document.getPlayerCode() != null) {
+            codeSyncDto.setCode(document.getPlayerCode().getCode());
+            codeSyncDto.setLanguage(document.getPlayerCode().getLanguage());
+        }
+
+        return codeSyncDto;
+    }
+
+    // Maps a player with all of their submissions, without removing any results.
+    private static PlayerDto playerToDto(Player player) {
+        PlayerDto playerDto = new PlayerDto();
+        playerDto.setUser(UserMapper.toDto(player.getUser()));
+        playerDto.setSubmissions(Utility.mapList(player.getSubmissions(), GameMapper::mapSubmission));
+        playerDto.setSolved(player.getSolved() == null ? null : player.getSolved().clone());
+        playerDto.setColor(player.getColor());
+
+        if (player.getPlayerCode() != null) {
+            playerDto.setCode(player.getPlayerCode().getCode());
+            playerDto.setLanguage(player.getPlayerCode().getLanguage());
+        }
+
+        return playerDto;
+    }
+
+    private static SubmissionDto mapSubmission(Submission submission) {
+        SubmissionDto submissionDto = new SubmissionDto();
+        submissionDto.setProblemIndex(submission.getProblemIndex());
+        submissionDto.setResults(Utility.mapList(submission.getResults(), GameMapper::submissionResultToDto));
+        submissionDto.setNumCorrect(submission.getNumCorrect());
+        submissionDto.setNumTestCases(submission.getNumTestCases());
+        submissionDto.setRuntime(submission.getRuntime());
+        submissionDto.setCompilationError(submission.getCompilationError());
+        submissionDto.setStartTime(submission.getStartTime());
+
+        if (submission.getPlayerCode() != null) {
+            submissionDto.setCode(submission.getPlayerCode().getCode());
+            submissionDto.setLanguage(submission.getPlayerCode().getLanguage());
+        }
+
+        return submissionDto;
+    }
+
+    private static SubmissionResultDto submissionResultToDto(SubmissionResult result) {
+        SubmissionResultDto resultDto = new SubmissionResultDto();
+        resultDto.setConsole(result.getConsole());
+        resultDto.setUserOutput(result.getUserOutput());
+        resultDto.setError(result.getError());
+        resultDto.setInput(result.getInput());
+        resultDto.setCorrectOutput(result.getCorrectOutput());
+        resultDto.setHidden(result.isHidden());
+        resultDto.setCorrect(result.isCorrect());
+
+        return resultDto;
+    }
+
+    /**
+     * Sort by numCorrect followed by startTime. Games keep their players in
+     * this order as submissions come in (see Leaderboard), so this is only
+     * needed for player lists built elsewhere.
+     */
     public static void sortLeaderboard(List<PlayerDto> players) {
         players.sort((player1, player2) -> {
             List<SubmissionDto> submissions1 = player1.getSubmissions();
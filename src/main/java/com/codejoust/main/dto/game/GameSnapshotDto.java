@@ -0,0 +1,43 @@
+package com.codejoust.main.dto.game;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.codejoust.main.util.InstantDeserializer;
+import com.codejoust.main.util.InstantSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The state of a game needed to rebuild it, along with its room (which is
+ * persisted) and its problems (by id).
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+public class GameSnapshotDto {
+    private String gameId;
+    private String roomId;
+    private List<String> problemIds = new ArrayList<>();
+
+    @JsonSerialize(using = InstantSerializer.class)
+    @JsonDeserialize(using = InstantDeserializer.class)
+    private Instant startTime;
+
+    // The game duration, in seconds.
+    private Long duration;
+
+    @JsonSerialize(using = InstantSerializer.class)
+    @JsonDeserialize(using = InstantDeserializer.class)
+    private Instant endTime;
+
+    private boolean timeUp;
+    private boolean gameEnded;
+    private boolean playAgain;
+    private List<PlayerSnapshotDto> players = new ArrayList<>();
+}
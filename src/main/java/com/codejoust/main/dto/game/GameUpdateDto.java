@@ -0,0 +1,29 @@
+package com.codejoust.main.dto.game;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A game update sent through the game socket: either the complete game, or
+ * a patch to apply to the game as of the previous update. Clients whose
+ * game isn't at the previous sequence must fetch it again instead.
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GameUpdateDto {
+    // Increases by one with each update sent to the room.
+    private long sequence;
+
+    // The complete game, as a GameDto; set when there is no patch.
+    private JsonNode game;
+
+    private List<PatchOperationDto> patch;
+}
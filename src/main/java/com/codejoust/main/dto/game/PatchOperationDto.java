@@ -0,0 +1,26 @@
+package com.codejoust.main.dto.game;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A JSON Patch (RFC 6902) operation: one of add, remove or replace, at a
+ * JSON Pointer path (e.g. "/players/0/code").
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatchOperationDto {
+    private String op;
+    private String path;
+
+    // The value to add or replace with (which may be JSON null); null for remove.
+    private JsonNode value;
+}
@@ -0,0 +1,27 @@
+package com.codejoust.main.dto.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.codejoust.main.game_object.Submission;
+import com.codejoust.main.model.report.CodeLanguage;
+import com.codejoust.main.util.Color;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@EqualsAndHashCode
+public class PlayerSnapshotDto {
+    private String userId;
+    private Color color;
+
+    // The player's live code, if they have any.
+    private String code;
+    private CodeLanguage language;
+
+    // Submissions in order of first-to-last submitted.
+    private List<Submission> submissions = new ArrayList<>();
+}
@@ -3,12 +3,8 @@ package com.codejoust.main.dto.game;
 import com.codejoust.main.dto.problem.ProblemTestCaseDto;
 import com.codejoust.main.game_object.SubmissionResult;
 
-import org.modelmapper.ModelMapper;
-
 public class SubmissionMapper {
 
-    private static final ModelMapper mapper = new ModelMapper();
-
     protected SubmissionMapper() {}
 
     /**
@@ -24,7 +20,12 @@ public class SubmissionMapper {
             return null;
         }
 
-        SubmissionResult submissionResult = mapper.map(testerResult, SubmissionResult.class);
+        SubmissionResult submissionResult = new SubmissionResult();
+        submissionResult.setConsole(testerResult.getConsole());
+        submissionResult.setUserOutput(testerResult.getUserOutput());
+        submissionResult.setError(testerResult.getError());
+        submissionResult.setCorrectOutput(testerResult.getCorrectOutput());
+        submissionResult.setCorrect(testerResult.isCorrect());
         submissionResult.setHidden(testCaseDto.isHidden());
         submissionResult.setInput(testCaseDto.getInput());
         return submissionResult;
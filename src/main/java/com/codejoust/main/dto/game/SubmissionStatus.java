@@ -0,0 +1,5 @@
+package com.codejoust.main.dto.game;
+
+public enum SubmissionStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED
+}
@@ -0,0 +1,28 @@
+package com.codejoust.main.dto.game;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+import com.codejoust.main.exception.api.ApiErrorResponse;
+
+/**
+ * Tracks an asynchronous submission or code run. The ticket is returned as
+ * QUEUED (with its position in the queue) when the request is accepted, sent
+ * again over the user's submission socket whenever that position moves, as
+ * RUNNING with each test case's result (and its index) as it is judged, then
+ * once it is COMPLETED (with the submission) or FAILED (with the error).
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+public class SubmissionTicketDto {
+    private String submissionId;
+    private SubmissionStatus status;
+    private SubmissionType type;
+    private Integer queuePosition;
+    private Integer resultIndex;
+    private SubmissionResultDto result;
+    private SubmissionDto submission;
+    private ApiErrorResponse error;
+}
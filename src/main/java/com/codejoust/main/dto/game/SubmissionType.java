@@ -0,0 +1,6 @@
+package com.codejoust.main.dto.game;
+
+// Distinguishes code runs against custom input (tests) from submissions.
+public enum SubmissionType {
+    TEST, SUBMIT
+}
@@ -2,6 +2,7 @@ package com.codejoust.main.dto.game;
 
 import com.codejoust.main.dto.problem.ProblemDto;
 import com.codejoust.main.model.report.CodeLanguage;
+import com.codejoust.main.util.TesterProblemCache;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -13,4 +14,13 @@ public class TesterRequest {
     private String code;
     private CodeLanguage language;
     private ProblemDto problem;
+
+    // Stop judging at the first failing test case; the rest are not run.
+    private boolean failFast;
+
+    // The problem already serialized to JSON, sent in its place if set; it is never serialized itself.
+    private transient byte[] problemJson;
+
+    // The cached payload the problem's test cases come from, so copies with only some of them are serialized from it too.
+    private transient TesterProblemCache.Payload problemPayload;
 }
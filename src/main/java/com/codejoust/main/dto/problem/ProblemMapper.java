@@ -1,24 +1,34 @@
 package com.codejoust.main.dto.problem;
 
+import com.codejoust.main.dto.account.AccountMapper;
 import com.codejoust.main.model.problem.Problem;
 import com.codejoust.main.model.problem.ProblemInput;
 import com.codejoust.main.model.problem.ProblemTag;
 import com.codejoust.main.model.problem.ProblemTestCase;
-
-import org.modelmapper.ModelMapper;
+import com.codejoust.main.util.Utility;
 
 public class ProblemMapper {
 
     protected ProblemMapper() {}
 
-    private static final ModelMapper mapper = new ModelMapper();
-
     public static ProblemDto toDto(Problem entity) {
         if (entity == null) {
             return null;
         }
-        
-        return mapper.map(entity, ProblemDto.class);
+
+        ProblemDto problemDto = new ProblemDto();
+        problemDto.setProblemId(entity.getProblemId());
+        problemDto.setName(entity.getName());
+        problemDto.setOwner(AccountMapper.toUidDto(entity.getOwner()));
+        problemDto.setDescription(entity.getDescription());
+        problemDto.setVerified(entity.getVerified());
+        problemDto.setDifficulty(entity.getDifficulty());
+        problemDto.setTestCases(Utility.mapList(entity.getTestCases(), ProblemMapper::toTestCaseDto));
+        problemDto.setProblemTags(Utility.mapList(entity.getProblemTags(), ProblemMapper::toProblemTagDto));
+        problemDto.setProblemInputs(Utility.mapList(entity.getProblemInputs(), ProblemMapper::toProblemInputDto));
+        problemDto.setOutputType(entity.getOutputType());
+
+        return problemDto;
     }
 
     public static ProblemTestCaseDto toTestCaseDto(ProblemTestCase entity) {
@@ -26,7 +36,13 @@ public class ProblemMapper {
             return null;
         }
 
-        return mapper.map(entity, ProblemTestCaseDto.class);
+        ProblemTestCaseDto testCaseDto = new ProblemTestCaseDto();
+        testCaseDto.setInput(entity.getInput());
+        testCaseDto.setOutput(entity.getOutput());
+        testCaseDto.setHidden(Boolean.TRUE.equals(entity.getHidden()));
+        testCaseDto.setExplanation(entity.getExplanation());
+
+        return testCaseDto;
     }
 
     public static ProblemInputDto toProblemInputDto(ProblemInput entity) {
@@ -34,7 +50,7 @@ public class ProblemMapper {
             return null;
         }
 
-        return mapper.map(entity, ProblemInputDto.class);
+        return new ProblemInputDto(entity.getName(), entity.getType());
     }
 
     public static ProblemInput toProblemInputEntity(ProblemInputDto dto) {
@@ -42,14 +58,32 @@ public class ProblemMapper {
             return null;
         }
 
-        return mapper.map(dto, ProblemInput.class);
+        return new ProblemInput(dto.getName(), dto.getType());
     }
 
     public static ProblemTagDto toProblemTagDto(ProblemTag entity) {
         if (entity == null) {
             return null;
         }
-        
-        return mapper.map(entity, ProblemTagDto.class);
+
+        ProblemTagDto problemTagDto = new ProblemTagDto();
+        problemTagDto.setTagId(entity.getTagId());
+        problemTagDto.setName(entity.getName());
+
+        return problemTagDto;
+    }
+
+    public static SelectableProblemDto toSelectableProblemDto(Problem entity) {
+        if (entity == null) {
+            return null;
+        }
+
+        // The problem tags are not included.
+        SelectableProblemDto selectableProblemDto = new SelectableProblemDto();
+        selectableProblemDto.setProblemId(entity.getProblemId());
+        selectableProblemDto.setName(entity.getName());
+        selectableProblemDto.setDifficulty(entity.getDifficulty());
+
+        return selectableProblemDto;
     }
 }
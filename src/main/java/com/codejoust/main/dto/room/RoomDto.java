@@ -25,4 +25,6 @@ public class RoomDto {
     private long duration;
     private int size;
     private int numProblems;
+    private boolean cacheResults;
+    private boolean failFast;
 }
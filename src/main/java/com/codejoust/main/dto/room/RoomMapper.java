@@ -3,22 +3,45 @@ package com.codejoust.main.dto.room;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.codejoust.main.dto.problem.ProblemMapper;
 import com.codejoust.main.dto.user.UserDto;
+import com.codejoust.main.dto.user.UserMapper;
 import com.codejoust.main.model.Room;
-
-import org.modelmapper.ModelMapper;
+import com.codejoust.main.util.Utility;
 
 public class RoomMapper {
 
     protected RoomMapper() {}
 
-    private static final ModelMapper mapper = new ModelMapper();
-
     public static RoomDto toDto(Room entity) {
         if (entity == null) {
             return null;
         }
-        RoomDto roomDto = mapper.map(entity, RoomDto.class);
+
+        RoomDto roomDto = new RoomDto();
+        roomDto.setRoomId(entity.getRoomId());
+        roomDto.setHost(UserMapper.toDto(entity.getHost()));
+        roomDto.setUsers(Utility.mapList(entity.getUsers(), UserMapper::toDto));
+        roomDto.setDifficulty(entity.getDifficulty());
+        roomDto.setProblems(Utility.mapList(entity.getProblems(), ProblemMapper::toSelectableProblemDto));
+
+        // Unset values map to the defaults of the primitive fields.
+        if (entity.getActive() != null) {
+            roomDto.setActive(entity.getActive());
+        }
+        if (entity.getDuration() != null) {
+            roomDto.setDuration(entity.getDuration());
+        }
+        if (entity.getSize() != null) {
+            roomDto.setSize(entity.getSize());
+        }
+        if (entity.getNumProblems() != null) {
+            roomDto.setNumProblems(entity.getNumProblems());
+        }
+
+        // Rooms created before the setting existed keep caching on.
+        roomDto.setCacheResults(!Boolean.FALSE.equals(entity.getCacheResults()));
+        roomDto.setFailFast(Boolean.TRUE.equals(entity.getFailFast()));
 
         // Separate users into active and inactive ones, spectator list.
         List<UserDto> activeUsers = new ArrayList<>();
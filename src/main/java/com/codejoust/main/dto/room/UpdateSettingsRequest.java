@@ -18,4 +18,6 @@ public class UpdateSettingsRequest {
     private Integer size;
     private Integer numProblems;
     private List<SelectableProblemDto> problems;
+    private Boolean cacheResults;
+    private Boolean failFast;
 }
@@ -1,21 +1,26 @@
 package com.codejoust.main.dto.user;
 
+import com.codejoust.main.dto.account.AccountMapper;
+import com.codejoust.main.model.Account;
 import com.codejoust.main.model.User;
 
-import org.modelmapper.ModelMapper;
-import org.modelmapper.convention.MatchingStrategies;
-
 public class UserMapper {
 
-    private static final ModelMapper mapper = new ModelMapper();
-
     protected UserMapper() {}
 
     public static UserDto toDto(User entity) {
         if (entity == null) {
             return null;
         }
-        return mapper.map(entity, UserDto.class);
+
+        UserDto userDto = new UserDto();
+        userDto.setUserId(entity.getUserId());
+        userDto.setNickname(entity.getNickname());
+        userDto.setSpectator(entity.getSpectator());
+        userDto.setSessionId(entity.getSessionId());
+        userDto.setAccount(AccountMapper.toUidDto(entity.getAccount()));
+
+        return userDto;
     }
 
     public static User toEntity(UserDto dto) {
@@ -23,10 +28,19 @@ public class UserMapper {
             return null;
         }
 
-        // Matches strict variable names: https://stackoverflow.com/questions/49831753/modelmapper-matches-multiple-source-property-hierarchies.
-        mapper.getConfiguration()
-            .setMatchingStrategy(MatchingStrategies.STRICT);
-        
-        return mapper.map(dto, User.class);
+        User user = new User();
+        user.setUserId(dto.getUserId());
+        user.setNickname(dto.getNickname());
+        user.setSpectator(dto.getSpectator());
+        user.setSessionId(dto.getSessionId());
+
+        // Only the account's UID is known; an account without one is left out.
+        if (dto.getAccount() != null && dto.getAccount().getUid() != null) {
+            Account account = new Account();
+            account.setUid(dto.getAccount().getUid());
+            user.setAccount(account);
+        }
+
+        return user;
     }
 }
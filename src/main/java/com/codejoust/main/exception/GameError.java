@@ -10,15 +10,19 @@ import org.springframework.http.HttpStatus;
 @Getter
 public enum GameError implements ApiError {
 
+    BAD_CODE_PATCH(HttpStatus.BAD_REQUEST, "The code edits do not fit the code they were made against."),
     BAD_LANGUAGE(HttpStatus.BAD_REQUEST, "An invalid language was chosen."),
     BAD_SETTING(HttpStatus.BAD_REQUEST, "An invalid game setting was provided."),
+    CODE_OUT_OF_SYNC(HttpStatus.CONFLICT, "The code has changed since these edits were made. Please fetch the latest code and try again."),
     EMPTY_FIELD(HttpStatus.BAD_REQUEST, "Please ensure a value is provided for each required field."),
     GAME_NOT_OVER(HttpStatus.FORBIDDEN, "You may not perform this action because the game is not over."),
     INVALID_PERMISSIONS(HttpStatus.FORBIDDEN, "You do not have permission to perform this action."),
     NOT_FOUND(HttpStatus.NOT_FOUND, "A game could not be found with the given id."),
     NOTIFICATION_REQUIRES_INITIATOR(HttpStatus.BAD_REQUEST, "The request action could not be completed because an initiator is required for this notification."),
     NOTIFICATION_REQUIRES_CONTENT(HttpStatus.BAD_REQUEST, "The request action could not be completed because content is required for this notification."),
+    SUBMISSION_QUEUE_FULL(HttpStatus.SERVICE_UNAVAILABLE, "Too many submissions are waiting to be tested. Please try again shortly."),
     TESTER_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, "An internal error occurred connecting to the tester service."),
+    TOO_MANY_SUBMISSIONS(HttpStatus.TOO_MANY_REQUESTS, "You are running or submitting code too quickly. Please wait a moment and try again."),
     USER_NOT_IN_GAME(HttpStatus.BAD_REQUEST, "The requested action could not be completed because the user is not in the game.");
 
     private final HttpStatus status;
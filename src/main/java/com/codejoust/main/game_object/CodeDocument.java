@@ -0,0 +1,146 @@
+package com.codejoust.main.game_object;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import com.codejoust.main.exception.GameError;
+import com.codejoust.main.exception.api.ApiException;
+import com.codejoust.main.model.report.CodeLanguage;
+
+/**
+ * A player's live code, updated in place by versioned batches of edits
+ * rather than replaced on every change. Each batch names the version it was
+ * made against: if other batches were applied since, it is rebased over
+ * them, and if that isn't possible (it's too old, or overlaps them), it is
+ * rejected and the client is expected to fetch the whole code again.
+ *
+ * Like the rest of the game, it's only modified through the room's mailbox.
+ */
+public class CodeDocument {
+
+    // Number of recent batches kept, against which late batches can be rebased.
+    public static final int MAX_HISTORY = 64;
+
+    private final StringBuilder text = new StringBuilder();
+
+    private CodeLanguage language;
+
+    private int version = 0;
+
+    // Whether the player has any code yet (before then, getPlayerCode is null).
+    private boolean present = false;
+
+    // The batches that produced the latest versions, oldest first.
+    private final Deque<List<CodeEdit>> history = new ArrayDeque<>();
+
+    // The code as a PlayerCode, built when first needed after each change.
+    private PlayerCode snapshot;
+
+    /**
+     * Apply a batch of edits, each relative to the text left by the ones
+     * before it.
+     *
+     * @param baseVersion The version the edits were made against.
+     * @param language The language to switch to, or null to keep it.
+     * @param edits The edits to apply.
+     * @return The new version.
+     */
+    public int apply(int baseVersion, CodeLanguage language, List<CodeEdit> edits) {
+        int behind = version - baseVersion;
+        if (behind < 0 || behind > history.size()) {
+            throw new ApiException(GameError.CODE_OUT_OF_SYNC);
+        }
+
+        List<CodeEdit> rebased = behind == 0 ? edits : rebase(edits, behind);
+
+        // Check every edit before applying any, so a bad batch changes nothing.
+        int length = text.length();
+        for (CodeEdit edit : rebased) {
+            if (edit.getStart() < 0 || edit.getStart() > edit.getEnd() || edit.getEnd() > length) {
+                throw new ApiException(GameError.BAD_CODE_PATCH);
+            }
+            length += edit.getDelta();
+        }
+
+        for (CodeEdit edit : rebased) {
+            text.replace(edit.getStart(), edit.getEnd(), edit.getText());
+        }
+
+        if (language != null) {
+            this.language = language;
+        }
+
+        history.addLast(rebased);
+        if (history.size() > MAX_HISTORY) {
+            history.removeFirst();
+        }
+
+        present = true;
+        snapshot = null;
+        return ++version;
+    }
+
+    /**
+     * Replace the whole code. Batches made against earlier versions can no
+     * longer be rebased.
+     *
+     * @return The new version.
+     */
+    public int reset(PlayerCode playerCode) {
+        text.setLength(0);
+        if (playerCode != null && playerCode.getCode() != null) {
+            text.append(playerCode.getCode());
+        }
+
+        language = playerCode == null ? null : playerCode.getLanguage();
+        present = playerCode != null;
+        snapshot = playerCode;
+        history.clear();
+        return ++version;
+    }
+
+    public PlayerCode getPlayerCode() {
+        if (present && snapshot == null) {
+            snapshot = new PlayerCode(text.toString(), language);
+        }
+
+        return snapshot;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    // The edits of the latest batch as they were applied, or null after a reset.
+    public List<CodeEdit> getLastBatch() {
+        return history.peekLast();
+    }
+
+    // Rebase the edits over the latest batches, in the order they were applied.
+    private List<CodeEdit> rebase(List<CodeEdit> edits, int behind) {
+        List<CodeEdit> applied = new ArrayList<>();
+        Iterator<List<CodeEdit>> batches = history.descendingIterator();
+        for (int i = 0; i < behind; i++) {
+            applied.addAll(0, batches.next());
+        }
+
+        List<CodeEdit> rebased = new ArrayList<>(edits.size());
+        for (CodeEdit edit : edits) {
+            for (int i = 0; i < applied.size(); i++) {
+                CodeEdit[] transformed = CodeEdit.transform(edit, applied.get(i));
+                if (transformed == null) {
+                    throw new ApiException(GameError.CODE_OUT_OF_SYNC);
+                }
+
+                edit = transformed[0];
+                applied.set(i, transformed[1]);
+            }
+            rebased.add(edit);
+        }
+
+        return rebased;
+    }
+}
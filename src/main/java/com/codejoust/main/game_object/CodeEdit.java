@@ -0,0 +1,63 @@
+package com.codejoust.main.game_object;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * A single text edit: the characters from start (inclusive) to end
+ * (exclusive) are replaced with the given text. An insertion has start equal
+ * to end; a deletion has empty text.
+ */
+@Getter
+@EqualsAndHashCode
+public class CodeEdit {
+
+    private final int start;
+
+    private final int end;
+
+    private final String text;
+
+    public CodeEdit(int start, int end, String text) {
+        this.start = start;
+        this.end = end;
+        this.text = text == null ? "" : text;
+    }
+
+    // Change in the document's length once this edit is applied.
+    public int getDelta() {
+        return text.length() - (end - start);
+    }
+
+    private boolean isInsert() {
+        return start == end;
+    }
+
+    private CodeEdit shift(int delta) {
+        return delta == 0 ? this : new CodeEdit(start + delta, end + delta, text);
+    }
+
+    /**
+     * Transform two edits made concurrently to the same document, so that
+     * each can be applied after the other.
+     *
+     * @param edit The edit to rebase.
+     * @param applied The edit that was applied first; if both insert at the
+     * same position, its text goes first.
+     * @return The edit as it applies after the applied one, then the applied
+     * edit as it applies after this one, or null if their ranges overlap and
+     * can't be reconciled.
+     */
+    public static CodeEdit[] transform(CodeEdit edit, CodeEdit applied) {
+        boolean bothInsertAt = edit.isInsert() && applied.isInsert() && edit.start == applied.start;
+
+        if (applied.end <= edit.start || bothInsertAt) {
+            // The applied edit comes first, so this edit moves along with it.
+            return new CodeEdit[] { edit.shift(applied.getDelta()), applied };
+        } else if (edit.end <= applied.start) {
+            return new CodeEdit[] { edit, applied.shift(edit.getDelta()) };
+        }
+
+        return null;
+    }
+}
@@ -1,26 +1,47 @@
 package com.codejoust.main.game_object;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
+import com.codejoust.main.dto.problem.ProblemDto;
 import com.codejoust.main.model.Room;
 import com.codejoust.main.model.problem.Problem;
+import com.codejoust.main.util.RoomMailbox;
 
 @Getter
 @Setter
 public class Game {
 
+    // Identifies this game among the games played in its room.
+    private String gameId = UUID.randomUUID().toString();
+
     private Room room;
 
     private List<Problem> problems = new ArrayList<>();
 
-    // Map from userId to associated player object
-    private Map<String, Player> players = new HashMap<>();
+    // Sanitized problem payloads, built once when the game's problems are chosen.
+    private List<ProblemDto> problemDtos;
+
+    // Map from userId to associated player object; players are added through addPlayer.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<String, Player> players = new HashMap<>();
+
+    // The players in leaderboard order, updated as submissions are recorded.
+    @Setter(AccessLevel.NONE)
+    private Leaderboard leaderboard = new Leaderboard();
 
     private GameTimer gameTimer;
 
@@ -29,6 +50,103 @@ public class Game {
     // Boolean to hold whether all users have solved the problem.
     private Boolean allSolved = false;
 
+    // Number of (player, problem) pairs not yet solved; all solved at zero.
+    @Setter(AccessLevel.NONE)
+    private int unsolvedCount = 0;
+
+    // Number of players who have solved each problem, by problem index.
+    @Setter(AccessLevel.NONE)
+    private int[] problemSolveCounts = new int[0];
+
     // Boolean to hold whether the host ended the game early
     private Boolean gameEnded = false;
+
+    // Mailbox through which all mutations of this game are applied in order.
+    private RoomMailbox mailbox = RoomMailbox.inline();
+
+    // The time this game was first seen to be over (null while in progress).
+    private Instant finishedTime;
+
+    // Boolean to hold whether this game has been archived as a game report.
+    private boolean archived = false;
+
+    // Boolean to hold whether the game's end has been recorded in the game log.
+    private boolean endLogged = false;
+
+    // Number of submissions that failed each test case, by problem index.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<Integer, AtomicIntegerArray> testCaseFailures = new ConcurrentHashMap<>();
+
+    // Read-only view of the players by userId, so they can't bypass the counters.
+    public Map<String, Player> getPlayers() {
+        return Collections.unmodifiableMap(players);
+    }
+
+    // Add a player (with their solved array set) to the game and its leaderboard.
+    public void addPlayer(Player player) {
+        Player previous = players.put(player.getUser().getUserId(), player);
+        if (previous != null) {
+            leaderboard.remove(previous);
+            countSolved(previous, -1);
+        }
+        leaderboard.add(player);
+        countSolved(player, 1);
+    }
+
+    /**
+     * Record a player's submission and update their leaderboard position. If
+     * it solved a new problem, update the solve counters in constant time,
+     * setting allSolved once the last unsolved problem is solved.
+     *
+     * @param player The player who submitted.
+     * @param submission The judged submission.
+     */
+    public void recordSubmission(Player player, Submission submission) {
+        boolean newlySolved = player.addSubmission(submission);
+        leaderboard.update(player);
+
+        if (newlySolved) {
+            unsolvedCount--;
+            problemSolveCounts[submission.getProblemIndex()]++;
+
+            if (unsolvedCount == 0) {
+                allSolved = true;
+            }
+        }
+    }
+
+    // Failure counts of the problem's test cases, which may be updated from any thread.
+    public AtomicIntegerArray getTestCaseFailures(int problemIndex, int numTestCases) {
+        AtomicIntegerArray failures = testCaseFailures.computeIfAbsent(problemIndex,
+            index -> new AtomicIntegerArray(numTestCases));
+
+        // The problem's test cases changed since the counts were started.
+        if (failures.length() != numTestCases) {
+            failures = new AtomicIntegerArray(numTestCases);
+            testCaseFailures.put(problemIndex, failures);
+        }
+
+        return failures;
+    }
+
+    // Add (sign 1) or remove (sign -1) a player's solved array from the counters.
+    private void countSolved(Player player, int sign) {
+        boolean[] solved = player.getSolved();
+        if (solved == null) {
+            return;
+        }
+
+        if (problemSolveCounts.length < solved.length) {
+            problemSolveCounts = Arrays.copyOf(problemSolveCounts, solved.length);
+        }
+
+        for (int i = 0; i < solved.length; i++) {
+            if (solved[i]) {
+                problemSolveCounts[i] += sign;
+            } else {
+                unsolvedCount += sign;
+            }
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package com.codejoust.main.game_object;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -7,7 +8,9 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
+import java.util.concurrent.TimeUnit;
+
+import com.codejoust.main.util.TimingWheel;
 
 /**
  * The Timer class handles the timing for the Game.
@@ -41,9 +44,13 @@ public class GameTimer {
 
     private boolean timeUp = false;
 
-    private Timer timer;
+    // Handles to the end game and notification tasks scheduled for this game.
+    @Setter(AccessLevel.NONE)
+    @Getter(AccessLevel.NONE)
+    private final List<TimingWheel.Timeout> timeouts = new ArrayList<>();
 
-    private List<Timer> notificationTimers = new ArrayList<>();
+    @Setter(AccessLevel.NONE)
+    private boolean cancelled = false;
 
     /**
      * Instantiate the GameTimer class, and schedule the end game task after
@@ -54,7 +61,38 @@ public class GameTimer {
     public GameTimer(Long duration) {
         this.duration = duration;
         this.endTime = this.startTime.plusSeconds(duration);
-        this.timer = new Timer();
+    }
+
+    /**
+     * Schedule a task for this game on the shared timing wheel. Tasks
+     * scheduled after the timer has been cancelled never run.
+     *
+     * @param timingWheel The wheel to schedule the task on.
+     * @param task The task to run.
+     * @param delay The delay before running the task.
+     * @param unit The unit of the delay.
+     */
+    public synchronized void schedule(TimingWheel timingWheel, Runnable task, long delay, TimeUnit unit) {
+        if (cancelled) {
+            return;
+        }
+
+        timeouts.add(timingWheel.schedule(task, delay, unit));
+    }
+
+    // Cancel the end game task and all time left notification tasks.
+    public synchronized void cancel() {
+        cancelled = true;
+
+        for (TimingWheel.Timeout timeout : timeouts) {
+            timeout.cancel();
+        }
+        timeouts.clear();
+    }
+
+    // Number of tasks scheduled and not yet cancelled.
+    public synchronized int getScheduledCount() {
+        return timeouts.size();
     }
 
 }
@@ -0,0 +1,92 @@
+package com.codejoust.main.game_object;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The players of a game, kept in leaderboard order as submissions come in.
+ *
+ * Players are ranked by the number of problems solved (highest first), then
+ * by the time they solved their latest problem (earliest first). Players who
+ * haven't submitted yet are ranked last. Ties keep the order in which the
+ * players reached that position. Reading the ranking is O(players), and so is
+ * repositioning a player after a submission.
+ */
+public class Leaderboard {
+
+    public static final Comparator<Player> RANKING = (player1, player2) -> {
+        // Players who haven't submitted yet are sorted last
+        boolean submitted1 = !player1.getSubmissions().isEmpty();
+        boolean submitted2 = !player2.getSubmissions().isEmpty();
+        if (submitted1 != submitted2) {
+            return submitted1 ? -1 : 1;
+        }
+
+        // Whoever has solved more problems is first
+        if (player1.getScore() != player2.getScore()) {
+            return player2.getScore() - player1.getScore();
+        }
+
+        // If both have solved the same number, whoever solved earlier is first
+        Instant time1 = player1.getLastSolvedTime();
+        Instant time2 = player2.getLastSolvedTime();
+        if (time1 == null || time2 == null) {
+            return 0;
+        }
+
+        return time1.compareTo(time2);
+    };
+
+    private final List<Player> ranking = new ArrayList<>();
+
+    // Add a new player at their ranked position.
+    public void add(Player player) {
+        insert(player);
+    }
+
+    public void remove(Player player) {
+        int index = indexOf(player);
+        if (index >= 0) {
+            ranking.remove(index);
+        }
+    }
+
+    // Move a player whose score or submissions changed to their new position.
+    public void update(Player player) {
+        remove(player);
+        insert(player);
+    }
+
+    // Unmodifiable view of the players, in leaderboard order.
+    public List<Player> getPlayers() {
+        return Collections.unmodifiableList(ranking);
+    }
+
+    public int size() {
+        return ranking.size();
+    }
+
+    private void insert(Player player) {
+        // Insert after every player ranked at or above this one.
+        int index = 0;
+        while (index < ranking.size() && RANKING.compare(ranking.get(index), player) <= 0) {
+            index++;
+        }
+
+        ranking.add(index, player);
+    }
+
+    // Players are compared by identity, since equal players may be distinct.
+    private int indexOf(Player player) {
+        for (int i = 0; i < ranking.size(); i++) {
+            if (ranking.get(i) == player) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -1,11 +1,15 @@
 package com.codejoust.main.game_object;
 
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.codejoust.main.model.User;
 import com.codejoust.main.util.Color;
@@ -18,8 +22,9 @@ public class Player {
     // User associated with this Player object.
     private User user;
 
-    // Updated field to hold the user's current-language code.
-    private PlayerCode playerCode;
+    // Updated field to hold the user's current-language code, edited in place.
+    @EqualsAndHashCode.Exclude
+    private final CodeDocument codeDocument = new CodeDocument();
 
     // Submissions in order of first-to-last submitted.
     private List<Submission> submissions = new ArrayList<>();
@@ -32,4 +37,54 @@ public class Player {
 
     // Color associated with this player, generated on backend in game start.
     private Color color;
+
+    // Number of distinct problems solved, maintained by addSubmission.
+    @Setter(AccessLevel.NONE)
+    private int score = 0;
+
+    // Time of the submission that most recently solved a new problem.
+    @Setter(AccessLevel.NONE)
+    private Instant lastSolvedTime;
+
+    // Indices of the problems solved so far.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Set<Integer> solvedProblemIndices = new HashSet<>();
+
+    @EqualsAndHashCode.Include
+    public PlayerCode getPlayerCode() {
+        return codeDocument.getPlayerCode();
+    }
+
+    // Replace the player's code as a whole.
+    public void setPlayerCode(PlayerCode playerCode) {
+        codeDocument.reset(playerCode);
+    }
+
+    /**
+     * Record a submission, updating the score, the latest solve time and the
+     * solved array if it is the first correct submission for its problem.
+     *
+     * @param submission The submission to add.
+     * @return true if the submission changed its problem to solved.
+     */
+    public boolean addSubmission(Submission submission) {
+        submissions.add(submission);
+
+        boolean correct = submission.getNumCorrect() != null
+            && submission.getNumCorrect().equals(submission.getNumTestCases());
+        int problemIndex = submission.getProblemIndex();
+        if (!correct || !solvedProblemIndices.add(problemIndex)) {
+            return false;
+        }
+
+        score++;
+        lastSolvedTime = submission.getStartTime();
+
+        if (solved == null || problemIndex >= solved.length || solved[problemIndex]) {
+            return false;
+        }
+        solved[problemIndex] = true;
+        return true;
+    }
 }
@@ -66,6 +66,12 @@ public class Room {
 
     private Integer size = 10;
 
+    // Whether identical submissions may reuse an earlier tester response
+    private Boolean cacheResults = true;
+
+    // Whether submissions stop being judged at their first failing test case
+    private Boolean failFast = false;
+
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinColumn(name = "selectable_problem_id")
     @Fetch(FetchMode.SUBSELECT)
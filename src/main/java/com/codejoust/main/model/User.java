@@ -3,7 +3,9 @@ package com.codejoust.main.model;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.persistence.CascadeType;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -11,6 +13,7 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.Transient;
 
 import com.codejoust.main.model.report.SubmissionGroupReport;
 
@@ -24,6 +27,7 @@ import lombok.Setter;
 
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @Entity
+@EntityListeners(UserPresenceListener.class)
 @Getter
 @Setter
 public class User {
@@ -43,8 +47,10 @@ public class User {
     private Boolean spectator = false;
     /**
      * The session ID of the user connection, auto-generated by sockets. If
-     * this is null, then the user is not connected to the room.
+     * this is null, then the user is not connected to the room. This is
+     * kept in the presence registry, not the database, and set on load.
      */
+    @Transient
     private String sessionId;
 
     // This column holds the primary key of the account
@@ -58,7 +64,7 @@ public class User {
     private Room room;
 
     // Thie list holds the submission group associated with the current room
-    @OneToMany(fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
     @Setter(AccessLevel.PRIVATE)
     @Fetch(value = FetchMode.SUBSELECT)
     @JoinColumn(name = "submission_group_reports_table_id")
@@ -0,0 +1,28 @@
+package com.codejoust.main.model;
+
+import javax.persistence.PostLoad;
+
+import com.codejoust.main.util.PresenceRegistry;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sets the session ID of each user loaded from the presence registry, as
+ * it's kept there rather than in the database.
+ */
+@Component
+public class UserPresenceListener {
+
+    private final PresenceRegistry presenceRegistry;
+
+    @Autowired
+    public UserPresenceListener(PresenceRegistry presenceRegistry) {
+        this.presenceRegistry = presenceRegistry;
+    }
+
+    @PostLoad
+    public void setSessionId(User user) {
+        user.setSessionId(presenceRegistry.getSessionId(user));
+    }
+}
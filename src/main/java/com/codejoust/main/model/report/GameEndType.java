@@ -5,7 +5,7 @@ import com.codejoust.main.exception.api.ApiException;
 import com.fasterxml.jackson.annotation.JsonCreator;
 
 public enum GameEndType {
-    TIME_UP, ALL_SOLVED, MANUAL_END;
+    TIME_UP, ALL_SOLVED, MANUAL_END, ABANDONED;
 
     // Convert a matching string (ignoring case) to enum object
     @JsonCreator
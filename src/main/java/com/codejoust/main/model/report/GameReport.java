@@ -39,7 +39,7 @@ public class GameReport {
     @EqualsAndHashCode.Include
     private String gameReportId = UUID.randomUUID().toString();
 
-    @OneToMany(fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
     @Setter(AccessLevel.PRIVATE)
     @Fetch(value = FetchMode.SUBSELECT)
     @JoinColumn(name = "problem_containers_table_id")
@@ -0,0 +1,200 @@
+package com.codejoust.main.service;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codejoust.main.dao.RoomRepository;
+import com.codejoust.main.dto.room.RoomMapper;
+import com.codejoust.main.game_object.Game;
+import com.codejoust.main.game_object.Player;
+import com.codejoust.main.model.Room;
+import com.codejoust.main.model.report.GameEndType;
+import com.codejoust.main.service.ReportService.UnsavedGameReport;
+import com.codejoust.main.util.GameDeltaEncoder;
+import com.codejoust.main.util.GameRegistry;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Periodically sweeps the live games, archiving finished games as game
+ * reports and evicting them from memory once their grace period has passed,
+ * along with the game state last sent to their room. The rooms of evicted
+ * games are set back to their lobby.
+ */
+@Log4j2
+@Service
+public class GameLifecycleService {
+
+    public static final String LIVE_GAMES_GAUGE = "games.live";
+    public static final String ARCHIVED_GAMES_GAUGE = "games.archived";
+
+    private final GameRegistry gameRegistry;
+    private final ReportService reportService;
+    private final GameLogService gameLogService;
+    private final RoomRepository roomRepository;
+    private final SocketService socketService;
+    private final GameDeltaEncoder gameDeltaEncoder;
+
+    // Number of games archived since startup.
+    private final AtomicLong archivedCount = new AtomicLong();
+
+    // Time, in seconds, a finished game is kept in memory before eviction.
+    private final long ttl;
+
+    @Autowired
+    public GameLifecycleService(GameRegistry gameRegistry, ReportService reportService,
+                                GameLogService gameLogService, RoomRepository roomRepository,
+                                SocketService socketService, GameDeltaEncoder gameDeltaEncoder,
+                                MeterRegistry meterRegistry, @Value("${game.lifecycle.ttl:300}") long ttl) {
+        this.gameRegistry = gameRegistry;
+        this.reportService = reportService;
+        this.gameLogService = gameLogService;
+        this.roomRepository = roomRepository;
+        this.socketService = socketService;
+        this.gameDeltaEncoder = gameDeltaEncoder;
+        this.ttl = ttl;
+
+        Gauge.builder(LIVE_GAMES_GAUGE, gameRegistry, GameRegistry::size)
+            .description("Number of games held in memory")
+            .register(meterRegistry);
+        Gauge.builder(ARCHIVED_GAMES_GAUGE, archivedCount, AtomicLong::get)
+            .description("Number of games archived as game reports since startup")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${game.lifecycle.sweepInterval:30000}",
+        initialDelayString = "${game.lifecycle.sweepInterval:30000}")
+    public void sweep() {
+        sweep(Instant.now());
+    }
+
+    // Archive and evict every game that has been finished for at least the TTL.
+    protected void sweep(Instant now) {
+        gameRegistry.forEach((roomId, game) -> {
+            try {
+                if (game.getMailbox().call(() -> isExpired(game, now))) {
+                    archive(game);
+
+                    // Only evict if the game was not replaced in the meantime.
+                    if (gameRegistry.remove(roomId, game)) {
+                        log.info("Evicted finished game for room {}", roomId);
+                        gameDeltaEncoder.forget(roomId);
+                        deactivateRoom(roomId);
+                    }
+                }
+            } catch (Exception e) {
+                log.error("An error occurred sweeping the game for room {}", roomId, e);
+            }
+        });
+    }
+
+    /**
+     * Cancel the game's timers and save it as a game report. Each game is
+     * archived at most once; later calls do nothing. The report is built
+     * through the game's mailbox, but saved outside it, so that the event
+     * loop isn't held up by the database.
+     *
+     * @param game The game to archive, which should no longer be in progress.
+     */
+    public void archive(Game game) {
+        UnsavedGameReport report;
+        try {
+            report = game.getMailbox().call(() -> {
+                if (game.isArchived()) {
+                    return null;
+                }
+                game.setArchived(true);
+                gameLogService.gameArchived(game);
+
+                if (game.getGameTimer() != null) {
+                    game.getGameTimer().cancel();
+                }
+
+                GameEndType gameEndType = getGameEndType(game);
+                return reportService.buildGameReport(game, gameEndType != null ? gameEndType : GameEndType.ABANDONED);
+            });
+        } catch (Exception e) {
+            log.error("Failed to archive the game for room {}", game.getRoom().getRoomId(), e);
+            return;
+        }
+
+        if (report == null) {
+            return;
+        }
+
+        try {
+            reportService.saveGameReport(report);
+            archivedCount.incrementAndGet();
+        } catch (Exception e) {
+            log.error("Failed to archive the game for room {}", game.getRoom().getRoomId(), e);
+        }
+    }
+
+    public long getArchivedCount() {
+        return archivedCount.get();
+    }
+
+    /**
+     * Get how the game ended, or null if it is still in progress. A game
+     * whose players have all disconnected (or left to play again) is
+     * considered abandoned.
+     */
+    protected GameEndType getGameEndType(Game game) {
+        if (game.getGameEnded()) {
+            return GameEndType.MANUAL_END;
+        } else if (game.getAllSolved()) {
+            return GameEndType.ALL_SOLVED;
+        } else if (game.getGameTimer() != null && game.getGameTimer().isTimeUp()) {
+            return GameEndType.TIME_UP;
+        } else if (game.getPlayAgain() || allPlayersDisconnected(game)) {
+            return GameEndType.ABANDONED;
+        }
+
+        return null;
+    }
+
+    // Set the room of an evicted game back to its lobby, and tell its users.
+    private void deactivateRoom(String roomId) {
+        Room room = roomRepository.findRoomByRoomId(roomId);
+
+        // Leave rooms that were deleted, or have since started another game.
+        if (room == null || !room.getActive() || gameRegistry.get(roomId) != null) {
+            return;
+        }
+
+        room.setActive(false);
+        roomRepository.save(room);
+        socketService.sendSocketUpdate(RoomMapper.toDto(room));
+    }
+
+    // Track when the game finished; must be called through the game's mailbox.
+    private boolean isExpired(Game game, Instant now) {
+        if (getGameEndType(game) == null) {
+            // Players may reconnect to an abandoned game, which resets the clock.
+            game.setFinishedTime(null);
+            return false;
+        }
+
+        if (game.getFinishedTime() == null) {
+            game.setFinishedTime(now);
+        }
+
+        return !game.getFinishedTime().plusSeconds(ttl).isAfter(now);
+    }
+
+    private boolean allPlayersDisconnected(Game game) {
+        for (Player player : game.getPlayers().values()) {
+            if (player.getUser() != null && player.getUser().getSessionId() != null) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,350 @@
+package com.codejoust.main.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.codejoust.main.dto.game.CodeEditDto;
+import com.codejoust.main.dto.game.GameEventDto;
+import com.codejoust.main.dto.game.GameEventType;
+import com.codejoust.main.dto.game.GameMapper;
+import com.codejoust.main.dto.game.GameNotificationDto;
+import com.codejoust.main.dto.game.GameSnapshotDto;
+import com.codejoust.main.dto.game.PlayerSnapshotDto;
+import com.codejoust.main.exception.GameError;
+import com.codejoust.main.exception.api.ApiException;
+import com.codejoust.main.game_object.CodeEdit;
+import com.codejoust.main.game_object.Game;
+import com.codejoust.main.game_object.Player;
+import com.codejoust.main.game_object.PlayerCode;
+import com.codejoust.main.game_object.Submission;
+import com.codejoust.main.model.problem.Problem;
+import com.codejoust.main.model.report.CodeLanguage;
+import com.codejoust.main.model.report.GameEndType;
+import com.codejoust.main.util.GameEventLog;
+import com.codejoust.main.util.GameRegistry;
+import com.codejoust.main.util.Utility;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Records every game event in the game log, along with periodic snapshots
+ * of each live game, so that games in progress can be rebuilt after a
+ * restart and finished games can be replayed.
+ *
+ * Events that change a game are recorded from within its mailbox, so that
+ * they are logged in the order they were applied.
+ *
+ * Replays read the whole log, so they're read one at a time, and each
+ * room's timeline is kept for a short while to serve repeated requests.
+ */
+@Log4j2
+@Service
+public class GameLogService {
+
+    public static final long DEFAULT_REPLAY_CACHE_MILLIS = 10000;
+
+    private final GameEventLog gameEventLog;
+    private final GameRegistry gameRegistry;
+    private final long replayCacheMillis;
+
+    // Timelines recently replayed, by room; the lock keeps one replay reading the log.
+    private final ConcurrentHashMap<String, CachedTimeline> replays = new ConcurrentHashMap<>();
+    private final Object replayLock = new Object();
+
+    @Autowired
+    public GameLogService(GameEventLog gameEventLog, GameRegistry gameRegistry,
+                          @Value("${game.log.replayCacheMillis:" + DEFAULT_REPLAY_CACHE_MILLIS + "}")
+                              long replayCacheMillis) {
+        this.gameEventLog = gameEventLog;
+        this.gameRegistry = gameRegistry;
+        this.replayCacheMillis = replayCacheMillis;
+    }
+
+    public void gameStarted(Game game) {
+        GameEventDto event = createEvent(game, GameEventType.GAME_STARTED, null);
+        event.setSnapshot(toSnapshot(game));
+        gameEventLog.append(event);
+    }
+
+    public void codeUpdated(Game game, String userId, PlayerCode playerCode) {
+        GameEventDto event = createEvent(game, GameEventType.CODE_UPDATED, userId);
+        event.setCode(playerCode.getCode());
+        event.setLanguage(playerCode.getLanguage());
+        gameEventLog.append(event);
+    }
+
+    // The edits are those applied, i.e. after any rebasing.
+    public void codePatched(Game game, String userId, CodeLanguage language, List<CodeEdit> edits) {
+        GameEventDto event = createEvent(game, GameEventType.CODE_PATCHED, userId);
+        event.setLanguage(language);
+        event.setEdits(Utility.mapList(edits, GameMapper::toCodeEditDto));
+        gameEventLog.append(event);
+    }
+
+    public void codeRun(Game game, String userId, Submission submission) {
+        GameEventDto event = createEvent(game, GameEventType.CODE_RUN, userId);
+        event.setSubmission(submission);
+        gameEventLog.append(event);
+    }
+
+    public void submitted(Game game, String userId, Submission submission) {
+        GameEventDto event = createEvent(game, GameEventType.SUBMISSION, userId);
+        event.setSubmission(submission);
+        gameEventLog.append(event);
+    }
+
+    public void notificationSent(Game game, GameNotificationDto notification) {
+        GameEventDto event = createEvent(game, GameEventType.NOTIFICATION,
+            notification.getInitiator() != null ? notification.getInitiator().getUserId() : null);
+        event.setNotification(notification);
+        gameEventLog.append(event);
+    }
+
+    // Record how the game ended, the first time it's seen to be over.
+    public void gameEnded(Game game, GameEndType endType) {
+        if (game.isEndLogged()) {
+            return;
+        }
+        game.setEndLogged(true);
+
+        GameEventDto event = createEvent(game, GameEventType.GAME_ENDED, null);
+        event.setEndType(endType);
+        gameEventLog.append(event);
+    }
+
+    public void gameArchived(Game game) {
+        gameEventLog.append(createEvent(game, GameEventType.GAME_ARCHIVED, null));
+    }
+
+    // Snapshot every live game, so recovery doesn't depend on segments since deleted.
+    @Scheduled(fixedDelayString = "${game.log.snapshotInterval:60000}",
+        initialDelayString = "${game.log.snapshotInterval:60000}")
+    public void snapshot() {
+        if (!gameEventLog.isEnabled()) {
+            return;
+        }
+
+        gameRegistry.forEach((roomId, game) -> {
+            try {
+                game.getMailbox().run(() -> {
+                    if (!game.isArchived()) {
+                        GameEventDto event = createEvent(game, GameEventType.SNAPSHOT, null);
+                        event.setSnapshot(toSnapshot(game));
+                        gameEventLog.append(event);
+                    }
+                });
+            } catch (Exception e) {
+                log.error("An error occurred snapshotting the game for room {}", roomId, e);
+            }
+        });
+    }
+
+    /**
+     * Replay the log into the games that were still live when it ended, i.e.
+     * started but not archived. If a room has several, only its latest game
+     * is kept.
+     *
+     * @return The state of each such game, one per room.
+     */
+    public List<GameSnapshotDto> recover() {
+        Map<String, GameSnapshotDto> games = new LinkedHashMap<>();
+
+        for (GameEventDto event : gameEventLog.readAll()) {
+            if (event.getType() == GameEventType.GAME_STARTED || event.getType() == GameEventType.SNAPSHOT) {
+                games.put(event.getGameId(), event.getSnapshot());
+                continue;
+            }
+
+            // Events of games started before the oldest remaining segment are skipped.
+            GameSnapshotDto snapshot = games.get(event.getGameId());
+            if (snapshot == null) {
+                continue;
+            }
+
+            if (event.getType() == GameEventType.GAME_ARCHIVED) {
+                games.remove(event.getGameId());
+            } else if (event.getType() == GameEventType.GAME_ENDED) {
+                snapshot.setGameEnded(snapshot.isGameEnded() || event.getEndType() == GameEndType.MANUAL_END);
+                snapshot.setTimeUp(snapshot.isTimeUp() || event.getEndType() == GameEndType.TIME_UP);
+            } else {
+                try {
+                    applyPlayerEvent(snapshot, event);
+                } catch (RuntimeException e) {
+                    log.warn("Skipped event {} of game {} that could not be applied", event.getSequence(),
+                        event.getGameId(), e);
+                }
+            }
+        }
+
+        // Games are in the order they were started, so later ones replace earlier ones.
+        Map<String, GameSnapshotDto> latestByRoom = new HashMap<>();
+        for (GameSnapshotDto snapshot : games.values()) {
+            latestByRoom.put(snapshot.getRoomId(), snapshot);
+        }
+
+        return new ArrayList<>(latestByRoom.values());
+    }
+
+    /**
+     * Get the timeline of the latest game in a room still in this node's
+     * log, for post-game review. It may be up to the cache duration old.
+     *
+     * @param roomId The room the game was played in.
+     * @return The game's events (without periodic snapshots), oldest first.
+     * @throws ApiException NOT_FOUND if the log holds no game for the room.
+     */
+    public List<GameEventDto> replay(String roomId) {
+        CachedTimeline cached = replays.get(roomId);
+        if (cached != null && !cached.isStale()) {
+            return cached.timeline;
+        }
+
+        synchronized (replayLock) {
+            // Another request may have read the timeline while this one waited.
+            cached = replays.get(roomId);
+            if (cached != null && !cached.isStale()) {
+                return cached.timeline;
+            }
+
+            List<GameEventDto> timeline = readTimeline(roomId);
+            if (replayCacheMillis > 0) {
+                replays.put(roomId, new CachedTimeline(timeline));
+            }
+            return timeline;
+        }
+    }
+
+    // Forget timelines past the cache duration.
+    @Scheduled(fixedDelayString = "${game.log.replayCacheMillis:" + DEFAULT_REPLAY_CACHE_MILLIS + "}",
+        initialDelayString = "${game.log.replayCacheMillis:" + DEFAULT_REPLAY_CACHE_MILLIS + "}")
+    public void removeStaleReplays() {
+        replays.values().removeIf(CachedTimeline::isStale);
+    }
+
+    private List<GameEventDto> readTimeline(String roomId) {
+        List<GameEventDto> events = gameEventLog.readAll();
+
+        String gameId = null;
+        for (GameEventDto event : events) {
+            if (roomId.equals(event.getRoomId())) {
+                gameId = event.getGameId();
+            }
+        }
+
+        if (gameId == null) {
+            throw new ApiException(GameError.NOT_FOUND);
+        }
+
+        List<GameEventDto> timeline = new ArrayList<>();
+        for (GameEventDto event : events) {
+            if (gameId.equals(event.getGameId()) && event.getType() != GameEventType.SNAPSHOT) {
+                timeline.add(event);
+            }
+        }
+
+        return timeline;
+    }
+
+    // The state of the game needed to rebuild it; must be called through the game's mailbox.
+    public static GameSnapshotDto toSnapshot(Game game) {
+        GameSnapshotDto snapshot = new GameSnapshotDto();
+        snapshot.setGameId(game.getGameId());
+        snapshot.setRoomId(game.getRoom().getRoomId());
+        snapshot.setProblemIds(Utility.mapList(game.getProblems(), Problem::getProblemId));
+        snapshot.setGameEnded(game.getGameEnded());
+        snapshot.setPlayAgain(game.getPlayAgain());
+
+        if (game.getGameTimer() != null) {
+            snapshot.setStartTime(game.getGameTimer().getStartTime());
+            snapshot.setDuration(game.getGameTimer().getDuration());
+            snapshot.setEndTime(game.getGameTimer().getEndTime());
+            snapshot.setTimeUp(game.getGameTimer().isTimeUp());
+        }
+
+        for (Player player : game.getPlayers().values()) {
+            PlayerSnapshotDto playerSnapshot = new PlayerSnapshotDto();
+            playerSnapshot.setUserId(player.getUser().getUserId());
+            playerSnapshot.setColor(player.getColor());
+            playerSnapshot.setSubmissions(new ArrayList<>(player.getSubmissions()));
+
+            PlayerCode playerCode = player.getPlayerCode();
+            if (playerCode != null) {
+                playerSnapshot.setCode(playerCode.getCode());
+                playerSnapshot.setLanguage(playerCode.getLanguage());
+            }
+
+            snapshot.getPlayers().add(playerSnapshot);
+        }
+
+        return snapshot;
+    }
+
+    private void applyPlayerEvent(GameSnapshotDto snapshot, GameEventDto event) {
+        PlayerSnapshotDto player = null;
+        for (PlayerSnapshotDto playerSnapshot : snapshot.getPlayers()) {
+            if (playerSnapshot.getUserId().equals(event.getUserId())) {
+                player = playerSnapshot;
+            }
+        }
+
+        if (player == null) {
+            return;
+        }
+
+        switch (event.getType()) {
+            case CODE_UPDATED:
+                player.setCode(event.getCode());
+                player.setLanguage(event.getLanguage());
+                break;
+            case CODE_PATCHED:
+                StringBuilder code = new StringBuilder(player.getCode() != null ? player.getCode() : "");
+                for (CodeEditDto edit : event.getEdits()) {
+                    code.replace(edit.getStart(), edit.getEnd(), edit.getText() != null ? edit.getText() : "");
+                }
+                player.setCode(code.toString());
+                if (event.getLanguage() != null) {
+                    player.setLanguage(event.getLanguage());
+                }
+                break;
+            case SUBMISSION:
+                player.getSubmissions().add(event.getSubmission());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private GameEventDto createEvent(Game game, GameEventType type, String userId) {
+        GameEventDto event = new GameEventDto();
+        event.setGameId(game.getGameId());
+        event.setRoomId(game.getRoom().getRoomId());
+        event.setType(type);
+        event.setTime(Instant.now());
+        event.setUserId(userId);
+        return event;
+    }
+
+    private final class CachedTimeline {
+
+        private final List<GameEventDto> timeline;
+        private final long readTime = System.currentTimeMillis();
+
+        CachedTimeline(List<GameEventDto> timeline) {
+            this.timeline = Collections.unmodifiableList(timeline);
+        }
+
+        boolean isStale() {
+            return System.currentTimeMillis() - readTime >= replayCacheMillis;
+        }
+    }
+}
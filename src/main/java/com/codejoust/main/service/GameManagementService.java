@@ -1,19 +1,33 @@
 package com.codejoust.main.service;
 
-import java.util.HashMap;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
-import java.util.Map;
-import java.util.Timer;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ObjIntConsumer;
 
 import com.codejoust.main.dao.RoomRepository;
+import com.codejoust.main.dto.game.CodePatchRequest;
+import com.codejoust.main.dto.game.CodeSyncDto;
 import com.codejoust.main.dto.game.EndGameRequest;
 import com.codejoust.main.dto.game.GameDto;
+import com.codejoust.main.dto.game.GameEventDto;
 import com.codejoust.main.dto.game.GameMapper;
 import com.codejoust.main.dto.game.GameNotificationDto;
+import com.codejoust.main.dto.game.GameSnapshotDto;
 import com.codejoust.main.dto.game.PlayAgainRequest;
+import com.codejoust.main.dto.game.PlayerSnapshotDto;
 import com.codejoust.main.dto.game.StartGameRequest;
 import com.codejoust.main.dto.game.SubmissionDto;
 import com.codejoust.main.dto.game.SubmissionRequest;
+import com.codejoust.main.dto.game.SubmissionStatus;
+import com.codejoust.main.dto.game.SubmissionTicketDto;
+import com.codejoust.main.dto.game.SubmissionType;
 import com.codejoust.main.dto.room.RoomDto;
 import com.codejoust.main.dto.room.RoomMapper;
 import com.codejoust.main.dto.user.UserMapper;
@@ -21,47 +35,89 @@ import com.codejoust.main.exception.GameError;
 import com.codejoust.main.exception.ProblemError;
 import com.codejoust.main.exception.RoomError;
 import com.codejoust.main.exception.api.ApiException;
+import com.codejoust.main.game_object.CodeEdit;
 import com.codejoust.main.game_object.Game;
 import com.codejoust.main.game_object.GameTimer;
 import com.codejoust.main.game_object.Player;
 import com.codejoust.main.game_object.PlayerCode;
+import com.codejoust.main.game_object.Submission;
+import com.codejoust.main.game_object.SubmissionResult;
 import com.codejoust.main.model.Room;
 import com.codejoust.main.model.User;
 import com.codejoust.main.model.problem.Problem;
+import com.codejoust.main.model.report.GameEndType;
 import com.codejoust.main.util.EndGameTimerTask;
+import com.codejoust.main.util.GameDeltaEncoder;
+import com.codejoust.main.util.GameEventLoop;
+import com.codejoust.main.util.GameRegistry;
+import com.codejoust.main.util.PresenceRegistry;
+import com.codejoust.main.util.SubmissionDispatcher;
+import com.codejoust.main.util.SubmissionRateLimiter;
+import com.codejoust.main.util.TimingWheel;
 import com.codejoust.main.util.Utility;
 
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 @Log4j2
 @Service
 public class GameManagementService {
 
+    public static final long DEFAULT_AWAIT_TIMEOUT_MILLIS = 60000;
+
     private final RoomRepository repository;
     private final SocketService socketService;
     private final LiveGameService liveGameService;
     private final NotificationService notificationService;
     private final SubmitService submitService;
     private final ProblemService problemService;
-    private final Map<String, Game> currentGameMap;
+    private final GameLifecycleService gameLifecycleService;
+    private final GameRegistry gameRegistry;
+    private final GameEventLoop gameEventLoop;
+    private final TimingWheel timingWheel;
+    private final SubmissionDispatcher submissionDispatcher;
+    private final SubmissionRateLimiter submissionRateLimiter;
+    private final GameLogService gameLogService;
+    private final PresenceRegistry presenceRegistry;
+    private final GameDeltaEncoder gameDeltaEncoder;
+
+    // How long the synchronous endpoints wait for a submission to start being tested.
+    @Value("${game.submission.awaitTimeoutMillis:" + DEFAULT_AWAIT_TIMEOUT_MILLIS + "}")
+    private long awaitTimeoutMillis = DEFAULT_AWAIT_TIMEOUT_MILLIS;
 
     @Autowired
     protected GameManagementService(RoomRepository repository, SocketService socketService,
                                     LiveGameService liveGameService, NotificationService notificationService,
-                                    SubmitService submitService, ProblemService problemService) {
+                                    SubmitService submitService, ProblemService problemService,
+                                    GameLifecycleService gameLifecycleService,
+                                    GameRegistry gameRegistry, GameEventLoop gameEventLoop,
+                                    TimingWheel timingWheel, SubmissionDispatcher submissionDispatcher,
+                                    SubmissionRateLimiter submissionRateLimiter,
+                                    GameLogService gameLogService, PresenceRegistry presenceRegistry,
+                                    GameDeltaEncoder gameDeltaEncoder) {
         this.repository = repository;
         this.socketService = socketService;
         this.liveGameService = liveGameService;
         this.notificationService = notificationService;
         this.submitService = submitService;
         this.problemService = problemService;
-        currentGameMap = new HashMap<>();
+        this.gameLifecycleService = gameLifecycleService;
+        this.gameRegistry = gameRegistry;
+        this.gameEventLoop = gameEventLoop;
+        this.timingWheel = timingWheel;
+        this.submissionDispatcher = submissionDispatcher;
+        this.submissionRateLimiter = submissionRateLimiter;
+        this.gameLogService = gameLogService;
+        this.presenceRegistry = presenceRegistry;
+        this.gameDeltaEncoder = gameDeltaEncoder;
     }
 
     protected Game getGameFromRoomId(String roomId) {
-        Game game = currentGameMap.get(roomId);
+        Game game = gameRegistry.get(roomId);
         if (game == null) {
             throw new ApiException(GameError.NOT_FOUND);
         }
@@ -69,12 +125,19 @@ public class GameManagementService {
         return game;
     }
 
+    protected void setAwaitTimeoutMillisForTesting(long awaitTimeoutMillis) {
+        this.awaitTimeoutMillis = awaitTimeoutMillis;
+    }
+
     protected void removeGame(String roomId) {
-        currentGameMap.remove(roomId);
+        gameRegistry.remove(roomId);
     }
 
+    // Clients apply the updates sent after the state returned, so it's sent first.
     public GameDto getGameDtoFromRoomId(String roomId) {
-        return GameMapper.toDto(getGameFromRoomId(roomId));
+        Game game = getGameFromRoomId(roomId);
+        GameDto gameDto = game.getMailbox().call(() -> GameMapper.toDto(game));
+        return socketService.syncGameState(gameDto);
     }
 
     // When host starts the game, redirect everyone and initialize the game state
@@ -122,7 +185,8 @@ public class GameManagementService {
             throw new ApiException(GameError.INVALID_PERMISSIONS);
         }
 
-        // Set all users to be disconnected
+        // Set all users to be disconnected; they connect again from the lobby
+        presenceRegistry.removeRoom(room.getRoomId());
         room.getUsers().forEach((user) -> user.setSessionId(null));
 
         // Change room to be no longer active
@@ -130,8 +194,14 @@ public class GameManagementService {
         repository.save(room);
 
         // Notify users to play again
-        game.setPlayAgain(true);
-        socketService.sendSocketUpdate(GameMapper.toDto(game));
+        GameDto gameDto = game.getMailbox().call(() -> {
+            game.setPlayAgain(true);
+            return GameMapper.toDto(game);
+        });
+        socketService.sendSocketUpdate(gameDto);
+
+        // Players have left for the lobby, so the state sent to them is no longer needed.
+        gameDeltaEncoder.forget(room.getRoomId());
 
         return RoomMapper.toDto(room);
     }
@@ -139,6 +209,7 @@ public class GameManagementService {
     // Initialize and add a game object from a room object, start game timer
     public void createAddGameFromRoom(Room room) {
         Game game = GameMapper.fromRoom(room);
+        game.setMailbox(gameEventLoop.newMailbox());
         Long time = room.getDuration();
 
         // If specific problems specified, use those instead of difficulty setting
@@ -155,8 +226,23 @@ public class GameManagementService {
             }
         }
 
+        game.setProblemDtos(GameMapper.toProblemDtos(problems));
+        submitService.prepareProblems(problems);
         setStartGameTimer(game, time);
-        currentGameMap.put(room.getRoomId(), game);
+        gameLogService.gameStarted(game);
+
+        // Atomically swap in the new game, then end and archive any game it replaces.
+        Game previous = gameRegistry.put(room.getRoomId(), game);
+        if (previous != null) {
+            previous.getMailbox().call(() -> {
+                if (previous.getGameTimer() != null) {
+                    handleEndGame(previous);
+                }
+                return null;
+            });
+            gameLifecycleService.archive(previous);
+        }
+
         notificationService.scheduleTimeLeftNotifications(game, time);
     }
 
@@ -166,35 +252,138 @@ public class GameManagementService {
         game.setGameTimer(gameTimer);
 
         // Schedule the game to end after <duration> seconds.
-        EndGameTimerTask endGameTimerTask = new EndGameTimerTask(socketService, game);
-        gameTimer.getTimer().schedule(endGameTimerTask, duration * 1000);
+        EndGameTimerTask endGameTimerTask = new EndGameTimerTask(socketService, game, gameLogService);
+        gameTimer.schedule(timingWheel, endGameTimerTask, duration, TimeUnit.SECONDS);
     }
 
-    // Test the submission, return the results, and send a socket update
-    public SubmissionDto runCode(String roomId, SubmissionRequest request) {
-        Game game = getGameFromRoomId(roomId);
+    /**
+     * Rebuild the games that were in progress when this node last stopped,
+     * from the game log, and reschedule their timers for the time left.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverGames() {
+        for (GameSnapshotDto snapshot : gameLogService.recover()) {
+            try {
+                if (recoverGame(snapshot) != null) {
+                    log.info("Recovered the game for room {} from the game log", snapshot.getRoomId());
+                }
+            } catch (Exception e) {
+                log.error("Failed to recover the game for room {}", snapshot.getRoomId(), e);
+            }
+        }
+    }
 
-        if (request.getInitiator() == null || request.getCode() == null || request.getLanguage() == null || request.getInput() == null) {
-            throw new ApiException(GameError.EMPTY_FIELD);
+    /**
+     * Rebuild a game from its snapshot, along with its room and problems,
+     * and add it to the live games unless its room already has one.
+     *
+     * @return The game, or null if it could not be rebuilt.
+     */
+    protected Game recoverGame(GameSnapshotDto snapshot) {
+        Room room = repository.findRoomByRoomId(snapshot.getRoomId());
+        if (room == null || snapshot.getStartTime() == null || gameRegistry.contains(snapshot.getRoomId())) {
+            return null;
         }
 
-        if (request.getProblemIndex() >= game.getProblems().size() || request.getProblemIndex() < 0) {
-            throw new ApiException(GameError.BAD_SETTING);
+        Game game = GameMapper.fromRoom(room);
+        game.setGameId(snapshot.getGameId());
+        game.setMailbox(gameEventLoop.newMailbox());
+
+        List<Problem> problems = game.getProblems();
+        for (String problemId : snapshot.getProblemIds()) {
+            Problem problem = problemService.getProblemEntity(problemId);
+            if (problem == null) {
+                log.warn("Problem {} of the game for room {} no longer exists", problemId, snapshot.getRoomId());
+                return null;
+            }
+            problems.add(problem);
         }
+        game.setProblemDtos(GameMapper.toProblemDtos(problems));
+        submitService.prepareProblems(problems);
+
+        // Replaying the submissions restores the solved arrays and leaderboard.
+        for (PlayerSnapshotDto playerSnapshot : snapshot.getPlayers()) {
+            Player player = game.getPlayers().get(playerSnapshot.getUserId());
+            if (player == null) {
+                continue;
+            }
 
-        String initiatorUserId = request.getInitiator().getUserId();
-        if (!game.getPlayers().containsKey(initiatorUserId)) {
-            throw new ApiException(GameError.INVALID_PERMISSIONS);
+            if (playerSnapshot.getColor() != null) {
+                player.setColor(playerSnapshot.getColor());
+            }
+            if (playerSnapshot.getCode() != null) {
+                player.setPlayerCode(new PlayerCode(playerSnapshot.getCode(), playerSnapshot.getLanguage()));
+            }
+            for (Submission submission : playerSnapshot.getSubmissions()) {
+                game.recordSubmission(player, submission);
+            }
         }
+        game.setGameEnded(snapshot.isGameEnded());
+        game.setPlayAgain(snapshot.isPlayAgain());
+
+        // Keep the original start and end times, and only schedule what's left.
+        GameTimer gameTimer = new GameTimer(snapshot.getDuration());
+        gameTimer.setStartTime(snapshot.getStartTime());
+        gameTimer.setEndTime(snapshot.getEndTime());
+        game.setGameTimer(gameTimer);
+
+        long remaining = Duration.between(Instant.now(), snapshot.getEndTime()).getSeconds();
+        if (snapshot.isTimeUp() || remaining <= 0) {
+            gameTimer.setTimeUp(true);
+        }
+
+        // A game started in the room meanwhile takes precedence.
+        if (gameRegistry.createIfAbsent(snapshot.getRoomId(), () -> game) != game) {
+            return null;
+        }
+
+        if (!isGameOver(game)) {
+            gameTimer.schedule(timingWheel, new EndGameTimerTask(socketService, game, gameLogService),
+                remaining, TimeUnit.SECONDS);
+            notificationService.scheduleTimeLeftNotifications(game, remaining);
+        }
+
+        return game;
+    }
 
-        return submitService.runCode(game, request);
+    // Test the submission, return the results, and send a socket update
+    public SubmissionDto runCode(String roomId, SubmissionRequest request) {
+        Game game = getGameFromRoomId(roomId);
+        validateSubmissionRequest(game, request, SubmissionType.TEST);
+
+        return awaitSubmission(game, request, SubmissionType.TEST);
     }
 
     // Test the submission, return the results, and send a socket update
     public SubmissionDto submitSolution(String roomId, SubmissionRequest request) {
         Game game = getGameFromRoomId(roomId);
+        validateSubmissionRequest(game, request, SubmissionType.SUBMIT);
+
+        SubmissionDto submissionDto = awaitSubmission(game, request, SubmissionType.SUBMIT);
+        sendGameUpdate(game);
+
+        return submissionDto;
+    }
+
+    // Queue the code run and return its ticket; the result is sent over the user's submission socket
+    public SubmissionTicketDto runCodeAsync(String roomId, SubmissionRequest request) {
+        Game game = getGameFromRoomId(roomId);
+        validateSubmissionRequest(game, request, SubmissionType.TEST);
+
+        return dispatchSubmission(game, request, SubmissionType.TEST);
+    }
+
+    // Queue the submission and return its ticket; the result is sent over the user's submission socket
+    public SubmissionTicketDto submitSolutionAsync(String roomId, SubmissionRequest request) {
+        Game game = getGameFromRoomId(roomId);
+        validateSubmissionRequest(game, request, SubmissionType.SUBMIT);
+
+        return dispatchSubmission(game, request, SubmissionType.SUBMIT);
+    }
 
-        if (request.getInitiator() == null || request.getCode() == null || request.getLanguage() == null) {
+    private void validateSubmissionRequest(Game game, SubmissionRequest request, SubmissionType type) {
+        if (request.getInitiator() == null || request.getCode() == null || request.getLanguage() == null
+                || (type == SubmissionType.TEST && request.getInput() == null)) {
             throw new ApiException(GameError.EMPTY_FIELD);
         }
 
@@ -207,16 +396,156 @@ public class GameManagementService {
             throw new ApiException(GameError.INVALID_PERMISSIONS);
         }
 
-        SubmissionDto submissionDto = submitService.submitSolution(game, request);
+        // Every accepted request costs a tester execution.
+        submissionRateLimiter.acquire(game.getRoom().getRoomId(), initiatorUserId, type);
+    }
 
-        if (isGameOver(game)) {
-            handleEndGame(game);
+    /**
+     * Hand a validated request to the submission dispatcher and wait for the
+     * tester's result, so that requests made through the synchronous
+     * endpoints are scheduled fairly as well. A request started by the
+     * timeout is waited for until it's tested, since a submission is
+     * recorded whether or not the caller is still waiting; the tester
+     * client bounds how long that takes.
+     *
+     * @throws ApiException SUBMISSION_QUEUE_FULL if the dispatcher is full
+     * or the request is still queued at the timeout, in which case it's
+     * dropped; or whatever error testing the submission raised.
+     */
+    private SubmissionDto awaitSubmission(Game game, SubmissionRequest request, SubmissionType type) {
+        CompletableFuture<SubmissionDto> future = new CompletableFuture<>();
+        AtomicBoolean started = new AtomicBoolean();
+        submissionDispatcher.dispatch(game.getRoom().getRoomId(), request.getInitiator().getUserId(), type,
+            game.getPlayers().size(), () -> {
+                // The caller gave up waiting before the request was started.
+                if (!started.compareAndSet(false, true)) {
+                    return;
+                }
+
+                try {
+                    future.complete(testSubmission(game, request, type));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }, null);
+
+        try {
+            try {
+                return future.get(awaitTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (started.compareAndSet(false, true)) {
+                    throw new ApiException(GameError.SUBMISSION_QUEUE_FULL);
+                }
+                return future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(GameError.TESTER_ERROR);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            log.error("An unexpected error occurred while testing a submission", e.getCause());
+            throw new ApiException(GameError.TESTER_ERROR);
         }
+    }
 
-        // Send socket update with latest leaderboard info
-        socketService.sendSocketUpdate(GameMapper.toDto(game));
-        
-        return submissionDto;
+    /**
+     * Hand a validated request to the submission dispatcher. While it waits,
+     * its position in the queue is sent to the initiator whenever it moves.
+     * While it is judged, each test case's result is sent to the initiator
+     * as it arrives. Once the tester responds, the completed (or failed)
+     * ticket is sent to the initiator, followed by the game update for
+     * everyone if a submission was recorded.
+     *
+     * @param game The game the request was made in.
+     * @param request The validated request.
+     * @param type Whether the request is a code run or a submission.
+     * @return The ticket, with status QUEUED and its queue position.
+     * @throws ApiException SUBMISSION_QUEUE_FULL if the dispatcher is full.
+     */
+    private SubmissionTicketDto dispatchSubmission(Game game, SubmissionRequest request, SubmissionType type) {
+        String roomId = game.getRoom().getRoomId();
+        String userId = request.getInitiator().getUserId();
+
+        SubmissionTicketDto ticketDto = new SubmissionTicketDto();
+        ticketDto.setSubmissionId(UUID.randomUUID().toString());
+        ticketDto.setType(type);
+        ticketDto.setStatus(SubmissionStatus.QUEUED);
+
+        int queuePosition = submissionDispatcher.dispatch(roomId, userId, type, game.getPlayers().size(), () -> {
+            SubmissionTicketDto resultDto = new SubmissionTicketDto();
+            resultDto.setSubmissionId(ticketDto.getSubmissionId());
+            resultDto.setType(type);
+
+            ObjIntConsumer<SubmissionResult> onResult = (result, index) -> {
+                SubmissionTicketDto progressDto = new SubmissionTicketDto();
+                progressDto.setSubmissionId(ticketDto.getSubmissionId());
+                progressDto.setType(type);
+                progressDto.setStatus(SubmissionStatus.RUNNING);
+                progressDto.setResultIndex(index);
+                progressDto.setResult(GameMapper.submissionResultToClientDto(result));
+
+                // A lost progress update must not fail the submission.
+                try {
+                    socketService.sendSocketUpdate(roomId, userId, progressDto);
+                } catch (RuntimeException e) {
+                    log.error("An error occurred sending a test case result", e);
+                }
+            };
+
+            try {
+                if (type == SubmissionType.TEST) {
+                    resultDto.setSubmission(submitService.runCode(game, request, onResult));
+                } else {
+                    resultDto.setSubmission(submitService.submitSolution(game, request, onResult));
+                }
+                resultDto.setStatus(SubmissionStatus.COMPLETED);
+            } catch (ApiException e) {
+                resultDto.setStatus(SubmissionStatus.FAILED);
+                resultDto.setError(e.getError().getResponse());
+            } catch (RuntimeException e) {
+                log.error("An unexpected error occurred while testing a submission", e);
+                resultDto.setStatus(SubmissionStatus.FAILED);
+                resultDto.setError(GameError.TESTER_ERROR.getResponse());
+            }
+
+            socketService.sendSocketUpdate(roomId, userId, resultDto);
+
+            if (type == SubmissionType.SUBMIT && resultDto.getStatus() == SubmissionStatus.COMPLETED) {
+                sendGameUpdate(game);
+            }
+        }, position -> {
+            SubmissionTicketDto positionDto = new SubmissionTicketDto();
+            positionDto.setSubmissionId(ticketDto.getSubmissionId());
+            positionDto.setType(type);
+            positionDto.setStatus(SubmissionStatus.QUEUED);
+            positionDto.setQueuePosition(position);
+            socketService.sendSocketUpdate(roomId, userId, positionDto);
+        });
+        ticketDto.setQueuePosition(queuePosition);
+
+        return ticketDto;
+    }
+
+    private SubmissionDto testSubmission(Game game, SubmissionRequest request, SubmissionType type) {
+        if (type == SubmissionType.TEST) {
+            return submitService.runCode(game, request);
+        }
+        return submitService.submitSolution(game, request);
+    }
+
+    // End the game if the latest submission finished it, then send the latest leaderboard info
+    private void sendGameUpdate(Game game) {
+        GameDto gameDto = game.getMailbox().call(() -> {
+            if (isGameOver(game)) {
+                handleEndGame(game);
+            }
+
+            return GameMapper.toDto(game);
+        });
+
+        socketService.sendSocketUpdate(gameDto);
     }
 
     // Send a notification through a socket update.
@@ -246,7 +575,9 @@ public class GameManagementService {
             throw new ApiException(GameError.NOTIFICATION_REQUIRES_CONTENT);       
         }
 
-        return notificationService.sendNotification(roomId, notificationDto);
+        GameNotificationDto sentDto = notificationService.sendNotification(roomId, notificationDto);
+        game.getMailbox().run(() -> gameLogService.notificationSent(game, notificationDto));
+        return sentDto;
     }
 
     // Update a specific player's code.
@@ -263,7 +594,66 @@ public class GameManagementService {
             throw new ApiException(GameError.EMPTY_FIELD);
         }
 
-        liveGameService.updateCode(game.getPlayers().get(userId), playerCode);
+        Player player = game.getPlayers().get(userId);
+        game.getMailbox().run(() -> {
+            liveGameService.updateCode(player, playerCode);
+            gameLogService.codeUpdated(game, userId, playerCode);
+        });
+    }
+
+    /**
+     * Apply a batch of edits to the initiator's code. Edits made against an
+     * older version are rebased if possible; otherwise they're rejected with
+     * CODE_OUT_OF_SYNC, and the client should fetch the whole code again.
+     *
+     * @return The new version of the code (without the code itself).
+     */
+    public CodeSyncDto patchCode(String roomId, CodePatchRequest request) {
+        Game game = getGameFromRoomId(roomId);
+
+        if (request.getInitiator() == null || request.getBaseVersion() == null || request.getEdits() == null) {
+            throw new ApiException(GameError.EMPTY_FIELD);
+        }
+
+        // The user must be present in the game.
+        Player player = game.getPlayers().get(request.getInitiator().getUserId());
+        if (player == null) {
+            throw new ApiException(GameError.USER_NOT_IN_GAME);
+        }
+
+        List<CodeEdit> edits = Utility.mapList(request.getEdits(), GameMapper::toCodeEdit);
+        if (edits.contains(null)) {
+            throw new ApiException(GameError.EMPTY_FIELD);
+        }
+
+        int version = game.getMailbox().call(() -> {
+            int newVersion = liveGameService.patchCode(player, request.getBaseVersion(), request.getLanguage(), edits);
+            gameLogService.codePatched(game, player.getUser().getUserId(), request.getLanguage(),
+                player.getCodeDocument().getLastBatch());
+            return newVersion;
+        });
+
+        CodeSyncDto codeSyncDto = new CodeSyncDto();
+        codeSyncDto.setVersion(version);
+        return codeSyncDto;
+    }
+
+    // Get the timeline of the room's latest game, for post-game review.
+    public List<GameEventDto> getReplay(String roomId) {
+        return gameLogService.replay(roomId);
+    }
+
+    // Get a player's whole code and its version, e.g. to resync after a rejected patch.
+    public CodeSyncDto getCode(String roomId, String userId) {
+        Game game = getGameFromRoomId(roomId);
+
+        // The user must be present in the game.
+        Player player = game.getPlayers().get(userId);
+        if (player == null) {
+            throw new ApiException(GameError.USER_NOT_IN_GAME);
+        }
+
+        return game.getMailbox().call(() -> GameMapper.toCodeSyncDto(player.getCodeDocument()));
     }
 
     public GameDto manuallyEndGame(String roomId, EndGameRequest request) {
@@ -274,10 +664,11 @@ public class GameManagementService {
             throw new ApiException(GameError.INVALID_PERMISSIONS);
         }
 
-        game.setGameEnded(true);
-        handleEndGame(game);
-
-        GameDto gameDto = GameMapper.toDto(game);
+        GameDto gameDto = game.getMailbox().call(() -> {
+            game.setGameEnded(true);
+            handleEndGame(game);
+            return GameMapper.toDto(game);
+        });
         socketService.sendSocketUpdate(gameDto);
 
         return gameDto;
@@ -285,12 +676,10 @@ public class GameManagementService {
 
     protected void handleEndGame(Game game) {
         // Cancel all previously scheduled timers
-        GameTimer gameTimer = game.getGameTimer();
-        gameTimer.getTimer().cancel();
+        game.getGameTimer().cancel();
 
-        for (Timer timer : gameTimer.getNotificationTimers()) {
-            timer.cancel();
-        }
+        GameEndType gameEndType = gameLifecycleService.getGameEndType(game);
+        gameLogService.gameEnded(game, gameEndType != null ? gameEndType : GameEndType.ABANDONED);
     }
 
     protected boolean isGameOver(Game game) {
@@ -299,15 +688,18 @@ public class GameManagementService {
 
     // Update people's socket active status
     public void conditionallyUpdateSocketInfo(Room room, User user) {
-        Game game = currentGameMap.get(room.getRoomId());
+        Game game = gameRegistry.get(room.getRoomId());
 
         if (game != null) {
             Player player = game.getPlayers().get(user.getUserId());
             if (player != null) {
                 log.info("Updating socket info for game {}", room.getRoomId());
-                game.setRoom(room);
-                player.setUser(user);
-                socketService.sendSocketUpdate(GameMapper.toDto(game));
+                GameDto gameDto = game.getMailbox().call(() -> {
+                    game.setRoom(room);
+                    player.setUser(user);
+                    return GameMapper.toDto(game);
+                });
+                socketService.sendSocketUpdate(gameDto);
             }
         }
     }
@@ -1,7 +1,11 @@
 package com.codejoust.main.service;
 
+import java.util.List;
+
+import com.codejoust.main.game_object.CodeEdit;
 import com.codejoust.main.game_object.Player;
 import com.codejoust.main.game_object.PlayerCode;
+import com.codejoust.main.model.report.CodeLanguage;
 
 import org.springframework.stereotype.Service;
 
@@ -16,4 +20,9 @@ public class LiveGameService {
         player.setPlayerCode(playerCode);
     }
 
+    // Apply a batch of edits to a specific player's code, returning its new version.
+    public int patchCode(Player player, int baseVersion, CodeLanguage language, List<CodeEdit> edits) {
+        return player.getCodeDocument().apply(baseVersion, language, edits);
+    }
+
 }
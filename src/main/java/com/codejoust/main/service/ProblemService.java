@@ -24,6 +24,8 @@ import com.codejoust.main.model.problem.ProblemTag;
 import com.codejoust.main.model.problem.ProblemTestCase;
 import com.codejoust.main.model.report.CodeLanguage;
 import com.codejoust.main.service.generators.DefaultCodeGeneratorService;
+import com.codejoust.main.util.SubmissionCache;
+import com.codejoust.main.util.TesterProblemCache;
 import com.codejoust.main.util.Utility;
 import com.google.gson.Gson;
 
@@ -49,6 +51,8 @@ public class ProblemService {
     private final ProblemTagRepository problemTagRepository;
     private final AccountRepository accountRepository;
     private final List<DefaultCodeGeneratorService> defaultCodeGeneratorServiceList;
+    private final SubmissionCache submissionCache;
+    private final TesterProblemCache testerProblemCache;
     private final Random random = new Random();
     private final Gson gson = new Gson();
 
@@ -57,13 +61,17 @@ public class ProblemService {
         ProblemRepository problemRepository,
         ProblemTagRepository problemTagRepository,
         AccountRepository accountRepository,
-        List<DefaultCodeGeneratorService> defaultCodeGeneratorServiceList) {
+        List<DefaultCodeGeneratorService> defaultCodeGeneratorServiceList,
+        SubmissionCache submissionCache,
+        TesterProblemCache testerProblemCache) {
 
         this.service = service;
         this.problemRepository = problemRepository;
         this.problemTagRepository = problemTagRepository;
         this.accountRepository = accountRepository;
         this.defaultCodeGeneratorServiceList = defaultCodeGeneratorServiceList;
+        this.submissionCache = submissionCache;
+        this.testerProblemCache = testerProblemCache;
     }
 
     public ProblemDto createProblem(CreateProblemRequest request, String token) {
@@ -158,6 +166,9 @@ public class ProblemService {
             throw new ApiException(ProblemError.BAD_DIFFICULTY);
         }
 
+        // Keep the old test cases to drop results judged against them
+        ProblemDto previousProblem = ProblemMapper.toDto(problem);
+
         problem.setName(updatedProblem.getName());
         problem.setDescription(updatedProblem.getDescription());
         problem.setDifficulty(updatedProblem.getDifficulty());
@@ -213,6 +224,8 @@ public class ProblemService {
         }
 
         problemRepository.save(problem);
+        submissionCache.invalidate(previousProblem);
+        testerProblemCache.invalidate(problemId);
 
         return ProblemMapper.toDto(problem);
     }
@@ -244,6 +257,7 @@ public class ProblemService {
 
         service.verifyTokenMatchesUid(token, problem.getOwner().getUid());
         problemRepository.delete(problem);
+        testerProblemCache.invalidate(problemId);
 
         return ProblemMapper.toDto(problem);
     }
@@ -344,6 +358,7 @@ public class ProblemService {
 
         problem.addTestCase(testCase);
         problemRepository.save(problem);
+        testerProblemCache.invalidate(problemId);
 
         return ProblemMapper.toTestCaseDto(testCase);
     }
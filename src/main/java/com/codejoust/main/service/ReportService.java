@@ -0,0 +1,175 @@
+package com.codejoust.main.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.codejoust.main.dao.GameReportRepository;
+import com.codejoust.main.dao.UserRepository;
+import com.codejoust.main.game_object.Game;
+import com.codejoust.main.game_object.Player;
+import com.codejoust.main.game_object.Submission;
+import com.codejoust.main.model.User;
+import com.codejoust.main.model.problem.Problem;
+import com.codejoust.main.model.problem.ProblemContainer;
+import com.codejoust.main.model.report.GameEndType;
+import com.codejoust.main.model.report.GameReport;
+import com.codejoust.main.model.report.SubmissionGroupReport;
+import com.codejoust.main.model.report.SubmissionReport;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Class to persist finished games as game reports.
+ */
+@Log4j2
+@Service
+@Transactional
+public class ReportService {
+
+    private final GameReportRepository gameReportRepository;
+    private final UserRepository userRepository;
+
+    @Autowired
+    public ReportService(GameReportRepository gameReportRepository, UserRepository userRepository) {
+        this.gameReportRepository = gameReportRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Build and save a game report, with one problem container per problem and
+     * one submission group per player (attached to the player's user).
+     *
+     * @param game The finished game.
+     * @param gameEndType How the game ended.
+     * @return The saved game report.
+     */
+    public GameReport createGameReport(Game game, GameEndType gameEndType) {
+        return saveGameReport(buildGameReport(game, gameEndType));
+    }
+
+    /**
+     * Build a game report from the game, without touching the database, so
+     * that it can be built through the game's mailbox and saved outside it.
+     *
+     * @param game The finished game.
+     * @param gameEndType How the game ended.
+     * @return The report, to save with saveGameReport.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public UnsavedGameReport buildGameReport(Game game, GameEndType gameEndType) {
+        GameReport gameReport = new GameReport();
+        gameReport.setGameEndType(gameEndType);
+        if (game.getGameTimer() != null) {
+            gameReport.setCreatedDateTime(game.getGameTimer().getStartTime());
+            gameReport.setDuration(game.getGameTimer().getDuration());
+        }
+
+        List<Problem> problems = game.getProblems();
+        for (int i = 0; i < problems.size(); i++) {
+            gameReport.getProblemContainers().add(createProblemContainer(game, problems.get(i), i));
+        }
+
+        Map<String, SubmissionGroupReport> submissionGroupReports = new LinkedHashMap<>();
+        for (Player player : game.getPlayers().values()) {
+            SubmissionGroupReport submissionGroupReport = new SubmissionGroupReport();
+            submissionGroupReport.setGameReportId(gameReport.getGameReportId());
+            for (Submission submission : player.getSubmissions()) {
+                submissionGroupReport.getSubmissionReports().add(createSubmissionReport(submission));
+            }
+
+            submissionGroupReports.put(player.getUser().getUserId(), submissionGroupReport);
+        }
+
+        return new UnsavedGameReport(gameReport, submissionGroupReports);
+    }
+
+    /**
+     * Attach each submission group to its user, and save the game report.
+     *
+     * @param report The report built by buildGameReport.
+     * @return The saved game report.
+     */
+    public GameReport saveGameReport(UnsavedGameReport report) {
+        GameReport gameReport = report.getGameReport();
+
+        for (Map.Entry<String, SubmissionGroupReport> entry : report.getSubmissionGroupReports().entrySet()) {
+            // Re-fetch the user so that it is managed within this transaction.
+            User user = userRepository.findUserByUserId(entry.getKey());
+            if (user == null) {
+                log.info("User {} no longer exists; skipping their submissions", entry.getKey());
+                continue;
+            }
+
+            user.getSubmissionGroupReports().add(entry.getValue());
+            gameReport.getUsers().add(user);
+        }
+
+        return gameReportRepository.save(gameReport);
+    }
+
+    private ProblemContainer createProblemContainer(Game game, Problem problem, int problemIndex) {
+        int userSolvedCount = 0;
+        int totalTestCasesPassed = 0;
+        int totalAttemptCount = 0;
+
+        for (Player player : game.getPlayers().values()) {
+            if (player.getSolved() != null && player.getSolved()[problemIndex]) {
+                userSolvedCount++;
+            }
+
+            // Count the attempts and the best result on this problem.
+            int bestNumCorrect = 0;
+            for (Submission submission : player.getSubmissions()) {
+                if (submission.getProblemIndex() == problemIndex) {
+                    totalAttemptCount++;
+                    if (submission.getNumCorrect() != null) {
+                        bestNumCorrect = Math.max(bestNumCorrect, submission.getNumCorrect());
+                    }
+                }
+            }
+            totalTestCasesPassed += bestNumCorrect;
+        }
+
+        int numPlayers = game.getPlayers().size();
+        ProblemContainer problemContainer = new ProblemContainer();
+        problemContainer.setProblem(problem);
+        problemContainer.setUserSolvedCount(userSolvedCount);
+        problemContainer.setTestCaseCount(problem.getTestCases().size());
+        problemContainer.setAverageTestCasesPassed(numPlayers == 0 ? 0.0 : (double) totalTestCasesPassed / numPlayers);
+        problemContainer.setAverageAttemptCount(numPlayers == 0 ? 0.0 : (double) totalAttemptCount / numPlayers);
+
+        return problemContainer;
+    }
+
+    private SubmissionReport createSubmissionReport(Submission submission) {
+        SubmissionReport submissionReport = new SubmissionReport();
+        if (submission.getPlayerCode() != null) {
+            submissionReport.setCode(submission.getPlayerCode().getCode());
+            submissionReport.setLanguage(submission.getPlayerCode().getLanguage());
+        }
+        submissionReport.setStartTime(submission.getStartTime());
+        submissionReport.setNumCorrect(submission.getNumCorrect());
+        submissionReport.setNumTestCases(submission.getNumTestCases());
+        submissionReport.setRuntime(submission.getRuntime());
+
+        return submissionReport;
+    }
+
+    /**
+     * A game report not yet saved, with each player's submission group by
+     * user ID, to be attached to the user when saved.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class UnsavedGameReport {
+        private final GameReport gameReport;
+        private final Map<String, SubmissionGroupReport> submissionGroupReports;
+    }
+}
@@ -2,6 +2,7 @@ package com.codejoust.main.service;
 
 import com.codejoust.main.dao.AccountRepository;
 import com.codejoust.main.dao.RoomRepository;
+import com.codejoust.main.dto.game.GameDto;
 import com.codejoust.main.dto.game.GameMapper;
 import com.codejoust.main.dto.problem.SelectableProblemDto;
 import com.codejoust.main.dto.room.CreateRoomRequest;
@@ -23,9 +24,11 @@ import com.codejoust.main.game_object.Game;
 import com.codejoust.main.model.Room;
 import com.codejoust.main.model.User;
 import com.codejoust.main.model.problem.Problem;
+import com.codejoust.main.socket.UserJoinedEvent;
 import com.codejoust.main.util.Utility;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -46,13 +49,15 @@ public class RoomService {
     private final FirebaseService firebaseService;
     private final AccountRepository accountRepository;
     private final Utility utility;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public RoomService(RoomRepository repository, SocketService socketService,
                        ProblemService problemService, Utility utility,
                        FirebaseService firebaseService,
                        AccountRepository accountRepository,
-                       GameManagementService gameManagementService) {
+                       GameManagementService gameManagementService,
+                       ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
         this.socketService = socketService;
         this.problemService = problemService;
@@ -60,6 +65,7 @@ public class RoomService {
         this.firebaseService = firebaseService;
         this.accountRepository = accountRepository;
         this.utility = utility;
+        this.eventPublisher = eventPublisher;
     }
 
     public RoomDto joinRoom(String roomId, JoinRoomRequest request, String token) {
@@ -114,11 +120,17 @@ public class RoomService {
         // If active game, send to game socket; otherwise, send to room socket.
         if (room.getActive()) {
             Game game = gameManagementService.getGameFromRoomId(room.getRoomId());
-            game.setRoom(room);
-            socketService.sendSocketUpdate(GameMapper.toDto(game));
+            GameDto gameDto = game.getMailbox().call(() -> {
+                game.setRoom(room);
+                return GameMapper.toDto(game);
+            });
+            socketService.sendSocketUpdate(gameDto);
         } else {
             socketService.sendSocketUpdate(roomDto);
         }
+
+        // Bind the user's socket connection, if it was opened before now.
+        eventPublisher.publishEvent(new UserJoinedEvent(user.getUserId()));
         return roomDto;
     }
 
@@ -152,6 +164,8 @@ public class RoomService {
         room.addUser(host);
         repository.save(room);
 
+        // Bind the host's socket connection, if it was opened before now.
+        eventPublisher.publishEvent(new UserJoinedEvent(host.getUserId()));
         return RoomMapper.toDto(room);
     }
 
@@ -338,6 +352,16 @@ public class RoomService {
             room.setNumProblems(request.getNumProblems());
         }
 
+        // Set whether to cache submission results if not null
+        if (request.getCacheResults() != null) {
+            room.setCacheResults(request.getCacheResults());
+        }
+
+        // Set whether to stop judging submissions at the first failure if not null
+        if (request.getFailFast() != null) {
+            room.setFailFast(request.getFailFast());
+        }
+
         updateRoomSettingsSelectedProblems(request.getProblems(), room);
         repository.save(room);
 
@@ -3,7 +3,13 @@ package com.codejoust.main.service;
 import com.codejoust.main.config.WebSocketConfig;
 import com.codejoust.main.dto.game.GameDto;
 import com.codejoust.main.dto.game.GameNotificationDto;
+import com.codejoust.main.dto.game.GameUpdateDto;
+import com.codejoust.main.dto.game.SubmissionTicketDto;
 import com.codejoust.main.dto.room.RoomDto;
+import com.codejoust.main.util.GameDeltaEncoder;
+import com.codejoust.main.util.SocketUpdateCoalescer;
+
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -13,10 +19,15 @@ import org.springframework.stereotype.Service;
 public class SocketService {
 
     private final SimpMessagingTemplate template;
+    private final SocketUpdateCoalescer socketUpdateCoalescer;
+    private final GameDeltaEncoder gameDeltaEncoder;
 
     @Autowired
-    public SocketService(SimpMessagingTemplate template) {
+    public SocketService(SimpMessagingTemplate template, SocketUpdateCoalescer socketUpdateCoalescer,
+                         GameDeltaEncoder gameDeltaEncoder) {
         this.template = template;
+        this.socketUpdateCoalescer = socketUpdateCoalescer;
+        this.gameDeltaEncoder = gameDeltaEncoder;
     }
 
     // Send updates about new users to the client through sockets
@@ -25,10 +36,36 @@ public class SocketService {
         template.convertAndSend(socketPath, roomDto);
     }
 
-    // Send updates about new game status to the client through sockets
+    /**
+     * Send updates about new game status to the client through sockets, as
+     * a patch to the state last sent. Updates in quick succession are
+     * coalesced, sending only the latest, except for the game's final
+     * state, which is sent at once.
+     */
     public void sendSocketUpdate(GameDto gameDto) {
         String socketPath = String.format(WebSocketConfig.SOCKET_GAME, gameDto.getRoom().getRoomId());
-        template.convertAndSend(socketPath, gameDto);
+        if (isGameOver(gameDto)) {
+            socketUpdateCoalescer.flush(socketPath, encode(gameDto));
+        } else {
+            socketUpdateCoalescer.send(socketPath, encode(gameDto));
+        }
+    }
+
+    /**
+     * Send the game's state to its room now, if it wasn't already sent, so
+     * that it can be returned to a client with the sequence of its update.
+     *
+     * @param gameDto The current state of the game.
+     * @return The state last sent (this one or a later one), with its
+     * sequence; or the given state, without one, if it couldn't be sent.
+     */
+    public GameDto syncGameState(GameDto gameDto) {
+        String roomId = gameDto.getRoom().getRoomId();
+        String socketPath = String.format(WebSocketConfig.SOCKET_GAME, roomId);
+        socketUpdateCoalescer.sendNow(socketPath, encode(gameDto));
+
+        GameDto sentDto = gameDeltaEncoder.getLastSent(roomId);
+        return sentDto != null ? sentDto : gameDto;
     }
 
     // Send updates about new game status to the client through sockets
@@ -36,5 +73,22 @@ public class SocketService {
         String socketPath = String.format(WebSocketConfig.NOTIFICATION_SOCKET_PATH, roomId);
         template.convertAndSend(socketPath, notificationDto);
     }
-    
+
+    // Send the result of an asynchronous submission to the user who made it
+    public void sendSocketUpdate(String roomId, String userId, SubmissionTicketDto ticketDto) {
+        String socketPath = String.format(WebSocketConfig.SUBMISSION_SOCKET_PATH, roomId, userId);
+        template.convertAndSend(socketPath, ticketDto);
+    }
+
+    // Encoded only when sent, so that updates coalesced away are never encoded.
+    private Supplier<GameUpdateDto> encode(GameDto gameDto) {
+        return () -> gameDeltaEncoder.encode(gameDto.getRoom().getRoomId(), gameDto);
+    }
+
+    // Whether the game is over, or its players were sent back to the lobby.
+    private boolean isGameOver(GameDto gameDto) {
+        return Boolean.TRUE.equals(gameDto.getGameEnded()) || Boolean.TRUE.equals(gameDto.getAllSolved())
+            || Boolean.TRUE.equals(gameDto.getPlayAgain())
+            || (gameDto.getGameTimer() != null && gameDto.getGameTimer().isTimeUp());
+    }
 }
@@ -1,23 +1,27 @@
 package com.codejoust.main.service;
 
-import java.io.IOException;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
 
 import com.codejoust.main.dto.game.GameMapper;
 import com.codejoust.main.dto.game.SubmissionDto;
 import com.codejoust.main.dto.game.SubmissionMapper;
 import com.codejoust.main.dto.game.SubmissionRequest;
+import com.codejoust.main.dto.game.SubmissionType;
 import com.codejoust.main.dto.game.TesterRequest;
 import com.codejoust.main.dto.game.TesterResponse;
 import com.codejoust.main.dto.game.TesterResult;
 import com.codejoust.main.dto.problem.ProblemDto;
-import com.codejoust.main.dto.problem.ProblemMapper;
 import com.codejoust.main.dto.problem.ProblemTestCaseDto;
 import com.codejoust.main.exception.GameError;
-import com.codejoust.main.exception.TesterError;
-import com.codejoust.main.exception.api.ApiErrorResponse;
 import com.codejoust.main.exception.api.ApiException;
 import com.codejoust.main.game_object.Game;
 import com.codejoust.main.game_object.Player;
@@ -25,17 +29,14 @@ import com.codejoust.main.game_object.PlayerCode;
 import com.codejoust.main.game_object.Submission;
 import com.codejoust.main.game_object.SubmissionResult;
 import com.codejoust.main.model.problem.Problem;
-import com.google.gson.Gson;
+import com.codejoust.main.util.SubmissionCache;
+import com.codejoust.main.util.TesterClient;
+import com.codejoust.main.util.TesterProblemCache;
+import com.codejoust.main.util.TesterShardPool;
 
 import lombok.extern.log4j.Log4j2;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 /**
@@ -48,20 +49,30 @@ public class SubmitService {
     public static final Double DUMMY_RUNTIME = 5.5;
     public static final String DUMMY_OUTPUT = "[1, 2, 3]";
 
-    private final Gson gson;
-
     // Pulls value from application.properties
     @Value("${tester.debugMode}")
     private Boolean debugMode;
 
-    @Value("${tester.url}")
-    private String testerUrl;
-
-    private final HttpClient httpClient;
+    private final TesterClient testerClient;
+    private final SubmissionCache submissionCache;
+    private final TesterShardPool testerShardPool;
+    private final TesterProblemCache testerProblemCache;
+    private final GameLogService gameLogService;
+
+    @Autowired
+    protected SubmitService(TesterClient testerClient, SubmissionCache submissionCache,
+                            TesterShardPool testerShardPool, TesterProblemCache testerProblemCache,
+                            GameLogService gameLogService) {
+        this.testerClient = testerClient;
+        this.submissionCache = submissionCache;
+        this.testerShardPool = testerShardPool;
+        this.testerProblemCache = testerProblemCache;
+        this.gameLogService = gameLogService;
+    }
 
-    protected SubmitService() {
-        this.httpClient = HttpClientBuilder.create().build();
-        this.gson = new Gson();
+    // Build the tester payloads of a game's problems before any submissions come in.
+    public void prepareProblems(List<Problem> problems) {
+        problems.forEach(testerProblemCache::get);
     }
 
     // Helper method to return a perfect score dummy submission
@@ -91,6 +102,11 @@ public class SubmitService {
 
     // Test the submission and send a socket update.
     public SubmissionDto runCode(Game game, SubmissionRequest request) {
+        return runCode(game, request, null);
+    }
+
+    // Test the submission, passing on each test case's result (and its index) as it arrives.
+    public SubmissionDto runCode(Game game, SubmissionRequest request, ObjIntConsumer<SubmissionResult> onResult) {
         String userId = request.getInitiator().getUserId();
 
         PlayerCode playerCode = new PlayerCode();
@@ -103,14 +119,13 @@ public class SubmitService {
         testerRequest.setLanguage(request.getLanguage());
 
         // Set the problem with the single provided test case.
-        ProblemDto problemDto = getStrippedProblemDto(game.getProblems().get(request.getProblemIndex()));
+        ProblemDto cachedProblem = getTesterProblem(game, request.getProblemIndex()).getProblem();
 
         /**
          * Provide a temporary output to circumvent output parsing error.
          * The problem must have at least one test case to work.
          */
-        String tempOutput = problemDto.getTestCases().get(0).getOutput();
-        problemDto.getTestCases().clear();
+        String tempOutput = cachedProblem.getTestCases().get(0).getOutput();
 
         List<ProblemTestCaseDto> problemTestCaseDtos = new ArrayList<>();
         ProblemTestCaseDto problemTestCaseDto = new ProblemTestCaseDto();
@@ -118,17 +133,22 @@ public class SubmitService {
         problemTestCaseDto.setOutput(tempOutput);
         problemTestCaseDto.setHidden(false);
         problemTestCaseDtos.add(problemTestCaseDto);
-        problemDto.setTestCases(problemTestCaseDtos);
-        testerRequest.setProblem(problemDto);
+        testerRequest.setProblem(withTestCases(cachedProblem, problemTestCaseDtos));
 
         // Return submission, and no further records necessary for running code.
-        Submission submission = getSubmission(testerRequest);
+        Submission submission = getSubmission(testerRequest, SubmissionType.TEST, isCacheEnabled(game), onResult);
         submission.setProblemIndex(request.getProblemIndex());
+        gameLogService.codeRun(game, userId, submission);
         return GameMapper.submissionToDto(submission);
     }
 
     // Test the submission and send a socket update.
     public SubmissionDto submitSolution(Game game, SubmissionRequest request) {
+        return submitSolution(game, request, null);
+    }
+
+    // Test the submission, passing on each test case's result (and its index) as it arrives.
+    public SubmissionDto submitSolution(Game game, SubmissionRequest request, ObjIntConsumer<SubmissionResult> onResult) {
         String userId = request.getInitiator().getUserId();
         Player player = game.getPlayers().get(userId);
 
@@ -142,47 +162,82 @@ public class SubmitService {
         testerRequest.setLanguage(request.getLanguage());
 
         // Invariant: Games have at least one problem (else it will fail to create)
-        ProblemDto problemDto = getStrippedProblemDto(game.getProblems().get(request.getProblemIndex()));
-        testerRequest.setProblem(problemDto);
-
-        Submission submission = getSubmission(testerRequest);
-        submission.setProblemIndex(request.getProblemIndex());
-        player.getSubmissions().add(submission);
-
-        if (submission.getNumCorrect().equals(submission.getNumTestCases())) {
-            player.getSolved()[request.getProblemIndex()] = true;
+        TesterProblemCache.Payload payload = getTesterProblem(game, request.getProblemIndex());
+        testerRequest.setProblem(payload.getProblem());
+        testerRequest.setProblemJson(payload.getJson());
+        testerRequest.setProblemPayload(payload);
+
+        // In fail-fast rooms, try the test cases most likely to fail first.
+        boolean failFast = isFailFast(game);
+        int[] order = null;
+        AtomicIntegerArray failures = null;
+        if (failFast) {
+            failures = game.getTestCaseFailures(request.getProblemIndex(), payload.getProblem().getTestCases().size());
+            order = orderTestCases(testerRequest, failures);
+            testerRequest.setFailFast(true);
         }
 
-        // Variable to indicate whether all players have solved the problem.
-        boolean allSolved = true;
-        for (Player p : game.getPlayers().values()) {
-            for (Boolean b : p.getSolved()) {
-                if (b == null || !b) {
-                    allSolved = false;
-                    break;
-                }
-            }
-        }
+        // Judge outside the room's mailbox; only the bookkeeping is serialized.
+        Submission submission = getSubmission(testerRequest, SubmissionType.SUBMIT, isCacheEnabled(game), onResult);
+        submission.setProblemIndex(request.getProblemIndex());
 
-        // If the users have all completed the problem, set all solved to true.
-        if (allSolved) {
-            game.setAllSolved(true);
+        // Dummy submissions (in debug mode) are always fully correct.
+        if (failFast && !getDebugMode()) {
+            recordFailFastResults(submission, order, failures);
         }
 
-        return GameMapper.submissionToDto(submission);
+        return game.getMailbox().call(() -> {
+            // Updates the leaderboard and solve counters (including all solved)
+            game.recordSubmission(player, submission);
+            gameLogService.submitted(game, userId, submission);
+            return GameMapper.submissionToDto(submission);
+        });
     }
 
-    // Get submission (either through tester or using a dummy response)
-    protected Submission getSubmission(TesterRequest request) {
+    /**
+     * Get submission (either through tester, from the cache, or using a
+     * dummy response). The submission is assembled once every result is in.
+     *
+     * @param onResult If not null, the tester streams its results, and each
+     * one is passed on (with its index) as soon as it arrives.
+     */
+    protected Submission getSubmission(TesterRequest request, SubmissionType type, boolean useCache,
+                                       ObjIntConsumer<SubmissionResult> onResult) {
         // If in debug mode (tester is unavailable), return a dummy submission
         if (getDebugMode()) {
-            return getDummySubmission(request);
+            Submission submission = getDummySubmission(request);
+            if (onResult != null) {
+                onResult.accept(submission.getResults().get(0), 0);
+            }
+            return submission;
         }
 
         try {
-            TesterResponse testerResponse = callTesterService(request);
             ProblemDto problem = request.getProblem();
 
+            // Match the test case details with each individual result.
+            List<ProblemTestCaseDto> testCaseDtos = problem.getTestCases();
+            List<SubmissionResult> results = new ArrayList<>();
+            Consumer<TesterResult> resultMapper = testerResult -> {
+                int index = results.size();
+                SubmissionResult submissionResult = SubmissionMapper.toSubmissionResult(testerResult, testCaseDtos.get(index));
+                results.add(submissionResult);
+                if (onResult != null) {
+                    onResult.accept(submissionResult, index);
+                }
+            };
+
+            Consumer<TesterResult> streamTo = onResult == null ? null : resultMapper;
+            TesterResponse testerResponse = useCache
+                ? callTesterServiceCached(request, type, streamTo)
+                : callTesterService(request, type, streamTo);
+
+            // Map the results that weren't streamed (all of them, or those from the cache).
+            List<TesterResult> testerResults = testerResponse.getResults();
+            for (int i = results.size(); i < testerResults.size(); i++) {
+                resultMapper.accept(testerResults.get(i));
+            }
+
             Submission submission = new Submission();
             submission.setNumCorrect(testerResponse.getNumCorrect());
             submission.setNumTestCases(testerResponse.getNumTestCases());
@@ -190,20 +245,8 @@ public class SubmitService {
             submission.setCompilationError(testerResponse.getCompilationError());
             submission.setStartTime(Instant.now());
             submission.setPlayerCode(new PlayerCode(request.getCode(), request.getLanguage()));
-
-            // Set the SubmissionResult objects, add to the list.
-            int index = 0;
-            List<ProblemTestCaseDto> testCaseDtos = problem.getTestCases();
-            List<SubmissionResult> results = new ArrayList<>();
-            for (TesterResult testerResult : testerResponse.getResults()) {
-                // Match the test case details with each individual result.
-                ProblemTestCaseDto testCaseDto = testCaseDtos.get(index);
-                SubmissionResult submissionResult = SubmissionMapper.toSubmissionResult(testerResult, testCaseDto);
-                results.add(submissionResult);
-                index++;
-            }
             submission.setResults(results);
-            
+
             return submission;
         } catch (ApiException e) {
             // If custom ApiException is thrown, pass that as the response
@@ -217,32 +260,247 @@ public class SubmitService {
     }
 
     // Sends a POST request to the tester service to judge the user submission
-    protected TesterResponse callTesterService(TesterRequest request) throws IOException {
-        HttpPost post = new HttpPost(getTesterUrl());
+    protected TesterResponse callTesterService(TesterRequest request, SubmissionType type) {
+        // Running code records nothing, so it can be retried on another tester
+        return testerClient.execute(request, type == SubmissionType.TEST);
+    }
 
-        StringEntity stringEntity = new StringEntity(gson.toJson(request));
-        post.setEntity(stringEntity);
-        post.setHeader("Content-type", "application/json");
+    // As above, but with the tester's results streamed to onResult as they are judged
+    protected TesterResponse streamTesterService(TesterRequest request, SubmissionType type,
+                                                 Consumer<TesterResult> onResult) {
+        return testerClient.execute(request, type == SubmissionType.TEST, onResult);
+    }
 
-        HttpResponse response = httpClient.execute(post);
-        String jsonResponse = EntityUtils.toString(response.getEntity());
+    /**
+     * Judge the request, split into shards if its problem has many test
+     * cases. The first shard is judged (and its results streamed) on this
+     * thread, the others alongside it on the shard pool; their results are
+     * passed on in order once the shards before them are done.
+     */
+    private TesterResponse callTesterService(TesterRequest request, SubmissionType type,
+                                             Consumer<TesterResult> onResult) {
+        List<TesterRequest> shards = getShards(request);
+        if (shards.size() == 1) {
+            return callTesterShard(request, type, onResult);
+        }
 
-        // Throw tester error if the tester returns an error response
-        int status = response.getStatusLine().getStatusCode();
-        if (status >= 400) {
-            ApiErrorResponse error = new Gson().fromJson(jsonResponse, ApiErrorResponse.class);
-            throw new ApiException(new TesterError(HttpStatus.valueOf(status), error));
+        List<CompletableFuture<TesterResponse>> futures = new ArrayList<>();
+        for (TesterRequest shard : shards.subList(1, shards.size())) {
+            futures.add(testerShardPool.supply(() -> callTesterService(shard, type)));
         }
 
-        return gson.fromJson(jsonResponse, TesterResponse.class);
+        try {
+            List<TesterResponse> responses = new ArrayList<>();
+            responses.add(callTesterShard(shards.get(0), type, onResult));
+            for (int i = 1; i < shards.size() && !isCutShort(shards.get(i - 1), responses.get(i - 1)); i++) {
+                responses.add(awaitShard(futures.get(i - 1)));
+            }
+
+            return mergeShards(request, shards, responses, onResult);
+        } finally {
+            // Shards no longer needed (after a failure) are dropped if they haven't started.
+            futures.forEach(future -> future.cancel(false));
+        }
     }
 
-    // Is null in certain testing environments; if so, return a default value
-    private String getTesterUrl() {
-        if (testerUrl == null) {
-            return "http://localhost:8080";
+    // Stream the results only if someone is listening
+    private TesterResponse callTesterShard(TesterRequest request, SubmissionType type,
+                                           Consumer<TesterResult> onResult) {
+        return onResult == null ? callTesterService(request, type) : streamTesterService(request, type, onResult);
+    }
+
+    // Split the problem's test cases into contiguous shards, so their results can simply be joined.
+    private List<TesterRequest> getShards(TesterRequest request) {
+        ProblemDto problem = request.getProblem();
+        if (problem == null || problem.getTestCases() == null) {
+            return Collections.singletonList(request);
+        }
+
+        List<ProblemTestCaseDto> testCases = problem.getTestCases();
+        int count = testerShardPool.getShardCount(testCases.size());
+        if (count <= 1) {
+            return Collections.singletonList(request);
+        }
+
+        List<TesterRequest> shards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TesterRequest shard = new TesterRequest();
+            shard.setCode(request.getCode());
+            shard.setLanguage(request.getLanguage());
+            shard.setFailFast(request.isFailFast());
+            shard.setProblemPayload(request.getProblemPayload());
+            setTestCases(shard, problem, new ArrayList<>(testCases.subList(
+                testCases.size() * i / count, testCases.size() * (i + 1) / count)));
+            shards.add(shard);
         }
-        return testerUrl;
+
+        return shards;
+    }
+
+    private TesterResponse awaitShard(CompletableFuture<TesterResponse> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(GameError.TESTER_ERROR);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            log.error("An unexpected error occurred while judging a shard", e.getCause());
+            throw new ApiException(GameError.TESTER_ERROR);
+        }
+    }
+
+    // A shard with fewer results than test cases stopped early (fail-fast, or a compilation error).
+    private static boolean isCutShort(TesterRequest shard, TesterResponse response) {
+        int numResults = response.getResults() == null ? 0 : response.getResults().size();
+        return numResults < shard.getProblem().getTestCases().size();
+    }
+
+    /**
+     * Join the shards' responses into the response to the whole request.
+     * Results are joined in order up to the first shard cut short, so that
+     * each still lines up with its test case; the runtimes are added up, as
+     * the shards' test cases would otherwise have run one after another.
+     * For a fail-fast request, results also stop at the first failure, as
+     * the later shards were judged in parallel, not after it.
+     */
+    private TesterResponse mergeShards(TesterRequest request, List<TesterRequest> shards,
+                                       List<TesterResponse> responses, Consumer<TesterResult> onResult) {
+        List<TesterResult> results = new ArrayList<>();
+        int numCorrect = 0;
+        Double runtime = null;
+        String compilationError = null;
+
+        for (int i = 0; i < responses.size(); i++) {
+            TesterResponse response = responses.get(i);
+            List<TesterResult> shardResults = response.getResults() == null
+                ? Collections.emptyList() : response.getResults();
+
+            int firstFailure = request.isFailFast() ? indexOfFirstFailure(shardResults) : -1;
+            if (firstFailure >= 0) {
+                shardResults = shardResults.subList(0, firstFailure + 1);
+            }
+
+            // The first shard's results were already streamed.
+            if (i > 0 && onResult != null) {
+                shardResults.forEach(onResult);
+            }
+
+            results.addAll(shardResults);
+            if (firstFailure >= 0) {
+                numCorrect += firstFailure;
+            } else {
+                numCorrect += response.getNumCorrect() == null ? 0 : response.getNumCorrect();
+            }
+            if (response.getRuntime() != null) {
+                runtime = (runtime == null ? 0 : runtime) + response.getRuntime();
+            }
+            if (compilationError == null) {
+                compilationError = response.getCompilationError();
+            }
+
+            if (firstFailure >= 0 || isCutShort(shards.get(i), response)) {
+                break;
+            }
+        }
+
+        TesterResponse merged = new TesterResponse();
+        merged.setResults(results);
+        merged.setNumCorrect(numCorrect);
+        merged.setNumTestCases(request.getProblem().getTestCases().size());
+        merged.setRuntime(runtime);
+        merged.setCompilationError(compilationError);
+
+        return merged;
+    }
+
+    private static int indexOfFirstFailure(List<TesterResult> results) {
+        for (int i = 0; i < results.size(); i++) {
+            if (!results.get(i).isCorrect()) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    // Only successful responses are cached; errors are retried every time
+    private TesterResponse callTesterServiceCached(TesterRequest request, SubmissionType type,
+                                                   Consumer<TesterResult> onResult) {
+        String key = SubmissionCache.getKey(request);
+        TesterResponse testerResponse = submissionCache.get(key);
+        if (testerResponse == null) {
+            testerResponse = callTesterService(request, type, onResult);
+            submissionCache.put(key, request, testerResponse);
+        }
+
+        return testerResponse;
+    }
+
+    /**
+     * Reorder the request's test cases so that those that have failed the
+     * most submissions come first, then the smallest (and so cheapest) ones,
+     * so that a wrong answer is caught with as little work as possible. The
+     * cached problem is left as it is; the request gets a reordered copy.
+     *
+     * @return The original index of each test case, in the new order.
+     */
+    private int[] orderTestCases(TesterRequest request, AtomicIntegerArray failures) {
+        ProblemDto problemDto = request.getProblem();
+        List<ProblemTestCaseDto> testCases = problemDto.getTestCases();
+        List<Integer> indices = new ArrayList<>(testCases.size());
+        for (int i = 0; i < testCases.size(); i++) {
+            indices.add(i);
+        }
+
+        indices.sort(Comparator.<Integer>comparingInt(i -> -failures.get(i))
+            .thenComparingInt(i -> length(testCases.get(i).getInput()) + length(testCases.get(i).getOutput())));
+
+        List<ProblemTestCaseDto> ordered = new ArrayList<>(testCases.size());
+        int[] order = new int[indices.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = indices.get(i);
+            ordered.add(testCases.get(order[i]));
+        }
+        setTestCases(request, problemDto, ordered);
+
+        return order;
+    }
+
+    /**
+     * Count the failed test cases of a fail-fast submission, and report its
+     * score out of every test case: those that were never run (after the
+     * first failure, or a compilation error) are not correct.
+     */
+    private void recordFailFastResults(Submission submission, int[] order, AtomicIntegerArray failures) {
+        int numCorrect = 0;
+        List<SubmissionResult> results = submission.getResults();
+        for (int i = 0; i < results.size() && i < order.length; i++) {
+            if (results.get(i).isCorrect()) {
+                numCorrect++;
+            } else {
+                failures.incrementAndGet(order[i]);
+            }
+        }
+
+        submission.setNumCorrect(numCorrect);
+        submission.setNumTestCases(order.length);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    // Rooms only judge submissions fail-fast if they've turned it on
+    private boolean isFailFast(Game game) {
+        return game.getRoom() != null && Boolean.TRUE.equals(game.getRoom().getFailFast());
+    }
+
+    // Rooms cache results unless they've turned it off
+    private boolean isCacheEnabled(Game game) {
+        return game.getRoom() == null || !Boolean.FALSE.equals(game.getRoom().getCacheResults());
     }
 
     // Is null in certain testing environments; if so, return true by default
@@ -255,14 +513,30 @@ public class SubmitService {
         this.debugMode = debugMode;
     }
 
-    private ProblemDto getStrippedProblemDto(Problem problem) {
-        ProblemDto problemDto = ProblemMapper.toDto(problem);
+    // The problem as sent to the tester, shared with every other submission to it.
+    private TesterProblemCache.Payload getTesterProblem(Game game, int problemIndex) {
+        return testerProblemCache.get(game.getProblems().get(problemIndex));
+    }
+
+    /**
+     * Give the request a copy of the problem with only the given test cases,
+     * serialized from the request's cached payload if it has one (so that
+     * the problem isn't serialized again for every shard or reordering).
+     */
+    private static void setTestCases(TesterRequest request, ProblemDto problem, List<ProblemTestCaseDto> testCases) {
+        request.setProblem(withTestCases(problem, testCases));
+
+        TesterProblemCache.Payload payload = request.getProblemPayload();
+        request.setProblemJson(payload != null ? payload.getJson(testCases) : null);
+    }
 
-        // Clear irrelevant fields before sending request to tester service
-        problemDto.setProblemId(null);
-        problemDto.setName(null);
-        problemDto.setDescription(null);
-        problemDto.setDifficulty(null);
+    // A copy of the tester problem with other test cases (the cached one must not be modified).
+    private static ProblemDto withTestCases(ProblemDto problem, List<ProblemTestCaseDto> testCases) {
+        ProblemDto problemDto = new ProblemDto();
+        problemDto.setProblemInputs(problem.getProblemInputs());
+        problemDto.setOutputType(problem.getOutputType());
+        problemDto.setTestCases(testCases);
+        problemDto.setProblemTags(null);
 
         return problemDto;
     }
@@ -0,0 +1,16 @@
+package com.codejoust.main.socket;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published once a user who disconnected hasn't reconnected within the
+ * grace period, so that their room can be told they've left.
+ */
+@Getter
+@AllArgsConstructor
+public class UserDisconnectedEvent {
+    // The database ID of the user.
+    private final Integer id;
+    private final String roomId;
+}
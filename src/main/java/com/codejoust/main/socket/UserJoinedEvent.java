@@ -0,0 +1,14 @@
+package com.codejoust.main.socket;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published once a user has been saved to their room, so that a socket
+ * connection they opened before then can be bound to them.
+ */
+@Getter
+@AllArgsConstructor
+public class UserJoinedEvent {
+    private final String userId;
+}
@@ -11,6 +11,9 @@ import com.codejoust.main.model.User;
 import com.codejoust.main.service.GameManagementService;
 import com.codejoust.main.service.RoomService;
 import com.codejoust.main.service.SocketService;
+import com.codejoust.main.util.PendingConnectionTable;
+import com.codejoust.main.util.PendingConnectionTable.PendingConnection;
+import com.codejoust.main.util.PresenceRegistry;
 
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,7 +21,9 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.GenericMessage;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
@@ -33,6 +38,8 @@ public class WebSocketConnectionEvents {
     private final SocketService socketService;
     private final RoomService roomService;
     private final GameManagementService gameService;
+    private final PendingConnectionTable pendingConnections;
+    private final PresenceRegistry presenceRegistry;
 
     private static final String CONNECT_MESSAGE = "simpConnectMessage";
     private static final String NATIVE_HEADERS = "nativeHeaders";
@@ -40,11 +47,15 @@ public class WebSocketConnectionEvents {
 
     @Autowired
     public WebSocketConnectionEvents(UserRepository userRepository, SocketService socketService,
-                                     RoomService roomService, GameManagementService gameService) {
+                                     RoomService roomService, GameManagementService gameService,
+                                     PendingConnectionTable pendingConnections,
+                                     PresenceRegistry presenceRegistry) {
         this.userRepository = userRepository;
         this.socketService = socketService;
         this.roomService = roomService;
         this.gameService = gameService;
+        this.pendingConnections = pendingConnections;
+        this.presenceRegistry = presenceRegistry;
     }
 
     @EventListener
@@ -70,55 +81,92 @@ public class WebSocketConnectionEvents {
         // Get the unique auto-generated session ID for this connection.
         String sessionId = sha.getSessionId();
 
-        // Pause for 0.5 seconds to allow any pending DB updates to flush to disk
-        try {
-            Thread.sleep(500);
-        } catch (Exception e) {
-            log.info("Thread sleep failed on socket connection");
+        /**
+         * Bind the session to the user if they're saved; otherwise, hold it
+         * until they are (see onUserJoined). The user is looked up again once
+         * the connection is held, in case they were saved in between.
+         */
+        User user = userRepository.findUserByUserId(userId);
+        if (user == null) {
+            PendingConnection connection = pendingConnections.add(userId, sessionId);
+            user = userRepository.findUserByUserId(userId);
+            if (user == null || !pendingConnections.remove(userId, connection)) {
+                return;
+            }
         }
 
-        // Update the session ID of the relevant user, if it is found.
-        User user = userRepository.findUserByUserId(userId);
-        if (user != null) {
-            user.setSessionId(sessionId);
-            userRepository.save(user);
+        // A user reconnecting before their disconnect took effect never left.
+        if (presenceRegistry.reconnect(user, sessionId)) {
+            log.info("User [nickname: {}, userId: {}] reconnected to room {}",
+                    user.getNickname(), user.getUserId(), user.getRoom().getRoomId());
+            return;
+        }
 
-            // Get room and send socket update.
-            Room room = user.getRoom();
-            RoomDto roomDto = RoomMapper.toDto(room);
-            socketService.sendSocketUpdate(roomDto);
+        bindSession(user, sessionId);
+    }
 
-            // If a game exists, update the room info for that game
-            gameService.conditionallyUpdateSocketInfo(room, user);
+    // Bind the connection held for the user, if any, now they've been saved.
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onUserJoined(UserJoinedEvent event) {
+        PendingConnection connection = pendingConnections.take(event.getUserId());
+        if (connection == null) {
+            return;
+        }
 
-            log.info("User [nickname: {}, userId: {}] connected to room {}",
-                    user.getNickname(), user.getUserId(), room.getRoomId());
+        User user = userRepository.findUserByUserId(event.getUserId());
+        if (user != null) {
+            bindSession(user, connection.getSessionId());
         }
     }
 
+    // Record the session of the user, and send socket updates.
+    private void bindSession(User user, String sessionId) {
+        presenceRegistry.connect(user, sessionId);
+        user.setSessionId(sessionId);
+
+        // Get room and send socket update.
+        Room room = user.getRoom();
+        RoomDto roomDto = RoomMapper.toDto(room);
+        socketService.sendSocketUpdate(roomDto);
+
+        // If a game exists, update the room info for that game
+        gameService.conditionallyUpdateSocketInfo(room, user);
+
+        log.info("User [nickname: {}, userId: {}] connected to room {}",
+                user.getNickname(), user.getUserId(), room.getRoomId());
+    }
+
     @EventListener
     public void onSocketDisconnected(SessionDisconnectEvent event) {
         // Grab the custom headers on connection.
         StompHeaderAccessor sha = StompHeaderAccessor.wrap(event.getMessage());
         sha.getSessionId();
         String sessionId = sha.getSessionId();
+        pendingConnections.removeSession(sessionId);
 
-        // Remove the user from the database and send socket update, if user exists.
-        User user = userRepository.findUserBySessionId(sessionId);
-        if (user != null) {
-            user.setSessionId(null);
-            userRepository.save(user);
+        // The room is told once the user hasn't reconnected in time (see onUserDisconnected).
+        presenceRegistry.disconnect(sessionId);
+    }
 
-            // Get room, conditionally update the host, and send socket update.
-            Room room = user.getRoom();
-            RoomDto roomDto = roomService.conditionallyUpdateRoomHost(room, user, false);
-            socketService.sendSocketUpdate(roomDto);
+    // Send socket updates for a user who disconnected and didn't reconnect in time.
+    @EventListener
+    public void onUserDisconnected(UserDisconnectedEvent event) {
+        User user = userRepository.findById(event.getId()).orElse(null);
+        if (user == null || user.getRoom() == null || user.getSessionId() != null) {
+            // The user has since left their room, or connected again.
+            return;
+        }
 
-            // If a game exists, update the room info for that game
-            gameService.conditionallyUpdateSocketInfo(room, user);
+        // Get room, conditionally update the host, and send socket update.
+        Room room = user.getRoom();
+        RoomDto roomDto = roomService.conditionallyUpdateRoomHost(room, user, false);
+        socketService.sendSocketUpdate(roomDto);
 
-            log.info("User [nickname: {}, userId: {}] disconnected from room {}",
-                    user.getNickname(), user.getUserId(), room.getRoomId());
-        }
+        // If a game exists, update the room info for that game
+        gameService.conditionallyUpdateSocketInfo(room, user);
+
+        log.info("User [nickname: {}, userId: {}] disconnected from room {}",
+                user.getNickname(), user.getUserId(), room.getRoomId());
     }
 }
@@ -1,23 +1,31 @@
 package com.codejoust.main.util;
 
-import java.util.TimerTask;
-
 import com.codejoust.main.dto.game.GameDto;
 import com.codejoust.main.dto.game.GameMapper;
 import com.codejoust.main.exception.TimerError;
 import com.codejoust.main.exception.api.ApiException;
 import com.codejoust.main.game_object.Game;
+import com.codejoust.main.model.report.GameEndType;
+import com.codejoust.main.service.GameLogService;
 import com.codejoust.main.service.SocketService;
 
-public class EndGameTimerTask extends TimerTask {
+public class EndGameTimerTask implements Runnable {
 
     private final Game game;
 
     private final SocketService socketService;
 
+    // Records the end of the game, if set.
+    private final GameLogService gameLogService;
+
     public EndGameTimerTask(SocketService socketService, Game game) {
+        this(socketService, game, null);
+    }
+
+    public EndGameTimerTask(SocketService socketService, Game game, GameLogService gameLogService) {
         this.socketService = socketService;
         this.game = game;
+        this.gameLogService = gameLogService;
 
         // Handle potential errors for run().
         if (game == null || game.getGameTimer() == null || game.getRoom() == null || game.getRoom().getRoomId() == null || socketService == null) {
@@ -27,11 +35,16 @@ public class EndGameTimerTask extends TimerTask {
 
 	@Override
     public void run() {
-        // Set time as up.
-        game.getGameTimer().setTimeUp(true);
-
-        // Get the Game DTO and send the relevant socket update.
-        GameDto gameDto = GameMapper.toDto(game);
+        // Set time as up and get the Game DTO from within the room's mailbox.
+        GameDto gameDto = game.getMailbox().call(() -> {
+            game.getGameTimer().setTimeUp(true);
+            if (gameLogService != null) {
+                gameLogService.gameEnded(game, GameEndType.TIME_UP);
+            }
+            return GameMapper.toDto(game);
+        });
+
+        // Send the relevant socket update.
         socketService.sendSocketUpdate(gameDto);
     }
     
@@ -0,0 +1,314 @@
+package com.codejoust.main.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.codejoust.main.dto.game.GameDto;
+import com.codejoust.main.dto.game.GameUpdateDto;
+import com.codejoust.main.dto.game.PatchOperationDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Encodes the game states sent to each room as JSON patches (RFC 6902) to
+ * the state last sent, numbered in sequence, so that each update carries
+ * only what changed rather than the complete game.
+ *
+ * A room's first update, and any whose patch would have more than the
+ * maximum number of operations, carry the complete game instead. Clients
+ * apply a patch only if their game is at the previous sequence, and
+ * otherwise fetch the game.
+ *
+ * Updates must be encoded in the order they are sent to the room. The
+ * state last sent to a room is kept until its game is evicted or played
+ * again, or until it has had no updates for the idle period.
+ */
+@Component
+public class GameDeltaEncoder {
+
+    public static final int DEFAULT_MAX_OPERATIONS = 256;
+    public static final long DEFAULT_IDLE_MILLIS = 300000;
+
+    public static final String UPDATES_COUNTER = "socket.game.updates";
+
+    private static final String ADD = "add";
+    private static final String REMOVE = "remove";
+    private static final String REPLACE = "replace";
+
+    private final ObjectMapper objectMapper;
+    private final int maxOperations;
+    private final long idleMillis;
+
+    private final ConcurrentHashMap<String, RoomState> rooms = new ConcurrentHashMap<>();
+
+    private final Counter patches;
+    private final Counter fullStates;
+    private final Counter unchanged;
+
+    @Autowired
+    public GameDeltaEncoder(ObjectMapper objectMapper,
+                            @Value("${game.delta.maxOperations:" + DEFAULT_MAX_OPERATIONS + "}") int maxOperations,
+                            @Value("${game.delta.idleMillis:" + DEFAULT_IDLE_MILLIS + "}") long idleMillis,
+                            MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.maxOperations = maxOperations;
+        this.idleMillis = idleMillis;
+
+        this.patches = registerCounter(meterRegistry, "patch");
+        this.fullStates = registerCounter(meterRegistry, "full");
+        this.unchanged = registerCounter(meterRegistry, "unchanged");
+    }
+
+    /**
+     * Encode the game state as the room's next update.
+     *
+     * @param roomId The room the update is sent to.
+     * @param gameDto The state of the room's game.
+     * @return The update, or null if the state is the same as, or older
+     * than, the state last sent.
+     */
+    public GameUpdateDto encode(String roomId, GameDto gameDto) {
+        RoomState room = rooms.computeIfAbsent(roomId, key -> new RoomState());
+
+        synchronized (room) {
+            room.lastUsed = System.currentTimeMillis();
+            if (room.gameDto != null && gameDto.getVersion() <= room.gameDto.getVersion()) {
+                unchanged.increment();
+                return null;
+            }
+
+            JsonNode tree = objectMapper.valueToTree(gameDto);
+            GameUpdateDto update = new GameUpdateDto();
+
+            if (room.tree != null) {
+                List<PatchOperationDto> patch = diff(room.tree, tree);
+                if (patch.isEmpty()) {
+                    room.gameDto = gameDto;
+                    unchanged.increment();
+                    return null;
+                }
+
+                if (patch.size() <= maxOperations) {
+                    update.setPatch(patch);
+                }
+            }
+
+            if (update.getPatch() == null) {
+                update.setGame(tree);
+                fullStates.increment();
+            } else {
+                patches.increment();
+            }
+
+            room.tree = tree;
+            room.gameDto = gameDto;
+            update.setSequence(++room.sequence);
+            return update;
+        }
+    }
+
+    /**
+     * Get the state last sent to the room, with the sequence of its update,
+     * so that clients fetching it can apply the patches that follow.
+     *
+     * @param roomId The room the state was sent to.
+     * @return The state, or null if none was sent recently.
+     */
+    public GameDto getLastSent(String roomId) {
+        RoomState room = rooms.get(roomId);
+        if (room == null) {
+            return null;
+        }
+
+        synchronized (room) {
+            if (room.gameDto == null) {
+                return null;
+            }
+
+            GameDto gameDto = copy(room.gameDto);
+            gameDto.setSequence(room.sequence);
+            return gameDto;
+        }
+    }
+
+    /**
+     * Forget the state last sent to the room, e.g. once its game is evicted,
+     * so that its next update is the complete game.
+     *
+     * @param roomId The room whose state to forget.
+     */
+    public void forget(String roomId) {
+        rooms.remove(roomId);
+    }
+
+    // Forget rooms without recent updates; their next update is the complete game.
+    @Scheduled(fixedDelayString = "${game.delta.idleMillis:" + DEFAULT_IDLE_MILLIS + "}",
+        initialDelayString = "${game.delta.idleMillis:" + DEFAULT_IDLE_MILLIS + "}")
+    public void removeIdleRooms() {
+        long now = System.currentTimeMillis();
+        rooms.values().removeIf(room -> now - room.lastUsed >= idleMillis);
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    /**
+     * Get the operations turning the source document into the target.
+     * Objects are compared by field, and arrays by index, with elements
+     * added or removed at the end.
+     *
+     * @param source The document the patch applies to.
+     * @param target The document resulting from the patch.
+     * @return The operations, empty if the documents are equal.
+     */
+    public static List<PatchOperationDto> diff(JsonNode source, JsonNode target) {
+        List<PatchOperationDto> patch = new ArrayList<>();
+        diff("", source, target, patch);
+        return patch;
+    }
+
+    /**
+     * Apply a patch produced by {@link #diff}, leaving the source unchanged.
+     *
+     * @param source The document to patch.
+     * @param patch The operations to apply, in order.
+     * @return The patched document.
+     */
+    public static JsonNode apply(JsonNode source, List<PatchOperationDto> patch) {
+        JsonNode document = source.deepCopy();
+
+        for (PatchOperationDto operation : patch) {
+            if (operation.getPath().isEmpty()) {
+                document = operation.getValue().deepCopy();
+                continue;
+            }
+
+            int separator = operation.getPath().lastIndexOf('/');
+            JsonNode parent = document.at(operation.getPath().substring(0, separator));
+            String key = unescape(operation.getPath().substring(separator + 1));
+            JsonNode value = operation.getValue() != null ? operation.getValue().deepCopy() : null;
+
+            if (parent.isArray()) {
+                ArrayNode array = (ArrayNode) parent;
+                if (REMOVE.equals(operation.getOp())) {
+                    array.remove(Integer.parseInt(key));
+                } else if (REPLACE.equals(operation.getOp())) {
+                    array.set(Integer.parseInt(key), value);
+                } else if ("-".equals(key)) {
+                    array.add(value);
+                } else {
+                    array.insert(Integer.parseInt(key), value);
+                }
+            } else if (parent.isObject()) {
+                ObjectNode object = (ObjectNode) parent;
+                if (REMOVE.equals(operation.getOp())) {
+                    object.remove(key);
+                } else {
+                    object.set(key, value);
+                }
+            } else {
+                throw new IllegalArgumentException("No container at " + operation.getPath());
+            }
+        }
+
+        return document;
+    }
+
+    private static void diff(String path, JsonNode source, JsonNode target, List<PatchOperationDto> patch) {
+        if (source.equals(target)) {
+            return;
+        }
+
+        if (source.isObject() && target.isObject()) {
+            Iterator<String> names = source.fieldNames();
+            while (names.hasNext()) {
+                String name = names.next();
+                if (!target.has(name)) {
+                    patch.add(new PatchOperationDto(REMOVE, path + "/" + escape(name), null));
+                }
+            }
+
+            Iterator<Map.Entry<String, JsonNode>> fields = target.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String fieldPath = path + "/" + escape(field.getKey());
+                JsonNode sourceValue = source.get(field.getKey());
+                if (sourceValue == null) {
+                    patch.add(new PatchOperationDto(ADD, fieldPath, field.getValue()));
+                } else {
+                    diff(fieldPath, sourceValue, field.getValue(), patch);
+                }
+            }
+        } else if (source.isArray() && target.isArray()) {
+            int common = Math.min(source.size(), target.size());
+            for (int i = 0; i < common; i++) {
+                diff(path + "/" + i, source.get(i), target.get(i), patch);
+            }
+
+            for (int i = common; i < target.size(); i++) {
+                patch.add(new PatchOperationDto(ADD, path + "/-", target.get(i)));
+            }
+
+            // Remove from the end, so that earlier indices stay valid.
+            for (int i = source.size() - 1; i >= common; i--) {
+                patch.add(new PatchOperationDto(REMOVE, path + "/" + i, null));
+            }
+        } else {
+            patch.add(new PatchOperationDto(REPLACE, path, target));
+        }
+    }
+
+    // Escape a field name as a JSON Pointer token.
+    private static String escape(String name) {
+        return name.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static String unescape(String token) {
+        return token.replace("~1", "/").replace("~0", "~");
+    }
+
+    private static GameDto copy(GameDto source) {
+        GameDto gameDto = new GameDto();
+        gameDto.setProblems(source.getProblems());
+        gameDto.setRoom(source.getRoom());
+        gameDto.setGameTimer(source.getGameTimer());
+        gameDto.setPlayers(source.getPlayers());
+        gameDto.setPlayAgain(source.getPlayAgain());
+        gameDto.setAllSolved(source.getAllSolved());
+        gameDto.setProblemSolveCounts(source.getProblemSolveCounts());
+        gameDto.setGameEnded(source.getGameEnded());
+        gameDto.setVersion(source.getVersion());
+        return gameDto;
+    }
+
+    private static Counter registerCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder(UPDATES_COUNTER)
+            .description("Game updates encoded, by whether a patch or the complete game was sent")
+            .tag("type", type)
+            .register(meterRegistry);
+    }
+
+    private static final class RoomState {
+
+        // The state last sent, as sent and as built.
+        private JsonNode tree;
+        private GameDto gameDto;
+
+        private long sequence = 0;
+
+        private volatile long lastUsed = System.currentTimeMillis();
+    }
+}
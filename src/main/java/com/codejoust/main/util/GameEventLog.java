@@ -0,0 +1,296 @@
+package com.codejoust.main.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import javax.annotation.PreDestroy;
+
+import com.codejoust.main.dto.game.GameEventDto;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only log of game events, kept in memory-mapped segment files on
+ * this node's disk, so appending an event costs a copy into memory.
+ *
+ * Each record is its sequence number, the length of its payload, a CRC-32
+ * of both, then the event as JSON. A zero length marks the end of a
+ * segment's records, and reading stops at the first record that fails its
+ * checksum (e.g. one torn by a crash), after which appending resumes. Once
+ * a segment is full, the next one is started, and the oldest segments past
+ * the configured number are deleted.
+ *
+ * Appended records survive the process dying as soon as they're copied;
+ * they're forced to disk periodically and on shutdown.
+ */
+@Log4j2
+@Component
+public class GameEventLog {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    // Sequence number (long), payload length (int) and checksum (int).
+    protected static final int HEADER_BYTES = 16;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    // The segment being appended to, opened on first use.
+    private long segmentIndex;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    private long nextSequence;
+
+    @Autowired
+    public GameEventLog(@Value("${game.log.enabled:true}") boolean enabled,
+                        @Value("${game.log.dir:game-log}") String directory,
+                        @Value("${game.log.segmentBytes:16777216}") int segmentBytes,
+                        @Value("${game.log.maxSegments:16}") int maxSegments) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(maxSegments, 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Append an event, setting its sequence number. Failures are logged
+     * rather than thrown, so that the log never fails the game itself.
+     *
+     * @param event The event to append.
+     */
+    public void append(GameEventDto event) {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            // Serialize outside the lock; the sequence number goes in the header.
+            byte[] payload = objectMapper.writeValueAsBytes(event);
+            if (HEADER_BYTES + payload.length > segmentBytes) {
+                log.error("Dropped a {} event of {} bytes, larger than a game log segment",
+                    event.getType(), payload.length);
+                return;
+            }
+
+            synchronized (this) {
+                open();
+                if (buffer.remaining() < HEADER_BYTES + payload.length) {
+                    roll();
+                }
+
+                long sequence = nextSequence++;
+                buffer.putLong(sequence)
+                    .putInt(payload.length)
+                    .putInt(checksum(sequence, payload))
+                    .put(payload);
+                event.setSequence(sequence);
+            }
+        } catch (IOException e) {
+            log.error("Failed to append a {} event to the game log", event.getType(), e);
+        }
+    }
+
+    /**
+     * Read every event still in the log, oldest first. Only the end of the
+     * log is found under the lock; the segments are read outside it, so that
+     * appending isn't held up, and events appended since are left out.
+     *
+     * @return The events, or an empty list if the log is disabled or unreadable.
+     */
+    public List<GameEventDto> readAll() {
+        List<GameEventDto> events = new ArrayList<>();
+        if (!enabled) {
+            return events;
+        }
+
+        long lastIndex;
+        int end;
+        try {
+            synchronized (this) {
+                open();
+                lastIndex = segmentIndex;
+                end = buffer.position();
+            }
+
+            for (Path segment : listSegments()) {
+                long index = getIndex(segment);
+                if (index > lastIndex) {
+                    break;
+                }
+
+                try {
+                    readSegment(segment, index == lastIndex ? end : segmentBytes, events::add);
+                } catch (NoSuchFileException e) {
+                    // Deleted by a roll since it was listed; its events are gone.
+                    log.info("Skipped game log segment {}, deleted while reading", segment);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to read the game log", e);
+        }
+
+        return events;
+    }
+
+    @Scheduled(fixedDelayString = "${game.log.flushInterval:1000}")
+    public synchronized void flush() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (buffer == null) {
+            return;
+        }
+
+        buffer.force();
+        buffer = null;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.error("Failed to close the game log", e);
+        }
+    }
+
+    // Open the latest segment, positioned after its last valid record.
+    private void open() throws IOException {
+        if (buffer != null) {
+            return;
+        }
+
+        Files.createDirectories(directory);
+        List<Path> segments = listSegments();
+
+        long[] lastSequence = { 0 };
+        int end = 0;
+        for (Path segment : segments) {
+            end = readSegment(segment, segmentBytes,
+                event -> lastSequence[0] = Math.max(lastSequence[0], event.getSequence()));
+        }
+        nextSequence = lastSequence[0] + 1;
+
+        if (segments.isEmpty()) {
+            mapSegment(1, 0);
+        } else {
+            mapSegment(getIndex(segments.get(segments.size() - 1)), Math.min(end, segmentBytes));
+        }
+    }
+
+    // Start the next segment, deleting the oldest ones past the limit.
+    private void roll() throws IOException {
+        buffer.force();
+        channel.close();
+        mapSegment(segmentIndex + 1, 0);
+
+        List<Path> segments = listSegments();
+        for (int i = 0; i < segments.size() - maxSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    private void mapSegment(long index, int position) throws IOException {
+        segmentIndex = index;
+        channel = FileChannel.open(directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX)),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        buffer.position(position);
+    }
+
+    /**
+     * Pass each valid record of the segment, up to the limit, to the
+     * consumer, in order.
+     *
+     * @return The position just after the last valid record.
+     */
+    private int readSegment(Path segment, int limit, Consumer<GameEventDto> consumer) throws IOException {
+        try (FileChannel readChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer readBuffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0,
+                Math.min(readChannel.size(), limit));
+
+            int end = 0;
+            while (readBuffer.remaining() >= HEADER_BYTES) {
+                long sequence = readBuffer.getLong();
+                int length = readBuffer.getInt();
+                int checksum = readBuffer.getInt();
+                if (length <= 0 || length > readBuffer.remaining()) {
+                    break;
+                }
+
+                byte[] payload = new byte[length];
+                readBuffer.get(payload);
+                if (checksum(sequence, payload) != checksum) {
+                    break;
+                }
+                end = readBuffer.position();
+
+                try {
+                    GameEventDto event = objectMapper.readValue(payload, GameEventDto.class);
+                    event.setSequence(sequence);
+                    consumer.accept(event);
+                } catch (IOException e) {
+                    log.warn("Skipped unreadable event {} in the game log", sequence, e);
+                }
+            }
+
+            return end;
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static long getIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int checksum(long sequence, byte[] payload) {
+        CRC32 crc = new CRC32();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (sequence >>> shift));
+        }
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
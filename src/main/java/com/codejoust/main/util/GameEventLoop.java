@@ -0,0 +1,44 @@
+package com.codejoust.main.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Small shared thread pool over which every room's mailbox is multiplexed.
+ * All mutations of a live Game are applied through its room's mailbox.
+ */
+@Component
+public class GameEventLoop {
+
+    public static final int DEFAULT_THREADS = 4;
+
+    private final ExecutorService executor;
+
+    public GameEventLoop(@Value("${game.eventLoop.threads:" + DEFAULT_THREADS + "}") int threads) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "game-event-loop-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        this.executor = Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+    // Create a new mailbox for a room, backed by the shared pool.
+    public RoomMailbox newMailbox() {
+        return new RoomMailbox(executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
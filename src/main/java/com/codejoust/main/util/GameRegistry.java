@@ -0,0 +1,161 @@
+package com.codejoust.main.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.codejoust.main.game_object.Game;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry holding every live game on this node, keyed by room ID.
+ *
+ * Reads are lock-free (backed by a ConcurrentHashMap), while compound
+ * operations on a single room (create, replace, remove) are serialized with
+ * a striped lock so that operations on different rooms rarely contend.
+ */
+@Component
+public class GameRegistry {
+
+    // Number of lock stripes; must be a power of two.
+    public static final int DEFAULT_STRIPES = 64;
+
+    private final ConcurrentMap<String, Game> games = new ConcurrentHashMap<>();
+
+    private final ReentrantLock[] locks;
+
+    public GameRegistry() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public GameRegistry(int stripes) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("The number of stripes must be a positive power of two.");
+        }
+
+        locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    // Get the game for the given room, or null if none exists (lock-free).
+    public Game get(String roomId) {
+        if (roomId == null) {
+            return null;
+        }
+
+        return games.get(roomId);
+    }
+
+    public boolean contains(String roomId) {
+        return get(roomId) != null;
+    }
+
+    /**
+     * Atomically create a game for the room if none exists. The supplier is
+     * only invoked when no game is present, and it runs under the room's lock.
+     *
+     * @param roomId The room the game belongs to.
+     * @param supplier Builds the game to add.
+     * @return The game now associated with the room (new or pre-existing).
+     */
+    public Game createIfAbsent(String roomId, Supplier<Game> supplier) {
+        return withLock(roomId, () -> {
+            Game existing = games.get(roomId);
+            if (existing != null) {
+                return existing;
+            }
+
+            Game game = supplier.get();
+            games.put(roomId, game);
+            return game;
+        });
+    }
+
+    /**
+     * Atomically associate a game with the room, replacing any previous game.
+     *
+     * @return The previous game for the room, or null if there was none.
+     */
+    public Game put(String roomId, Game game) {
+        return withLock(roomId, () -> games.put(roomId, game));
+    }
+
+    /**
+     * Replace the room's game only if it is still the expected instance.
+     *
+     * @return true if the game was replaced, false otherwise.
+     */
+    public boolean replace(String roomId, Game expected, Game game) {
+        return withLock(roomId, () -> games.replace(roomId, expected, game));
+    }
+
+    // Remove the room's game, returning the removed game (or null).
+    public Game remove(String roomId) {
+        return withLock(roomId, () -> games.remove(roomId));
+    }
+
+    // Remove the room's game only if it is still the expected instance.
+    public boolean remove(String roomId, Game expected) {
+        return withLock(roomId, () -> games.remove(roomId, expected));
+    }
+
+    /**
+     * Run an action against the room's current game while holding the room's
+     * lock, so that it cannot be created, replaced, or removed concurrently.
+     *
+     * @param roomId The room to lock.
+     * @param action The action, given the current game (possibly null).
+     * @return The result of the action.
+     */
+    public <T> T compute(String roomId, Function<Game, T> action) {
+        return withLock(roomId, () -> action.apply(games.get(roomId)));
+    }
+
+    // Weakly-consistent view of all live games, intended for admin and metrics.
+    public Collection<Game> getGames() {
+        return Collections.unmodifiableCollection(games.values());
+    }
+
+    // Weakly-consistent view of all room IDs with live games.
+    public Set<String> getRoomIds() {
+        return Collections.unmodifiableSet(games.keySet());
+    }
+
+    public void forEach(BiConsumer<String, Game> action) {
+        games.forEach(action);
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    private <T> T withLock(String roomId, Supplier<T> action) {
+        if (roomId == null) {
+            throw new IllegalArgumentException("The room ID must not be null.");
+        }
+
+        ReentrantLock lock = lockFor(roomId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock lockFor(String roomId) {
+        // Spread the hash so that similar room IDs land on different stripes.
+        int hash = roomId.hashCode();
+        hash ^= (hash >>> 16);
+        return locks[hash & (locks.length - 1)];
+    }
+}
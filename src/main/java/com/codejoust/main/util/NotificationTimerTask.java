@@ -1,7 +1,6 @@
 package com.codejoust.main.util;
 
 import java.time.Instant;
-import java.util.TimerTask;
 
 import com.codejoust.main.dto.game.GameNotificationDto;
 import com.codejoust.main.exception.TimerError;
@@ -9,7 +8,7 @@ import com.codejoust.main.exception.api.ApiException;
 import com.codejoust.main.game_object.NotificationType;
 import com.codejoust.main.service.SocketService;
 
-public class NotificationTimerTask extends TimerTask {
+public class NotificationTimerTask implements Runnable {
 
     private String roomId;
 
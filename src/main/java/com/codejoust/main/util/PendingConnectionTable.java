@@ -0,0 +1,88 @@
+package com.codejoust.main.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Socket connections from users not yet saved, e.g. a client connecting
+ * while the request adding it to its room is still being handled. Each is
+ * bound to its user once saved, or dropped after a timeout.
+ */
+@Component
+public class PendingConnectionTable {
+
+    public static final long DEFAULT_TTL_MILLIS = 30000;
+
+    public static final String PENDING_GAUGE = "socket.connections.pending";
+
+    private final long ttlMillis;
+
+    // Map from userId to the user's latest connection not yet bound.
+    private final ConcurrentHashMap<String, PendingConnection> connections = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PendingConnectionTable(@Value("${socket.pending.ttlMillis:" + DEFAULT_TTL_MILLIS + "}") long ttlMillis,
+                                  MeterRegistry meterRegistry) {
+        this.ttlMillis = ttlMillis;
+
+        Gauge.builder(PENDING_GAUGE, connections, ConcurrentHashMap::size)
+            .description("Number of socket connections waiting for their user to be saved")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Hold a connection until its user is saved, replacing any earlier one
+     * held for the user.
+     *
+     * @param userId The user who connected.
+     * @param sessionId The session ID of the connection.
+     * @return The connection held, to remove it if the user is found.
+     */
+    public PendingConnection add(String userId, String sessionId) {
+        PendingConnection connection = new PendingConnection(sessionId, System.currentTimeMillis());
+        connections.put(userId, connection);
+        return connection;
+    }
+
+    // Remove the connection if it's still held, returning whether it was.
+    public boolean remove(String userId, PendingConnection connection) {
+        return connections.remove(userId, connection);
+    }
+
+    // Remove and return the connection held for the user, if any.
+    public PendingConnection take(String userId) {
+        return connections.remove(userId);
+    }
+
+    // Drop the connection with the session ID, e.g. once it disconnects.
+    public void removeSession(String sessionId) {
+        connections.values().removeIf(connection -> connection.getSessionId().equals(sessionId));
+    }
+
+    @Scheduled(fixedDelayString = "${socket.pending.ttlMillis:" + DEFAULT_TTL_MILLIS + "}",
+        initialDelayString = "${socket.pending.ttlMillis:" + DEFAULT_TTL_MILLIS + "}")
+    public void expire() {
+        long now = System.currentTimeMillis();
+        connections.values().removeIf(connection -> now - connection.getCreatedTime() >= ttlMillis);
+    }
+
+    public int size() {
+        return connections.size();
+    }
+
+    // Compared by identity, so a connection replaced isn't removed in its place.
+    @Getter
+    @RequiredArgsConstructor
+    public static final class PendingConnection {
+        private final String sessionId;
+        private final long createdTime;
+    }
+}
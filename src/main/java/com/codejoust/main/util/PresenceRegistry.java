@@ -0,0 +1,217 @@
+package com.codejoust.main.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.codejoust.main.model.User;
+import com.codejoust.main.socket.UserDisconnectedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Which users are connected to their room's socket, and through which
+ * session. This is the source of truth for a user's session ID, which is
+ * not stored in the database, so connecting and disconnecting write
+ * nothing.
+ *
+ * A user who disconnects stays present for a grace period, so that a
+ * connection that drops and comes back (e.g. on a flaky mobile network)
+ * is seen as never having left. If the user hasn't reconnected by the end
+ * of it, they are removed and a UserDisconnectedEvent is published.
+ *
+ * Users are identified by their database ID, so that a user saved again
+ * with the same user ID isn't seen as connected through an old session.
+ */
+@Component
+public class PresenceRegistry {
+
+    public static final long DEFAULT_GRACE_MILLIS = 3000;
+
+    public static final String CONNECTED_GAUGE = "socket.presence.connected";
+    public static final String RECONNECTS_COUNTER = "socket.presence.reconnects";
+
+    private final TimingWheel timingWheel;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long graceMillis;
+
+    // Map from the user's database ID to their presence, and from session ID to user.
+    private final ConcurrentHashMap<Integer, Presence> users = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> sessions = new ConcurrentHashMap<>();
+
+    private final Counter reconnects;
+
+    @Autowired
+    public PresenceRegistry(TimingWheel timingWheel, ApplicationEventPublisher eventPublisher,
+                            @Value("${socket.presence.graceMillis:" + DEFAULT_GRACE_MILLIS + "}") long graceMillis,
+                            MeterRegistry meterRegistry) {
+        this.timingWheel = timingWheel;
+        this.eventPublisher = eventPublisher;
+        this.graceMillis = graceMillis;
+
+        Gauge.builder(CONNECTED_GAUGE, users, ConcurrentHashMap::size)
+            .description("Number of users connected to their room's socket")
+            .register(meterRegistry);
+        this.reconnects = Counter.builder(RECONNECTS_COUNTER)
+            .description("Users who reconnected within the grace period after disconnecting")
+            .register(meterRegistry);
+    }
+
+    // The session ID of the user's connection, or null if they aren't connected.
+    public String getSessionId(User user) {
+        Presence presence = user.getId() != null ? users.get(user.getId()) : null;
+        return presence != null ? presence.getSessionId() : null;
+    }
+
+    /**
+     * Record the user as connected to their room through the session,
+     * replacing any earlier connection of theirs.
+     *
+     * @param user The user who connected, saved to their room.
+     * @param sessionId The session ID of the connection.
+     */
+    public void connect(User user, String sessionId) {
+        Presence previous = users.put(user.getId(),
+            new Presence(user.getId(), user.getRoom().getRoomId(), sessionId));
+        sessions.put(sessionId, user.getId());
+
+        if (previous != null) {
+            retire(previous);
+        }
+    }
+
+    /**
+     * Move a user who is still present (e.g. within the grace period after
+     * disconnecting) to a new session, so they're seen as never having left.
+     *
+     * @param user The user who connected.
+     * @param sessionId The session ID of the new connection.
+     * @return Whether the user was present; if not, they must be connected.
+     */
+    public boolean reconnect(User user, String sessionId) {
+        Presence presence = users.get(user.getId());
+        if (presence == null) {
+            return false;
+        }
+
+        synchronized (presence) {
+            if (presence.removed) {
+                return false;
+            }
+
+            if (presence.disconnecting != null) {
+                presence.disconnecting.cancel();
+                presence.disconnecting = null;
+                reconnects.increment();
+            }
+
+            sessions.remove(presence.sessionId, presence.getId());
+            presence.sessionId = sessionId;
+            sessions.put(sessionId, presence.getId());
+            return true;
+        }
+    }
+
+    /**
+     * Start the grace period of the user connected through the session, if
+     * it's still their connection; they are removed at its end unless they
+     * reconnect first.
+     *
+     * @param sessionId The session ID of the connection that closed.
+     */
+    public void disconnect(String sessionId) {
+        Integer id = sessions.get(sessionId);
+        Presence presence = id != null ? users.get(id) : null;
+        if (presence == null) {
+            return;
+        }
+
+        synchronized (presence) {
+            if (presence.removed || !sessionId.equals(presence.sessionId) || presence.disconnecting != null) {
+                return;
+            }
+
+            if (graceMillis > 0) {
+                presence.disconnecting = timingWheel.schedule(() -> expire(presence, sessionId),
+                    graceMillis, TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+
+        expire(presence, sessionId);
+    }
+
+    /**
+     * Forget every user in the room without publishing events, e.g. when
+     * its players are sent back to the lobby, where they connect again.
+     *
+     * @param roomId The room whose users to forget.
+     */
+    public void removeRoom(String roomId) {
+        for (Presence presence : users.values()) {
+            if (presence.getRoomId().equals(roomId) && users.remove(presence.getId(), presence)) {
+                retire(presence);
+            }
+        }
+    }
+
+    public int size() {
+        return users.size();
+    }
+
+    // Remove the user at the end of the grace period, unless they've reconnected.
+    private void expire(Presence presence, String sessionId) {
+        synchronized (presence) {
+            if (presence.removed || !sessionId.equals(presence.sessionId)) {
+                return;
+            }
+
+            presence.removed = true;
+            presence.disconnecting = null;
+        }
+
+        users.remove(presence.getId(), presence);
+        sessions.remove(sessionId, presence.getId());
+        eventPublisher.publishEvent(new UserDisconnectedEvent(presence.getId(), presence.getRoomId()));
+    }
+
+    // Mark a presence no longer in the registry as removed, without an event.
+    private void retire(Presence presence) {
+        synchronized (presence) {
+            presence.removed = true;
+            if (presence.disconnecting != null) {
+                presence.disconnecting.cancel();
+                presence.disconnecting = null;
+            }
+            sessions.remove(presence.sessionId, presence.getId());
+        }
+    }
+
+    @Getter
+    private static final class Presence {
+
+        private final Integer id;
+        private final String roomId;
+
+        // Changed when the user reconnects; guarded by the presence itself.
+        private volatile String sessionId;
+
+        // The end of the grace period, if the user has disconnected.
+        private TimingWheel.Timeout disconnecting;
+
+        // Whether the presence has been removed from the registry.
+        private boolean removed = false;
+
+        Presence(Integer id, String roomId, String sessionId) {
+            this.id = id;
+            this.roomId = roomId;
+            this.sessionId = sessionId;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.codejoust.main.util;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * A per-room mailbox: tasks submitted to it are applied one at a time, in
+ * submission order, on whichever thread of the backing executor picks the
+ * mailbox up. Many mailboxes can share one small executor, so every room gets
+ * single-writer semantics without a global lock or a dedicated thread.
+ */
+@Log4j2
+public class RoomMailbox implements Executor {
+
+    // Maximum number of tasks drained per turn, so busy rooms can't starve others.
+    private static final int BATCH_SIZE = 32;
+
+    // The mailbox (if any) currently being drained by this thread.
+    private static final ThreadLocal<RoomMailbox> DRAINING = new ThreadLocal<>();
+
+    private final Executor executor;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    public RoomMailbox(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Create a mailbox that drains on the submitting thread. Tasks are still
+     * applied one at a time and in order; this is the default for games that
+     * are not managed by the game event loop (e.g. in tests).
+     */
+    public static RoomMailbox inline() {
+        return new RoomMailbox(Runnable::run);
+    }
+
+    // Enqueue a task without waiting for it to be applied.
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        schedule();
+    }
+
+    // Enqueue a task and wait until it has been applied.
+    public void run(Runnable task) {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Enqueue a task and wait for its result. Exceptions thrown by the task
+     * (such as ApiExceptions) are rethrown to the caller. If the caller is
+     * already running inside this mailbox, the task is applied immediately.
+     *
+     * @param task The task to apply.
+     * @return The result of the task.
+     */
+    public <T> T call(Callable<T> task) {
+        if (DRAINING.get() == this) {
+            try {
+                return task.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        FutureTask<T> future = new FutureTask<>(task);
+        execute(future);
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting on the room mailbox.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // Number of tasks waiting to be applied.
+    public int getQueueSize() {
+        return tasks.size();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private void drain() {
+        RoomMailbox previous = DRAINING.get();
+        DRAINING.set(this);
+
+        try {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                Runnable task = tasks.poll();
+                if (task == null) {
+                    break;
+                }
+
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    log.error("An uncaught error occurred in a room mailbox task", e);
+                }
+            }
+        } finally {
+            DRAINING.set(previous);
+            scheduled.set(false);
+        }
+
+        // Tasks may have been added after the last poll; make sure they get a turn.
+        if (!tasks.isEmpty()) {
+            schedule();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.codejoust.main.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Coalesces socket updates sent to the same destination, so that a burst
+ * of updates (e.g. a submission, then the game update it triggers) is sent
+ * as at most one message per interval.
+ *
+ * The first update to a quiet destination is sent at once, and starts an
+ * interval during which later updates are held, each replacing the last.
+ * At the end of the interval, the latest update held (if any) is sent and
+ * starts another interval. Every payload is a complete state, so dropping
+ * the ones replaced loses nothing.
+ *
+ * Payloads are supplied lazily and built only when sent, one at a time per
+ * destination, so those replaced are never built, and those built are sent
+ * in the order they were built. A payload of null is not sent.
+ */
+@Log4j2
+@Component
+public class SocketUpdateCoalescer {
+
+    public static final long DEFAULT_INTERVAL_MILLIS = 75;
+    public static final int DEFAULT_THREADS = 2;
+
+    public static final String THREAD_PREFIX = "socket-update-flusher-";
+
+    public static final String UPDATES_COUNTER = "socket.updates";
+
+    private final SimpMessagingTemplate template;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+
+    // Destinations within an interval, i.e. whose updates are being held.
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+
+    private final Counter sent;
+    private final Counter coalesced;
+
+    @Autowired
+    public SocketUpdateCoalescer(SimpMessagingTemplate template,
+                                 @Value("${socket.coalesce.intervalMillis:" + DEFAULT_INTERVAL_MILLIS + "}") long intervalMillis,
+                                 @Value("${socket.coalesce.threads:" + DEFAULT_THREADS + "}") int threads,
+                                 MeterRegistry meterRegistry) {
+        this.template = template;
+        this.intervalMillis = intervalMillis;
+
+        AtomicInteger count = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, THREAD_PREFIX + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.sent = Counter.builder(UPDATES_COUNTER)
+            .description("Socket updates sent or dropped in favor of a later one")
+            .tag("result", "sent")
+            .register(meterRegistry);
+        this.coalesced = Counter.builder(UPDATES_COUNTER)
+            .description("Socket updates sent or dropped in favor of a later one")
+            .tag("result", "coalesced")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Send the payload to the destination now if it's quiet; otherwise,
+     * hold it until the end of the destination's interval.
+     *
+     * @param destination The socket path to send to.
+     * @param payload Supplies the complete state to send.
+     */
+    public void send(String destination, Supplier<?> payload) {
+        if (intervalMillis <= 0) {
+            // Without coalescing, one lock keeps updates in the order built.
+            synchronized (this) {
+                deliver(destination, payload);
+            }
+            return;
+        }
+
+        // A slot may be retired between lookup and use; then use a new one.
+        while (!slots.computeIfAbsent(destination, Slot::new).offer(payload)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Send the payload to the destination now, dropping any update held for
+     * it, e.g. for the final state of a game.
+     *
+     * @param destination The socket path to send to.
+     * @param payload Supplies the complete state to send.
+     */
+    public void flush(String destination, Supplier<?> payload) {
+        sendNow(destination, payload, true);
+    }
+
+    /**
+     * Send the payload to the destination now, keeping any update held for
+     * it, e.g. for a state that may be older than the one held.
+     *
+     * @param destination The socket path to send to.
+     * @param payload Supplies the complete state to send.
+     */
+    public void sendNow(String destination, Supplier<?> payload) {
+        sendNow(destination, payload, false);
+    }
+
+    public double getSentCount() {
+        return sent.count();
+    }
+
+    // Number of updates not sent because a later one replaced them.
+    public double getCoalescedCount() {
+        return coalesced.count();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void sendNow(String destination, Supplier<?> payload, boolean dropHeld) {
+        if (intervalMillis <= 0) {
+            send(destination, payload);
+            return;
+        }
+
+        while (!slots.computeIfAbsent(destination, Slot::new).sendNow(payload, dropHeld)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void deliver(String destination, Supplier<?> supplier) {
+        Object payload = supplier.get();
+        if (payload != null) {
+            template.convertAndSend(destination, payload);
+            sent.increment();
+        }
+    }
+
+    private final class Slot {
+
+        private final String destination;
+
+        // The latest update held until the end of the interval.
+        private Supplier<?> pending;
+
+        // Whether the slot has been removed, after an interval without updates.
+        private boolean retired = false;
+
+        // Whether the first update was sent, starting the first interval.
+        private boolean started = false;
+
+        Slot(String destination) {
+            this.destination = destination;
+        }
+
+        synchronized boolean offer(Supplier<?> payload) {
+            if (retired) {
+                return false;
+            }
+
+            if (!started) {
+                started = true;
+                schedule();
+                deliver(destination, payload);
+            } else {
+                if (pending != null) {
+                    coalesced.increment();
+                }
+                pending = payload;
+            }
+
+            return true;
+        }
+
+        synchronized boolean sendNow(Supplier<?> payload, boolean dropHeld) {
+            if (retired) {
+                return false;
+            }
+
+            if (dropHeld && pending != null) {
+                coalesced.increment();
+                pending = null;
+            }
+            if (!started) {
+                started = true;
+                schedule();
+            }
+            deliver(destination, payload);
+            return true;
+        }
+
+        // Send the update held, starting another interval, or retire if there is none.
+        synchronized void tick() {
+            if (pending == null) {
+                retired = true;
+                slots.remove(destination, this);
+                return;
+            }
+
+            Supplier<?> payload = pending;
+            pending = null;
+            schedule();
+
+            try {
+                deliver(destination, payload);
+            } catch (RuntimeException e) {
+                log.error("An error occurred sending a socket update to {}", destination, e);
+            }
+        }
+
+        private void schedule() {
+            scheduler.schedule(this::tick, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.codejoust.main.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.codejoust.main.dto.game.TesterRequest;
+import com.codejoust.main.dto.game.TesterResponse;
+import com.codejoust.main.dto.game.TesterResult;
+import com.codejoust.main.dto.problem.ProblemDto;
+import com.codejoust.main.dto.problem.ProblemTestCaseDto;
+import com.google.gson.Gson;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of tester responses, keyed by a hash of the language, the exact
+ * code, the problem's test cases (in order) and whether judging stops at the
+ * first failure. The tester's verdict only depends on those, so players
+ * resubmitting the same code (or the same boilerplate) don't need another
+ * round-trip to the tester.
+ *
+ * Entries are evicted least recently used first, once either the number of
+ * entries or their estimated size in bytes exceeds the configured limit.
+ */
+@Component
+public class SubmissionCache {
+
+    public static final String REQUESTS_COUNTER = "tester.cache.requests";
+    public static final String ENTRIES_GAUGE = "tester.cache.entries";
+    public static final String BYTES_GAUGE = "tester.cache.bytes";
+
+    private static final Gson gson = new Gson();
+
+    private final int maxEntries;
+    private final long maxBytes;
+
+    // Ordered from least to most recently used.
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Keys of the cached responses for each problem fingerprint.
+    private final Map<String, Set<String>> keysByFingerprint = new HashMap<>();
+
+    private long bytes = 0;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public SubmissionCache(@Value("${tester.cache.maxEntries:10000}") int maxEntries,
+                           @Value("${tester.cache.maxBytes:67108864}") long maxBytes,
+                           MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+
+        this.hits = Counter.builder(REQUESTS_COUNTER)
+            .description("Lookups in the tester response cache")
+            .tag("result", "hit")
+            .register(meterRegistry);
+        this.misses = Counter.builder(REQUESTS_COUNTER)
+            .description("Lookups in the tester response cache")
+            .tag("result", "miss")
+            .register(meterRegistry);
+
+        Gauge.builder(ENTRIES_GAUGE, this, SubmissionCache::size)
+            .description("Tester responses currently cached")
+            .register(meterRegistry);
+        Gauge.builder(BYTES_GAUGE, this, SubmissionCache::getBytes)
+            .description("Estimated size of the cached tester responses")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Look up the cached response to an identical request.
+     *
+     * @param key The request's key, from getKey.
+     * @return The cached response, or null if there is none. It is shared
+     * between callers, so it must not be modified.
+     */
+    public TesterResponse get(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.response;
+    }
+
+    public void put(String key, TesterRequest request, TesterResponse response) {
+        Entry entry = new Entry(fingerprint(request.getProblem()), response, estimateBytes(response));
+        if (entry.bytes > maxBytes) {
+            return;
+        }
+
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                bytes -= previous.bytes;
+            }
+            bytes += entry.bytes;
+            keysByFingerprint.computeIfAbsent(entry.fingerprint, fingerprint -> new HashSet<>()).add(key);
+
+            // Evict the least recently used entries until within the limits.
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || bytes > maxBytes) && iterator.hasNext()) {
+                Map.Entry<String, Entry> eldest = iterator.next();
+                iterator.remove();
+                forget(eldest.getKey(), eldest.getValue());
+            }
+        }
+    }
+
+    /**
+     * Drop every response judged against the given test cases, e.g. because
+     * the problem they belong to has been edited.
+     *
+     * @param problem The problem, as it was before being changed.
+     * @return The number of responses dropped.
+     */
+    public synchronized int invalidate(ProblemDto problem) {
+        Set<String> keys = keysByFingerprint.remove(fingerprint(problem));
+        if (keys == null) {
+            return 0;
+        }
+
+        for (String key : keys) {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                bytes -= entry.bytes;
+            }
+        }
+
+        return keys.size();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    // Assumes the lock is held and the entry was already removed.
+    private void forget(String key, Entry entry) {
+        bytes -= entry.bytes;
+        Set<String> keys = keysByFingerprint.get(entry.fingerprint);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByFingerprint.remove(entry.fingerprint);
+            }
+        }
+    }
+
+    /**
+     * Compute the key of a tester request: a hash of its language, its exact
+     * code, the fingerprint of its problem, the order of its test cases and
+     * whether it is fail-fast. The code isn't normalized, as even trailing
+     * whitespace can change what a program does (e.g. inside a string).
+     */
+    public static String getKey(TesterRequest request) {
+        String language = request.getLanguage() == null ? "" : request.getLanguage().name();
+        ProblemDto problem = request.getProblem();
+
+        // Results come back in test case order, and fail-fast ones stop early.
+        String testCases = problem == null ? "" : gson.toJson(problem.getTestCases());
+        String code = request.getCode() == null ? "" : request.getCode();
+        return hash(language, code, fingerprint(problem), testCases,
+            request.isFailFast() ? "fail-fast" : "");
+    }
+
+    /**
+     * Hash of everything in the problem that the tester judges against. The
+     * test cases' order is ignored, so that responses to reordered requests
+     * are still invalidated along with the problem.
+     */
+    public static String fingerprint(ProblemDto problem) {
+        if (problem == null) {
+            return hash();
+        }
+
+        List<String> testCases = new ArrayList<>();
+        if (problem.getTestCases() != null) {
+            for (ProblemTestCaseDto testCase : problem.getTestCases()) {
+                testCases.add(gson.toJson(testCase));
+            }
+        }
+        Collections.sort(testCases);
+
+        // JSON escapes line breaks, so they can separate the test cases.
+        String outputType = problem.getOutputType() == null ? "" : problem.getOutputType().name();
+        return hash(outputType, gson.toJson(problem.getProblemInputs()), String.join("\n", testCases));
+    }
+
+    // SHA-256 over the parts, each prefixed with its length to keep them apart.
+    private static String hash(String... parts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+
+        for (String part : parts) {
+            byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+            digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+            digest.update((byte) ':');
+            digest.update(bytes);
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+    }
+
+    // Rough size of an entry, dominated by the strings it holds (2 bytes per char).
+    private static long estimateBytes(TesterResponse response) {
+        long chars = 64 + length(response.getCompilationError());
+        if (response.getResults() != null) {
+            for (TesterResult result : response.getResults()) {
+                chars += 16 + length(result.getConsole()) + length(result.getUserOutput())
+                    + length(result.getError()) + length(result.getCorrectOutput());
+            }
+        }
+
+        return 2 * chars + 256;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static class Entry {
+        private final String fingerprint;
+        private final TesterResponse response;
+        private final long bytes;
+
+        private Entry(String fingerprint, TesterResponse response, long bytes) {
+            this.fingerprint = fingerprint;
+            this.response = response;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.codejoust.main.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+import javax.annotation.PreDestroy;
+
+import com.codejoust.main.dto.game.SubmissionType;
+import com.codejoust.main.exception.GameError;
+import com.codejoust.main.exception.api.ApiException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dedicated worker threads that send submissions to the tester, so that
+ * request threads are not held for the length of a tester call, and a busy
+ * room cannot starve the others.
+ *
+ * Submissions are always served before code runs. Within each of the two,
+ * rooms are served by (self-clocked) weighted fair queuing: every room gets
+ * a share of the workers proportional to its weight, however many requests
+ * it has queued. Each player has at most a fixed number of requests running
+ * at once; the rest wait their turn without holding up other players.
+ *
+ * Waiting requests are bounded; once the queue is full, new requests are
+ * rejected rather than queued without limit.
+ */
+@Log4j2
+@Component
+public class SubmissionDispatcher {
+
+    public static final int DEFAULT_THREADS = 8;
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+    public static final int DEFAULT_MAX_PER_PLAYER = 2;
+
+    public static final String THREAD_PREFIX = "submission-dispatcher-";
+
+    public static final String QUEUED_GAUGE = "submissions.queued";
+    public static final String WAIT_TIMER = "submissions.wait";
+    public static final String REJECTED_COUNTER = "submissions.rejected";
+
+    // Entries are served in order of virtual finish time, ties by arrival.
+    private static final Comparator<Entry> ORDER = Comparator
+        .comparingDouble((Entry entry) -> entry.finish)
+        .thenComparingLong(entry -> entry.sequence);
+
+    private final int queueCapacity;
+    private final int maxPerPlayer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    // One queue per priority class, indexed by priority(type).
+    private final List<TreeSet<Entry>> queues = new ArrayList<>();
+    private final double[] virtualTime = new double[SubmissionType.values().length];
+
+    // The virtual finish time of the last entry queued by each room, per class.
+    private final Map<String, Double> lastFinish = new HashMap<>();
+
+    // The number of requests currently running for each player.
+    private final Map<String, Integer> running = new HashMap<>();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final Map<SubmissionType, Timer> waitTimers = new HashMap<>();
+    private final Counter rejected;
+
+    private long sequence = 0;
+    private boolean stopped = false;
+
+    @Autowired
+    public SubmissionDispatcher(@Value("${game.submission.threads:" + DEFAULT_THREADS + "}") int threads,
+                                @Value("${game.submission.queueCapacity:" + DEFAULT_QUEUE_CAPACITY + "}") int queueCapacity,
+                                @Value("${game.submission.maxPerPlayer:" + DEFAULT_MAX_PER_PLAYER + "}") int maxPerPlayer,
+                                MeterRegistry meterRegistry) {
+        this.queueCapacity = queueCapacity;
+        this.maxPerPlayer = maxPerPlayer;
+
+        for (int i = 0; i < virtualTime.length; i++) {
+            queues.add(new TreeSet<>(ORDER));
+        }
+
+        for (SubmissionType type : SubmissionType.values()) {
+            String tag = type.name().toLowerCase();
+            Gauge.builder(QUEUED_GAUGE, this, dispatcher -> dispatcher.getQueuedCount(type))
+                .description("Requests waiting for a submission dispatcher thread")
+                .tag("type", tag)
+                .register(meterRegistry);
+            waitTimers.put(type, Timer.builder(WAIT_TIMER)
+                .description("Time requests wait before being sent to the tester")
+                .tag("type", tag)
+                .register(meterRegistry));
+        }
+        this.rejected = Counter.builder(REJECTED_COUNTER)
+            .description("Requests rejected because the submission queue was full")
+            .register(meterRegistry);
+
+        for (int i = 1; i <= threads; i++) {
+            Thread worker = new Thread(this::work, THREAD_PREFIX + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Queue a task to be run on one of the dispatcher's threads.
+     *
+     * @param roomId The room the request was made in.
+     * @param userId The player who made the request.
+     * @param type Whether the request is a submission or a code run.
+     * @param weight The room's share of the dispatcher, e.g. its number of
+     * players; values below one count as one.
+     * @param task The task, which is responsible for reporting its own result.
+     * @param positionListener Told the task's new position in the queue when
+     * it changes, or null.
+     * @return The task's position in the queue, starting at one.
+     * @throws ApiException SUBMISSION_QUEUE_FULL if the queue has no room.
+     */
+    public int dispatch(String roomId, String userId, SubmissionType type, int weight,
+                        Runnable task, IntConsumer positionListener) {
+        lock.lock();
+        try {
+            if (stopped || queued() >= queueCapacity) {
+                rejected.increment();
+                throw new ApiException(GameError.SUBMISSION_QUEUE_FULL);
+            }
+
+            int priority = priority(type);
+            String flow = priority + ":" + roomId;
+            double start = Math.max(virtualTime[priority], lastFinish.getOrDefault(flow, 0.0));
+            double finish = start + 1.0 / Math.max(weight, 1);
+            lastFinish.put(flow, finish);
+
+            Entry entry = new Entry(flow, userId, type, task, positionListener,
+                finish, sequence++, System.nanoTime());
+            queues.get(priority).add(entry);
+            changed.signal();
+
+            entry.position = positionOf(entry);
+            return entry.position;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tell every waiting task whose position has moved its new position.
+     * Positions are published periodically rather than on every change, so
+     * that a long queue does not flood the sockets.
+     */
+    @Scheduled(fixedDelayString = "${game.submission.positionIntervalMillis:1000}",
+        initialDelayString = "${game.submission.positionIntervalMillis:1000}")
+    public void publishPositions() {
+        Map<Entry, Integer> moved = new HashMap<>();
+
+        lock.lock();
+        try {
+            int position = 0;
+            for (TreeSet<Entry> queue : queues) {
+                for (Entry entry : queue) {
+                    position++;
+                    if (entry.positionListener != null && entry.position != position) {
+                        entry.position = position;
+                        moved.put(entry, position);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        moved.forEach((entry, position) -> {
+            try {
+                entry.positionListener.accept(position);
+            } catch (RuntimeException e) {
+                log.error("An error occurred publishing a submission's queue position", e);
+            }
+        });
+    }
+
+    // Number of requests waiting for a free thread.
+    public int getQueuedCount() {
+        lock.lock();
+        try {
+            return queued();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueuedCount(SubmissionType type) {
+        lock.lock();
+        try {
+            return queues.get(priority(type)).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Waiting requests are still run; new ones are rejected.
+    @PreDestroy
+    public void shutdown() {
+        lock.lock();
+        try {
+            stopped = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work() {
+        while (true) {
+            Entry entry;
+            try {
+                entry = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (entry == null) {
+                return;
+            }
+
+            waitTimers.get(entry.type).record(System.nanoTime() - entry.queuedAt, TimeUnit.NANOSECONDS);
+            try {
+                entry.task.run();
+            } catch (Throwable e) {
+                log.error("An uncaught error occurred in a submission task", e);
+            } finally {
+                finish(entry);
+            }
+        }
+    }
+
+    // Wait for the next task that can run, or return null once stopped and drained.
+    private Entry take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                Entry entry = next();
+                if (entry != null) {
+                    return entry;
+                }
+                if (stopped && queued() == 0) {
+                    return null;
+                }
+                changed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Assumes the lock is held. Skips players already at their limit.
+    private Entry next() {
+        for (int priority = 0; priority < queues.size(); priority++) {
+            for (Entry entry : queues.get(priority)) {
+                int count = running.getOrDefault(entry.userId, 0);
+                if (count >= maxPerPlayer) {
+                    continue;
+                }
+
+                queues.get(priority).remove(entry);
+                running.put(entry.userId, count + 1);
+
+                virtualTime[priority] = Math.max(virtualTime[priority], entry.finish);
+                // Rooms that have caught up with virtual time would start from it anyway.
+                if (lastFinish.getOrDefault(entry.flow, 0.0) <= virtualTime[priority]) {
+                    lastFinish.remove(entry.flow);
+                }
+
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    private void finish(Entry entry) {
+        lock.lock();
+        try {
+            running.computeIfPresent(entry.userId, (userId, count) -> count > 1 ? count - 1 : null);
+            // The player's other requests may now be able to run.
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Assumes the lock is held.
+    private int queued() {
+        int count = 0;
+        for (TreeSet<Entry> queue : queues) {
+            count += queue.size();
+        }
+
+        return count;
+    }
+
+    // Assumes the lock is held. Counts every entry served before this one.
+    private int positionOf(Entry entry) {
+        int priority = priority(entry.type);
+        int position = queues.get(priority).headSet(entry, true).size();
+        for (int i = 0; i < priority; i++) {
+            position += queues.get(i).size();
+        }
+
+        return position;
+    }
+
+    // Lower values are served first.
+    private static int priority(SubmissionType type) {
+        return type == SubmissionType.SUBMIT ? 0 : 1;
+    }
+
+    private static class Entry {
+        private final String flow;
+        private final String userId;
+        private final SubmissionType type;
+        private final Runnable task;
+        private final IntConsumer positionListener;
+        private final double finish;
+        private final long sequence;
+        private final long queuedAt;
+
+        // The position last published to the listener, guarded by the lock.
+        private int position;
+
+        private Entry(String flow, String userId, SubmissionType type, Runnable task,
+                      IntConsumer positionListener, double finish, long sequence, long queuedAt) {
+            this.flow = flow;
+            this.userId = userId;
+            this.type = type;
+            this.task = task;
+            this.positionListener = positionListener;
+            this.finish = finish;
+            this.sequence = sequence;
+            this.queuedAt = queuedAt;
+        }
+    }
+}
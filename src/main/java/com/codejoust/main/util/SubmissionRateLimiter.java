@@ -0,0 +1,178 @@
+package com.codejoust.main.util;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.codejoust.main.dto.game.SubmissionType;
+import com.codejoust.main.exception.GameError;
+import com.codejoust.main.exception.api.ApiException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Token-bucket rate limits on code runs and submissions, since each one
+ * costs a tester execution. Every player and every room has a bucket per
+ * request type; a request takes a token from both, and is rejected if
+ * either is empty. Buckets refill at a steady rate up to their burst size.
+ *
+ * Each bucket is a single timestamp (the time at which it would be full
+ * again), updated by compare-and-set, so checking a limit neither locks nor
+ * allocates once the bucket exists. Full buckets are dropped periodically.
+ */
+@Component
+public class SubmissionRateLimiter {
+
+    public static final String THROTTLED_COUNTER = "submissions.throttled";
+
+    private static final String PLAYER = "player";
+    private static final String ROOM = "room";
+
+    private final Map<SubmissionType, Limit> playerLimits = new EnumMap<>(SubmissionType.class);
+    private final Map<SubmissionType, Limit> roomLimits = new EnumMap<>(SubmissionType.class);
+
+    private final LongSupplier nanoTime;
+    private final long startNanos;
+
+    @Autowired
+    public SubmissionRateLimiter(@Value("${game.rateLimit.runCode.player.perMinute:60}") int runCodePlayerPerMinute,
+                                 @Value("${game.rateLimit.runCode.player.burst:10}") int runCodePlayerBurst,
+                                 @Value("${game.rateLimit.runCode.room.perMinute:600}") int runCodeRoomPerMinute,
+                                 @Value("${game.rateLimit.runCode.room.burst:60}") int runCodeRoomBurst,
+                                 @Value("${game.rateLimit.submit.player.perMinute:20}") int submitPlayerPerMinute,
+                                 @Value("${game.rateLimit.submit.player.burst:5}") int submitPlayerBurst,
+                                 @Value("${game.rateLimit.submit.room.perMinute:200}") int submitRoomPerMinute,
+                                 @Value("${game.rateLimit.submit.room.burst:30}") int submitRoomBurst,
+                                 MeterRegistry meterRegistry) {
+        this(runCodePlayerPerMinute, runCodePlayerBurst, runCodeRoomPerMinute, runCodeRoomBurst,
+            submitPlayerPerMinute, submitPlayerBurst, submitRoomPerMinute, submitRoomBurst,
+            System::nanoTime, meterRegistry);
+    }
+
+    protected SubmissionRateLimiter(int runCodePlayerPerMinute, int runCodePlayerBurst,
+                                    int runCodeRoomPerMinute, int runCodeRoomBurst,
+                                    int submitPlayerPerMinute, int submitPlayerBurst,
+                                    int submitRoomPerMinute, int submitRoomBurst,
+                                    LongSupplier nanoTime, MeterRegistry meterRegistry) {
+        this.nanoTime = nanoTime;
+        this.startNanos = nanoTime.getAsLong();
+
+        addLimit(playerLimits, SubmissionType.TEST, PLAYER, runCodePlayerPerMinute, runCodePlayerBurst, meterRegistry);
+        addLimit(roomLimits, SubmissionType.TEST, ROOM, runCodeRoomPerMinute, runCodeRoomBurst, meterRegistry);
+        addLimit(playerLimits, SubmissionType.SUBMIT, PLAYER, submitPlayerPerMinute, submitPlayerBurst, meterRegistry);
+        addLimit(roomLimits, SubmissionType.SUBMIT, ROOM, submitRoomPerMinute, submitRoomBurst, meterRegistry);
+    }
+
+    // A rate of zero (or less) disables the limit.
+    private static void addLimit(Map<SubmissionType, Limit> limits, SubmissionType type, String scope,
+                                 int perMinute, int burst, MeterRegistry meterRegistry) {
+        if (perMinute <= 0) {
+            return;
+        }
+
+        Counter throttled = Counter.builder(THROTTLED_COUNTER)
+            .description("Code runs and submissions rejected by a rate limit")
+            .tag("type", type.name().toLowerCase())
+            .tag("scope", scope)
+            .register(meterRegistry);
+        limits.put(type, new Limit(perMinute, burst, throttled));
+    }
+
+    /**
+     * Take a token for the request from the player's and the room's buckets.
+     *
+     * @throws ApiException TOO_MANY_SUBMISSIONS if either bucket is empty;
+     * no token is taken in that case.
+     */
+    public void acquire(String roomId, String userId, SubmissionType type) {
+        long now = nanoTime.getAsLong() - startNanos;
+
+        Limit playerLimit = playerLimits.get(type);
+        if (playerLimit != null && !playerLimit.tryAcquire(userId, now)) {
+            throw new ApiException(GameError.TOO_MANY_SUBMISSIONS);
+        }
+
+        Limit roomLimit = roomLimits.get(type);
+        if (roomLimit != null && !roomLimit.tryAcquire(roomId, now)) {
+            // Give back the player's token, which was not used.
+            if (playerLimit != null) {
+                playerLimit.refund(userId);
+            }
+            throw new ApiException(GameError.TOO_MANY_SUBMISSIONS);
+        }
+    }
+
+    // Drop full buckets, which behave exactly like missing ones.
+    @Scheduled(fixedDelayString = "${game.rateLimit.evictionIntervalMillis:60000}",
+        initialDelayString = "${game.rateLimit.evictionIntervalMillis:60000}")
+    public void evictFullBuckets() {
+        long now = nanoTime.getAsLong() - startNanos;
+        playerLimits.values().forEach(limit -> limit.evict(now));
+        roomLimits.values().forEach(limit -> limit.evict(now));
+    }
+
+    // Number of buckets currently held, for tests and monitoring.
+    public int size() {
+        int size = 0;
+        for (Limit limit : playerLimits.values()) {
+            size += limit.buckets.size();
+        }
+        for (Limit limit : roomLimits.values()) {
+            size += limit.buckets.size();
+        }
+
+        return size;
+    }
+
+    private static class Limit {
+
+        // Time between tokens, and the time the bucket takes to fill from empty.
+        private final long intervalNanos;
+        private final long capacityNanos;
+
+        private final Counter throttled;
+
+        // The time at which each bucket will be full again.
+        private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+        private Limit(int perMinute, int burst, Counter throttled) {
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / perMinute;
+            this.capacityNanos = intervalNanos * Math.max(burst, 1);
+            this.throttled = throttled;
+        }
+
+        private boolean tryAcquire(String key, long now) {
+            AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong());
+            while (true) {
+                long fullAt = bucket.get();
+                long next = Math.max(fullAt, now) + intervalNanos;
+                if (next - now > capacityNanos) {
+                    throttled.increment();
+                    return false;
+                }
+                if (bucket.compareAndSet(fullAt, next)) {
+                    return true;
+                }
+            }
+        }
+
+        private void refund(String key) {
+            AtomicLong bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.addAndGet(-intervalNanos);
+            }
+        }
+
+        private void evict(long now) {
+            buckets.values().removeIf(bucket -> bucket.get() <= now);
+        }
+    }
+}
@@ -0,0 +1,654 @@
+package com.codejoust.main.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+
+import com.codejoust.main.dto.game.TesterRequest;
+import com.codejoust.main.dto.game.TesterResponse;
+import com.codejoust.main.dto.game.TesterResult;
+import com.codejoust.main.exception.GameError;
+import com.codejoust.main.exception.TesterError;
+import com.codejoust.main.exception.api.ApiErrorResponse;
+import com.codejoust.main.exception.api.ApiException;
+import com.codejoust.main.model.report.CodeLanguage;
+import com.google.gson.Gson;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.EntityTemplate;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * HTTP client for the tester service, shared by every game on this node.
+ *
+ * The tester may run on several endpoints (a comma-separated tester.url).
+ * Each request goes to the healthy endpoint with the fewest outstanding
+ * requests. An endpoint is taken out of rotation by its own circuit breaker
+ * after repeated failures, or by the periodic health check when it stops
+ * responding, and is put back once it recovers. Retryable requests that
+ * fail are sent again to a different endpoint.
+ *
+ * Requests go through a connection pool with connect and read timeouts, and
+ * a bulkhead limits how many requests can wait on the tester at once. When
+ * no endpoint is available, or the bulkhead is full, requests fail fast with
+ * GameError.TESTER_ERROR, so a slow or unavailable tester doesn't tie up
+ * threads across every game.
+ *
+ * Request and response bodies are streamed: requests are serialized straight
+ * into the connection (with chunked encoding), and responses are parsed
+ * straight from it, so neither is held as a whole string along the way.
+ *
+ * Callers may ask for results to be streamed: the tester is then asked for
+ * newline-delimited JSON, and each test case's result is handed over as
+ * soon as its line arrives. Testers that don't stream simply answer with a
+ * single JSON response, whose results are handed over all at once.
+ */
+@Log4j2
+@Component
+public class TesterClient {
+
+    public static final String REQUESTS_TIMER = "tester.requests";
+    public static final String REJECTED_COUNTER = "tester.rejected";
+    public static final String RETRIES_COUNTER = "tester.retries";
+    public static final String CIRCUIT_OPEN_GAUGE = "tester.circuit.open";
+    public static final String HEALTHY_GAUGE = "tester.endpoint.healthy";
+    public static final String OUTSTANDING_GAUGE = "tester.endpoint.outstanding";
+
+    // Tag values for the outcome of a request that reached the tester.
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_CLIENT_ERROR = "client_error";
+    public static final String OUTCOME_ERROR = "error";
+
+    // Tag values for the reason a request was rejected without being sent.
+    public static final String REASON_BULKHEAD = "bulkhead";
+    public static final String REASON_UNAVAILABLE = "unavailable";
+
+    // Content type of streamed tester responses, one JSON object per line.
+    public static final String NDJSON = "application/x-ndjson";
+
+    // Start of a request body whose problem is already serialized.
+    private static final byte[] PROBLEM_PREFIX = "{\"problem\":".getBytes(StandardCharsets.US_ASCII);
+
+    private static final Gson gson = new Gson();
+    private final CloseableHttpClient httpClient;
+    private final List<Endpoint> endpoints;
+    private final Semaphore bulkhead;
+    private final long bulkheadWaitMillis;
+    private final int maxAttempts;
+    private final int unhealthyThreshold;
+    private final RequestConfig healthCheckConfig;
+
+    // Requests rejected without being sent, by reason.
+    private final Counter bulkheadRejections;
+    private final Counter unavailableRejections;
+
+    // Rotates the starting point of endpoint selection, to spread ties.
+    private final AtomicInteger nextEndpoint = new AtomicInteger();
+
+    @Autowired
+    public TesterClient(@Value("${tester.url}") String testerUrls,
+                        @Value("${tester.maxConnections:50}") int maxConnections,
+                        @Value("${tester.connectTimeoutMillis:2000}") int connectTimeoutMillis,
+                        @Value("${tester.readTimeoutMillis:30000}") int readTimeoutMillis,
+                        @Value("${tester.maxConcurrentRequests:50}") int maxConcurrentRequests,
+                        @Value("${tester.bulkheadWaitMillis:1000}") long bulkheadWaitMillis,
+                        @Value("${tester.maxAttempts:2}") int maxAttempts,
+                        @Value("${tester.circuit.failureThreshold:5}") int failureThreshold,
+                        @Value("${tester.circuit.openMillis:10000}") long openMillis,
+                        @Value("${tester.healthCheck.timeoutMillis:1000}") int healthCheckTimeoutMillis,
+                        @Value("${tester.healthCheck.unhealthyThreshold:2}") int unhealthyThreshold,
+                        MeterRegistry meterRegistry) {
+        this(splitUrls(testerUrls), maxConnections, connectTimeoutMillis, readTimeoutMillis, maxConcurrentRequests,
+            bulkheadWaitMillis, maxAttempts, failureThreshold, openMillis, healthCheckTimeoutMillis,
+            unhealthyThreshold, Clock.systemUTC(), meterRegistry);
+    }
+
+    protected TesterClient(List<String> testerUrls, int maxConnections, int connectTimeoutMillis,
+                           int readTimeoutMillis, int maxConcurrentRequests, long bulkheadWaitMillis,
+                           int maxAttempts, int failureThreshold, long openMillis, int healthCheckTimeoutMillis,
+                           int unhealthyThreshold, Clock clock, MeterRegistry meterRegistry) {
+        if (testerUrls.isEmpty()) {
+            throw new IllegalArgumentException("At least one tester URL is required.");
+        }
+
+        this.bulkhead = new Semaphore(maxConcurrentRequests);
+        this.bulkheadWaitMillis = bulkheadWaitMillis;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.unhealthyThreshold = unhealthyThreshold;
+        this.bulkheadRejections = registerRejectedCounter(meterRegistry, REASON_BULKHEAD);
+        this.unavailableRejections = registerRejectedCounter(meterRegistry, REASON_UNAVAILABLE);
+
+        // Each endpoint may use the whole pool, as the others may be down.
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(connectTimeoutMillis)
+            .setConnectionRequestTimeout(connectTimeoutMillis)
+            .setSocketTimeout(readTimeoutMillis)
+            .build();
+
+        this.healthCheckConfig = RequestConfig.custom()
+            .setConnectTimeout(healthCheckTimeoutMillis)
+            .setConnectionRequestTimeout(healthCheckTimeoutMillis)
+            .setSocketTimeout(healthCheckTimeoutMillis)
+            .build();
+
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .build();
+
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String url : testerUrls) {
+            Map<String, Timer> requestTimers = new HashMap<>();
+            for (String outcome : Arrays.asList(OUTCOME_SUCCESS, OUTCOME_CLIENT_ERROR, OUTCOME_ERROR)) {
+                requestTimers.put(outcome, Timer.builder(REQUESTS_TIMER)
+                    .description("Latency of requests to the tester service")
+                    .tag("outcome", outcome)
+                    .tag("endpoint", url)
+                    .register(meterRegistry));
+            }
+            Counter retries = Counter.builder(RETRIES_COUNTER)
+                .description("Requests sent again after failing on another tester endpoint")
+                .tag("endpoint", url)
+                .register(meterRegistry);
+
+            Endpoint endpoint = new Endpoint(url, new CircuitBreaker(failureThreshold, openMillis, clock),
+                requestTimers, retries);
+            endpoints.add(endpoint);
+
+            Gauge.builder(CIRCUIT_OPEN_GAUGE, endpoint.circuitBreaker, breaker -> breaker.isOpen() ? 1 : 0)
+                .description("Whether requests to the tester endpoint are currently being rejected")
+                .tag("endpoint", url)
+                .register(meterRegistry);
+            Gauge.builder(HEALTHY_GAUGE, endpoint, e -> e.isHealthy() ? 1 : 0)
+                .description("Whether the tester endpoint passed its latest health checks")
+                .tag("endpoint", url)
+                .register(meterRegistry);
+            Gauge.builder(OUTSTANDING_GAUGE, endpoint, Endpoint::getOutstanding)
+                .description("Requests currently waiting on the tester endpoint")
+                .tag("endpoint", url)
+                .register(meterRegistry);
+        }
+        this.endpoints = Collections.unmodifiableList(endpoints);
+    }
+
+    /**
+     * Send a submission to the tester service to be judged.
+     *
+     * @param request The code and the (stripped) problem to test it against.
+     * @param retryable Whether the request may be sent again to another
+     * endpoint if the first one fails.
+     * @return The tester's response.
+     * @throws ApiException A TesterError if the tester rejected the request,
+     * or GameError.TESTER_ERROR if it could not be reached in time, is
+     * failing, or is already handling too many requests.
+     */
+    public TesterResponse execute(TesterRequest request, boolean retryable) {
+        return execute(request, retryable, null);
+    }
+
+    /**
+     * Send a submission to the tester service to be judged, streaming the
+     * results of its test cases as they are judged.
+     *
+     * @param request The code and the (stripped) problem to test it against.
+     * @param retryable Whether the request may be sent again to another
+     * endpoint if the first one fails. Requests are never retried once some
+     * of their results have been handed over.
+     * @param onResult Given each test case's result in order, on the
+     * calling thread, or null to not stream results.
+     * @return The tester's response, including every result.
+     * @throws ApiException As for execute(request, retryable).
+     */
+    public TesterResponse execute(TesterRequest request, boolean retryable, Consumer<TesterResult> onResult) {
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(bulkheadWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            throw reject(bulkheadRejections);
+        }
+
+        try {
+            int attempts = retryable ? Math.min(maxAttempts, endpoints.size()) : 1;
+            List<Endpoint> tried = new ArrayList<>(attempts);
+            ApiException failure = null;
+
+            // Count the results handed over, as they can't be taken back.
+            int[] streamed = new int[1];
+            Consumer<TesterResult> listener = onResult == null ? null : result -> {
+                streamed[0]++;
+                onResult.accept(result);
+            };
+
+            for (int attempt = 0; attempt < attempts; attempt++) {
+                Endpoint endpoint = select(tried);
+                if (endpoint == null) {
+                    break;
+                }
+
+                if (attempt > 0) {
+                    endpoint.retries.increment();
+                }
+
+                tried.add(endpoint);
+                try {
+                    return execute(endpoint, request, listener);
+                } catch (ApiException e) {
+                    // The tester rejected the request itself, or already sent results, so don't retry it.
+                    if (e.getError().getStatus().is4xxClientError() || streamed[0] > 0) {
+                        throw e;
+                    }
+                    failure = e;
+                }
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+
+            throw reject(unavailableRejections);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private TesterResponse execute(Endpoint endpoint, TesterRequest request, Consumer<TesterResult> onResult) {
+        endpoint.outstanding.incrementAndGet();
+        long start = System.nanoTime();
+        String outcome = OUTCOME_ERROR;
+        try {
+            TesterResponse response = send(endpoint, request, onResult);
+            outcome = OUTCOME_SUCCESS;
+            return response;
+        } catch (ApiException e) {
+            // The tester responded; only its server errors count as failures.
+            if (e.getError().getStatus().is4xxClientError()) {
+                outcome = OUTCOME_CLIENT_ERROR;
+            }
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            log.error("An error occurred connecting to the tester service at {}", endpoint.url, e);
+            throw new ApiException(GameError.TESTER_ERROR);
+        } finally {
+            endpoint.outstanding.decrementAndGet();
+            if (OUTCOME_ERROR.equals(outcome)) {
+                endpoint.circuitBreaker.recordFailure();
+            } else {
+                endpoint.circuitBreaker.recordSuccess();
+            }
+
+            endpoint.requestTimers.get(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Pick the available endpoint with the fewest outstanding requests.
+     *
+     * @param excluded Endpoints already tried for this request.
+     * @return The endpoint, whose circuit breaker has let the request
+     * through, or null if no endpoint is available.
+     */
+    private Endpoint select(List<Endpoint> excluded) {
+        int size = endpoints.size();
+        int start = Math.floorMod(nextEndpoint.getAndIncrement(), size);
+
+        List<Endpoint> candidates = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = endpoints.get((start + i) % size);
+            if (endpoint.isHealthy() && !excluded.contains(endpoint)) {
+                candidates.add(endpoint);
+            }
+        }
+
+        // The sort is stable, so ties keep the rotated order.
+        candidates.sort(Comparator.comparingInt(Endpoint::getOutstanding));
+        for (Endpoint endpoint : candidates) {
+            if (endpoint.circuitBreaker.tryAcquire()) {
+                return endpoint;
+            }
+        }
+
+        return null;
+    }
+
+    private TesterResponse send(Endpoint endpoint, TesterRequest request, Consumer<TesterResult> onResult)
+            throws IOException {
+        HttpPost post = new HttpPost(endpoint.url);
+        post.setEntity(toEntity(request));
+        if (onResult != null) {
+            post.setHeader(HttpHeaders.ACCEPT, NDJSON + ", " + ContentType.APPLICATION_JSON.getMimeType());
+        }
+
+        try (CloseableHttpResponse response = httpClient.execute(post)) {
+            HttpEntity entity = response.getEntity();
+
+            // Throw tester error if the tester returns an error response
+            int status = response.getStatusLine().getStatusCode();
+            if (status >= 400) {
+                ApiErrorResponse error = readJson(entity, ApiErrorResponse.class);
+                throw new ApiException(new TesterError(HttpStatus.valueOf(status), error));
+            }
+
+            ContentType contentType = ContentType.get(entity);
+            if (onResult != null && contentType != null && NDJSON.equals(contentType.getMimeType())) {
+                return readStream(entity, contentType, onResult);
+            }
+
+            TesterResponse testerResponse = readJson(entity, TesterResponse.class);
+            if (onResult != null && testerResponse.getResults() != null) {
+                testerResponse.getResults().forEach(onResult);
+            }
+
+            return testerResponse;
+        }
+    }
+
+    /**
+     * The request as a JSON body, written straight to the connection when
+     * the request is sent rather than built up as a string first. The body
+     * can be written again if the request is retried.
+     *
+     * If the request's problem is already serialized, those bytes are sent
+     * as they are, with only the other fields serialized around them.
+     */
+    public static HttpEntity toEntity(TesterRequest request) {
+        EntityTemplate entity = new EntityTemplate(stream -> {
+            // Buffered, as the encoder would otherwise copy every string written to it.
+            Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+            byte[] problemJson = request.getProblemJson();
+            if (problemJson == null) {
+                gson.toJson(request, TesterRequest.class, writer);
+                writer.flush();
+                return;
+            }
+
+            stream.write(PROBLEM_PREFIX);
+            stream.write(problemJson);
+            writer.write(",\"code\":");
+            gson.toJson(request.getCode(), String.class, writer);
+            writer.write(",\"language\":");
+            gson.toJson(request.getLanguage(), CodeLanguage.class, writer);
+            writer.write(",\"failFast\":");
+            writer.write(Boolean.toString(request.isFailFast()));
+            writer.write('}');
+            writer.flush();
+        });
+        entity.setContentType(ContentType.APPLICATION_JSON.toString());
+
+        return entity;
+    }
+
+    // Parse a JSON body straight from the connection. Closing it frees the connection for reuse.
+    public static <T> T readJson(HttpEntity entity, Class<T> type) throws IOException {
+        try (Reader reader = new InputStreamReader(entity.getContent(), getCharset(ContentType.get(entity)))) {
+            return gson.fromJson(reader, type);
+        }
+    }
+
+    // JSON is UTF-8 unless the tester says otherwise.
+    private static Charset getCharset(ContentType contentType) {
+        return contentType == null || contentType.getCharset() == null
+            ? StandardCharsets.UTF_8 : contentType.getCharset();
+    }
+
+    /**
+     * Read a streamed response. Each line is a partial TesterResponse: its
+     * results are appended to the ones before, and any other field it sets
+     * replaces the earlier value. Each result is handed over as soon as its
+     * line has been read; the read timeout applies between lines, not to
+     * the whole response.
+     */
+    private TesterResponse readStream(HttpEntity entity, ContentType contentType, Consumer<TesterResult> onResult)
+            throws IOException {
+        TesterResponse testerResponse = new TesterResponse();
+        testerResponse.setResults(new ArrayList<>());
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(entity.getContent(), getCharset(contentType)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                TesterResponse part = gson.fromJson(line, TesterResponse.class);
+                if (part.getResults() != null) {
+                    for (TesterResult result : part.getResults()) {
+                        testerResponse.getResults().add(result);
+                        onResult.accept(result);
+                    }
+                }
+                if (part.getNumCorrect() != null) {
+                    testerResponse.setNumCorrect(part.getNumCorrect());
+                }
+                if (part.getNumTestCases() != null) {
+                    testerResponse.setNumTestCases(part.getNumTestCases());
+                }
+                if (part.getRuntime() != null) {
+                    testerResponse.setRuntime(part.getRuntime());
+                }
+                if (part.getCompilationError() != null) {
+                    testerResponse.setCompilationError(part.getCompilationError());
+                }
+            }
+        }
+
+        return testerResponse;
+    }
+
+    private ApiException reject(Counter rejections) {
+        rejections.increment();
+        return new ApiException(GameError.TESTER_ERROR);
+    }
+
+    /**
+     * Check that every endpoint still responds. Any response other than a
+     * server error counts as healthy, since the runner URL only accepts
+     * POST requests. An endpoint is taken out of rotation after
+     * unhealthyThreshold failed checks in a row, and put back after one
+     * successful check.
+     */
+    @Scheduled(fixedDelayString = "${tester.healthCheck.intervalMillis:5000}",
+        initialDelayString = "${tester.healthCheck.intervalMillis:5000}")
+    public void checkHealth() {
+        for (Endpoint endpoint : endpoints) {
+            boolean healthy = isResponding(endpoint);
+            if (healthy) {
+                if (!endpoint.isHealthy()) {
+                    log.info("Tester endpoint {} is healthy again", endpoint.url);
+                }
+                endpoint.failedChecks = 0;
+                endpoint.healthy = true;
+            } else if (++endpoint.failedChecks >= unhealthyThreshold && endpoint.isHealthy()) {
+                log.warn("Tester endpoint {} failed {} health checks, removing it", endpoint.url, endpoint.failedChecks);
+                endpoint.healthy = false;
+            }
+        }
+    }
+
+    private boolean isResponding(Endpoint endpoint) {
+        HttpGet get = new HttpGet(endpoint.url);
+        get.setConfig(healthCheckConfig);
+
+        try (CloseableHttpResponse response = httpClient.execute(get)) {
+            EntityUtils.consume(response.getEntity());
+            return response.getStatusLine().getStatusCode() < 500;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private static Counter registerRejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder(REJECTED_COUNTER)
+            .description("Requests to the tester service rejected without being sent")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+
+    private static List<String> splitUrls(String testerUrls) {
+        List<String> urls = new ArrayList<>();
+        for (String url : testerUrls.split(",")) {
+            if (!url.isBlank()) {
+                urls.add(url.trim());
+            }
+        }
+
+        return urls;
+    }
+
+    /**
+     * A tester instance requests can be routed to.
+     */
+    public static class Endpoint {
+
+        private final String url;
+        private final CircuitBreaker circuitBreaker;
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        // Registered once, so that recording a request doesn't look them up.
+        private final Map<String, Timer> requestTimers;
+        private final Counter retries;
+
+        // Set by the health check, which runs on a single thread.
+        private volatile boolean healthy = true;
+        private int failedChecks = 0;
+
+        private Endpoint(String url, CircuitBreaker circuitBreaker, Map<String, Timer> requestTimers,
+                         Counter retries) {
+            this.url = url;
+            this.circuitBreaker = circuitBreaker;
+            this.requestTimers = requestTimers;
+            this.retries = retries;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        public boolean isCircuitOpen() {
+            return circuitBreaker.isOpen();
+        }
+    }
+
+    /**
+     * Consecutive-failure circuit breaker. After failureThreshold failures in
+     * a row the circuit opens and requests are rejected for openMillis. After
+     * that, a single trial request is let through: if it succeeds the circuit
+     * closes, otherwise it opens again.
+     */
+    public static class CircuitBreaker {
+
+        private final int failureThreshold;
+        private final long openMillis;
+        private final Clock clock;
+
+        private int consecutiveFailures = 0;
+
+        // When the circuit may next let a trial request through (0 if closed).
+        private long openUntil = 0;
+
+        private boolean trialInFlight = false;
+
+        public CircuitBreaker(int failureThreshold, long openMillis, Clock clock) {
+            this.failureThreshold = failureThreshold;
+            this.openMillis = openMillis;
+            this.clock = clock;
+        }
+
+        // Whether a request may be sent now.
+        public synchronized boolean tryAcquire() {
+            if (openUntil == 0) {
+                return true;
+            }
+
+            if (trialInFlight || clock.millis() < openUntil) {
+                return false;
+            }
+
+            trialInFlight = true;
+            return true;
+        }
+
+        public synchronized void recordSuccess() {
+            consecutiveFailures = 0;
+            openUntil = 0;
+            trialInFlight = false;
+        }
+
+        public synchronized void recordFailure() {
+            consecutiveFailures++;
+            if (trialInFlight || consecutiveFailures >= failureThreshold) {
+                openUntil = clock.millis() + openMillis;
+            }
+            trialInFlight = false;
+        }
+
+        public synchronized boolean isOpen() {
+            return openUntil != 0;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.codejoust.main.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import com.codejoust.main.dto.problem.ProblemDto;
+import com.codejoust.main.dto.problem.ProblemMapper;
+import com.codejoust.main.dto.problem.ProblemTestCaseDto;
+import com.codejoust.main.model.problem.Problem;
+import com.google.gson.Gson;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of problems as the tester needs them: just the inputs, output type
+ * and test cases, both as a DTO and already serialized to JSON. They're
+ * built when a game starts, so judging a submission only has to add the
+ * code and language around the cached JSON. Each test case is serialized
+ * on its own as well, so that requests with only some of them, or with
+ * them reordered (shards, and fail-fast submissions), are put together from
+ * the cached JSON too.
+ *
+ * Entries are keyed by problem ID, and must be invalidated when a problem's
+ * test cases change. They are evicted least recently used first, once either
+ * the number of entries or their estimated size in bytes exceeds the limit.
+ */
+@Component
+public class TesterProblemCache {
+
+    private static final Gson gson = new Gson();
+
+    private final int maxEntries;
+    private final long maxBytes;
+
+    // Ordered from least to most recently used.
+    private final LinkedHashMap<String, Payload> payloads = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bytes = 0;
+
+    @Autowired
+    public TesterProblemCache(@Value("${tester.problemCache.maxEntries:1000}") int maxEntries,
+                              @Value("${tester.problemCache.maxBytes:67108864}") long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get the tester payload of the problem, building it if it isn't cached.
+     *
+     * @param problem The problem, with its test cases.
+     * @return The payload. It is shared between callers, so neither it nor
+     * its DTO may be modified.
+     */
+    public Payload get(Problem problem) {
+        String problemId = problem.getProblemId();
+        if (problemId != null) {
+            synchronized (this) {
+                Payload payload = payloads.get(problemId);
+                if (payload != null) {
+                    return payload;
+                }
+            }
+        }
+
+        // Build outside the lock; at worst, two callers build the same payload.
+        Payload payload = build(problem);
+        if (problemId == null || payload.getBytes() > maxBytes) {
+            return payload;
+        }
+
+        synchronized (this) {
+            Payload previous = payloads.put(problemId, payload);
+            if (previous != null) {
+                bytes -= previous.getBytes();
+            }
+            bytes += payload.getBytes();
+
+            // Evict the least recently used payloads until within the limits.
+            Iterator<Payload> iterator = payloads.values().iterator();
+            while ((payloads.size() > maxEntries || bytes > maxBytes) && iterator.hasNext()) {
+                bytes -= iterator.next().getBytes();
+                iterator.remove();
+            }
+        }
+
+        return payload;
+    }
+
+    // Drop the problem's payload, e.g. because its test cases have changed.
+    public synchronized void invalidate(String problemId) {
+        Payload payload = payloads.remove(problemId);
+        if (payload != null) {
+            bytes -= payload.getBytes();
+        }
+    }
+
+    public synchronized int size() {
+        return payloads.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    // Map only the fields the tester uses; the rest would be sent for nothing.
+    public static Payload build(Problem problem) {
+        ProblemDto problemDto = new ProblemDto();
+        problemDto.setProblemInputs(Utility.mapList(problem.getProblemInputs(), ProblemMapper::toProblemInputDto));
+        problemDto.setOutputType(problem.getOutputType());
+        problemDto.setTestCases(Utility.mapList(problem.getTestCases(), ProblemMapper::toTestCaseDto));
+        problemDto.setProblemTags(null);
+        byte[] json = gson.toJson(problemDto).getBytes(StandardCharsets.UTF_8);
+
+        // The other fields, without the closing brace, for the test cases to be added after.
+        List<ProblemTestCaseDto> testCases = problemDto.getTestCases();
+        problemDto.setTestCases(null);
+        String fields = gson.toJson(problemDto);
+        problemDto.setTestCases(testCases);
+
+        byte[][] testCaseJson = new byte[testCases.size()][];
+        for (int i = 0; i < testCaseJson.length; i++) {
+            testCaseJson[i] = gson.toJson(testCases.get(i)).getBytes(StandardCharsets.UTF_8);
+        }
+
+        return new Payload(problemDto, json,
+            fields.substring(0, fields.length() - 1).getBytes(StandardCharsets.UTF_8), testCaseJson);
+    }
+
+    public static class Payload {
+        private static final byte[] TEST_CASES_FIELD = "\"testCases\":[".getBytes(StandardCharsets.UTF_8);
+
+        private final ProblemDto problem;
+        private final byte[] json;
+
+        private final byte[] fieldsJson;
+        private final byte[][] testCaseJson;
+        private final IdentityHashMap<ProblemTestCaseDto, Integer> testCaseIndices = new IdentityHashMap<>();
+
+        private Payload(ProblemDto problem, byte[] json, byte[] fieldsJson, byte[][] testCaseJson) {
+            this.problem = problem;
+            this.json = json;
+            this.fieldsJson = fieldsJson;
+            this.testCaseJson = testCaseJson;
+
+            for (int i = 0; i < testCaseJson.length; i++) {
+                testCaseIndices.put(problem.getTestCases().get(i), i);
+            }
+        }
+
+        public ProblemDto getProblem() {
+            return problem;
+        }
+
+        // The problem serialized to UTF-8 JSON; must not be modified.
+        public byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * Get the problem serialized to UTF-8 JSON with only the given test
+         * cases, in the given order, as a copy of the problem with them
+         * would be. Only the JSON already built is copied.
+         *
+         * @param testCases Test cases of this payload's problem (the same
+         * instances, not copies).
+         * @return The JSON, or null if a test case isn't one of this
+         * payload's, in which case the problem must be serialized itself.
+         */
+        public byte[] getJson(List<ProblemTestCaseDto> testCases) {
+            ByteArrayOutputStream stream = new ByteArrayOutputStream(json.length);
+            stream.write(fieldsJson, 0, fieldsJson.length);
+            if (fieldsJson.length > 1) {
+                stream.write(',');
+            }
+            stream.write(TEST_CASES_FIELD, 0, TEST_CASES_FIELD.length);
+
+            for (int i = 0; i < testCases.size(); i++) {
+                Integer index = testCaseIndices.get(testCases.get(i));
+                if (index == null) {
+                    return null;
+                }
+
+                if (i > 0) {
+                    stream.write(',');
+                }
+                stream.write(testCaseJson[index], 0, testCaseJson[index].length);
+            }
+
+            stream.write(']');
+            stream.write('}');
+            return stream.toByteArray();
+        }
+
+        // Rough size: the JSON twice (whole, and by test case), plus the DTO's strings (2 bytes per char).
+        private long getBytes() {
+            return 4L * json.length + 256;
+        }
+    }
+}
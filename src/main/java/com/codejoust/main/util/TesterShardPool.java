@@ -0,0 +1,69 @@
+package com.codejoust.main.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Threads on which the shards of large submissions are sent to the tester
+ * alongside each other. A problem with more test cases than the threshold is
+ * split into shards of about that many test cases (up to a maximum number of
+ * shards), so judging it is spread over several tester workers instead of
+ * growing with the size of the whole suite on one.
+ */
+@Component
+public class TesterShardPool {
+
+    public static final int DEFAULT_THREADS = 8;
+    public static final int DEFAULT_THRESHOLD = 20;
+    public static final int DEFAULT_MAX_SHARDS = 4;
+
+    public static final String THREAD_PREFIX = "tester-shard-";
+
+    private final int threshold;
+    private final int maxShards;
+    private final ExecutorService executor;
+
+    public TesterShardPool(@Value("${tester.shard.threads:" + DEFAULT_THREADS + "}") int threads,
+                           @Value("${tester.shard.threshold:" + DEFAULT_THRESHOLD + "}") int threshold,
+                           @Value("${tester.shard.maxShards:" + DEFAULT_MAX_SHARDS + "}") int maxShards) {
+        this.threshold = Math.max(threshold, 1);
+        this.maxShards = maxShards;
+
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, THREAD_PREFIX + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        this.executor = Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+    // Number of shards to judge that many test cases in; one means not to shard them.
+    public int getShardCount(int numTestCases) {
+        if (numTestCases <= threshold) {
+            return 1;
+        }
+
+        return Math.max(Math.min(maxShards, (numTestCases + threshold - 1) / threshold), 1);
+    }
+
+    // Judge a shard on one of the pool's threads.
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
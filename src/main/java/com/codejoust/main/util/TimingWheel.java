@@ -0,0 +1,236 @@
+package com.codejoust.main.util;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hashed timing wheel shared by every game's timers.
+ *
+ * A single ticker thread advances the wheel once per tick and hands expired
+ * tasks to a small worker pool, so the number of threads stays constant no
+ * matter how many timers are pending. Timeouts fire at most one tick late
+ * (plus scheduling delay) and are never early.
+ */
+@Log4j2
+@Component
+public class TimingWheel {
+
+    public static final long DEFAULT_TICK_MILLIS = 100;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+    public static final int DEFAULT_THREADS = 2;
+
+    public static final String TICKER_THREAD_NAME = "timing-wheel-ticker";
+    public static final String WORKER_THREAD_PREFIX = "timing-wheel-worker-";
+
+    private final long tickNanos;
+
+    private final int mask;
+
+    // Each bucket is only ever touched by the ticker thread.
+    private final Queue<Timeout>[] buckets;
+
+    // Timeouts scheduled since the last tick, waiting to be placed in a bucket.
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+
+    private final ExecutorService workers;
+
+    private final Thread ticker;
+
+    private final long startTime;
+
+    private volatile boolean stopped = false;
+
+    // The number of ticks the wheel has completed.
+    private long tick = 0;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(@Value("${game.timer.tickMillis:" + DEFAULT_TICK_MILLIS + "}") long tickMillis,
+                       @Value("${game.timer.wheelSize:" + DEFAULT_WHEEL_SIZE + "}") int wheelSize,
+                       @Value("${game.timer.threads:" + DEFAULT_THREADS + "}") int threads) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("The tick duration must be positive.");
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("The wheel size must be a positive power of two.");
+        }
+
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = wheelSize - 1;
+        this.buckets = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+
+        AtomicInteger count = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, WORKER_THREAD_PREFIX + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.startTime = System.nanoTime();
+        this.ticker = new Thread(this::runTicker, TICKER_THREAD_NAME);
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * Schedule a task to run once after the given delay.
+     *
+     * @param task The task to run, on one of the wheel's worker threads.
+     * @param delay The delay, which is rounded up to the next tick.
+     * @param unit The unit of the delay.
+     * @return A handle that can be used to cancel the task.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new IllegalArgumentException("The task must not be null.");
+        }
+        if (stopped) {
+            throw new RejectedExecutionException("The timing wheel has been stopped.");
+        }
+
+        long deadline = System.nanoTime() - startTime + Math.max(unit.toNanos(delay), 0);
+        Timeout timeout = new Timeout(task, deadline);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    // Number of timeouts not yet placed on the wheel.
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        ticker.interrupt();
+        workers.shutdownNow();
+    }
+
+    private void runTicker() {
+        while (!stopped) {
+            // Sleep until the end of the current tick.
+            long tickDeadline = tickNanos * (tick + 1);
+            long sleepNanos = tickDeadline - (System.nanoTime() - startTime);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (stopped) {
+                        return;
+                    }
+                }
+                continue;
+            }
+
+            transferPending();
+            expireBucket(buckets[(int) (tick & mask)], tickDeadline);
+            tick++;
+        }
+    }
+
+    // Move newly scheduled timeouts into the bucket of the tick they expire on.
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+
+            // Round up, so that a timeout never fires before its deadline.
+            long expiryTick = Math.max((timeout.deadline + tickNanos - 1) / tickNanos - 1, tick);
+            timeout.remainingRounds = (expiryTick - tick) / buckets.length;
+            buckets[(int) (expiryTick & mask)].add(timeout);
+        }
+    }
+
+    private void expireBucket(Queue<Timeout> bucket, long tickDeadline) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.isCancelled()) {
+                iterator.remove();
+            } else if (timeout.remainingRounds <= 0 && timeout.deadline <= tickDeadline) {
+                iterator.remove();
+                expire(timeout);
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    private void expire(Timeout timeout) {
+        if (!timeout.state.compareAndSet(Timeout.WAITING, Timeout.EXPIRED)) {
+            return;
+        }
+
+        try {
+            workers.execute(() -> {
+                try {
+                    timeout.task.run();
+                } catch (Throwable e) {
+                    log.error("An uncaught error occurred in a timer task", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.info("Dropping timer task as the timing wheel is stopping");
+        }
+    }
+
+    /**
+     * Handle to a scheduled task.
+     */
+    public static class Timeout {
+
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+
+        // Deadline in nanoseconds, relative to the wheel's start time.
+        private final long deadline;
+
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        // Full turns of the wheel left before expiry; ticker thread only.
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancel the task if it has not started yet.
+         *
+         * @return true if the task was cancelled, false if it already expired
+         * or was cancelled before.
+         */
+        public boolean cancel() {
+            return state.compareAndSet(WAITING, CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.codejoust.main.util;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -54,6 +56,26 @@ public class Utility {
     public static final Color PINK = new Color("pink");
     public static final List<Color> COLOR_LIST = List.of(RED, YELLOW, GREEN, BLUE, PURPLE, PINK);
 
+    /**
+     * Map each element of a list, as the DTO mappers do for nested lists.
+     *
+     * @param source The list to map, which may be null.
+     * @param mapper The function that maps a single element.
+     * @return A new list of the mapped elements, or null if source is null.
+     */
+    public static <S, T> List<T> mapList(List<S> source, Function<S, T> mapper) {
+        if (source == null) {
+            return null;
+        }
+
+        List<T> mapped = new ArrayList<>(source.size());
+        for (S element : source) {
+            mapped.add(mapper.apply(element));
+        }
+
+        return mapped;
+    }
+
     private final RoomRepository roomRepository;
     private final UserRepository userRepository;
 
@@ -7,6 +7,8 @@ import com.codejoust.main.dto.game.PlayerDto;
 import com.codejoust.main.dto.game.StartGameRequest;
 import com.codejoust.main.dto.game.SubmissionDto;
 import com.codejoust.main.dto.game.SubmissionRequest;
+import com.codejoust.main.dto.game.SubmissionStatus;
+import com.codejoust.main.dto.game.SubmissionTicketDto;
 import com.codejoust.main.dto.game.SubmissionResultDto;
 import com.codejoust.main.dto.problem.ProblemDto;
 import com.codejoust.main.dto.problem.SelectableProblemDto;
@@ -265,6 +267,37 @@ public class GameTests {
         assertTrue(gameDto.getAllSolved());
     }
 
+    @Test
+    public void submitSolutionAsyncSuccess() throws Exception {
+        UserDto host = TestFields.userDto1();
+
+        RoomDto roomDto = RoomTestMethods.setUpRoomWithOneUser(this.mockMvc, host);
+        startGameHelper(roomDto, host);
+
+        SubmissionRequest request = new SubmissionRequest();
+        request.setInitiator(host);
+        request.setCode(TestFields.PYTHON_CODE);
+        request.setLanguage(TestFields.PYTHON_LANGUAGE);
+
+        SubmissionTicketDto ticketDto = MockHelper.postRequest(this.mockMvc, TestUrls.submitCodeAsync(roomDto.getRoomId()), request, SubmissionTicketDto.class, HttpStatus.ACCEPTED);
+
+        assertNotNull(ticketDto.getSubmissionId());
+        assertEquals(SubmissionStatus.QUEUED, ticketDto.getStatus());
+        assertNull(ticketDto.getSubmission());
+
+        // The submission is recorded in the game once the dispatcher has tested it.
+        GameDto gameDto = MockHelper.getRequest(this.mockMvc, TestUrls.getGame(roomDto.getRoomId()), GameDto.class, HttpStatus.OK);
+        for (int i = 0; i < 50 && gameDto.getPlayers().get(0).getSubmissions().isEmpty(); i++) {
+            Thread.sleep(20);
+            gameDto = MockHelper.getRequest(this.mockMvc, TestUrls.getGame(roomDto.getRoomId()), GameDto.class, HttpStatus.OK);
+        }
+
+        SubmissionDto submissionDto = gameDto.getPlayers().get(0).getSubmissions().get(0);
+        assertEquals(TestFields.PYTHON_CODE, submissionDto.getCode());
+        assertEquals(submissionDto.getNumCorrect(), submissionDto.getNumTestCases());
+        assertTrue(gameDto.getAllSolved());
+    }
+
     @Test
     public void sendNotificationSuccess() throws Exception {
         UserDto host = TestFields.userDto1();
@@ -0,0 +1,147 @@
+package com.codejoust.main.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.codejoust.main.game_object.CodeEdit;
+import com.codejoust.main.game_object.Game;
+import com.codejoust.main.game_object.Player;
+import com.codejoust.main.game_object.PlayerCode;
+import com.codejoust.main.model.User;
+import com.codejoust.main.model.report.CodeLanguage;
+import com.codejoust.main.service.LiveGameService;
+import com.codejoust.main.util.GameEventLoop;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares live code updates sent as the whole code (decoded from the
+ * request body, then swapped in) against versioned patches, for 30 players
+ * typing concurrently in one room, each in a file of about 8 KB. Players
+ * alternately type a character and delete it, so their files keep their
+ * size. Updates go through the room's mailbox, as they do in the service.
+ *
+ * Run with the main method (test classpath), which enables the GC profiler;
+ * gc.alloc.rate.norm is the number of bytes allocated per update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(CodeSyncBenchmark.NUM_PLAYERS)
+public class CodeSyncBenchmark {
+
+    static final int NUM_PLAYERS = 30;
+    private static final int CODE_LENGTH = 8_000;
+
+    private final LiveGameService liveGameService = new LiveGameService();
+    private final AtomicInteger nextPlayer = new AtomicInteger();
+
+    private GameEventLoop gameEventLoop;
+    private Game game;
+    private Player[] players;
+    private String initialCode;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; builder.length() < CODE_LENGTH; i++) {
+            builder.append("    total = total + nums[").append(i).append("]  # running sum\n");
+        }
+        initialCode = builder.toString();
+
+        gameEventLoop = new GameEventLoop(GameEventLoop.DEFAULT_THREADS);
+        game = new Game();
+        game.setMailbox(gameEventLoop.newMailbox());
+
+        players = new Player[NUM_PLAYERS];
+        for (int i = 0; i < NUM_PLAYERS; i++) {
+            User user = new User();
+            user.setUserId("user" + i);
+            user.setNickname("user" + i);
+
+            Player player = new Player();
+            player.setUser(user);
+            player.setPlayerCode(new PlayerCode(initialCode, CodeLanguage.PYTHON));
+            game.addPlayer(player);
+            players[i] = player;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        gameEventLoop.shutdown();
+    }
+
+    // The client side of one player: its copy of the code, cursor and version.
+    @State(Scope.Thread)
+    public static class Typist {
+        private Player player;
+        private StringBuilder code;
+        private int cursor;
+        private int version;
+        private boolean typed = false;
+
+        @Setup
+        public void setup(CodeSyncBenchmark benchmark) {
+            player = benchmark.players[benchmark.nextPlayer.getAndIncrement() % NUM_PLAYERS];
+            code = new StringBuilder(benchmark.initialCode);
+            cursor = code.length() / 2;
+            version = player.getCodeDocument().getVersion();
+        }
+
+        // Type a character at the cursor, or delete the one just typed.
+        private CodeEdit nextEdit() {
+            CodeEdit edit = typed ? new CodeEdit(cursor, cursor + 1, "") : new CodeEdit(cursor, cursor, "x");
+            code.replace(edit.getStart(), edit.getEnd(), edit.getText());
+            typed = !typed;
+            return edit;
+        }
+    }
+
+    // Previous behavior: every update carries (and replaces) the whole code.
+    @Benchmark
+    public void fullUpdate(Typist typist) {
+        typist.nextEdit();
+        byte[] body = typist.code.toString().getBytes(StandardCharsets.UTF_8);
+
+        PlayerCode playerCode = new PlayerCode(new String(body, StandardCharsets.UTF_8), CodeLanguage.PYTHON);
+        game.getMailbox().run(() -> liveGameService.updateCode(typist.player, playerCode));
+    }
+
+    // Every update carries only the edit, applied to the player's code in place.
+    @Benchmark
+    public int patchUpdate(Typist typist) {
+        CodeEdit edit = typist.nextEdit();
+
+        typist.version = game.getMailbox().call(() -> liveGameService.patchCode(typist.player, typist.version,
+            null, Collections.singletonList(edit)));
+        return typist.version;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(CodeSyncBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
@@ -0,0 +1,112 @@
+package com.codejoust.main.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.codejoust.main.dto.game.GameDto;
+import com.codejoust.main.dto.game.GameMapper;
+import com.codejoust.main.game_object.Game;
+import com.codejoust.main.game_object.Player;
+import com.codejoust.main.model.Room;
+import com.codejoust.main.model.User;
+import com.codejoust.main.model.problem.Problem;
+import com.codejoust.main.model.problem.ProblemTestCase;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures GameMapper.toDto for a game of 10 problems (10 test cases each)
+ * and 10 players, when the sanitized problem payloads are mapped on every
+ * call and when they are precomputed on the game.
+ *
+ * Run with the main method (test classpath), which enables the GC profiler;
+ * gc.alloc.rate.norm is the number of bytes allocated per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameDtoBenchmark {
+
+    private static final int NUM_PROBLEMS = 10;
+    private static final int NUM_TEST_CASES = 10;
+    private static final int NUM_PLAYERS = 10;
+
+    private Game mappedGame;
+    private Game precomputedGame;
+
+    @Setup
+    public void setup() {
+        mappedGame = createGame();
+        precomputedGame = createGame();
+        precomputedGame.setProblemDtos(GameMapper.toProblemDtos(precomputedGame.getProblems()));
+    }
+
+    private Game createGame() {
+        Room room = new Room();
+        room.setRoomId("012345");
+        room.setNumProblems(NUM_PROBLEMS);
+        for (int i = 0; i < NUM_PLAYERS; i++) {
+            User user = new User();
+            user.setUserId("user" + i);
+            user.setNickname("user" + i);
+            room.addUser(user);
+        }
+
+        Game game = GameMapper.fromRoom(room);
+        for (int i = 0; i < NUM_PROBLEMS; i++) {
+            Problem problem = new Problem();
+            problem.setName("Problem " + i);
+            problem.setDescription("Sort the given array of integers in ascending order.");
+
+            for (int j = 0; j < NUM_TEST_CASES; j++) {
+                ProblemTestCase testCase = new ProblemTestCase();
+                testCase.setInput("[" + j + ", 3, 1, 2]");
+                testCase.setOutput("[1, 2, 3, " + j + "]");
+                testCase.setHidden(j % 2 == 0);
+                problem.addTestCase(testCase);
+            }
+
+            game.getProblems().add(problem);
+        }
+
+        for (Player player : game.getPlayers().values()) {
+            player.setSolved(new boolean[NUM_PROBLEMS]);
+        }
+
+        return game;
+    }
+
+    // Previous behavior: every GameDto re-maps and strips every problem.
+    @Benchmark
+    public GameDto toDtoMappingProblems() {
+        return GameMapper.toDto(mappedGame);
+    }
+
+    // Problems are sanitized once at game creation and shared by every GameDto.
+    @Benchmark
+    public GameDto toDtoPrecomputedProblems() {
+        return GameMapper.toDto(precomputedGame);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(GameDtoBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
@@ -0,0 +1,120 @@
+package com.codejoust.main.benchmark;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.codejoust.main.dto.game.GameMapper;
+import com.codejoust.main.dto.game.PlayerDto;
+import com.codejoust.main.game_object.Game;
+import com.codejoust.main.game_object.Player;
+import com.codejoust.main.game_object.Submission;
+import com.codejoust.main.model.User;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares ranking players with GameMapper.sortLeaderboard (re-scoring every
+ * player's submissions on each comparison) against reading the incrementally
+ * maintained Leaderboard, for 30 players with 200 submissions each.
+ *
+ * Run with the main method (test classpath), or through the JMH runner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeaderboardBenchmark {
+
+    private static final int NUM_PLAYERS = 30;
+    private static final int SUBMISSIONS_PER_PLAYER = 200;
+    private static final int NUM_PROBLEMS = 3;
+    private static final int NUM_TEST_CASES = 10;
+
+    private Game game;
+    private List<Player> players;
+    private List<PlayerDto> playerDtos;
+    private int nextPlayer = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        Instant time = Instant.now();
+
+        game = new Game();
+        for (int i = 0; i < NUM_PLAYERS; i++) {
+            User user = new User();
+            user.setUserId("user" + i);
+            user.setNickname("user" + i);
+
+            Player player = new Player();
+            player.setUser(user);
+            game.addPlayer(player);
+        }
+        players = new ArrayList<>(game.getPlayers().values());
+
+        // Players take turns submitting; roughly one in ten submissions is correct.
+        for (int i = 0; i < SUBMISSIONS_PER_PLAYER; i++) {
+            for (Player player : players) {
+                Submission submission = new Submission();
+                submission.setProblemIndex(random.nextInt(NUM_PROBLEMS));
+                submission.setNumTestCases(NUM_TEST_CASES);
+                submission.setNumCorrect(random.nextInt(10) == 0 ? NUM_TEST_CASES : random.nextInt(NUM_TEST_CASES));
+                submission.setStartTime(time);
+                time = time.plusMillis(random.nextInt(1000) + 1);
+
+                game.recordSubmission(player, submission);
+            }
+        }
+
+        playerDtos = new ArrayList<>(GameMapper.toDto(game).getPlayers());
+        Collections.shuffle(playerDtos, random);
+    }
+
+    // Previous behavior on every GameDto: sort the mapped players from scratch.
+    @Benchmark
+    public List<PlayerDto> sortLeaderboard() {
+        List<PlayerDto> sorted = new ArrayList<>(playerDtos);
+        GameMapper.sortLeaderboard(sorted);
+        return sorted;
+    }
+
+    // New behavior on every GameDto: read the players in leaderboard order.
+    @Benchmark
+    public List<Player> readLeaderboard() {
+        return new ArrayList<>(game.getLeaderboard().getPlayers());
+    }
+
+    // New cost paid once per submission: reposition the submitting player.
+    @Benchmark
+    public int updateLeaderboard() {
+        Player player = players.get(nextPlayer);
+        nextPlayer = (nextPlayer + 1) % players.size();
+
+        game.getLeaderboard().update(player);
+        return game.getLeaderboard().size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(LeaderboardBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
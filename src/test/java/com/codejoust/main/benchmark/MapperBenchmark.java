@@ -0,0 +1,158 @@
+package com.codejoust.main.benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.codejoust.main.dto.game.GameDto;
+import com.codejoust.main.dto.game.GameMapper;
+import com.codejoust.main.dto.game.SubmissionDto;
+import com.codejoust.main.dto.room.RoomDto;
+import com.codejoust.main.dto.room.RoomMapper;
+import com.codejoust.main.game_object.Game;
+import com.codejoust.main.game_object.Player;
+import com.codejoust.main.game_object.PlayerCode;
+import com.codejoust.main.game_object.Submission;
+import com.codejoust.main.game_object.SubmissionResult;
+import com.codejoust.main.mapper.ModelMapperReference;
+import com.codejoust.main.model.Room;
+import com.codejoust.main.model.User;
+import com.codejoust.main.model.problem.Problem;
+import com.codejoust.main.model.problem.ProblemTestCase;
+import com.codejoust.main.model.report.CodeLanguage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the throughput of the explicit mappers against the ModelMapper
+ * mappings they replaced, for a room of 10 users and a game of 3 problems
+ * where each of the 10 players has made 5 submissions.
+ *
+ * Run with the main method (test classpath), or through the JMH runner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int NUM_USERS = 10;
+    private static final int NUM_PROBLEMS = 3;
+    private static final int NUM_TEST_CASES = 5;
+    private static final int SUBMISSIONS_PER_PLAYER = 5;
+
+    private Room room;
+    private Game game;
+    private Submission submission;
+
+    @Setup
+    public void setup() {
+        room = new Room();
+        room.setRoomId("012345");
+        room.setNumProblems(NUM_PROBLEMS);
+        for (int i = 0; i < NUM_USERS; i++) {
+            User user = new User();
+            user.setUserId("user" + i);
+            user.setNickname("user" + i);
+            user.setSessionId(i % 2 == 0 ? "session" + i : null);
+            room.addUser(user);
+        }
+        room.setHost(room.getUsers().get(0));
+
+        game = GameMapper.fromRoom(room);
+        for (int i = 0; i < NUM_PROBLEMS; i++) {
+            Problem problem = new Problem();
+            problem.setName("Problem " + i);
+            for (int j = 0; j < NUM_TEST_CASES; j++) {
+                ProblemTestCase testCase = new ProblemTestCase();
+                testCase.setInput("[" + j + ", 3, 1, 2]");
+                testCase.setOutput("[1, 2, 3, " + j + "]");
+                testCase.setHidden(j % 2 == 0);
+                problem.addTestCase(testCase);
+            }
+            game.getProblems().add(problem);
+        }
+        game.setProblemDtos(GameMapper.toProblemDtos(game.getProblems()));
+
+        for (Player player : game.getPlayers().values()) {
+            player.setPlayerCode(new PlayerCode("print('hello')", CodeLanguage.PYTHON));
+            for (int i = 0; i < SUBMISSIONS_PER_PLAYER; i++) {
+                game.recordSubmission(player, createSubmission(i % NUM_PROBLEMS, i));
+            }
+        }
+
+        submission = createSubmission(0, NUM_TEST_CASES);
+    }
+
+    private Submission createSubmission(int problemIndex, int numCorrect) {
+        Submission submission = new Submission();
+        submission.setPlayerCode(new PlayerCode("print('hello')", CodeLanguage.PYTHON));
+        submission.setProblemIndex(problemIndex);
+        submission.setNumCorrect(Math.min(numCorrect, NUM_TEST_CASES));
+        submission.setNumTestCases(NUM_TEST_CASES);
+        submission.setRuntime(5.5);
+        submission.setResults(new ArrayList<>());
+
+        for (int i = 0; i < NUM_TEST_CASES; i++) {
+            SubmissionResult result = new SubmissionResult();
+            result.setInput("[1, 3, 2]");
+            result.setUserOutput("[1, 2, 3]");
+            result.setCorrectOutput("[1, 2, 3]");
+            result.setConsole("hello");
+            result.setHidden(i % 2 == 0);
+            result.setCorrect(i < numCorrect);
+            submission.getResults().add(result);
+        }
+
+        return submission;
+    }
+
+    @Benchmark
+    public RoomDto roomModelMapper() {
+        return ModelMapperReference.toRoomDto(room);
+    }
+
+    @Benchmark
+    public RoomDto roomExplicit() {
+        return RoomMapper.toDto(room);
+    }
+
+    @Benchmark
+    public GameDto gameModelMapper() {
+        return ModelMapperReference.toGameDto(game);
+    }
+
+    @Benchmark
+    public GameDto gameExplicit() {
+        return GameMapper.toDto(game);
+    }
+
+    @Benchmark
+    public SubmissionDto submissionModelMapper() {
+        return ModelMapperReference.toSubmissionDto(submission);
+    }
+
+    @Benchmark
+    public SubmissionDto submissionExplicit() {
+        return GameMapper.submissionToDto(submission);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(MapperBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
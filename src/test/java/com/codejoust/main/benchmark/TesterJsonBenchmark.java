@@ -0,0 +1,140 @@
+package com.codejoust.main.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.codejoust.main.dto.game.TesterRequest;
+import com.codejoust.main.dto.game.TesterResponse;
+import com.codejoust.main.dto.game.TesterResult;
+import com.codejoust.main.dto.problem.ProblemDto;
+import com.codejoust.main.dto.problem.ProblemTestCaseDto;
+import com.codejoust.main.model.report.CodeLanguage;
+import com.codejoust.main.util.TesterClient;
+import com.google.gson.Gson;
+
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares building tester request bodies and parsing tester responses as
+ * whole strings against streaming them, for a problem whose 50 test cases
+ * add up to about 5 MB (and a response echoing them back). Request bodies
+ * are written to a stream that discards them, as the connection would.
+ *
+ * Run with the main method (test classpath), which enables the GC profiler;
+ * gc.alloc.rate.norm is the number of bytes allocated per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TesterJsonBenchmark {
+
+    private static final int NUM_TEST_CASES = 50;
+    private static final int TEST_CASE_LENGTH = 50_000;
+
+    private final Gson gson = new Gson();
+
+    private TesterRequest request;
+    private byte[] responseBytes;
+
+    @Setup
+    public void setup() {
+        List<ProblemTestCaseDto> testCases = new ArrayList<>();
+        List<TesterResult> results = new ArrayList<>();
+        for (int i = 0; i < NUM_TEST_CASES; i++) {
+            String array = createArray(i);
+
+            ProblemTestCaseDto testCase = new ProblemTestCaseDto();
+            testCase.setInput(array);
+            testCase.setOutput(array);
+            testCases.add(testCase);
+
+            TesterResult result = new TesterResult();
+            result.setUserOutput(array);
+            result.setCorrectOutput(array);
+            result.setCorrect(true);
+            results.add(result);
+        }
+
+        ProblemDto problem = new ProblemDto();
+        problem.setTestCases(testCases);
+
+        request = new TesterRequest();
+        request.setCode("def solve(nums):\n    return sorted(nums)\n");
+        request.setLanguage(CodeLanguage.PYTHON);
+        request.setProblem(problem);
+
+        TesterResponse response = new TesterResponse();
+        response.setResults(results);
+        response.setNumCorrect(NUM_TEST_CASES);
+        response.setNumTestCases(NUM_TEST_CASES);
+        response.setRuntime(1.5);
+        responseBytes = gson.toJson(response).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // An array of integers, about TEST_CASE_LENGTH characters long.
+    private static String createArray(int seed) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int n = seed; builder.length() < TEST_CASE_LENGTH; n = (n * 31 + 7) % 100_000) {
+            builder.append(n).append(", ");
+        }
+        builder.setLength(builder.length() - 2);
+        return builder.append(']').toString();
+    }
+
+    // Previous behavior: the whole request is serialized to a string, then encoded.
+    @Benchmark
+    public void requestAsString() throws IOException {
+        new StringEntity(gson.toJson(request), ContentType.APPLICATION_JSON).writeTo(OutputStream.nullOutputStream());
+    }
+
+    // The request is serialized straight into the body as it is sent.
+    @Benchmark
+    public void requestStreamed() throws IOException {
+        TesterClient.toEntity(request).writeTo(OutputStream.nullOutputStream());
+    }
+
+    // Previous behavior: the whole body is read into a string, then parsed.
+    @Benchmark
+    public TesterResponse responseAsString() throws IOException {
+        ByteArrayEntity entity = new ByteArrayEntity(responseBytes, ContentType.APPLICATION_JSON);
+        return gson.fromJson(EntityUtils.toString(entity), TesterResponse.class);
+    }
+
+    // The response is parsed straight from the body.
+    @Benchmark
+    public TesterResponse responseStreamed() throws IOException {
+        ByteArrayEntity entity = new ByteArrayEntity(responseBytes, ContentType.APPLICATION_JSON);
+        return TesterClient.readJson(entity, TesterResponse.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(TesterJsonBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
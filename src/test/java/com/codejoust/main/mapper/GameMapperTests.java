@@ -7,11 +7,15 @@ import org.springframework.boot.test.context.SpringBootTest;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import com.codejoust.main.dto.game.GameDto;
 import com.codejoust.main.dto.game.GameMapper;
@@ -158,6 +162,46 @@ public class GameMapperTests {
         assertEquals(submission.getStartTime(), submissionDto.getStartTime());
     }
 
+    @Test
+    public void toDtoReusesProblemDtos() {
+        Problem problem = new Problem();
+        problem.setName(TestFields.PROBLEM_NAME);
+
+        ProblemTestCase testCase = new ProblemTestCase();
+        testCase.setInput(TestFields.INPUT);
+        testCase.setOutput(TestFields.OUTPUT);
+        problem.addTestCase(testCase);
+
+        ProblemTestCase testCase2 = new ProblemTestCase();
+        testCase2.setInput(TestFields.INPUT_2);
+        testCase2.setOutput(TestFields.OUTPUT_2);
+        testCase2.setHidden(true);
+        problem.addTestCase(testCase2);
+
+        Game game = new Game();
+        game.getProblems().add(problem);
+
+        // Without precomputed payloads, each DTO maps the problems itself.
+        List<ProblemDto> computed = GameMapper.toDto(game).getProblems();
+        assertNotSame(computed, GameMapper.toDto(game).getProblems());
+
+        game.setProblemDtos(GameMapper.toProblemDtos(game.getProblems()));
+        assertEquals(computed, game.getProblemDtos());
+        assertSame(game.getProblemDtos(), GameMapper.toDto(game).getProblems());
+        assertSame(game.getProblemDtos(), GameMapper.toDto(game).getProblems());
+        assertThrows(UnsupportedOperationException.class, () -> game.getProblemDtos().add(new ProblemDto()));
+
+        List<ProblemTestCaseDto> testCaseDtos = game.getProblemDtos().get(0).getTestCases();
+        assertEquals(TestFields.INPUT, testCaseDtos.get(0).getInput());
+        assertEquals("", testCaseDtos.get(0).getOutput());
+        assertEquals("", testCaseDtos.get(1).getInput());
+        assertEquals("", testCaseDtos.get(1).getOutput());
+
+        // The game's problems themselves are left untouched.
+        assertEquals(TestFields.OUTPUT, testCase.getOutput());
+        assertEquals(TestFields.INPUT_2, testCase2.getInput());
+    }
+
     @Test
     public void submissionToDto() {
         PlayerCode playerCode = new PlayerCode();
@@ -256,21 +300,66 @@ public class GameMapperTests {
         sub2.setNumCorrect(TEST_CASES);
         sub2.setNumTestCases(TEST_CASES);
 
-        Player player1 = new Player();
-        player1.getSubmissions().add(sub1);
-        Player player2 = new Player();
-        player2.getSubmissions().add(sub2);
-
         Game game = new Game();
-        game.getPlayers().put("player1", player1);
-        game.getPlayers().put("player2", player2);
+        Player player1 = createPlayer("player1");
+        Player player2 = createPlayer("player2");
+        Player player3 = createPlayer("player3");
+        game.addPlayer(player1);
+        game.addPlayer(player2);
+        game.addPlayer(player3);
+
+        game.recordSubmission(player1, sub1);
+        game.recordSubmission(player2, sub2);
+
+        assertEquals(1, player2.getScore());
+        assertEquals(sub2.getStartTime(), player2.getLastSolvedTime());
+        assertEquals(0, player1.getScore());
 
         GameDto gameDto = GameMapper.toDto(game);
 
         List<PlayerDto> players = gameDto.getPlayers();
 
-        assertEquals(2, players.size());
+        assertEquals(3, players.size());
         assertEquals(TEST_CASES, players.get(0).getSubmissions().get(0).getNumCorrect());
         assertEquals(0, players.get(1).getSubmissions().get(0).getNumCorrect());
+        assertEquals(0, players.get(2).getSubmissions().size());
+    }
+
+    @Test
+    public void leaderboardMatchesSortLeaderboard() {
+        Random random = new Random(7);
+        Instant time = Instant.now();
+
+        Game game = new Game();
+        for (int i = 0; i < 20; i++) {
+            game.addPlayer(createPlayer("player" + i));
+        }
+        List<Player> allPlayers = new ArrayList<>(game.getPlayers().values());
+
+        // Players submit in random order, to random problems, with distinct times.
+        for (int i = 0; i < 300; i++) {
+            Submission submission = new Submission();
+            submission.setProblemIndex(random.nextInt(3));
+            submission.setNumTestCases(TEST_CASES);
+            submission.setNumCorrect(random.nextInt(4) == 0 ? TEST_CASES : 0);
+            submission.setStartTime(time.plusSeconds(i));
+            game.recordSubmission(allPlayers.get(random.nextInt(allPlayers.size() - 2)), submission);
+
+            // A full (stable) sort leaves the incremental leaderboard unchanged.
+            List<PlayerDto> players = GameMapper.toDto(game).getPlayers();
+            List<PlayerDto> sorted = new ArrayList<>(players);
+            GameMapper.sortLeaderboard(sorted);
+            assertEquals(players, sorted);
+        }
+    }
+
+    private Player createPlayer(String userId) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setNickname(userId);
+
+        Player player = new Player();
+        player.setUser(user);
+        return player;
     }
 }
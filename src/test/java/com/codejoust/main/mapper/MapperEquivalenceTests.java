@@ -0,0 +1,284 @@
+package com.codejoust.main.mapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.codejoust.main.dto.account.AccountMapper;
+import com.codejoust.main.dto.account.AccountUidDto;
+import com.codejoust.main.dto.game.GameMapper;
+import com.codejoust.main.dto.game.SubmissionMapper;
+import com.codejoust.main.dto.game.TesterResult;
+import com.codejoust.main.dto.problem.ProblemInputDto;
+import com.codejoust.main.dto.problem.ProblemMapper;
+import com.codejoust.main.dto.problem.ProblemTestCaseDto;
+import com.codejoust.main.dto.room.RoomMapper;
+import com.codejoust.main.dto.user.UserDto;
+import com.codejoust.main.dto.user.UserMapper;
+import com.codejoust.main.game_object.Game;
+import com.codejoust.main.game_object.GameTimer;
+import com.codejoust.main.game_object.Player;
+import com.codejoust.main.game_object.PlayerCode;
+import com.codejoust.main.game_object.Submission;
+import com.codejoust.main.game_object.SubmissionResult;
+import com.codejoust.main.model.Account;
+import com.codejoust.main.model.Room;
+import com.codejoust.main.model.User;
+import com.codejoust.main.model.problem.Problem;
+import com.codejoust.main.model.problem.ProblemDifficulty;
+import com.codejoust.main.model.problem.ProblemIOType;
+import com.codejoust.main.model.problem.ProblemInput;
+import com.codejoust.main.model.problem.ProblemTag;
+import com.codejoust.main.model.problem.ProblemTestCase;
+import com.codejoust.main.util.TestFields;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the explicit mappers produce exactly what the ModelMapper
+ * mappings they replaced did, by comparing the serialized output.
+ */
+public class MapperEquivalenceTests {
+
+    private static final String TAG_NAME_2 = "Dynamic Programming";
+    private static final String CONSOLE = "print('debug')";
+    private static final String ERROR = "SyntaxError";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private void assertSameJson(Object expected, Object actual) throws JsonProcessingException {
+        assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(actual));
+    }
+
+    private Account createAccount() {
+        Account account = new Account();
+        account.setUid(TestFields.UID);
+        return account;
+    }
+
+    private ProblemTag createProblemTag(Account owner, String name) {
+        ProblemTag problemTag = new ProblemTag();
+        problemTag.setName(name);
+        problemTag.setOwner(owner);
+        return problemTag;
+    }
+
+    private Problem createProblem(Account owner) {
+        Problem problem = new Problem();
+        problem.setName(TestFields.PROBLEM_NAME);
+        problem.setDescription(TestFields.PROBLEM_DESCRIPTION);
+        problem.setDifficulty(ProblemDifficulty.MEDIUM);
+        problem.setOutputType(ProblemIOType.ARRAY_INTEGER);
+        problem.setOwner(owner);
+        problem.addProblemInput(new ProblemInput(TestFields.INPUT_NAME, ProblemIOType.ARRAY_INTEGER));
+        problem.addProblemTag(createProblemTag(owner, TestFields.TAG_NAME));
+        problem.addProblemTag(createProblemTag(owner, TAG_NAME_2));
+
+        ProblemTestCase testCase = new ProblemTestCase();
+        testCase.setInput(TestFields.INPUT);
+        testCase.setOutput(TestFields.OUTPUT);
+        testCase.setExplanation(TestFields.EXPLANATION);
+        problem.addTestCase(testCase);
+
+        ProblemTestCase hiddenTestCase = new ProblemTestCase();
+        hiddenTestCase.setInput(TestFields.INPUT_2);
+        hiddenTestCase.setOutput(TestFields.OUTPUT_2);
+        hiddenTestCase.setHidden(true);
+        problem.addTestCase(hiddenTestCase);
+
+        return problem;
+    }
+
+    private Room createRoom() {
+        User host = new User();
+        host.setUserId(TestFields.USER_ID);
+        host.setNickname(TestFields.NICKNAME);
+        host.setSessionId(TestFields.SESSION_ID);
+        host.setAccount(createAccount());
+
+        User spectator = new User();
+        spectator.setUserId(TestFields.USER_ID_2);
+        spectator.setNickname(TestFields.NICKNAME_2);
+        spectator.setSpectator(true);
+
+        User user = new User();
+        user.setUserId(TestFields.USER_ID_3);
+        user.setNickname(TestFields.NICKNAME_3);
+        user.setSessionId(TestFields.SESSION_ID_2);
+
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+        room.setHost(host);
+        room.setDifficulty(ProblemDifficulty.HARD);
+        room.setDuration(TestFields.DURATION);
+        room.setNumProblems(2);
+        room.setActive(true);
+        room.addUser(host);
+        room.addUser(spectator);
+        room.addUser(user);
+
+        Problem problem = createProblem(host.getAccount());
+        Problem emptyProblem = new Problem();
+        room.setProblems(Arrays.asList(problem, emptyProblem));
+
+        return room;
+    }
+
+    private Submission createSubmission(int problemIndex, int numCorrect, boolean withResults) {
+        Submission submission = new Submission();
+        submission.setPlayerCode(new PlayerCode(TestFields.PYTHON_CODE, TestFields.PYTHON_LANGUAGE));
+        submission.setProblemIndex(problemIndex);
+        submission.setNumCorrect(numCorrect);
+        submission.setNumTestCases(2);
+        submission.setRuntime(TestFields.RUNTIME);
+        submission.setStartTime(Instant.ofEpochSecond(1_600_000_000L + numCorrect));
+
+        if (withResults) {
+            List<SubmissionResult> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                SubmissionResult result = new SubmissionResult();
+                result.setConsole(CONSOLE);
+                result.setUserOutput(TestFields.OUTPUT);
+                result.setCorrectOutput(TestFields.OUTPUT);
+                result.setInput(TestFields.INPUT);
+                result.setError(i == 0 ? null : ERROR);
+                result.setHidden(i == 1);
+                result.setCorrect(i < numCorrect);
+                results.add(result);
+            }
+            submission.setResults(results);
+        } else {
+            submission.setCompilationError(ERROR);
+        }
+
+        return submission;
+    }
+
+    private Game createGame() {
+        Room room = createRoom();
+        Game game = GameMapper.fromRoom(room);
+        game.setProblems(new ArrayList<>(room.getProblems()));
+        game.setGameTimer(new GameTimer(TestFields.DURATION));
+        game.getGameTimer().cancel();
+
+        Player host = game.getPlayers().get(TestFields.USER_ID);
+        host.setPlayerCode(new PlayerCode(TestFields.PYTHON_CODE + CONSOLE, TestFields.PYTHON_LANGUAGE));
+        game.recordSubmission(host, createSubmission(0, 1, true));
+        game.recordSubmission(host, createSubmission(0, 2, true));
+        game.recordSubmission(host, createSubmission(1, 0, false));
+
+        // The other player has no code yet, and a submission without results.
+        Player player = game.getPlayers().get(TestFields.USER_ID_3);
+        game.recordSubmission(player, createSubmission(1, 2, false));
+
+        return game;
+    }
+
+    @Test
+    public void userMappersMatch() throws JsonProcessingException {
+        Room room = createRoom();
+        for (User user : room.getUsers()) {
+            assertSameJson(ModelMapperReference.toUserDto(user), UserMapper.toDto(user));
+        }
+
+        UserDto userDto = UserMapper.toDto(room.getHost());
+        assertSameJson(ModelMapperReference.toUserEntity(userDto), UserMapper.toEntity(userDto));
+
+        userDto.setAccount(null);
+        userDto.setSpectator(null);
+        assertSameJson(ModelMapperReference.toUserEntity(userDto), UserMapper.toEntity(userDto));
+
+        userDto.setAccount(new AccountUidDto());
+        assertSameJson(ModelMapperReference.toUserEntity(userDto), UserMapper.toEntity(userDto));
+
+        assertNull(UserMapper.toDto(null));
+        assertNull(UserMapper.toEntity(null));
+    }
+
+    @Test
+    public void roomMapperMatches() throws JsonProcessingException {
+        Room room = createRoom();
+        assertSameJson(ModelMapperReference.toRoomDto(room), RoomMapper.toDto(room));
+
+        // Default and missing values
+        Room emptyRoom = new Room();
+        emptyRoom.setActive(null);
+        emptyRoom.setDifficulty(null);
+        assertSameJson(ModelMapperReference.toRoomDto(emptyRoom), RoomMapper.toDto(emptyRoom));
+    }
+
+    @Test
+    public void accountMapperMatches() throws JsonProcessingException {
+        Account account = createAccount();
+        Problem problem = createProblem(account);
+        account.getProblems().add(problem);
+        account.getProblemTags().addAll(problem.getProblemTags());
+
+        assertSameJson(ModelMapperReference.toAccountDto(account), AccountMapper.toDto(account));
+        Account emptyAccount = new Account();
+        assertSameJson(ModelMapperReference.toAccountDto(emptyAccount), AccountMapper.toDto(emptyAccount));
+    }
+
+    @Test
+    public void problemMappersMatch() throws JsonProcessingException {
+        Problem problem = createProblem(createAccount());
+        assertSameJson(ModelMapperReference.toProblemDto(problem), ProblemMapper.toDto(problem));
+        Problem emptyProblem = new Problem();
+        assertSameJson(ModelMapperReference.toProblemDto(emptyProblem), ProblemMapper.toDto(emptyProblem));
+
+        for (ProblemTestCase testCase : problem.getTestCases()) {
+            assertSameJson(ModelMapperReference.toTestCaseDto(testCase), ProblemMapper.toTestCaseDto(testCase));
+        }
+
+        ProblemInput problemInput = problem.getProblemInputs().get(0);
+        assertSameJson(ModelMapperReference.toProblemInputDto(problemInput), ProblemMapper.toProblemInputDto(problemInput));
+
+        // ModelMapper also filled in a placeholder problem, which addProblemInput always replaced.
+        ProblemInputDto problemInputDto = ProblemMapper.toProblemInputDto(problemInput);
+        ProblemInput expectedInput = ModelMapperReference.toProblemInputEntity(problemInputDto);
+        expectedInput.setProblem(null);
+        assertSameJson(expectedInput, ProblemMapper.toProblemInputEntity(problemInputDto));
+
+        ProblemTag problemTag = problem.getProblemTags().get(0);
+        assertSameJson(ModelMapperReference.toProblemTagDto(problemTag), ProblemMapper.toProblemTagDto(problemTag));
+    }
+
+    @Test
+    public void submissionMappersMatch() throws JsonProcessingException {
+        TesterResult testerResult = new TesterResult();
+        testerResult.setConsole(CONSOLE);
+        testerResult.setUserOutput(TestFields.OUTPUT);
+        testerResult.setCorrectOutput(TestFields.OUTPUT);
+        testerResult.setError(ERROR);
+        testerResult.setCorrect(true);
+
+        ProblemTestCaseDto testCaseDto = new ProblemTestCaseDto();
+        testCaseDto.setInput(TestFields.INPUT);
+        testCaseDto.setHidden(true);
+
+        assertSameJson(ModelMapperReference.toSubmissionResult(testerResult, testCaseDto),
+            SubmissionMapper.toSubmissionResult(testerResult, testCaseDto));
+
+        Submission submission = createSubmission(1, 1, true);
+        assertSameJson(ModelMapperReference.toSubmissionDto(submission), GameMapper.submissionToDto(submission));
+
+        submission = createSubmission(0, 0, false);
+        submission.setPlayerCode(null);
+        assertSameJson(ModelMapperReference.toSubmissionDto(submission), GameMapper.submissionToDto(submission));
+    }
+
+    @Test
+    public void gameMapperMatches() throws JsonProcessingException {
+        Game game = createGame();
+        assertSameJson(ModelMapperReference.toGameDto(game), GameMapper.toDto(game));
+
+        game.setProblemDtos(GameMapper.toProblemDtos(game.getProblems()));
+        assertSameJson(ModelMapperReference.toGameDto(game), GameMapper.toDto(game));
+    }
+}
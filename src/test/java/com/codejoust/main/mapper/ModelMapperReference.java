@@ -0,0 +1,168 @@
+package com.codejoust.main.mapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.codejoust.main.dto.account.AccountDto;
+import com.codejoust.main.dto.game.GameDto;
+import com.codejoust.main.dto.game.GameTimerMapper;
+import com.codejoust.main.dto.game.PlayerDto;
+import com.codejoust.main.dto.game.SubmissionDto;
+import com.codejoust.main.dto.game.SubmissionResultDto;
+import com.codejoust.main.dto.game.TesterResult;
+import com.codejoust.main.dto.problem.ProblemDto;
+import com.codejoust.main.dto.problem.ProblemInputDto;
+import com.codejoust.main.dto.problem.ProblemTagDto;
+import com.codejoust.main.dto.problem.ProblemTestCaseDto;
+import com.codejoust.main.dto.room.RoomDto;
+import com.codejoust.main.dto.user.UserDto;
+import com.codejoust.main.game_object.Game;
+import com.codejoust.main.game_object.Submission;
+import com.codejoust.main.game_object.SubmissionResult;
+import com.codejoust.main.model.Account;
+import com.codejoust.main.model.Room;
+import com.codejoust.main.model.User;
+import com.codejoust.main.model.problem.Problem;
+import com.codejoust.main.model.problem.ProblemInput;
+import com.codejoust.main.model.problem.ProblemTag;
+import com.codejoust.main.model.problem.ProblemTestCase;
+
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+
+/**
+ * The ModelMapper-based mappings the explicit mappers replaced, kept so that
+ * their output can be checked against (and benchmarked against) the original
+ * behavior. Each mapper used its own ModelMapper instance and configuration.
+ */
+public class ModelMapperReference {
+
+    private static final ModelMapper gameMapper = new ModelMapper();
+    private static final ModelMapper standardMapper = new ModelMapper();
+    private static final ModelMapper strictMapper = new ModelMapper();
+
+    static {
+        gameMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.LOOSE);
+        strictMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.STRICT);
+    }
+
+    protected ModelMapperReference() {}
+
+    public static UserDto toUserDto(User entity) {
+        return standardMapper.map(entity, UserDto.class);
+    }
+
+    public static User toUserEntity(UserDto dto) {
+        return strictMapper.map(dto, User.class);
+    }
+
+    public static AccountDto toAccountDto(Account entity) {
+        return standardMapper.map(entity, AccountDto.class);
+    }
+
+    public static ProblemDto toProblemDto(Problem entity) {
+        return standardMapper.map(entity, ProblemDto.class);
+    }
+
+    public static ProblemTestCaseDto toTestCaseDto(ProblemTestCase entity) {
+        return standardMapper.map(entity, ProblemTestCaseDto.class);
+    }
+
+    public static ProblemInputDto toProblemInputDto(ProblemInput entity) {
+        return standardMapper.map(entity, ProblemInputDto.class);
+    }
+
+    public static ProblemInput toProblemInputEntity(ProblemInputDto dto) {
+        return standardMapper.map(dto, ProblemInput.class);
+    }
+
+    public static ProblemTagDto toProblemTagDto(ProblemTag entity) {
+        return standardMapper.map(entity, ProblemTagDto.class);
+    }
+
+    public static SubmissionResult toSubmissionResult(TesterResult testerResult, ProblemTestCaseDto testCaseDto) {
+        SubmissionResult submissionResult = standardMapper.map(testerResult, SubmissionResult.class);
+        submissionResult.setHidden(testCaseDto.isHidden());
+        submissionResult.setInput(testCaseDto.getInput());
+        return submissionResult;
+    }
+
+    public static RoomDto toRoomDto(Room entity) {
+        RoomDto roomDto = standardMapper.map(entity, RoomDto.class);
+
+        List<UserDto> activeUsers = new ArrayList<>();
+        List<UserDto> inactiveUsers = new ArrayList<>();
+        List<UserDto> spectators = new ArrayList<>();
+        for (UserDto userDto : roomDto.getUsers()) {
+            if (userDto.getSessionId() != null) {
+                activeUsers.add(userDto);
+            } else {
+                inactiveUsers.add(userDto);
+            }
+
+            if (userDto.getSpectator()) {
+                spectators.add(userDto);
+            }
+        }
+        roomDto.setActiveUsers(activeUsers);
+        roomDto.setInactiveUsers(inactiveUsers);
+        roomDto.setSpectators(spectators);
+
+        return roomDto;
+    }
+
+    public static GameDto toGameDto(Game game) {
+        GameDto gameDto = new GameDto();
+        gameDto.setRoom(toRoomDto(game.getRoom()));
+        gameDto.setGameTimer(GameTimerMapper.toDto(game.getGameTimer()));
+        gameDto.setPlayAgain(game.getPlayAgain());
+        gameDto.setGameEnded(game.getGameEnded());
+
+        List<PlayerDto> players = gameDto.getPlayers();
+        game.getLeaderboard().getPlayers().forEach(player -> players.add(gameMapper.map(player, PlayerDto.class)));
+
+        List<ProblemDto> problems = new ArrayList<>();
+        for (Problem problem : game.getProblems()) {
+            ProblemDto problemDto = toProblemDto(problem);
+            for (ProblemTestCaseDto testcase : problemDto.getTestCases()) {
+                if (testcase.isHidden()) {
+                    testcase.setInput("");
+                }
+
+                testcase.setOutput("");
+            }
+
+            problems.add(problemDto);
+        }
+
+        gameDto.setProblems(problems);
+        gameDto.setAllSolved(game.getAllSolved());
+        gameDto.setProblemSolveCounts(game.getProblemSolveCounts().clone());
+
+        return gameDto;
+    }
+
+    public static SubmissionDto toSubmissionDto(Submission submission) {
+        List<SubmissionResultDto> testCases = new ArrayList<>();
+
+        if (submission.getResults() != null) {
+            for (SubmissionResult result : submission.getResults()) {
+                SubmissionResultDto testCase = gameMapper.map(result, SubmissionResultDto.class);
+                testCase.setCorrectOutput("");
+
+                if (testCase.isHidden()) {
+                    testCase.setInput("");
+                    testCase.setConsole("");
+                    testCase.setUserOutput("");
+                }
+
+                testCases.add(testCase);
+            }
+        }
+
+        SubmissionDto submissionDto = gameMapper.map(submission, SubmissionDto.class);
+        submissionDto.setResults(testCases);
+
+        return submissionDto;
+    }
+}
@@ -0,0 +1,243 @@
+package com.codejoust.main.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.codejoust.main.dao.RoomRepository;
+import com.codejoust.main.dto.game.StartGameRequest;
+import com.codejoust.main.dto.game.SubmissionRequest;
+import com.codejoust.main.dto.user.UserMapper;
+import com.codejoust.main.game_object.Game;
+import com.codejoust.main.game_object.Player;
+import com.codejoust.main.game_object.PlayerCode;
+import com.codejoust.main.model.Room;
+import com.codejoust.main.model.User;
+import com.codejoust.main.model.problem.Problem;
+import com.codejoust.main.model.problem.ProblemTestCase;
+import com.codejoust.main.util.GameDeltaEncoder;
+import com.codejoust.main.util.GameEventLoop;
+import com.codejoust.main.util.GameRegistry;
+import com.codejoust.main.util.PresenceRegistry;
+import com.codejoust.main.util.TestFields;
+import com.codejoust.main.util.SubmissionCache;
+import com.codejoust.main.util.SubmissionDispatcher;
+import com.codejoust.main.util.SubmissionRateLimiter;
+import com.codejoust.main.util.TesterClient;
+import com.codejoust.main.util.TesterProblemCache;
+import com.codejoust.main.util.TesterShardPool;
+import com.codejoust.main.util.TimingWheel;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Multi-threaded stress tests that hammer the game management service on
+ * hundreds of rooms at once.
+ */
+public class GameConcurrencyTests {
+
+    private static final int NUM_ROOMS = 200;
+    private static final int NUM_THREADS = 32;
+    private static final int PLAYERS_PER_ROOM = 3;
+    private static final int SUBMISSIONS_PER_PLAYER = 5;
+    private static final long DURATION = 60L;
+
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+
+    private GameRegistry gameRegistry;
+    private GameEventLoop gameEventLoop;
+    private TimingWheel timingWheel;
+    private GameManagementService gameService;
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setup() {
+        RoomRepository repository = Mockito.mock(RoomRepository.class);
+        Mockito.when(repository.findRoomByRoomId(Mockito.anyString()))
+            .thenAnswer(invocation -> rooms.get(invocation.<String>getArgument(0)));
+
+        gameRegistry = new GameRegistry();
+        gameEventLoop = new GameEventLoop(4);
+        timingWheel = new TimingWheel(TimingWheel.DEFAULT_TICK_MILLIS, TimingWheel.DEFAULT_WHEEL_SIZE, 1);
+        gameService = new GameManagementService(repository, Mockito.mock(SocketService.class),
+            new LiveGameService(), Mockito.mock(NotificationService.class),
+            new SubmitService(Mockito.mock(TesterClient.class), Mockito.mock(SubmissionCache.class),
+                Mockito.mock(TesterShardPool.class), new TesterProblemCache(1000, 67108864),
+                Mockito.mock(GameLogService.class)),
+            Mockito.mock(ProblemService.class), Mockito.mock(GameLifecycleService.class),
+            gameRegistry, gameEventLoop, timingWheel, new SubmissionDispatcher(4,
+                SubmissionDispatcher.DEFAULT_QUEUE_CAPACITY, SubmissionDispatcher.DEFAULT_MAX_PER_PLAYER, new SimpleMeterRegistry()),
+            Mockito.mock(SubmissionRateLimiter.class), Mockito.mock(GameLogService.class),
+            Mockito.mock(PresenceRegistry.class), Mockito.mock(GameDeltaEncoder.class));
+        executor = Executors.newFixedThreadPool(NUM_THREADS);
+
+        for (int i = 0; i < NUM_ROOMS; i++) {
+            Room room = createRoom(String.format("%06d", i));
+            rooms.put(room.getRoomId(), room);
+        }
+    }
+
+    @AfterEach
+    public void teardown() {
+        executor.shutdownNow();
+        gameRegistry.forEach((roomId, game) -> gameService.handleEndGame(game));
+        gameEventLoop.shutdown();
+        timingWheel.stop();
+    }
+
+    private Room createRoom(String roomId) {
+        Room room = new Room();
+        room.setRoomId(roomId);
+        room.setDuration(DURATION);
+
+        for (int i = 0; i < PLAYERS_PER_ROOM; i++) {
+            User user = new User();
+            user.setNickname(TestFields.NICKNAME + i);
+            user.setUserId(roomId + "-" + i);
+            user.setSessionId(TestFields.SESSION_ID + i);
+            room.addUser(user);
+        }
+        room.setHost(room.getUsers().get(0));
+
+        Problem problem = new Problem();
+        problem.setName(TestFields.PROBLEM_NAME);
+        ProblemTestCase testCase = new ProblemTestCase();
+        testCase.setInput(TestFields.INPUT);
+        testCase.setOutput(TestFields.OUTPUT);
+        problem.addTestCase(testCase);
+        room.getProblems().add(problem);
+
+        return room;
+    }
+
+    private void startGame(Room room) {
+        StartGameRequest request = new StartGameRequest();
+        request.setInitiator(UserMapper.toDto(room.getHost()));
+        gameService.startGame(room.getRoomId(), request);
+    }
+
+    private void submit(Room room, User user) {
+        SubmissionRequest request = new SubmissionRequest();
+        request.setInitiator(UserMapper.toDto(user));
+        request.setCode(TestFields.PYTHON_CODE);
+        request.setLanguage(TestFields.PYTHON_LANGUAGE);
+        gameService.submitSolution(room.getRoomId(), request);
+    }
+
+    // Run all tasks concurrently, released at the same time, and surface any failure.
+    private void runConcurrently(List<Runnable> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Runnable task : tasks) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run();
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void concurrentStartGameKeepsOneGamePerRoom() throws Exception {
+        // Every room is started by several threads at once.
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            for (Room room : rooms.values()) {
+                tasks.add(() -> startGame(room));
+            }
+        }
+        runConcurrently(tasks);
+
+        assertEquals(NUM_ROOMS, gameRegistry.size());
+        for (Room room : rooms.values()) {
+            Game game = gameService.getGameFromRoomId(room.getRoomId());
+            assertNotNull(game);
+            assertEquals(room.getRoomId(), game.getRoom().getRoomId());
+        }
+    }
+
+    @Test
+    public void concurrentGameActionsAcrossRooms() throws Exception {
+        List<Runnable> tasks = new ArrayList<>();
+        for (Room room : rooms.values()) {
+            tasks.add(() -> {
+                startGame(room);
+
+                for (int i = 0; i < SUBMISSIONS_PER_PLAYER; i++) {
+                    for (User user : room.getUsers()) {
+                        gameService.updateCode(room.getRoomId(), user.getUserId(),
+                            new PlayerCode(TestFields.PYTHON_CODE + i, TestFields.PYTHON_LANGUAGE));
+                        submit(room, user);
+                        gameService.conditionallyUpdateSocketInfo(room, user);
+                    }
+                }
+            });
+        }
+        runConcurrently(tasks);
+
+        assertEquals(NUM_ROOMS, gameRegistry.size());
+        for (Room room : rooms.values()) {
+            Game game = gameService.getGameFromRoomId(room.getRoomId());
+            assertEquals(PLAYERS_PER_ROOM, game.getPlayers().size());
+            assertTrue(game.getAllSolved());
+
+            for (Player player : game.getPlayers().values()) {
+                assertEquals(SUBMISSIONS_PER_PLAYER, player.getSubmissions().size());
+                assertEquals(TestFields.PYTHON_CODE + (SUBMISSIONS_PER_PLAYER - 1), player.getPlayerCode().getCode());
+            }
+        }
+    }
+
+    @Test
+    public void concurrentGameActionsWithinOneRoom() throws Exception {
+        for (Room room : rooms.values()) {
+            startGame(room);
+        }
+
+        // Every player of every room submits from several threads at once.
+        int threadsPerPlayer = 4;
+        List<Runnable> tasks = new ArrayList<>();
+        for (Room room : rooms.values()) {
+            for (User user : room.getUsers()) {
+                for (int t = 0; t < threadsPerPlayer; t++) {
+                    tasks.add(() -> {
+                        for (int i = 0; i < SUBMISSIONS_PER_PLAYER; i++) {
+                            submit(room, user);
+                            gameService.getGameDtoFromRoomId(room.getRoomId());
+                        }
+                    });
+                }
+            }
+        }
+        runConcurrently(tasks);
+
+        for (Room room : rooms.values()) {
+            Game game = gameService.getGameFromRoomId(room.getRoomId());
+            assertTrue(game.getAllSolved());
+
+            for (Player player : game.getPlayers().values()) {
+                assertEquals(threadsPerPlayer * SUBMISSIONS_PER_PLAYER, player.getSubmissions().size());
+            }
+        }
+    }
+}
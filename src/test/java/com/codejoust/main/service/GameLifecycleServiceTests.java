@@ -0,0 +1,240 @@
+package com.codejoust.main.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import java.util.Collections;
+
+import com.codejoust.main.dao.RoomRepository;
+import com.codejoust.main.dto.game.GameMapper;
+import com.codejoust.main.dto.room.RoomDto;
+import com.codejoust.main.game_object.Game;
+import com.codejoust.main.game_object.GameTimer;
+import com.codejoust.main.game_object.Player;
+import com.codejoust.main.model.Room;
+import com.codejoust.main.model.User;
+import com.codejoust.main.model.report.GameEndType;
+import com.codejoust.main.model.report.GameReport;
+import com.codejoust.main.service.ReportService.UnsavedGameReport;
+import com.codejoust.main.util.GameDeltaEncoder;
+import com.codejoust.main.util.GameRegistry;
+import com.codejoust.main.util.TestFields;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class GameLifecycleServiceTests {
+
+    private static final long TTL = 60;
+
+    @Mock
+    private ReportService reportService;
+
+    @Mock
+    private GameLogService gameLogService;
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private SocketService socketService;
+
+    private GameRegistry gameRegistry;
+    private GameDeltaEncoder gameDeltaEncoder;
+    private MeterRegistry meterRegistry;
+    private GameLifecycleService lifecycleService;
+    private Game game;
+    private UnsavedGameReport report;
+
+    @BeforeEach
+    public void setup() {
+        gameRegistry = new GameRegistry();
+        meterRegistry = new SimpleMeterRegistry();
+        gameDeltaEncoder = new GameDeltaEncoder(new ObjectMapper(), GameDeltaEncoder.DEFAULT_MAX_OPERATIONS,
+            GameDeltaEncoder.DEFAULT_IDLE_MILLIS, meterRegistry);
+        lifecycleService = new GameLifecycleService(gameRegistry, reportService, gameLogService, roomRepository,
+            socketService, gameDeltaEncoder, meterRegistry, TTL);
+        report = new UnsavedGameReport(new GameReport(), Collections.emptyMap());
+
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+
+        User user = new User();
+        user.setUserId(TestFields.USER_ID);
+        user.setSessionId(TestFields.SESSION_ID);
+
+        Player player = new Player();
+        player.setUser(user);
+
+        game = new Game();
+        game.setRoom(room);
+        game.setGameTimer(new GameTimer(TestFields.DURATION));
+        game.addPlayer(player);
+        gameRegistry.put(TestFields.ROOM_ID, game);
+    }
+
+    @AfterEach
+    public void teardown() {
+        game.getGameTimer().cancel();
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    @Test
+    public void sweepEvictsFinishedGameAfterTtl() {
+        Instant now = Instant.now();
+        assertEquals(1.0, gauge(GameLifecycleService.LIVE_GAMES_GAUGE));
+
+        game.getGameTimer().setTimeUp(true);
+        Mockito.doReturn(report).when(reportService).buildGameReport(eq(game), eq(GameEndType.TIME_UP));
+        lifecycleService.sweep(now);
+        assertEquals(now, game.getFinishedTime());
+
+        // The game is kept for the duration of the grace period.
+        lifecycleService.sweep(now.plusSeconds(TTL - 1));
+        assertSame(game, gameRegistry.get(TestFields.ROOM_ID));
+        verify(reportService, never()).saveGameReport(Mockito.any());
+
+        lifecycleService.sweep(now.plusSeconds(TTL));
+        assertNull(gameRegistry.get(TestFields.ROOM_ID));
+        verify(reportService).saveGameReport(report);
+        assertTrue(game.isArchived());
+
+        assertEquals(0.0, gauge(GameLifecycleService.LIVE_GAMES_GAUGE));
+        assertEquals(1.0, gauge(GameLifecycleService.ARCHIVED_GAMES_GAUGE));
+    }
+
+    @Test
+    public void sweepKeepsGameInProgress() {
+        Instant now = Instant.now();
+        lifecycleService.sweep(now);
+        lifecycleService.sweep(now.plusSeconds(TTL * 10));
+
+        assertSame(game, gameRegistry.get(TestFields.ROOM_ID));
+        assertNull(game.getFinishedTime());
+        verify(reportService, never()).buildGameReport(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void abandonedGameIsResetOnReconnect() {
+        Instant now = Instant.now();
+        User user = game.getPlayers().get(TestFields.USER_ID).getUser();
+
+        user.setSessionId(null);
+        lifecycleService.sweep(now);
+        assertNotNull(game.getFinishedTime());
+
+        // A player reconnecting before the TTL keeps the game alive.
+        user.setSessionId(TestFields.SESSION_ID);
+        lifecycleService.sweep(now.plusSeconds(TTL));
+        assertNull(game.getFinishedTime());
+        assertSame(game, gameRegistry.get(TestFields.ROOM_ID));
+
+        user.setSessionId(null);
+        lifecycleService.sweep(now.plusSeconds(TTL * 2));
+        lifecycleService.sweep(now.plusSeconds(TTL * 3));
+        assertNull(gameRegistry.get(TestFields.ROOM_ID));
+        verify(reportService).buildGameReport(eq(game), eq(GameEndType.ABANDONED));
+    }
+
+    @Test
+    public void archiveOnlyOnce() {
+        game.setGameEnded(true);
+        Mockito.doReturn(report).when(reportService).buildGameReport(eq(game), eq(GameEndType.MANUAL_END));
+
+        lifecycleService.archive(game);
+        lifecycleService.archive(game);
+
+        verify(reportService, times(1)).buildGameReport(eq(game), eq(GameEndType.MANUAL_END));
+        verify(reportService, times(1)).saveGameReport(report);
+        assertEquals(1, lifecycleService.getArchivedCount());
+        verify(gameLogService, times(1)).gameArchived(game);
+    }
+
+    @Test
+    public void failedArchiveStillEvictsGame() {
+        game.setAllSolved(true);
+        Mockito.doReturn(report).when(reportService).buildGameReport(Mockito.any(), Mockito.any());
+        Mockito.doThrow(new IllegalStateException()).when(reportService).saveGameReport(Mockito.any());
+
+        Instant now = Instant.now();
+        lifecycleService.sweep(now);
+        lifecycleService.sweep(now.plusSeconds(TTL));
+
+        assertNull(gameRegistry.get(TestFields.ROOM_ID));
+        assertEquals(0, lifecycleService.getArchivedCount());
+    }
+
+    @Test
+    public void evictionSendsRoomBackToLobby() {
+        Room room = game.getRoom();
+        room.setActive(true);
+        game.setGameEnded(true);
+        Mockito.doReturn(room).when(roomRepository).findRoomByRoomId(TestFields.ROOM_ID);
+
+        Instant now = Instant.now();
+        lifecycleService.sweep(now);
+        verify(roomRepository, never()).save(Mockito.any());
+
+        lifecycleService.sweep(now.plusSeconds(TTL));
+        assertNull(gameRegistry.get(TestFields.ROOM_ID));
+        assertFalse(room.getActive());
+        verify(roomRepository).save(room);
+        verify(socketService).sendSocketUpdate(Mockito.any(RoomDto.class));
+    }
+
+    @Test
+    public void evictionForgetsStateSentToRoom() {
+        game.setGameEnded(true);
+        gameDeltaEncoder.encode(TestFields.ROOM_ID, GameMapper.toDto(game));
+        assertNotNull(gameDeltaEncoder.getLastSent(TestFields.ROOM_ID));
+
+        // The state is kept for as long as the game is.
+        Instant now = Instant.now();
+        lifecycleService.sweep(now);
+        assertNotNull(gameDeltaEncoder.getLastSent(TestFields.ROOM_ID));
+
+        lifecycleService.sweep(now.plusSeconds(TTL));
+        assertNull(gameRegistry.get(TestFields.ROOM_ID));
+        assertNull(gameDeltaEncoder.getLastSent(TestFields.ROOM_ID));
+        assertEquals(0, gameDeltaEncoder.getRoomCount());
+    }
+
+    @Test
+    public void getGameEndType() {
+        assertNull(lifecycleService.getGameEndType(game));
+
+        game.setPlayAgain(true);
+        assertEquals(GameEndType.ABANDONED, lifecycleService.getGameEndType(game));
+
+        game.getGameTimer().setTimeUp(true);
+        assertEquals(GameEndType.TIME_UP, lifecycleService.getGameEndType(game));
+
+        game.setAllSolved(true);
+        assertEquals(GameEndType.ALL_SOLVED, lifecycleService.getGameEndType(game));
+
+        game.setGameEnded(true);
+        assertEquals(GameEndType.MANUAL_END, lifecycleService.getGameEndType(game));
+    }
+}
@@ -0,0 +1,206 @@
+package com.codejoust.main.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.codejoust.main.dto.game.GameEventDto;
+import com.codejoust.main.dto.game.GameEventType;
+import com.codejoust.main.dto.game.GameSnapshotDto;
+import com.codejoust.main.dto.game.PlayerSnapshotDto;
+import com.codejoust.main.exception.GameError;
+import com.codejoust.main.exception.api.ApiException;
+import com.codejoust.main.game_object.CodeEdit;
+import com.codejoust.main.game_object.Game;
+import com.codejoust.main.game_object.GameTimer;
+import com.codejoust.main.game_object.Player;
+import com.codejoust.main.game_object.PlayerCode;
+import com.codejoust.main.game_object.Submission;
+import com.codejoust.main.model.Room;
+import com.codejoust.main.model.User;
+import com.codejoust.main.model.problem.Problem;
+import com.codejoust.main.model.report.GameEndType;
+import com.codejoust.main.util.GameEventLog;
+import com.codejoust.main.util.GameRegistry;
+import com.codejoust.main.util.TestFields;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GameLogServiceTests {
+
+    private static final String OTHER_ROOM_ID = "678910";
+
+    @TempDir
+    Path directory;
+
+    private GameEventLog gameEventLog;
+    private GameRegistry gameRegistry;
+    private GameLogService gameLogService;
+
+    @BeforeEach
+    public void setup() {
+        gameEventLog = new GameEventLog(true, directory.toString(), 1 << 16, 4);
+        gameRegistry = new GameRegistry();
+        gameLogService = new GameLogService(gameEventLog, gameRegistry, GameLogService.DEFAULT_REPLAY_CACHE_MILLIS);
+    }
+
+    @AfterEach
+    public void teardown() {
+        gameRegistry.forEach((roomId, game) -> game.getGameTimer().cancel());
+        gameEventLog.close();
+    }
+
+    private Game createGame(String roomId) {
+        Room room = new Room();
+        room.setRoomId(roomId);
+
+        User user = new User();
+        user.setUserId(TestFields.USER_ID);
+        user.setNickname(TestFields.NICKNAME);
+
+        Player player = new Player();
+        player.setUser(user);
+        player.setSolved(new boolean[1]);
+
+        Problem problem = new Problem();
+        problem.setProblemId(TestFields.PROBLEM_ID);
+
+        Game game = new Game();
+        game.setRoom(room);
+        game.setGameTimer(new GameTimer(TestFields.DURATION));
+        game.getProblems().add(problem);
+        game.addPlayer(player);
+        gameRegistry.put(roomId, game);
+        return game;
+    }
+
+    private PlayerSnapshotDto getPlayer(GameSnapshotDto snapshot) {
+        return snapshot.getPlayers().get(0);
+    }
+
+    @Test
+    public void recoverFoldsEventsIntoLiveGames() {
+        Game game = createGame(TestFields.ROOM_ID);
+        gameLogService.gameStarted(game);
+        gameLogService.codeUpdated(game, TestFields.USER_ID, new PlayerCode("print()", TestFields.PYTHON_LANGUAGE));
+        gameLogService.codePatched(game, TestFields.USER_ID, null,
+            Arrays.asList(new CodeEdit(6, 6, "'hello'"), new CodeEdit(0, 0, "#\n")));
+
+        Submission submission = new Submission();
+        submission.setPlayerCode(TestFields.PLAYER_CODE);
+        submission.setNumCorrect(0);
+        submission.setNumTestCases(1);
+        gameLogService.submitted(game, TestFields.USER_ID, submission);
+        gameLogService.gameEnded(game, GameEndType.MANUAL_END);
+
+        // Archived games are not recovered.
+        Game archived = createGame(OTHER_ROOM_ID);
+        gameLogService.gameStarted(archived);
+        gameLogService.gameArchived(archived);
+
+        List<GameSnapshotDto> snapshots = gameLogService.recover();
+        assertEquals(1, snapshots.size());
+
+        GameSnapshotDto snapshot = snapshots.get(0);
+        assertEquals(game.getGameId(), snapshot.getGameId());
+        assertEquals(TestFields.ROOM_ID, snapshot.getRoomId());
+        assertEquals(Collections.singletonList(TestFields.PROBLEM_ID), snapshot.getProblemIds());
+        assertEquals(game.getGameTimer().getStartTime(), snapshot.getStartTime());
+        assertEquals(game.getGameTimer().getEndTime(), snapshot.getEndTime());
+        assertTrue(snapshot.isGameEnded());
+        assertFalse(snapshot.isTimeUp());
+
+        PlayerSnapshotDto player = getPlayer(snapshot);
+        assertEquals(TestFields.USER_ID, player.getUserId());
+        assertEquals("#\nprint('hello')", player.getCode());
+        assertEquals(TestFields.PYTHON_LANGUAGE, player.getLanguage());
+        assertEquals(Collections.singletonList(submission), player.getSubmissions());
+    }
+
+    @Test
+    public void recoverStartsFromLatestSnapshot() {
+        Game game = createGame(TestFields.ROOM_ID);
+        gameLogService.gameStarted(game);
+        gameLogService.codeUpdated(game, TestFields.USER_ID, TestFields.PLAYER_CODE);
+
+        // The snapshot holds the code, so only the events after it are applied.
+        game.getPlayers().get(TestFields.USER_ID).setPlayerCode(TestFields.PLAYER_CODE);
+        gameLogService.snapshot();
+        gameLogService.codePatched(game, TestFields.USER_ID, null, Collections.singletonList(new CodeEdit(0, 0, "#")));
+
+        PlayerSnapshotDto player = getPlayer(gameLogService.recover().get(0));
+        assertEquals("#" + TestFields.PYTHON_CODE, player.getCode());
+    }
+
+    @Test
+    public void recoverKeepsLatestGamePerRoom() {
+        Game first = createGame(TestFields.ROOM_ID);
+        gameLogService.gameStarted(first);
+        Game second = createGame(TestFields.ROOM_ID);
+        gameLogService.gameStarted(second);
+
+        List<GameSnapshotDto> snapshots = gameLogService.recover();
+        assertEquals(1, snapshots.size());
+        assertEquals(second.getGameId(), snapshots.get(0).getGameId());
+    }
+
+    @Test
+    public void gameEndedRecordedOnce() {
+        Game game = createGame(TestFields.ROOM_ID);
+        gameLogService.gameStarted(game);
+        gameLogService.gameEnded(game, GameEndType.TIME_UP);
+        gameLogService.gameEnded(game, GameEndType.ABANDONED);
+
+        List<GameEventDto> timeline = gameLogService.replay(TestFields.ROOM_ID);
+        assertEquals(2, timeline.size());
+        assertEquals(GameEndType.TIME_UP, timeline.get(1).getEndType());
+    }
+
+    @Test
+    public void replayReturnsLatestGameTimeline() {
+        Game first = createGame(TestFields.ROOM_ID);
+        gameLogService.gameStarted(first);
+        gameLogService.gameArchived(first);
+
+        Game second = createGame(TestFields.ROOM_ID);
+        gameLogService.gameStarted(second);
+        gameLogService.snapshot();
+        gameLogService.codeUpdated(second, TestFields.USER_ID, TestFields.PLAYER_CODE);
+        gameLogService.gameEnded(second, GameEndType.MANUAL_END);
+
+        List<GameEventDto> timeline = gameLogService.replay(TestFields.ROOM_ID);
+        assertEquals(3, timeline.size());
+        assertEquals(GameEventType.GAME_STARTED, timeline.get(0).getType());
+        assertEquals(GameEventType.CODE_UPDATED, timeline.get(1).getType());
+        assertEquals(GameEventType.GAME_ENDED, timeline.get(2).getType());
+        for (GameEventDto event : timeline) {
+            assertEquals(second.getGameId(), event.getGameId());
+        }
+
+        ApiException exception = assertThrows(ApiException.class, () -> gameLogService.replay(OTHER_ROOM_ID));
+        assertEquals(GameError.NOT_FOUND, exception.getError());
+    }
+
+    @Test
+    public void replayIsCachedBriefly() {
+        Game game = createGame(TestFields.ROOM_ID);
+        gameLogService.gameStarted(game);
+        assertEquals(1, gameLogService.replay(TestFields.ROOM_ID).size());
+
+        // Events since the timeline was read show once it's stale.
+        gameLogService.codeUpdated(game, TestFields.USER_ID, TestFields.PLAYER_CODE);
+        assertEquals(1, gameLogService.replay(TestFields.ROOM_ID).size());
+
+        gameLogService = new GameLogService(gameEventLog, gameRegistry, 0);
+        assertEquals(2, gameLogService.replay(TestFields.ROOM_ID).size());
+    }
+}
@@ -4,6 +4,8 @@ import com.codejoust.main.dto.game.EndGameRequest;
 import com.codejoust.main.util.TestFields;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -15,26 +17,38 @@ import org.mockito.stubbing.Answer;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.after;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.function.ObjIntConsumer;
 
 import com.codejoust.main.dao.RoomRepository;
+import com.codejoust.main.dto.game.CodeEditDto;
+import com.codejoust.main.dto.game.CodePatchRequest;
+import com.codejoust.main.dto.game.CodeSyncDto;
 import com.codejoust.main.dto.game.GameDto;
 import com.codejoust.main.dto.game.GameMapper;
 import com.codejoust.main.dto.game.GameNotificationDto;
+import com.codejoust.main.dto.game.GameSnapshotDto;
 import com.codejoust.main.dto.game.PlayAgainRequest;
+import com.codejoust.main.dto.game.PlayerSnapshotDto;
 import com.codejoust.main.dto.game.StartGameRequest;
 import com.codejoust.main.dto.game.SubmissionDto;
 import com.codejoust.main.dto.game.SubmissionRequest;
+import com.codejoust.main.dto.game.SubmissionStatus;
+import com.codejoust.main.dto.game.SubmissionTicketDto;
+import com.codejoust.main.dto.game.SubmissionType;
 import com.codejoust.main.dto.room.RoomDto;
 import com.codejoust.main.dto.room.RoomMapper;
 import com.codejoust.main.dto.user.UserDto;
@@ -43,15 +57,26 @@ import com.codejoust.main.exception.GameError;
 import com.codejoust.main.exception.ProblemError;
 import com.codejoust.main.exception.RoomError;
 import com.codejoust.main.exception.api.ApiException;
+import com.codejoust.main.game_object.CodeEdit;
 import com.codejoust.main.game_object.Game;
 import com.codejoust.main.game_object.GameTimer;
 import com.codejoust.main.game_object.NotificationType;
 import com.codejoust.main.game_object.Player;
 import com.codejoust.main.game_object.Submission;
+import com.codejoust.main.game_object.SubmissionResult;
 import com.codejoust.main.model.Room;
 import com.codejoust.main.model.User;
 import com.codejoust.main.model.problem.Problem;
 import com.codejoust.main.model.problem.ProblemDifficulty;
+import com.codejoust.main.util.GameDeltaEncoder;
+import com.codejoust.main.util.GameEventLoop;
+import com.codejoust.main.util.GameRegistry;
+import com.codejoust.main.util.PresenceRegistry;
+import com.codejoust.main.util.SubmissionDispatcher;
+import com.codejoust.main.util.SubmissionRateLimiter;
+import com.codejoust.main.util.TimingWheel;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 public class GameManagementServiceTests {
@@ -74,6 +99,33 @@ public class GameManagementServiceTests {
     @Mock
     private LiveGameService liveGameService;
 
+    @Mock
+    private GameLifecycleService gameLifecycleService;
+
+    @Mock
+    private SubmissionRateLimiter submissionRateLimiter;
+
+    @Mock
+    private GameLogService gameLogService;
+
+    @Mock
+    private PresenceRegistry presenceRegistry;
+
+    @Mock
+    private GameDeltaEncoder gameDeltaEncoder;
+
+    @Spy
+    private GameRegistry gameRegistry = new GameRegistry();
+
+    @Spy
+    private GameEventLoop gameEventLoop = new GameEventLoop(2);
+
+    @Spy
+    private TimingWheel timingWheel = new TimingWheel(10, 64, 2);
+
+    @Spy
+    private SubmissionDispatcher submissionDispatcher = new SubmissionDispatcher(2, 16, 2, new SimpleMeterRegistry());
+
     @Spy
     @InjectMocks
     private GameManagementService gameService;
@@ -116,6 +168,9 @@ public class GameManagementServiceTests {
         Game game = gameService.getGameFromRoomId(TestFields.ROOM_ID);
         assertEquals(room, game.getRoom());
         assertEquals(user, game.getPlayers().get(TestFields.USER_ID).getUser());
+        assertEquals(1, game.getProblemDtos().size());
+        Mockito.doAnswer(invocation -> invocation.getArgument(0)).when(socketService).syncGameState(Mockito.any());
+        assertSame(game.getProblemDtos(), gameService.getGameDtoFromRoomId(TestFields.ROOM_ID).getProblems());
 
         gameService.removeGame(TestFields.ROOM_ID);
 
@@ -124,6 +179,32 @@ public class GameManagementServiceTests {
         assertEquals(GameError.NOT_FOUND, exception.getError());
     }
 
+    @Test
+    public void createGameArchivesReplacedGame() {
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+        room.setDifficulty(ProblemDifficulty.RANDOM);
+
+        User user = new User();
+        user.setNickname(TestFields.NICKNAME);
+        user.setUserId(TestFields.USER_ID);
+        room.addUser(user);
+
+        Mockito.doReturn(Collections.singletonList(new Problem())).when(problemService).getProblemsFromDifficulty(eq(room.getDifficulty()), eq(1));
+
+        gameService.createAddGameFromRoom(room);
+        Game previous = gameService.getGameFromRoomId(TestFields.ROOM_ID);
+        verify(gameLifecycleService, never()).archive(Mockito.any());
+
+        // Starting a new game in the same room ends and archives the old one.
+        gameService.createAddGameFromRoom(room);
+        assertNotSame(previous, gameService.getGameFromRoomId(TestFields.ROOM_ID));
+        verify(gameService).handleEndGame(eq(previous));
+        verify(gameLifecycleService).archive(eq(previous));
+
+        gameService.handleEndGame(gameService.getGameFromRoomId(TestFields.ROOM_ID));
+    }
+
     @Test
     public void startGameSuccess() {
         User host = new User();
@@ -268,8 +349,15 @@ public class GameManagementServiceTests {
         // Confirm that the problem service method is called correctly.
         verify(problemService).getProblemsFromDifficulty(eq(room.getDifficulty()), eq(1));
 
+        // The state returned is the one sent to the room, with its sequence.
+        Mockito.doAnswer(invocation -> {
+            GameDto sentDto = invocation.getArgument(0);
+            sentDto.setSequence(1L);
+            return sentDto;
+        }).when(socketService).syncGameState(Mockito.any());
         GameDto gameDto = gameService.getGameDtoFromRoomId(TestFields.ROOM_ID);
 
+        assertEquals(1L, gameDto.getSequence());
         assertEquals(RoomMapper.toDto(room), gameDto.getRoom());
 
         assertEquals(1, gameDto.getPlayers().size());
@@ -376,6 +464,228 @@ public class GameManagementServiceTests {
         assertTrue(game.getAllSolved());
     }
 
+    @Test
+    public void submitSolutionTimesOutWhileQueued() {
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+        User user = new User();
+        user.setNickname(TestFields.NICKNAME);
+        user.setUserId(TestFields.USER_ID);
+        room.addUser(user);
+
+        Mockito.doReturn(Collections.singletonList(new Problem())).when(problemService).getProblemsFromDifficulty(Mockito.any(), Mockito.any());
+        gameService.createAddGameFromRoom(room);
+
+        SubmissionRequest request = new SubmissionRequest();
+        request.setLanguage(TestFields.PYTHON_LANGUAGE);
+        request.setCode(TestFields.PYTHON_CODE);
+        request.setInitiator(UserMapper.toDto(user));
+
+        // The dispatcher is backed up, so the request is never started.
+        Mockito.doReturn(0).when(submissionDispatcher).dispatch(Mockito.any(), Mockito.any(), Mockito.any(),
+            Mockito.anyInt(), Mockito.any(), Mockito.any());
+        gameService.setAwaitTimeoutMillisForTesting(50);
+
+        ApiException exception = assertThrows(ApiException.class, () -> gameService.submitSolution(TestFields.ROOM_ID, request));
+        assertEquals(GameError.SUBMISSION_QUEUE_FULL, exception.getError());
+        verify(submitService, never()).submitSolution(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void submitSolutionWaitsForStartedSubmission() {
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+        User user = new User();
+        user.setNickname(TestFields.NICKNAME);
+        user.setUserId(TestFields.USER_ID);
+        room.addUser(user);
+
+        Mockito.doReturn(Collections.singletonList(new Problem())).when(problemService).getProblemsFromDifficulty(Mockito.any(), Mockito.any());
+        gameService.createAddGameFromRoom(room);
+        Game game = gameService.getGameFromRoomId(TestFields.ROOM_ID);
+
+        SubmissionRequest request = new SubmissionRequest();
+        request.setLanguage(TestFields.PYTHON_LANGUAGE);
+        request.setCode(TestFields.PYTHON_CODE);
+        request.setInitiator(UserMapper.toDto(user));
+
+        // The submission is still being tested at the timeout, and is then recorded.
+        SubmissionDto submissionDto = new SubmissionDto();
+        Mockito.doAnswer(invocation -> {
+            Thread.sleep(200);
+            addSubmissionHelper(game.getPlayers().get(TestFields.USER_ID), 10);
+            return submissionDto;
+        }).when(submitService).submitSolution(game, request);
+        gameService.setAwaitTimeoutMillisForTesting(50);
+
+        assertSame(submissionDto, gameService.submitSolution(TestFields.ROOM_ID, request));
+        verify(socketService).sendSocketUpdate(GameMapper.toDto(game));
+    }
+
+    @Test
+    public void submitSolutionAsyncSuccess() {
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+        User user = new User();
+        user.setNickname(TestFields.NICKNAME);
+        user.setUserId(TestFields.USER_ID);
+        room.addUser(user);
+
+        Mockito.doReturn(Collections.singletonList(new Problem())).when(problemService).getProblemsFromDifficulty(Mockito.any(), Mockito.any());
+        gameService.createAddGameFromRoom(room);
+        Game game = gameService.getGameFromRoomId(TestFields.ROOM_ID);
+
+        SubmissionRequest request = new SubmissionRequest();
+        request.setLanguage(TestFields.PYTHON_LANGUAGE);
+        request.setCode(TestFields.PYTHON_CODE);
+        request.setInitiator(UserMapper.toDto(user));
+
+        SubmissionDto submissionDto = new SubmissionDto();
+        Mockito.doReturn(submissionDto).when(submitService).submitSolution(Mockito.eq(game), Mockito.eq(request), Mockito.any());
+
+        SubmissionTicketDto ticketDto = gameService.submitSolutionAsync(TestFields.ROOM_ID, request);
+        assertNotNull(ticketDto.getSubmissionId());
+        assertEquals(SubmissionStatus.QUEUED, ticketDto.getStatus());
+        assertEquals(SubmissionType.SUBMIT, ticketDto.getType());
+        assertEquals(1, ticketDto.getQueuePosition());
+
+        // The result goes to the initiator, followed by the game update.
+        ArgumentCaptor<SubmissionTicketDto> captor = ArgumentCaptor.forClass(SubmissionTicketDto.class);
+        InOrder inOrder = Mockito.inOrder(socketService);
+        inOrder.verify(socketService, timeout(1000)).sendSocketUpdate(eq(TestFields.ROOM_ID), eq(TestFields.USER_ID), captor.capture());
+        inOrder.verify(socketService, timeout(1000)).sendSocketUpdate(Mockito.any(GameDto.class));
+
+        SubmissionTicketDto resultDto = captor.getValue();
+        assertEquals(ticketDto.getSubmissionId(), resultDto.getSubmissionId());
+        assertEquals(SubmissionStatus.COMPLETED, resultDto.getStatus());
+        assertSame(submissionDto, resultDto.getSubmission());
+        assertNull(resultDto.getError());
+    }
+
+    @Test
+    public void submitSolutionAsyncStreamsResults() {
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+        User user = new User();
+        user.setNickname(TestFields.NICKNAME);
+        user.setUserId(TestFields.USER_ID);
+        room.addUser(user);
+
+        Mockito.doReturn(Collections.singletonList(new Problem())).when(problemService).getProblemsFromDifficulty(Mockito.any(), Mockito.any());
+        gameService.createAddGameFromRoom(room);
+        Game game = gameService.getGameFromRoomId(TestFields.ROOM_ID);
+
+        SubmissionRequest request = new SubmissionRequest();
+        request.setLanguage(TestFields.PYTHON_LANGUAGE);
+        request.setCode(TestFields.PYTHON_CODE);
+        request.setInitiator(UserMapper.toDto(user));
+
+        SubmissionResult result = new SubmissionResult();
+        result.setInput(TestFields.INPUT);
+        result.setUserOutput(TestFields.OUTPUT);
+        result.setCorrectOutput(TestFields.OUTPUT);
+        result.setHidden(true);
+        result.setCorrect(true);
+
+        SubmissionDto submissionDto = new SubmissionDto();
+        Mockito.doAnswer(invocation -> {
+            ObjIntConsumer<SubmissionResult> onResult = invocation.getArgument(2);
+            onResult.accept(result, 0);
+            return submissionDto;
+        }).when(submitService).submitSolution(Mockito.eq(game), Mockito.eq(request), Mockito.any());
+
+        SubmissionTicketDto ticketDto = gameService.submitSolutionAsync(TestFields.ROOM_ID, request);
+
+        // Each result is sent as it arrives, followed by the completed ticket.
+        ArgumentCaptor<SubmissionTicketDto> captor = ArgumentCaptor.forClass(SubmissionTicketDto.class);
+        verify(socketService, timeout(1000).times(2)).sendSocketUpdate(eq(TestFields.ROOM_ID), eq(TestFields.USER_ID), captor.capture());
+
+        SubmissionTicketDto progressDto = captor.getAllValues().get(0);
+        assertEquals(ticketDto.getSubmissionId(), progressDto.getSubmissionId());
+        assertEquals(SubmissionStatus.RUNNING, progressDto.getStatus());
+        assertEquals(0, progressDto.getResultIndex());
+        assertTrue(progressDto.getResult().isCorrect());
+
+        // Hidden test cases are not revealed.
+        assertEquals("", progressDto.getResult().getInput());
+        assertEquals("", progressDto.getResult().getUserOutput());
+        assertEquals("", progressDto.getResult().getCorrectOutput());
+
+        assertEquals(SubmissionStatus.COMPLETED, captor.getAllValues().get(1).getStatus());
+        assertSame(submissionDto, captor.getAllValues().get(1).getSubmission());
+    }
+
+    @Test
+    public void runCodeThrottled() {
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+        User user = new User();
+        user.setNickname(TestFields.NICKNAME);
+        user.setUserId(TestFields.USER_ID);
+        room.addUser(user);
+
+        Mockito.doReturn(Collections.singletonList(new Problem())).when(problemService).getProblemsFromDifficulty(Mockito.any(), Mockito.any());
+        gameService.createAddGameFromRoom(room);
+
+        SubmissionRequest request = new SubmissionRequest();
+        request.setLanguage(TestFields.PYTHON_LANGUAGE);
+        request.setCode(TestFields.PYTHON_CODE);
+        request.setInput(TestFields.INPUT);
+        request.setInitiator(UserMapper.toDto(user));
+
+        Mockito.doThrow(new ApiException(GameError.TOO_MANY_SUBMISSIONS)).when(submissionRateLimiter)
+            .acquire(TestFields.ROOM_ID, TestFields.USER_ID, SubmissionType.TEST);
+
+        ApiException exception = assertThrows(ApiException.class, () -> gameService.runCode(TestFields.ROOM_ID, request));
+        assertEquals(GameError.TOO_MANY_SUBMISSIONS, exception.getError());
+        exception = assertThrows(ApiException.class, () -> gameService.runCodeAsync(TestFields.ROOM_ID, request));
+        assertEquals(GameError.TOO_MANY_SUBMISSIONS, exception.getError());
+
+        // Throttled requests never reach the tester.
+        verify(submitService, never()).runCode(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void runCodeAsyncTesterError() {
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+        User user = new User();
+        user.setNickname(TestFields.NICKNAME);
+        user.setUserId(TestFields.USER_ID);
+        room.addUser(user);
+
+        Mockito.doReturn(Collections.singletonList(new Problem())).when(problemService).getProblemsFromDifficulty(Mockito.any(), Mockito.any());
+        gameService.createAddGameFromRoom(room);
+        Game game = gameService.getGameFromRoomId(TestFields.ROOM_ID);
+
+        SubmissionRequest request = new SubmissionRequest();
+        request.setLanguage(TestFields.PYTHON_LANGUAGE);
+        request.setCode(TestFields.PYTHON_CODE);
+        request.setInitiator(UserMapper.toDto(user));
+
+        // Requests are validated before they are queued.
+        ApiException exception = assertThrows(ApiException.class, () -> gameService.runCodeAsync(TestFields.ROOM_ID, request));
+        assertEquals(GameError.EMPTY_FIELD, exception.getError());
+
+        request.setInput(TestFields.INPUT);
+        Mockito.doThrow(new ApiException(GameError.TESTER_ERROR)).when(submitService).runCode(Mockito.eq(game), Mockito.eq(request), Mockito.any());
+
+        SubmissionTicketDto ticketDto = gameService.runCodeAsync(TestFields.ROOM_ID, request);
+        assertEquals(SubmissionType.TEST, ticketDto.getType());
+
+        ArgumentCaptor<SubmissionTicketDto> captor = ArgumentCaptor.forClass(SubmissionTicketDto.class);
+        verify(socketService, timeout(1000)).sendSocketUpdate(eq(TestFields.ROOM_ID), eq(TestFields.USER_ID), captor.capture());
+
+        SubmissionTicketDto resultDto = captor.getValue();
+        assertEquals(ticketDto.getSubmissionId(), resultDto.getSubmissionId());
+        assertEquals(SubmissionStatus.FAILED, resultDto.getStatus());
+        assertNull(resultDto.getSubmission());
+        assertEquals(GameError.TESTER_ERROR.getResponse(), resultDto.getError());
+
+        // Code runs never update the game.
+        verify(socketService, after(100).never()).sendSocketUpdate(Mockito.any(GameDto.class));
+    }
+
     @Test
     public void sendAllSolvedSocketUpdate() {
         Room room = new Room();
@@ -553,6 +863,8 @@ public class GameManagementServiceTests {
         assertEquals(room.getDifficulty(), response.getDifficulty());
         assertFalse(room.getActive());
         assertNull(room.getHost().getSessionId());
+        verify(presenceRegistry).removeRoom(TestFields.ROOM_ID);
+        verify(gameDeltaEncoder).forget(TestFields.ROOM_ID);
     }
 
     @Test
@@ -913,6 +1225,7 @@ public class GameManagementServiceTests {
 
         // Confirm that the live game service method is called correctly.
         verify(liveGameService).updateCode(eq(player), eq(TestFields.PLAYER_CODE));
+        verify(gameLogService).codeUpdated(eq(game), eq(TestFields.USER_ID), eq(TestFields.PLAYER_CODE));
     }
 
     @Test
@@ -963,6 +1276,92 @@ public class GameManagementServiceTests {
         assertEquals(GameError.EMPTY_FIELD, exception.getError());
     }
 
+    @Test
+    public void patchCodeSuccess() {
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+        room.setDifficulty(ProblemDifficulty.RANDOM);
+        User user = new User();
+        user.setNickname(TestFields.NICKNAME);
+        user.setUserId(TestFields.USER_ID);
+        room.addUser(user);
+
+        Mockito.doReturn(Collections.singletonList(new Problem())).when(problemService).getProblemsFromDifficulty(Mockito.any(), Mockito.any());
+        gameService.createAddGameFromRoom(room);
+        Game game = gameService.getGameFromRoomId(TestFields.ROOM_ID);
+        Player player = game.getPlayers().get(TestFields.USER_ID);
+
+        CodeEditDto editDto = new CodeEditDto();
+        editDto.setStart(0);
+        editDto.setEnd(0);
+        editDto.setText(TestFields.PYTHON_CODE);
+
+        CodePatchRequest request = new CodePatchRequest();
+        request.setInitiator(UserMapper.toDto(user));
+        request.setBaseVersion(0);
+        request.setLanguage(TestFields.PYTHON_LANGUAGE);
+        request.setEdits(Collections.singletonList(editDto));
+
+        Mockito.doReturn(1).when(liveGameService).patchCode(Mockito.any(), Mockito.anyInt(), Mockito.any(), Mockito.any());
+        CodeSyncDto response = gameService.patchCode(TestFields.ROOM_ID, request);
+
+        verify(liveGameService).patchCode(eq(player), eq(0), eq(TestFields.PYTHON_LANGUAGE),
+            eq(Collections.singletonList(new CodeEdit(0, 0, TestFields.PYTHON_CODE))));
+        assertEquals(1, response.getVersion());
+        assertNull(response.getCode());
+    }
+
+    @Test
+    public void patchCodeInvalidRequest() {
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+        room.setDifficulty(ProblemDifficulty.RANDOM);
+        User user = new User();
+        user.setNickname(TestFields.NICKNAME);
+        user.setUserId(TestFields.USER_ID);
+        room.addUser(user);
+
+        Mockito.doReturn(Collections.singletonList(new Problem())).when(problemService).getProblemsFromDifficulty(Mockito.any(), Mockito.any());
+        gameService.createAddGameFromRoom(room);
+
+        CodePatchRequest request = new CodePatchRequest();
+        request.setInitiator(UserMapper.toDto(user));
+        request.setEdits(Collections.emptyList());
+
+        ApiException exception = assertThrows(ApiException.class, () -> gameService.patchCode(TestFields.ROOM_ID, request));
+        assertEquals(GameError.EMPTY_FIELD, exception.getError());
+
+        request.setBaseVersion(0);
+        request.getInitiator().setUserId("999999");
+        exception = assertThrows(ApiException.class, () -> gameService.patchCode(TestFields.ROOM_ID, request));
+        assertEquals(GameError.USER_NOT_IN_GAME, exception.getError());
+    }
+
+    @Test
+    public void getCodeSuccess() {
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+        room.setDifficulty(ProblemDifficulty.RANDOM);
+        User user = new User();
+        user.setNickname(TestFields.NICKNAME);
+        user.setUserId(TestFields.USER_ID);
+        room.addUser(user);
+
+        Mockito.doReturn(Collections.singletonList(new Problem())).when(problemService).getProblemsFromDifficulty(Mockito.any(), Mockito.any());
+        gameService.createAddGameFromRoom(room);
+        Game game = gameService.getGameFromRoomId(TestFields.ROOM_ID);
+        Player player = game.getPlayers().get(TestFields.USER_ID);
+        player.setPlayerCode(TestFields.PLAYER_CODE);
+
+        CodeSyncDto response = gameService.getCode(TestFields.ROOM_ID, TestFields.USER_ID);
+        assertEquals(player.getCodeDocument().getVersion(), response.getVersion());
+        assertEquals(TestFields.PYTHON_CODE, response.getCode());
+        assertEquals(TestFields.PYTHON_LANGUAGE, response.getLanguage());
+
+        ApiException exception = assertThrows(ApiException.class, () -> gameService.getCode(TestFields.ROOM_ID, "999999"));
+        assertEquals(GameError.USER_NOT_IN_GAME, exception.getError());
+    }
+
     @Test
     public void isGameOverFunctionsCorrectly() {
         Game game = new Game();
@@ -1000,7 +1399,7 @@ public class GameManagementServiceTests {
         Game game = gameService.getGameFromRoomId(room.getRoomId());
 
         // Manually schedule notification tasks due to service being mocked
-        new NotificationService(socketService).scheduleTimeLeftNotifications(game, 12L);
+        new NotificationService(socketService, timingWheel).scheduleTimeLeftNotifications(game, 12L);
 
         gameService.handleEndGame(game);
 
@@ -1009,6 +1408,77 @@ public class GameManagementServiceTests {
         verify(socketService, never()).sendSocketUpdate(Mockito.any(GameDto.class));
     }
 
+    private GameSnapshotDto recoverGameHelper(Instant startTime, long duration) {
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+        User user = new User();
+        user.setNickname(TestFields.NICKNAME);
+        user.setUserId(TestFields.USER_ID);
+        room.addUser(user);
+        Mockito.doReturn(room).when(repository).findRoomByRoomId(eq(TestFields.ROOM_ID));
+
+        Problem problem = new Problem();
+        problem.setProblemId(TestFields.PROBLEM_ID);
+        Mockito.doReturn(problem).when(problemService).getProblemEntity(eq(TestFields.PROBLEM_ID));
+
+        Submission submission = new Submission();
+        submission.setNumCorrect(0);
+        submission.setNumTestCases(1);
+
+        PlayerSnapshotDto playerSnapshot = new PlayerSnapshotDto();
+        playerSnapshot.setUserId(TestFields.USER_ID);
+        playerSnapshot.setCode(TestFields.PLAYER_CODE.getCode());
+        playerSnapshot.setLanguage(TestFields.PLAYER_CODE.getLanguage());
+        playerSnapshot.getSubmissions().add(submission);
+
+        GameSnapshotDto snapshot = new GameSnapshotDto();
+        snapshot.setGameId(TestFields.GAME_ID);
+        snapshot.setRoomId(TestFields.ROOM_ID);
+        snapshot.getProblemIds().add(TestFields.PROBLEM_ID);
+        snapshot.setStartTime(startTime);
+        snapshot.setDuration(duration);
+        snapshot.setEndTime(startTime.plusSeconds(duration));
+        snapshot.getPlayers().add(playerSnapshot);
+        return snapshot;
+    }
+
+    @Test
+    public void recoverGameRestoresStateAndTimer() {
+        Instant startTime = Instant.now().minusSeconds(30);
+        GameSnapshotDto snapshot = recoverGameHelper(startTime, 600L);
+
+        Game game = gameService.recoverGame(snapshot);
+        assertSame(game, gameService.getGameFromRoomId(TestFields.ROOM_ID));
+        assertEquals(TestFields.GAME_ID, game.getGameId());
+        assertEquals(TestFields.PROBLEM_ID, game.getProblems().get(0).getProblemId());
+
+        Player player = game.getPlayers().get(TestFields.USER_ID);
+        assertEquals(TestFields.PLAYER_CODE, player.getPlayerCode());
+        assertEquals(1, player.getSubmissions().size());
+
+        // The timer keeps its original times, and only the time left is scheduled.
+        assertEquals(startTime, game.getGameTimer().getStartTime());
+        assertEquals(snapshot.getEndTime(), game.getGameTimer().getEndTime());
+        assertFalse(game.getGameTimer().isTimeUp());
+        assertEquals(1, game.getGameTimer().getScheduledCount());
+        verify(notificationService).scheduleTimeLeftNotifications(eq(game), Mockito.longThat(time -> time > 500 && time < 600));
+
+        // A room's game is only recovered once.
+        assertNull(gameService.recoverGame(snapshot));
+
+        gameService.handleEndGame(game);
+    }
+
+    @Test
+    public void recoverGamePastEndTime() {
+        GameSnapshotDto snapshot = recoverGameHelper(Instant.now().minusSeconds(90), 60L);
+
+        Game game = gameService.recoverGame(snapshot);
+        assertTrue(game.getGameTimer().isTimeUp());
+        assertEquals(0, game.getGameTimer().getScheduledCount());
+        verify(notificationService, never()).scheduleTimeLeftNotifications(Mockito.any(), Mockito.anyLong());
+    }
+
     @Test
     public void conditionallyUpdateSocketInfoSuccess() {
         Room room = new Room();
@@ -8,10 +8,21 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Collections;
 
 import com.codejoust.main.dto.game.GameMapper;
+import com.codejoust.main.exception.GameError;
+import com.codejoust.main.exception.api.ApiException;
+import com.codejoust.main.game_object.CodeDocument;
+import com.codejoust.main.game_object.CodeEdit;
 import com.codejoust.main.game_object.Game;
 import com.codejoust.main.game_object.Player;
+import com.codejoust.main.game_object.PlayerCode;
+import com.codejoust.main.model.report.CodeLanguage;
 import com.codejoust.main.model.Room;
 import com.codejoust.main.model.User;
 
@@ -37,4 +48,102 @@ public class LiveGameServiceTests {
 
         assertEquals(TestFields.PLAYER_CODE, player.getPlayerCode());
     }
+
+    private Player createPlayer(String code) {
+        Player player = new Player();
+        player.setPlayerCode(new PlayerCode(code, TestFields.PYTHON_LANGUAGE));
+        return player;
+    }
+
+    @Test
+    public void patchCodeSuccess() {
+        Player player = createPlayer("print(1)");
+        int version = player.getCodeDocument().getVersion();
+
+        // Edits apply in order, each to the code left by the one before.
+        int newVersion = liveGameService.patchCode(player, version, CodeLanguage.JAVA,
+            Arrays.asList(new CodeEdit(6, 7, "2"), new CodeEdit(0, 0, "# hi\n")));
+
+        assertEquals(version + 1, newVersion);
+        assertEquals("# hi\nprint(2)", player.getPlayerCode().getCode());
+        assertEquals(CodeLanguage.JAVA, player.getPlayerCode().getLanguage());
+    }
+
+    @Test
+    public void patchCodeWithoutCode() {
+        Player player = new Player();
+        assertNull(player.getPlayerCode());
+
+        liveGameService.patchCode(player, 0, null, Collections.singletonList(new CodeEdit(0, 0, "x")));
+        assertEquals("x", player.getPlayerCode().getCode());
+        assertNull(player.getPlayerCode().getLanguage());
+    }
+
+    @Test
+    public void patchCodeRebasesOldVersion() {
+        Player player = createPlayer("abc");
+        int base = player.getCodeDocument().getVersion();
+
+        liveGameService.patchCode(player, base, null, Collections.singletonList(new CodeEdit(0, 0, "12")));
+        liveGameService.patchCode(player, base + 1, null, Collections.singletonList(new CodeEdit(5, 5, "!")));
+
+        // Made against the base version: replace "c", then insert at the start (after the earlier insert).
+        liveGameService.patchCode(player, base, null, Arrays.asList(new CodeEdit(2, 3, "C"), new CodeEdit(0, 0, ">")));
+        assertEquals("12>abC!", player.getPlayerCode().getCode());
+        assertEquals(base + 3, player.getCodeDocument().getVersion());
+    }
+
+    @Test
+    public void patchCodeRejectsConflicts() {
+        Player player = createPlayer("abcdef");
+        int base = player.getCodeDocument().getVersion();
+        liveGameService.patchCode(player, base, null, Collections.singletonList(new CodeEdit(1, 4, "")));
+
+        // Overlaps the applied edit
+        ApiException exception = assertThrows(ApiException.class, () ->
+            liveGameService.patchCode(player, base, null, Collections.singletonList(new CodeEdit(2, 5, "x"))));
+        assertEquals(GameError.CODE_OUT_OF_SYNC, exception.getError());
+
+        // A version that doesn't exist yet
+        exception = assertThrows(ApiException.class, () ->
+            liveGameService.patchCode(player, base + 2, null, Collections.singletonList(new CodeEdit(0, 0, "x"))));
+        assertEquals(GameError.CODE_OUT_OF_SYNC, exception.getError());
+
+        // Nothing was changed by the rejected patches.
+        assertEquals("aef", player.getPlayerCode().getCode());
+        assertEquals(base + 1, player.getCodeDocument().getVersion());
+    }
+
+    @Test
+    public void patchCodeRejectsTooOldOrReplacedVersions() {
+        Player player = createPlayer("");
+        int base = player.getCodeDocument().getVersion();
+        for (int i = 0; i <= CodeDocument.MAX_HISTORY; i++) {
+            liveGameService.patchCode(player, base + i, null, Collections.singletonList(new CodeEdit(i, i, "a")));
+        }
+
+        ApiException exception = assertThrows(ApiException.class, () ->
+            liveGameService.patchCode(player, base, null, Collections.singletonList(new CodeEdit(0, 0, "b"))));
+        assertEquals(GameError.CODE_OUT_OF_SYNC, exception.getError());
+
+        // Edits can't be rebased over a full update of the code.
+        int version = player.getCodeDocument().getVersion();
+        liveGameService.updateCode(player, TestFields.PLAYER_CODE);
+        exception = assertThrows(ApiException.class, () ->
+            liveGameService.patchCode(player, version, null, Collections.singletonList(new CodeEdit(0, 0, "b"))));
+        assertEquals(GameError.CODE_OUT_OF_SYNC, exception.getError());
+    }
+
+    @Test
+    public void patchCodeRejectsEditsOutOfRange() {
+        Player player = createPlayer("abc");
+        int version = player.getCodeDocument().getVersion();
+
+        // The second edit only fits the code as it was before the first.
+        ApiException exception = assertThrows(ApiException.class, () -> liveGameService.patchCode(player, version, null,
+            Arrays.asList(new CodeEdit(0, 2, ""), new CodeEdit(2, 3, "x"))));
+        assertEquals(GameError.BAD_CODE_PATCH, exception.getError());
+        assertEquals("abc", player.getPlayerCode().getCode());
+        assertEquals(version, player.getCodeDocument().getVersion());
+    }
 }
@@ -3,6 +3,7 @@ package com.codejoust.main.service;
 import static org.junit.Assert.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
 import java.time.Instant;
@@ -11,15 +12,19 @@ import com.codejoust.main.dto.game.GameNotificationDto;
 import com.codejoust.main.dto.user.UserMapper;
 import com.codejoust.main.exception.NotificationError;
 import com.codejoust.main.exception.api.ApiException;
+import com.codejoust.main.game_object.Game;
+import com.codejoust.main.game_object.GameTimer;
 import com.codejoust.main.game_object.NotificationType;
 import com.codejoust.main.model.Room;
 import com.codejoust.main.model.User;
 
 import com.codejoust.main.util.TestFields;
+import com.codejoust.main.util.TimingWheel;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -32,6 +37,9 @@ public class NotificationServiceTests {
     @Mock
     private GameManagementService gameService;
 
+    @Spy
+    private TimingWheel timingWheel = new TimingWheel(10, 64, 1);
+
     @Spy
     @InjectMocks
     private NotificationService notificationService;
@@ -66,6 +74,23 @@ public class NotificationServiceTests {
         assertEquals(notificationDto, result);
     }
 
+    @Test
+    public void scheduleTimeLeftNotificationsSuccess() {
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+
+        Game game = new Game();
+        game.setRoom(room);
+        game.setGameTimer(new GameTimer(12L));
+
+        notificationService.scheduleTimeLeftNotifications(game, 12L);
+
+        // Only the ten second milestone falls within a twelve second game.
+        assertEquals(1, game.getGameTimer().getScheduledCount());
+        verify(socketService, timeout(3000)).sendSocketUpdate(eq(TestFields.ROOM_ID), Mockito.any(GameNotificationDto.class));
+        game.getGameTimer().cancel();
+    }
+
     @Test
     public void sendNotificationBadNotificationType() throws Exception {
         ApiException exception = assertThrows(ApiException.class, () -> NotificationType.fromString("nonexistent"));
@@ -3,11 +3,14 @@ package com.codejoust.main.service;
 import com.codejoust.main.dao.AccountRepository;
 import com.codejoust.main.exception.AccountError;
 import com.codejoust.main.exception.api.ApiError;
+import com.codejoust.main.util.SubmissionCache;
 import com.codejoust.main.util.TestFields;
+import com.codejoust.main.util.TesterProblemCache;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -60,6 +63,12 @@ public class ProblemServiceTests {
     @Mock
     private FirebaseService firebaseService;
 
+    @Mock
+    private SubmissionCache submissionCache;
+
+    @Mock
+    private TesterProblemCache testerProblemCache;
+
     @Spy
     @InjectMocks
     private ProblemService problemService;
@@ -306,6 +315,7 @@ public class ProblemServiceTests {
 
         // The created test case should be added to this problem
         assertEquals(1, expected.getTestCases().size());
+        verify(testerProblemCache).invalidate(expected.getProblemId());
     }
 
     @Test
@@ -462,10 +472,17 @@ public class ProblemServiceTests {
         ProblemDto updatedProblem = ProblemMapper.toDto(problem);
         updatedProblem.setTestCases(Collections.singletonList(testCaseDto));
         updatedProblem.setProblemTags(Collections.singletonList(problemTagDto));
+        String previousFingerprint = SubmissionCache.fingerprint(ProblemMapper.toDto(problem));
 
         problemService.editProblem(problem.getProblemId(), updatedProblem, TestFields.TOKEN);
 
         verify(repository).save(problem);
+
+        // Cached results for the previous test cases are dropped
+        ArgumentCaptor<ProblemDto> previousProblem = ArgumentCaptor.forClass(ProblemDto.class);
+        verify(submissionCache).invalidate(previousProblem.capture());
+        assertEquals(previousFingerprint, SubmissionCache.fingerprint(previousProblem.getValue()));
+        verify(testerProblemCache).invalidate(problem.getProblemId());
         assertEquals(1, problem.getTestCases().size());
         assertEquals(1, problem.getProblemTags().size());
         assertEquals(1, problem.getProblemInputs().size());
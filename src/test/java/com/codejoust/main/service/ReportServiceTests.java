@@ -0,0 +1,116 @@
+package com.codejoust.main.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Collections;
+
+import com.codejoust.main.dao.GameReportRepository;
+import com.codejoust.main.dao.UserRepository;
+import com.codejoust.main.game_object.Game;
+import com.codejoust.main.game_object.GameTimer;
+import com.codejoust.main.game_object.Player;
+import com.codejoust.main.game_object.PlayerCode;
+import com.codejoust.main.game_object.Submission;
+import com.codejoust.main.model.User;
+import com.codejoust.main.model.problem.Problem;
+import com.codejoust.main.model.problem.ProblemContainer;
+import com.codejoust.main.model.problem.ProblemTestCase;
+import com.codejoust.main.model.report.GameEndType;
+import com.codejoust.main.model.report.GameReport;
+import com.codejoust.main.model.report.SubmissionGroupReport;
+import com.codejoust.main.model.report.SubmissionReport;
+import com.codejoust.main.util.TestFields;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class ReportServiceTests {
+
+    @Mock
+    private GameReportRepository gameReportRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private ReportService reportService;
+
+    private Player createPlayer(String userId, boolean solved) {
+        User user = new User();
+        user.setUserId(userId);
+
+        Player player = new Player();
+        player.setUser(user);
+        player.setSolved(new boolean[]{solved});
+        return player;
+    }
+
+    private Submission createSubmission(int numCorrect) {
+        Submission submission = new Submission();
+        submission.setPlayerCode(new PlayerCode(TestFields.PYTHON_CODE, TestFields.PYTHON_LANGUAGE));
+        submission.setNumCorrect(numCorrect);
+        submission.setNumTestCases(2);
+        submission.setRuntime(TestFields.RUNTIME);
+        return submission;
+    }
+
+    @Test
+    public void createGameReportSuccess() {
+        Problem problem = new Problem();
+        problem.addTestCase(new ProblemTestCase());
+        problem.addTestCase(new ProblemTestCase());
+
+        Game game = new Game();
+        GameTimer gameTimer = new GameTimer(TestFields.DURATION);
+        gameTimer.cancel();
+        game.setGameTimer(gameTimer);
+        game.setProblems(Collections.singletonList(problem));
+
+        // The first player solves on their second attempt; the second never submits.
+        Player player = createPlayer(TestFields.USER_ID, true);
+        player.getSubmissions().add(createSubmission(1));
+        player.getSubmissions().add(createSubmission(2));
+        game.addPlayer(player);
+        game.addPlayer(createPlayer(TestFields.USER_ID_2, false));
+
+        User user = new User();
+        user.setUserId(TestFields.USER_ID);
+        Mockito.doReturn(user).when(userRepository).findUserByUserId(TestFields.USER_ID);
+        Mockito.doReturn(null).when(userRepository).findUserByUserId(TestFields.USER_ID_2);
+        Mockito.doAnswer(invocation -> invocation.getArgument(0)).when(gameReportRepository).save(Mockito.any());
+
+        GameReport gameReport = reportService.createGameReport(game, GameEndType.ALL_SOLVED);
+
+        assertEquals(GameEndType.ALL_SOLVED, gameReport.getGameEndType());
+        assertEquals(gameTimer.getStartTime(), gameReport.getCreatedDateTime());
+        assertEquals(TestFields.DURATION, gameReport.getDuration());
+
+        assertEquals(1, gameReport.getProblemContainers().size());
+        ProblemContainer problemContainer = gameReport.getProblemContainers().get(0);
+        assertSame(problem, problemContainer.getProblem());
+        assertEquals(1, problemContainer.getUserSolvedCount());
+        assertEquals(2, problemContainer.getTestCaseCount());
+        assertEquals(1.0, problemContainer.getAverageTestCasesPassed());
+        assertEquals(1.0, problemContainer.getAverageAttemptCount());
+
+        // Users that no longer exist are skipped.
+        assertEquals(Collections.singletonList(user), gameReport.getUsers());
+        assertEquals(1, user.getSubmissionGroupReports().size());
+        SubmissionGroupReport submissionGroupReport = user.getSubmissionGroupReports().get(0);
+        assertEquals(gameReport.getGameReportId(), submissionGroupReport.getGameReportId());
+        assertEquals(2, submissionGroupReport.getSubmissionReports().size());
+
+        SubmissionReport submissionReport = submissionGroupReport.getSubmissionReports().get(1);
+        assertEquals(TestFields.PYTHON_CODE, submissionReport.getCode());
+        assertEquals(TestFields.PYTHON_LANGUAGE, submissionReport.getLanguage());
+        assertEquals(2, submissionReport.getNumCorrect());
+        assertEquals(2, submissionReport.getNumTestCases());
+        assertEquals(TestFields.RUNTIME, submissionReport.getRuntime());
+    }
+}
@@ -45,7 +45,9 @@ import com.codejoust.main.exception.api.ApiException;
 import com.codejoust.main.model.Room;
 import com.codejoust.main.model.User;
 import com.codejoust.main.model.problem.ProblemDifficulty;
+import com.codejoust.main.socket.UserJoinedEvent;
 import com.codejoust.main.util.Utility;
+import org.springframework.context.ApplicationEventPublisher;
 
 @ExtendWith(MockitoExtension.class)
 public class RoomServiceTests {
@@ -62,6 +64,9 @@ public class RoomServiceTests {
     @Mock
     private Utility utility;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @Spy
     @InjectMocks
     private RoomService roomService;
@@ -83,6 +88,7 @@ public class RoomServiceTests {
         RoomDto response = roomService.createRoom(request, null);
 
         verify(repository).save(Mockito.any(Room.class));
+        verify(eventPublisher).publishEvent(Mockito.any(UserJoinedEvent.class));
         assertEquals(TestFields.ROOM_ID, response.getRoomId());
         assertEquals(user.getNickname(), response.getHost().getNickname());
         assertEquals(TestFields.USER_ID, response.getHost().getUserId());
@@ -115,6 +121,7 @@ public class RoomServiceTests {
         RoomDto response = roomService.joinRoom(TestFields.ROOM_ID, request, null);
 
         verify(socketService).sendSocketUpdate(eq(response));
+        verify(eventPublisher).publishEvent(Mockito.any(UserJoinedEvent.class));
         assertEquals(TestFields.ROOM_ID, response.getRoomId());
         assertEquals(2, response.getUsers().size());
         assertEquals(host.getNickname(), response.getUsers().get(0).getNickname());
@@ -445,6 +452,8 @@ public class RoomServiceTests {
         request.setDuration(TestFields.DURATION);
         request.setSize(5);
         request.setNumProblems(3);
+        request.setCacheResults(false);
+        request.setFailFast(true);
 
         RoomDto response = roomService.updateRoomSettings(room.getRoomId(), request);
 
@@ -453,6 +462,8 @@ public class RoomServiceTests {
         assertEquals(request.getDuration(), response.getDuration());
         assertEquals(request.getSize(), response.getSize());
         assertEquals(request.getNumProblems(), response.getNumProblems());
+        assertEquals(request.getCacheResults(), response.isCacheResults());
+        assertEquals(request.getFailFast(), response.isFailFast());
     }
 
     @Test
@@ -1,15 +1,26 @@
 package com.codejoust.main.service;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.function.Supplier;
 
 import com.codejoust.main.config.WebSocketConfig;
+import com.codejoust.main.dto.game.GameDto;
+import com.codejoust.main.dto.game.GameUpdateDto;
 import com.codejoust.main.dto.room.RoomDto;
 import com.codejoust.main.dto.user.UserDto;
 
+import com.codejoust.main.util.GameDeltaEncoder;
+import com.codejoust.main.util.SocketUpdateCoalescer;
 import com.codejoust.main.util.TestFields;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -22,6 +33,12 @@ public class SocketServiceTests {
     @Mock
     private SimpMessagingTemplate template;
 
+    @Mock
+    private SocketUpdateCoalescer socketUpdateCoalescer;
+
+    @Mock
+    private GameDeltaEncoder gameDeltaEncoder;
+
     @Spy
     @InjectMocks
     private SocketService socketService;
@@ -39,5 +56,56 @@ public class SocketServiceTests {
                 eq(String.format(WebSocketConfig.SOCKET_LOBBY, roomDto.getRoomId())),
                 eq(roomDto));
     }
-    
+
+    @Test
+    public void sendGameUpdateCoalescedUntilGameOver() {
+        RoomDto roomDto = new RoomDto();
+        roomDto.setRoomId(TestFields.ROOM_ID);
+        GameDto gameDto = new GameDto();
+        gameDto.setRoom(roomDto);
+        String socketPath = String.format(WebSocketConfig.SOCKET_GAME, TestFields.ROOM_ID);
+
+        socketService.sendSocketUpdate(gameDto);
+        verify(socketUpdateCoalescer).send(eq(socketPath), any());
+
+        // The final state is sent at once.
+        gameDto.setGameEnded(true);
+        socketService.sendSocketUpdate(gameDto);
+        verify(socketUpdateCoalescer).flush(eq(socketPath), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void sendGameUpdateEncodedWhenSent() {
+        RoomDto roomDto = new RoomDto();
+        roomDto.setRoomId(TestFields.ROOM_ID);
+        GameDto gameDto = new GameDto();
+        gameDto.setRoom(roomDto);
+
+        GameUpdateDto update = new GameUpdateDto();
+        when(gameDeltaEncoder.encode(TestFields.ROOM_ID, gameDto)).thenReturn(update);
+
+        socketService.sendSocketUpdate(gameDto);
+        ArgumentCaptor<Supplier<?>> payload = ArgumentCaptor.forClass(Supplier.class);
+        verify(socketUpdateCoalescer).send(any(), payload.capture());
+        assertSame(update, payload.getValue().get());
+    }
+
+    @Test
+    public void syncGameStateReturnsStateLastSent() {
+        RoomDto roomDto = new RoomDto();
+        roomDto.setRoomId(TestFields.ROOM_ID);
+        GameDto gameDto = new GameDto();
+        gameDto.setRoom(roomDto);
+
+        GameDto sentDto = new GameDto();
+        sentDto.setRoom(roomDto);
+        sentDto.setSequence(3L);
+        when(gameDeltaEncoder.getLastSent(TestFields.ROOM_ID)).thenReturn(sentDto);
+
+        GameDto result = socketService.syncGameState(gameDto);
+        verify(socketUpdateCoalescer).sendNow(eq(String.format(WebSocketConfig.SOCKET_GAME, TestFields.ROOM_ID)), any());
+        assertSame(sentDto, result);
+        assertEquals(3L, result.getSequence());
+    }
 }
@@ -1,12 +1,17 @@
 package com.codejoust.main.service;
 
 import com.codejoust.main.model.problem.ProblemDifficulty;
+import com.codejoust.main.util.SubmissionCache;
 import com.codejoust.main.util.TestFields;
+import com.codejoust.main.util.TesterClient;
+import com.codejoust.main.util.TesterProblemCache;
+import com.codejoust.main.util.TesterShardPool;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.invocation.InvocationOnMock;
@@ -14,17 +19,25 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.stubbing.Answer;
 import org.springframework.http.HttpStatus;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.codejoust.main.dto.game.GameMapper;
 import com.codejoust.main.dto.game.SubmissionDto;
 import com.codejoust.main.dto.game.SubmissionRequest;
 import com.codejoust.main.dto.game.SubmissionResultDto;
+import com.codejoust.main.dto.game.SubmissionType;
 import com.codejoust.main.dto.game.TesterRequest;
 import com.codejoust.main.dto.game.TesterResponse;
+import com.codejoust.main.dto.game.TesterResult;
 import com.codejoust.main.dto.problem.ProblemDto;
 import com.codejoust.main.dto.problem.ProblemTestCaseDto;
 import com.codejoust.main.dto.user.UserMapper;
@@ -40,10 +53,12 @@ import com.codejoust.main.model.User;
 import com.codejoust.main.model.problem.Problem;
 import com.codejoust.main.model.problem.ProblemTestCase;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.never;
@@ -52,6 +67,21 @@ import static org.mockito.Mockito.verify;
 @ExtendWith(MockitoExtension.class)
 public class SubmitServiceTests {
 
+    @Mock
+    private TesterClient testerClient;
+
+    @Mock
+    private SubmissionCache submissionCache;
+
+    @Mock
+    private GameLogService gameLogService;
+
+    @Spy
+    private TesterShardPool testerShardPool = new TesterShardPool(2, 20, 4);
+
+    @Spy
+    private TesterProblemCache testerProblemCache = new TesterProblemCache(1000, 67108864);
+
     @Spy
     @InjectMocks
     private SubmitService submitService;
@@ -92,7 +122,7 @@ public class SubmitServiceTests {
 
         SubmissionDto submissionDto = submitService.runCode(game, request);
 
-        verify(submitService).getSubmission(captor.capture());
+        verify(submitService).getSubmission(captor.capture(), Mockito.eq(SubmissionType.TEST), Mockito.eq(true), Mockito.isNull());
         TesterRequest testerRequest = captor.getValue();
 
         // Verify TesterRequest has non-required fields set to null
@@ -152,7 +182,7 @@ public class SubmitServiceTests {
 
         submitService.submitSolution(game, request);
 
-        verify(submitService).getSubmission(captor.capture());
+        verify(submitService).getSubmission(captor.capture(), Mockito.eq(SubmissionType.SUBMIT), Mockito.eq(true), Mockito.isNull());
         TesterRequest testerRequest = captor.getValue();
 
         // Verify TesterRequest has non-required fields set to null
@@ -184,6 +214,175 @@ public class SubmitServiceTests {
         assertTrue(game.getAllSolved());
     }
 
+    @Test
+    public void submitSolutionUpdatesSolveCounters() {
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+        room.setNumProblems(2);
+        User user = new User();
+        user.setNickname(TestFields.NICKNAME);
+        user.setUserId(TestFields.USER_ID);
+        room.addUser(user);
+        User user2 = new User();
+        user2.setNickname(TestFields.NICKNAME_2);
+        user2.setUserId(TestFields.USER_ID_2);
+        room.addUser(user2);
+
+        Game game = GameMapper.fromRoom(room);
+        for (int i = 0; i < 2; i++) {
+            Problem problem = new Problem();
+            problem.setName(TestFields.NAME);
+            ProblemTestCase testCase = new ProblemTestCase();
+            testCase.setInput(TestFields.INPUT);
+            testCase.setOutput(TestFields.OUTPUT);
+            problem.addTestCase(testCase);
+            game.getProblems().add(problem);
+        }
+        assertEquals(4, game.getUnsolvedCount());
+
+        // Solving the same problem again doesn't change the counters.
+        submitService.submitSolution(game, createSubmissionRequest(user, 0));
+        submitService.submitSolution(game, createSubmissionRequest(user, 0));
+        assertArrayEquals(new int[]{1, 0}, game.getProblemSolveCounts());
+        assertEquals(3, game.getUnsolvedCount());
+
+        submitService.submitSolution(game, createSubmissionRequest(user2, 0));
+        submitService.submitSolution(game, createSubmissionRequest(user, 1));
+        assertArrayEquals(new int[]{2, 1}, game.getProblemSolveCounts());
+        assertFalse(game.getAllSolved());
+
+        submitService.submitSolution(game, createSubmissionRequest(user2, 1));
+        assertArrayEquals(new int[]{2, 2}, game.getProblemSolveCounts());
+        assertEquals(0, game.getUnsolvedCount());
+        assertTrue(game.getAllSolved());
+        assertArrayEquals(new int[]{2, 2}, GameMapper.toDto(game).getProblemSolveCounts());
+    }
+
+    @Test
+    public void submitSolutionCacheDisabledForRoom() {
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+        room.setCacheResults(false);
+        User user = new User();
+        user.setNickname(TestFields.NICKNAME);
+        user.setUserId(TestFields.USER_ID);
+        room.addUser(user);
+
+        Game game = GameMapper.fromRoom(room);
+        Problem problem = new Problem();
+        ProblemTestCase testCase = new ProblemTestCase();
+        testCase.setInput(TestFields.INPUT);
+        testCase.setOutput(TestFields.OUTPUT);
+        problem.addTestCase(testCase);
+        game.getProblems().add(problem);
+
+        submitService.submitSolution(game, createSubmissionRequest(user, 0));
+
+        verify(submitService).getSubmission(Mockito.any(), Mockito.eq(SubmissionType.SUBMIT), Mockito.eq(false), Mockito.isNull());
+    }
+
+    @Test
+    public void submitSolutionFailFastOrdersTestCases() {
+        submitService.setDebugModeForTesting(false);
+
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+        room.setCacheResults(false);
+        room.setFailFast(true);
+        User user = new User();
+        user.setNickname(TestFields.NICKNAME);
+        user.setUserId(TestFields.USER_ID);
+        room.addUser(user);
+
+        Game game = GameMapper.fromRoom(room);
+        Problem problem = new Problem();
+        for (String input : Arrays.asList("[1, 2, 3, 4]", "[1]", "[1, 2]")) {
+            ProblemTestCase testCase = new ProblemTestCase();
+            testCase.setInput(input);
+            testCase.setOutput(input);
+            problem.addTestCase(testCase);
+        }
+        game.getProblems().add(problem);
+
+        // The tester passes the first test case it's given, then stops at the second.
+        List<List<String>> inputs = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            TesterRequest request = invocation.getArgument(0);
+            assertTrue(request.isFailFast());
+            assertProblemJson(request);
+            List<String> requestInputs = new ArrayList<>();
+            request.getProblem().getTestCases().forEach(testCase -> requestInputs.add(testCase.getInput()));
+            inputs.add(requestInputs);
+
+            TesterResult passed = new TesterResult();
+            passed.setCorrect(true);
+            TesterResponse testerResponse = new TesterResponse();
+            testerResponse.setNumCorrect(1);
+            testerResponse.setNumTestCases(2);
+            testerResponse.setResults(Arrays.asList(passed, new TesterResult()));
+            return testerResponse;
+        }).when(submitService).callTesterService(Mockito.any(), Mockito.eq(SubmissionType.SUBMIT));
+
+        // With no failures yet, the smallest test cases are tried first.
+        SubmissionDto submission = submitService.submitSolution(game, createSubmissionRequest(user, 0));
+        assertEquals(Arrays.asList("[1]", "[1, 2]", "[1, 2, 3, 4]"), inputs.get(0));
+        assertEquals(1, submission.getNumCorrect());
+        assertEquals(3, submission.getNumTestCases());
+        assertEquals("[1, 2]", submission.getResults().get(1).getInput());
+        assertFalse(game.getAllSolved());
+
+        // The test case that failed is tried first from then on.
+        submitService.submitSolution(game, createSubmissionRequest(user, 0));
+        assertEquals(Arrays.asList("[1, 2]", "[1]", "[1, 2, 3, 4]"), inputs.get(1));
+
+        // The cached problem keeps its original order.
+        assertEquals("[1, 2, 3, 4]", testerProblemCache.get(problem).getProblem().getTestCases().get(0).getInput());
+    }
+
+    @Test
+    public void submitSolutionUsesCachedProblem() {
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+        User user = new User();
+        user.setNickname(TestFields.NICKNAME);
+        user.setUserId(TestFields.USER_ID);
+        room.addUser(user);
+
+        Game game = GameMapper.fromRoom(room);
+        Problem problem = new Problem();
+        problem.setProblemId(TestFields.PROBLEM_ID);
+        ProblemTestCase testCase = new ProblemTestCase();
+        testCase.setInput(TestFields.INPUT);
+        testCase.setOutput(TestFields.OUTPUT);
+        problem.addTestCase(testCase);
+        game.getProblems().add(problem);
+
+        submitService.prepareProblems(game.getProblems());
+        TesterProblemCache.Payload payload = testerProblemCache.get(problem);
+
+        submitService.submitSolution(game, createSubmissionRequest(user, 0));
+        submitService.runCode(game, createSubmissionRequest(user, 0));
+
+        // Submissions send the cached problem as it is, while running code only uses its fields.
+        verify(submitService).getSubmission(captor.capture(), Mockito.eq(SubmissionType.SUBMIT), Mockito.eq(true), Mockito.isNull());
+        assertSame(payload.getProblem(), captor.getValue().getProblem());
+        assertSame(payload.getJson(), captor.getValue().getProblemJson());
+
+        verify(submitService).getSubmission(captor.capture(), Mockito.eq(SubmissionType.TEST), Mockito.eq(true), Mockito.isNull());
+        assertNull(captor.getValue().getProblemJson());
+        assertEquals(1, payload.getProblem().getTestCases().size());
+        assertEquals(TestFields.INPUT, payload.getProblem().getTestCases().get(0).getInput());
+    }
+
+    private SubmissionRequest createSubmissionRequest(User user, int problemIndex) {
+        SubmissionRequest request = new SubmissionRequest();
+        request.setLanguage(TestFields.PYTHON_LANGUAGE);
+        request.setCode(TestFields.PYTHON_CODE);
+        request.setInitiator(UserMapper.toDto(user));
+        request.setProblemIndex(problemIndex);
+        return request;
+    }
+
     @Test
     public void submitSolutionNotAllSolvedSuccess() {
         Room room = new Room();
@@ -250,10 +449,10 @@ public class SubmitServiceTests {
         request.setLanguage(TestFields.PYTHON_LANGUAGE);
         request.setProblem(problemDto);
 
-        Submission response = submitService.getSubmission(request);
+        Submission response = submitService.getSubmission(request, SubmissionType.SUBMIT, false, null);
 
         assertNotNull(response);
-        verify(submitService, never()).callTesterService(Mockito.any());
+        verify(submitService, never()).callTesterService(Mockito.any(), Mockito.any());
     }
 
     @Test
@@ -275,8 +474,8 @@ public class SubmitServiceTests {
         testerResponse.setRuntime(5.5);
         testerResponse.setResults(new ArrayList<>());
 
-        Mockito.doReturn(testerResponse).when(submitService).callTesterService(request);
-        Submission response = submitService.getSubmission(request);
+        Mockito.doReturn(testerResponse).when(submitService).callTesterService(request, SubmissionType.SUBMIT);
+        Submission response = submitService.getSubmission(request, SubmissionType.SUBMIT, false, null);
 
         assertEquals(testerResponse.getNumCorrect(), response.getNumCorrect());
         assertEquals(testerResponse.getNumTestCases(), response.getNumTestCases());
@@ -286,6 +485,279 @@ public class SubmitServiceTests {
         assertNotNull(response.getStartTime());
     }
 
+    @Test
+    public void callTesterServiceCachedResponse() {
+        submitService.setDebugModeForTesting(false);
+
+        ProblemTestCaseDto testCaseDto = new ProblemTestCaseDto();
+        ProblemDto problemDto = new ProblemDto();
+        problemDto.setTestCases(Collections.singletonList(testCaseDto));
+
+        TesterRequest request = new TesterRequest();
+        request.setCode(TestFields.PYTHON_CODE);
+        request.setLanguage(TestFields.PYTHON_LANGUAGE);
+        request.setProblem(problemDto);
+        String key = SubmissionCache.getKey(request);
+
+        TesterResponse testerResponse = new TesterResponse();
+        testerResponse.setNumCorrect(1);
+        testerResponse.setNumTestCases(1);
+        testerResponse.setResults(new ArrayList<>());
+
+        // The first request goes to the tester, and its response is cached
+        Mockito.doReturn(testerResponse).when(submitService).callTesterService(request, SubmissionType.SUBMIT);
+        Submission first = submitService.getSubmission(request, SubmissionType.SUBMIT, true, null);
+        verify(submissionCache).put(key, request, testerResponse);
+
+        // The second is answered from the cache
+        Mockito.doReturn(testerResponse).when(submissionCache).get(key);
+        Submission second = submitService.getSubmission(request, SubmissionType.SUBMIT, true, null);
+
+        verify(submitService, Mockito.times(1)).callTesterService(request, SubmissionType.SUBMIT);
+        assertEquals(first.getNumCorrect(), second.getNumCorrect());
+        assertNotNull(second.getStartTime());
+    }
+
+    @Test
+    public void getSubmissionStreamsResults() {
+        submitService.setDebugModeForTesting(false);
+
+        ProblemTestCaseDto testCaseDto = new ProblemTestCaseDto();
+        testCaseDto.setInput(TestFields.INPUT);
+        ProblemTestCaseDto hiddenTestCaseDto = new ProblemTestCaseDto();
+        hiddenTestCaseDto.setInput(TestFields.INPUT_2);
+        hiddenTestCaseDto.setHidden(true);
+        ProblemDto problemDto = new ProblemDto();
+        problemDto.setTestCases(Arrays.asList(testCaseDto, hiddenTestCaseDto));
+
+        TesterRequest request = new TesterRequest();
+        request.setCode(TestFields.PYTHON_CODE);
+        request.setLanguage(TestFields.PYTHON_LANGUAGE);
+        request.setProblem(problemDto);
+
+        TesterResult result = new TesterResult();
+        result.setUserOutput(TestFields.OUTPUT);
+        result.setCorrect(true);
+        TesterResult result2 = new TesterResult();
+        result2.setUserOutput(TestFields.OUTPUT_2);
+
+        TesterResponse testerResponse = new TesterResponse();
+        testerResponse.setNumCorrect(1);
+        testerResponse.setNumTestCases(2);
+        testerResponse.setResults(Arrays.asList(result, result2));
+
+        // The tester streams its results before responding.
+        Mockito.doAnswer(invocation -> {
+            Consumer<TesterResult> onResult = invocation.getArgument(2);
+            testerResponse.getResults().forEach(onResult);
+            return testerResponse;
+        }).when(submitService).streamTesterService(Mockito.eq(request), Mockito.eq(SubmissionType.SUBMIT), Mockito.notNull());
+
+        List<SubmissionResult> streamed = new ArrayList<>();
+        Submission submission = submitService.getSubmission(request, SubmissionType.SUBMIT, false, (submissionResult, index) -> {
+            assertEquals(streamed.size(), index);
+            streamed.add(submissionResult);
+        });
+
+        assertEquals(2, streamed.size());
+        assertEquals(submission.getResults(), streamed);
+        assertEquals(TestFields.OUTPUT, streamed.get(0).getUserOutput());
+        assertTrue(streamed.get(0).isCorrect());
+        assertEquals(TestFields.INPUT_2, streamed.get(1).getInput());
+        assertTrue(streamed.get(1).isHidden());
+
+        // Cached responses are passed on all at once.
+        Mockito.doReturn(testerResponse).when(submissionCache).get(SubmissionCache.getKey(request));
+        streamed.clear();
+        submitService.getSubmission(request, SubmissionType.SUBMIT, true, (submissionResult, index) -> streamed.add(submissionResult));
+        assertEquals(2, streamed.size());
+    }
+
+    // A problem with test cases numbered from zero, and a request to judge it.
+    private TesterRequest createShardedRequest(int numTestCases) {
+        List<ProblemTestCaseDto> testCases = new ArrayList<>();
+        for (int i = 0; i < numTestCases; i++) {
+            ProblemTestCaseDto testCaseDto = new ProblemTestCaseDto();
+            testCaseDto.setInput(String.valueOf(i));
+            testCases.add(testCaseDto);
+        }
+        ProblemDto problemDto = new ProblemDto();
+        problemDto.setTestCases(testCases);
+
+        TesterRequest request = new TesterRequest();
+        request.setCode(TestFields.PYTHON_CODE);
+        request.setLanguage(TestFields.PYTHON_LANGUAGE);
+        request.setProblem(problemDto);
+        return request;
+    }
+
+    // The request's problem is sent as JSON put together from the cached payload.
+    private void assertProblemJson(TesterRequest request) {
+        Gson gson = new Gson();
+        assertNotNull(request.getProblemJson());
+        assertEquals(gson.toJsonTree(request.getProblem()),
+            gson.fromJson(new String(request.getProblemJson(), StandardCharsets.UTF_8), JsonElement.class));
+    }
+
+    // Echo each test case's input, judging at most the given number of them.
+    private TesterResponse echo(TesterRequest request, int maxResults) {
+        List<TesterResult> results = new ArrayList<>();
+        for (ProblemTestCaseDto testCaseDto : request.getProblem().getTestCases()) {
+            if (results.size() == maxResults) {
+                break;
+            }
+            TesterResult result = new TesterResult();
+            result.setUserOutput(testCaseDto.getInput());
+            result.setCorrect(true);
+            results.add(result);
+        }
+
+        TesterResponse testerResponse = new TesterResponse();
+        testerResponse.setResults(results);
+        testerResponse.setNumCorrect(results.size());
+        testerResponse.setNumTestCases(request.getProblem().getTestCases().size());
+        testerResponse.setRuntime(1.0);
+        return testerResponse;
+    }
+
+    @Test
+    public void getSubmissionShardsLargeProblems() {
+        submitService.setDebugModeForTesting(false);
+        TesterRequest request = createShardedRequest(50);
+
+        // The first shard is streamed on this thread; the others are judged on the pool.
+        List<Integer> shardSizes = Collections.synchronizedList(new ArrayList<>());
+        Mockito.doAnswer(invocation -> {
+            TesterRequest shard = invocation.getArgument(0);
+            assertTrue(Thread.currentThread().getName().startsWith(TesterShardPool.THREAD_PREFIX));
+            shardSizes.add(shard.getProblem().getTestCases().size());
+            return echo(shard, Integer.MAX_VALUE);
+        }).when(submitService).callTesterService(Mockito.any(), Mockito.eq(SubmissionType.SUBMIT));
+        Mockito.doAnswer(invocation -> {
+            TesterRequest shard = invocation.getArgument(0);
+            Consumer<TesterResult> onResult = invocation.getArgument(2);
+            shardSizes.add(shard.getProblem().getTestCases().size());
+            TesterResponse testerResponse = echo(shard, Integer.MAX_VALUE);
+            testerResponse.getResults().forEach(onResult);
+            return testerResponse;
+        }).when(submitService).streamTesterService(Mockito.any(), Mockito.eq(SubmissionType.SUBMIT), Mockito.notNull());
+
+        List<Integer> streamed = new ArrayList<>();
+        Submission submission = submitService.getSubmission(request, SubmissionType.SUBMIT, false,
+            (submissionResult, index) -> streamed.add(index));
+
+        // 50 test cases make three shards, whose results are put back in order.
+        shardSizes.sort(null);
+        assertEquals(Arrays.asList(16, 17, 17), shardSizes);
+        assertEquals(50, streamed.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, streamed.get(i));
+            SubmissionResult result = submission.getResults().get(i);
+            assertEquals(String.valueOf(i), result.getInput());
+            assertEquals(result.getInput(), result.getUserOutput());
+        }
+        assertEquals(50, submission.getNumCorrect());
+        assertEquals(50, submission.getNumTestCases());
+        assertEquals(3.0, submission.getRuntime());
+    }
+
+    @Test
+    public void getSubmissionShardsUseCachedProblemJson() {
+        submitService.setDebugModeForTesting(false);
+        Problem problem = new Problem();
+        for (int i = 0; i < 50; i++) {
+            ProblemTestCase testCase = new ProblemTestCase();
+            testCase.setInput(String.valueOf(i));
+            testCase.setOutput(String.valueOf(i));
+            problem.addTestCase(testCase);
+        }
+        TesterProblemCache.Payload payload = TesterProblemCache.build(problem);
+
+        TesterRequest request = new TesterRequest();
+        request.setCode(TestFields.PYTHON_CODE);
+        request.setLanguage(TestFields.PYTHON_LANGUAGE);
+        request.setProblem(payload.getProblem());
+        request.setProblemJson(payload.getJson());
+        request.setProblemPayload(payload);
+
+        List<TesterRequest> shards = Collections.synchronizedList(new ArrayList<>());
+        Mockito.doAnswer(invocation -> {
+            TesterRequest shard = invocation.getArgument(0);
+            shards.add(shard);
+            return echo(shard, Integer.MAX_VALUE);
+        }).when(submitService).callTesterService(Mockito.any(), Mockito.eq(SubmissionType.SUBMIT));
+
+        Submission submission = submitService.getSubmission(request, SubmissionType.SUBMIT, false, null);
+
+        // Each shard is sent its own test cases, without serializing the problem again.
+        assertEquals(3, shards.size());
+        shards.forEach(this::assertProblemJson);
+        assertEquals(50, submission.getNumCorrect());
+    }
+
+    @Test
+    public void getSubmissionStopsAtShardCutShort() {
+        submitService.setDebugModeForTesting(false);
+        TesterRequest request = createShardedRequest(40);
+        request.setFailFast(true);
+
+        // The second shard fails (and stops) at its third test case.
+        Mockito.doAnswer(invocation -> {
+            TesterRequest shard = invocation.getArgument(0);
+            assertTrue(shard.isFailFast());
+            boolean second = "20".equals(shard.getProblem().getTestCases().get(0).getInput());
+            return echo(shard, second ? 3 : Integer.MAX_VALUE);
+        }).when(submitService).callTesterService(Mockito.any(), Mockito.eq(SubmissionType.SUBMIT));
+
+        Submission submission = submitService.getSubmission(request, SubmissionType.SUBMIT, false, null);
+
+        assertEquals(23, submission.getResults().size());
+        assertEquals("22", submission.getResults().get(22).getInput());
+        assertEquals(23, submission.getNumCorrect());
+        assertEquals(2.0, submission.getRuntime());
+    }
+
+    @Test
+    public void getSubmissionFailFastStopsAtFirstFailureAcrossShards() {
+        submitService.setDebugModeForTesting(false);
+        TesterRequest request = createShardedRequest(40);
+        request.setFailFast(true);
+
+        // The first shard fails its last test case; the second, judged in parallel, passes all.
+        Mockito.doAnswer(invocation -> {
+            TesterRequest shard = invocation.getArgument(0);
+            TesterResponse testerResponse = echo(shard, Integer.MAX_VALUE);
+            if ("0".equals(shard.getProblem().getTestCases().get(0).getInput())) {
+                List<TesterResult> results = testerResponse.getResults();
+                results.get(results.size() - 1).setCorrect(false);
+                testerResponse.setNumCorrect(results.size() - 1);
+            }
+            return testerResponse;
+        }).when(submitService).callTesterService(Mockito.any(), Mockito.eq(SubmissionType.SUBMIT));
+
+        Submission submission = submitService.getSubmission(request, SubmissionType.SUBMIT, false, null);
+
+        // Only the test cases up to the first failure count.
+        assertEquals(20, submission.getResults().size());
+        assertFalse(submission.getResults().get(19).isCorrect());
+        assertEquals(19, submission.getNumCorrect());
+        assertEquals(1.0, submission.getRuntime());
+    }
+
+    @Test
+    public void callTesterServiceUsesTesterClient() {
+        TesterRequest request = new TesterRequest();
+        TesterResponse testerResponse = new TesterResponse();
+        Mockito.doReturn(testerResponse).when(testerClient).execute(request, false);
+        Mockito.doReturn(testerResponse).when(testerClient).execute(request, true);
+
+        // Only running code may be retried on another tester
+        assertSame(testerResponse, submitService.callTesterService(request, SubmissionType.SUBMIT));
+        assertSame(testerResponse, submitService.callTesterService(request, SubmissionType.TEST));
+        verify(testerClient).execute(request, false);
+        verify(testerClient).execute(request, true);
+    }
+
     @Test
     public void callTesterServiceTesterThrowsError() throws Exception {
         submitService.setDebugModeForTesting(false);
@@ -306,9 +778,9 @@ public class SubmitServiceTests {
 
         TesterError ERROR = new TesterError(HttpStatus.BAD_REQUEST, new ApiErrorResponse("Bad input", "INVALID_INPUT"));
 
-        Mockito.doThrow(new ApiException(ERROR)).when(submitService).callTesterService(request);
+        Mockito.doThrow(new ApiException(ERROR)).when(submitService).callTesterService(request, SubmissionType.SUBMIT);
 
-        ApiException exception = assertThrows(ApiException.class, () -> submitService.getSubmission(request));
+        ApiException exception = assertThrows(ApiException.class, () -> submitService.getSubmission(request, SubmissionType.SUBMIT, false, null));
 
         assertEquals(ERROR, exception.getError());
     }
@@ -336,9 +808,9 @@ public class SubmitServiceTests {
             public Void answer(InvocationOnMock invocation) throws Exception {
                 throw new Exception();
             }})
-          .when(submitService).callTesterService(request);
+          .when(submitService).callTesterService(request, SubmissionType.SUBMIT);
 
-        ApiException exception = assertThrows(ApiException.class, () -> submitService.getSubmission(request));
+        ApiException exception = assertThrows(ApiException.class, () -> submitService.getSubmission(request, SubmissionType.SUBMIT, false, null));
 
         assertEquals(GameError.TESTER_ERROR, exception.getError());
     }
@@ -349,10 +821,11 @@ public class SubmitServiceTests {
 
         TesterRequest request = new TesterRequest();
         request.setCode("temp");
+        Mockito.doThrow(new ApiException(GameError.TESTER_ERROR)).when(testerClient).execute(request, false);
 
-        assertThrows(Exception.class, () -> submitService.callTesterService(request));
+        assertThrows(ApiException.class, () -> submitService.callTesterService(request, SubmissionType.SUBMIT));
 
-        ApiException exception = assertThrows(ApiException.class, () -> submitService.getSubmission(request));
+        ApiException exception = assertThrows(ApiException.class, () -> submitService.getSubmission(request, SubmissionType.SUBMIT, false, null));
         assertEquals(GameError.TESTER_ERROR, exception.getError());
     }
 }
@@ -4,6 +4,7 @@ import com.codejoust.main.controller.v1.BaseRestController;
 import com.codejoust.main.dto.game.EndGameRequest;
 import com.codejoust.main.dto.game.GameDto;
 import com.codejoust.main.dto.game.GameNotificationDto;
+import com.codejoust.main.dto.game.GameUpdateDto;
 import com.codejoust.main.dto.game.PlayAgainRequest;
 import com.codejoust.main.dto.game.PlayerDto;
 import com.codejoust.main.dto.game.StartGameRequest;
@@ -15,9 +16,13 @@ import com.codejoust.main.dto.room.RoomDto;
 import com.codejoust.main.dto.room.UpdateSettingsRequest;
 import com.codejoust.main.dto.user.UserDto;
 import com.codejoust.main.game_object.NotificationType;
+import com.codejoust.main.util.GameDeltaEncoder;
 import com.codejoust.main.util.SocketTestMethods;
 
 import com.codejoust.main.util.TestFields;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,7 +43,10 @@ import java.time.Instant;
 import java.util.Collections;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Predicate;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
@@ -74,6 +82,71 @@ public class GameSocketTests {
     private static final long DURATION = 15;
     private static final long TIME_UNTIL_TEN_LEFT = 5;
 
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * Rebuilds the game from the updates received, as the client does:
+     * applying each patch to the game as of the previous update, and
+     * fetching the game when one was missed. Each session's handler adds
+     * the games it rebuilds to its own queue.
+     */
+    private class GameUpdateHandler implements StompFrameHandler {
+
+        private final BlockingQueue<GameDto> queue;
+        private JsonNode game;
+        private long sequence;
+
+        GameUpdateHandler(BlockingQueue<GameDto> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return GameUpdateDto.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            GameUpdateDto update = (GameUpdateDto) payload;
+            long updateSequence = update.getSequence();
+
+            if (update.getGame() != null) {
+                game = update.getGame();
+            } else if (game != null && updateSequence == sequence + 1) {
+                game = GameDeltaEncoder.apply(game, update.getPatch());
+            } else {
+                String getEndpoint = String.format("%s/games/%s", baseRestEndpoint, room.getRoomId());
+                GameDto fetched = template.getForObject(getEndpoint, GameDto.class);
+                assertNotNull(fetched);
+                assertNotNull(fetched.getSequence());
+
+                game = objectMapper.valueToTree(fetched);
+                if (fetched.getSequence() == updateSequence - 1) {
+                    game = GameDeltaEncoder.apply(game, update.getPatch());
+                }
+                updateSequence = Math.max(updateSequence, fetched.getSequence());
+            }
+
+            sequence = updateSequence;
+            queue.add(objectMapper.convertValue(game, GameDto.class));
+        }
+    }
+
+    // Wait for the first game received that matches, skipping any before it.
+    private GameDto pollUntil(BlockingQueue<GameDto> queue, Predicate<GameDto> matches, long seconds)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + SECONDS.toNanos(seconds);
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            GameDto gameDto = queue.poll(remaining, NANOSECONDS);
+            if (gameDto != null && matches.test(gameDto)) {
+                return gameDto;
+            }
+        }
+        return null;
+    }
+
     @BeforeEach
     public void setup() throws Exception {
         // Include the test authorization token in each request
@@ -130,17 +203,8 @@ public class GameSocketTests {
         userBlockingQueue = new ArrayBlockingQueue<>(2);
         hostSession = SocketTestMethods.connectToSocket(CONNECT_ENDPOINT, TestFields.USER_ID, this.port);
 
-        hostSession.subscribe(String.format(GAME_SUBSCRIBE_ENDPOINT, room.getRoomId()), new StompFrameHandler() {
-            @Override
-            public Type getPayloadType(StompHeaders headers) {
-                return GameDto.class;
-            }
-
-            @Override
-            public void handleFrame(StompHeaders headers, Object payload) {
-                userBlockingQueue.add((GameDto) payload);
-            }
-        });
+        hostSession.subscribe(String.format(GAME_SUBSCRIBE_ENDPOINT, room.getRoomId()),
+            new GameUpdateHandler(userBlockingQueue));
 
         // Set up the notification socket subscription
         notificationBlockingQueue = new ArrayBlockingQueue<>(2);
@@ -232,23 +296,18 @@ public class GameSocketTests {
         assertNotEquals(prevHost, user);
         assertNull(user.getSessionId());
 
-        // The second user connects to the stomp client
+        // The second user connects to the stomp client, with their own queue
+        // so the games they receive aren't mixed with the host's.
+        BlockingQueue<GameDto> sessionBlockingQueue = new LinkedBlockingQueue<>();
         StompSession session = SocketTestMethods.connectToSocket(CONNECT_ENDPOINT, user.getUserId(), this.port);
 
-        session.subscribe(String.format(GAME_SUBSCRIBE_ENDPOINT, room.getRoomId()), new StompFrameHandler() {
-            @Override
-            public Type getPayloadType(StompHeaders headers) {
-                return GameDto.class;
-            }
-
-            @Override
-            public void handleFrame(StompHeaders headers, Object payload) {
-                userBlockingQueue.add((GameDto) payload);
-            }
-        });
+        session.subscribe(String.format(GAME_SUBSCRIBE_ENDPOINT, room.getRoomId()),
+            new GameUpdateHandler(sessionBlockingQueue));
 
         // Message should be received on user connect
-        GameDto gameDto = userBlockingQueue.poll(DURATION, SECONDS);
+        String userId = user.getUserId();
+        GameDto gameDto = pollUntil(sessionBlockingQueue, game -> game.getRoom().getUsers().stream()
+            .anyMatch(u -> u.getUserId().equals(userId) && u.getSessionId() != null), DURATION);
         assertNotNull(gameDto);
 
         user = gameDto.getRoom().getUsers().get(1);
@@ -264,7 +323,8 @@ public class GameSocketTests {
         hostSession.disconnect();
 
         // After disconnecting, the host should be changed
-        gameDto = userBlockingQueue.poll(DURATION, SECONDS);
+        UserDto newHost = user;
+        gameDto = pollUntil(sessionBlockingQueue, game -> newHost.equals(game.getRoom().getHost()), DURATION);
         assertNotNull(gameDto);
         assertEquals(gameDto.getRoom().getHost(), user);
 
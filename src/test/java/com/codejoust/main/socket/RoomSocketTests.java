@@ -57,6 +57,9 @@ public class RoomSocketTests {
     private static final String CONNECT_ENDPOINT = "ws://localhost:{port}" + BaseRestController.BASE_SOCKET_URL + "/join-room-endpoint";
     private static final String SUBSCRIBE_ENDPOINT = BaseRestController.BASE_SOCKET_URL + "/%s/subscribe-lobby";
 
+    // The connection used to wait 500 ms before being bound and broadcast.
+    private static final long MAX_CONNECT_LATENCY_MILLIS = 500;
+
     private BlockingQueue<RoomDto> blockingQueue;
     private String baseRestEndpoint;
     private RoomDto room;
@@ -226,6 +229,52 @@ public class RoomSocketTests {
         assertNotNull(actual.getUsers().get(1).getSessionId());
     }
 
+    @Test
+    public void socketConnectionBroadcastWithoutDelay() throws Exception {
+        // Have someone join the room
+        JoinRoomRequest joinRequest = new JoinRoomRequest();
+        joinRequest.setUser(TestFields.userDto2());
+
+        HttpEntity<JoinRoomRequest> joinEntity = new HttpEntity<>(joinRequest);
+        String joinRoomEndpoint = String.format("%s/%s/users", baseRestEndpoint, room.getRoomId());
+        template.exchange(joinRoomEndpoint, HttpMethod.PUT, joinEntity, RoomDto.class).getBody();
+        assertNotNull(blockingQueue.poll(5, SECONDS));
+
+        // Measure from the start of the connection to the room being told of it
+        long start = System.nanoTime();
+        SocketTestMethods.connectToSocket(CONNECT_ENDPOINT, TestFields.USER_ID_2, this.port);
+        RoomDto actual = blockingQueue.poll(5, SECONDS);
+        long latencyMillis = (System.nanoTime() - start) / 1000000;
+
+        assertNotNull(actual);
+        assertNotNull(actual.getUsers().get(1).getSessionId());
+        assertTrue(latencyMillis < MAX_CONNECT_LATENCY_MILLIS,
+            String.format("Connection took %d ms to be broadcast", latencyMillis));
+    }
+
+    @Test
+    public void socketConnectionBeforeJoinBoundOnJoin() throws Exception {
+        // The user connects before their request to join the room is handled
+        SocketTestMethods.connectToSocket(CONNECT_ENDPOINT, TestFields.USER_ID_2, this.port);
+        assertNull(blockingQueue.poll(1, SECONDS));
+
+        JoinRoomRequest joinRequest = new JoinRoomRequest();
+        joinRequest.setUser(TestFields.userDto2());
+
+        HttpEntity<JoinRoomRequest> joinEntity = new HttpEntity<>(joinRequest);
+        String joinRoomEndpoint = String.format("%s/%s/users", baseRestEndpoint, room.getRoomId());
+        template.exchange(joinRoomEndpoint, HttpMethod.PUT, joinEntity, RoomDto.class).getBody();
+
+        // The join is sent first, then the connection, once bound to the user
+        RoomDto actual = blockingQueue.poll(5, SECONDS);
+        assertNotNull(actual);
+        assertNull(actual.getUsers().get(1).getSessionId());
+
+        actual = blockingQueue.poll(5, SECONDS);
+        assertNotNull(actual);
+        assertNotNull(actual.getUsers().get(1).getSessionId());
+    }
+
     @Test
     public void socketReceivesMessageOnDisconnection() throws Exception {
         // Have someone join the room
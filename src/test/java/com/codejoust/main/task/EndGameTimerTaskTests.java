@@ -6,6 +6,8 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
+import java.util.concurrent.TimeUnit;
+
 import com.codejoust.main.dto.game.GameDto;
 import com.codejoust.main.dto.game.GameMapper;
 import com.codejoust.main.exception.api.ApiException;
@@ -18,6 +20,7 @@ import com.codejoust.main.service.SocketService;
 
 import com.codejoust.main.util.EndGameTimerTask;
 import com.codejoust.main.util.TestFields;
+import com.codejoust.main.util.TimingWheel;
 import org.junit.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -31,6 +34,8 @@ public class EndGameTimerTaskTests {
     @Mock
     private SocketService socketService;
 
+    private final TimingWheel timingWheel = new TimingWheel(10, 64, 1);
+
     @BeforeEach
     public void setup() throws Exception {
         MockitoAnnotations.initMocks(this);
@@ -131,7 +136,7 @@ public class EndGameTimerTaskTests {
         MockitoAnnotations.initMocks(this);
 
         EndGameTimerTask endGameTimerTask = new EndGameTimerTask(socketService, game);
-        gameTimer.getTimer().schedule(endGameTimerTask,  1000L);
+        gameTimer.schedule(timingWheel, endGameTimerTask, 1000L, TimeUnit.MILLISECONDS);
 
         /**
          * Confirm that the socket update is not called immediately, 
@@ -6,7 +6,7 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
-import java.util.Timer;
+import java.util.concurrent.TimeUnit;
 
 import com.codejoust.main.dto.game.GameNotificationDto;
 import com.codejoust.main.exception.api.ApiException;
@@ -14,6 +14,7 @@ import com.codejoust.main.game_object.NotificationType;
 import com.codejoust.main.service.SocketService;
 
 import com.codejoust.main.util.NotificationTimerTask;
+import com.codejoust.main.util.TimingWheel;
 import org.junit.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -61,9 +62,9 @@ public class NotificationTimerTaskTests {
         notificationDto.setNotificationType(NotificationType.TIME_LEFT);
         notificationDto.setContent(TIME_LEFT);
 
-        Timer timer = new Timer();
+        TimingWheel timingWheel = new TimingWheel(10, 64, 1);
         NotificationTimerTask notificationTimerTask = new NotificationTimerTask(socketService, ROOM_ID, TIME_LEFT);
-        timer.schedule(notificationTimerTask, (long) 1 * 1000);
+        timingWheel.schedule(notificationTimerTask, 1, TimeUnit.SECONDS);
 
         /**
          * Confirm that the socket update is not called immediately, 
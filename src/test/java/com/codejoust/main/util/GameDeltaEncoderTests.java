@@ -0,0 +1,159 @@
+package com.codejoust.main.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.codejoust.main.dto.game.GameDto;
+import com.codejoust.main.dto.game.GameUpdateDto;
+import com.codejoust.main.dto.game.PatchOperationDto;
+import com.codejoust.main.dto.game.PlayerDto;
+import com.codejoust.main.dto.room.RoomDto;
+import com.codejoust.main.dto.user.UserDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class GameDeltaEncoderTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private GameDeltaEncoder encoder;
+    private long version = 0;
+
+    @BeforeEach
+    public void setup() {
+        encoder = new GameDeltaEncoder(objectMapper, GameDeltaEncoder.DEFAULT_MAX_OPERATIONS,
+            GameDeltaEncoder.DEFAULT_IDLE_MILLIS, new SimpleMeterRegistry());
+    }
+
+    private GameDto createGameDto(String code) {
+        RoomDto roomDto = new RoomDto();
+        roomDto.setRoomId(TestFields.ROOM_ID);
+
+        UserDto userDto = new UserDto();
+        userDto.setUserId(TestFields.USER_ID);
+        userDto.setNickname(TestFields.NICKNAME);
+
+        PlayerDto playerDto = new PlayerDto();
+        playerDto.setUser(userDto);
+        playerDto.setCode(code);
+
+        GameDto gameDto = new GameDto();
+        gameDto.setRoom(roomDto);
+        gameDto.getPlayers().add(playerDto);
+        gameDto.setVersion(++version);
+        return gameDto;
+    }
+
+    private JsonNode toTree(GameDto gameDto) {
+        return objectMapper.valueToTree(gameDto);
+    }
+
+    @Test
+    public void firstUpdateIsCompleteThenPatches() {
+        GameDto first = createGameDto(TestFields.PYTHON_CODE);
+        GameUpdateDto update = encoder.encode(TestFields.ROOM_ID, first);
+        assertEquals(1, update.getSequence());
+        assertEquals(toTree(first), update.getGame());
+        assertNull(update.getPatch());
+
+        GameDto second = createGameDto("print('changed')");
+        update = encoder.encode(TestFields.ROOM_ID, second);
+        assertEquals(2, update.getSequence());
+        assertNull(update.getGame());
+        assertEquals(Collections.singletonList(new PatchOperationDto("replace", "/players/0/code",
+            objectMapper.valueToTree("print('changed')"))), update.getPatch());
+
+        assertEquals(toTree(second), GameDeltaEncoder.apply(toTree(first), update.getPatch()));
+    }
+
+    @Test
+    public void sameOrOlderStateIsNotSent() {
+        GameDto older = createGameDto(TestFields.PYTHON_CODE);
+        GameDto newer = createGameDto("print('newer')");
+        assertNotNull(encoder.encode(TestFields.ROOM_ID, newer));
+
+        // A state built before the one last sent would undo it.
+        assertNull(encoder.encode(TestFields.ROOM_ID, older));
+        assertNull(encoder.encode(TestFields.ROOM_ID, createGameDto("print('newer')")));
+
+        GameUpdateDto update = encoder.encode(TestFields.ROOM_ID, createGameDto("print('latest')"));
+        assertEquals(2, update.getSequence());
+    }
+
+    @Test
+    public void largePatchSendsCompleteGame() {
+        encoder = new GameDeltaEncoder(objectMapper, 1, GameDeltaEncoder.DEFAULT_IDLE_MILLIS, new SimpleMeterRegistry());
+        encoder.encode(TestFields.ROOM_ID, createGameDto(TestFields.PYTHON_CODE));
+
+        GameDto gameDto = createGameDto("print('changed')");
+        gameDto.setGameEnded(true);
+        GameUpdateDto update = encoder.encode(TestFields.ROOM_ID, gameDto);
+        assertEquals(2, update.getSequence());
+        assertEquals(toTree(gameDto), update.getGame());
+        assertNull(update.getPatch());
+    }
+
+    @Test
+    public void lastSentStateHasSequence() {
+        assertNull(encoder.getLastSent(TestFields.ROOM_ID));
+
+        GameDto gameDto = createGameDto(TestFields.PYTHON_CODE);
+        encoder.encode(TestFields.ROOM_ID, gameDto);
+        encoder.encode(TestFields.ROOM_ID, createGameDto(TestFields.PYTHON_CODE));
+
+        GameDto sentDto = encoder.getLastSent(TestFields.ROOM_ID);
+        assertNotSame(gameDto, sentDto);
+        assertEquals(gameDto, sentDto);
+        assertEquals(1L, sentDto.getSequence());
+        assertNull(gameDto.getSequence());
+    }
+
+    @Test
+    public void idleRoomsAreForgotten() {
+        encoder = new GameDeltaEncoder(objectMapper, GameDeltaEncoder.DEFAULT_MAX_OPERATIONS, 0, new SimpleMeterRegistry());
+        encoder.encode(TestFields.ROOM_ID, createGameDto(TestFields.PYTHON_CODE));
+        encoder.removeIdleRooms();
+        assertEquals(0, encoder.getRoomCount());
+
+        // The next update is the complete game, restarting the sequence.
+        GameUpdateDto update = encoder.encode(TestFields.ROOM_ID, createGameDto(TestFields.PYTHON_CODE));
+        assertEquals(1, update.getSequence());
+        assertNotNull(update.getGame());
+    }
+
+    @Test
+    public void forgottenRoomsAreSentCompleteGame() {
+        encoder.encode(TestFields.ROOM_ID, createGameDto(TestFields.PYTHON_CODE));
+        encoder.forget(TestFields.ROOM_ID);
+        assertEquals(0, encoder.getRoomCount());
+        assertNull(encoder.getLastSent(TestFields.ROOM_ID));
+
+        GameUpdateDto update = encoder.encode(TestFields.ROOM_ID, createGameDto(TestFields.PYTHON_CODE));
+        assertEquals(1, update.getSequence());
+        assertNotNull(update.getGame());
+    }
+
+    @Test
+    public void diffAndApplyRoundTrip() throws Exception {
+        JsonNode source = objectMapper.readTree(
+            "{\"a/b\": 1, \"c~d\": [1, 2, 3], \"e\": {\"f\": true}, \"g\": [1], \"h\": \"removed\"}");
+        JsonNode target = objectMapper.readTree(
+            "{\"a/b\": 2, \"c~d\": [1], \"e\": {\"f\": true, \"i\": null}, \"g\": [1, {\"j\": 2}, 3], \"k\": []}");
+
+        List<PatchOperationDto> patch = GameDeltaEncoder.diff(source, target);
+        assertEquals(target, GameDeltaEncoder.apply(source, patch));
+        assertEquals(new PatchOperationDto("replace", "/a~1b", objectMapper.valueToTree(2)), patch.get(1));
+        assertEquals(new PatchOperationDto("remove", "/c~0d/2", null), patch.get(2));
+
+        assertEquals(Collections.emptyList(), GameDeltaEncoder.diff(source, source.deepCopy()));
+    }
+}
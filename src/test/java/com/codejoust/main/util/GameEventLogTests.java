@@ -0,0 +1,156 @@
+package com.codejoust.main.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.codejoust.main.dto.game.GameEventDto;
+import com.codejoust.main.dto.game.GameEventType;
+import com.codejoust.main.game_object.PlayerCode;
+import com.codejoust.main.game_object.Submission;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GameEventLogTests {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path directory;
+
+    private GameEventDto createEvent(String code) {
+        GameEventDto event = new GameEventDto();
+        event.setGameId(TestFields.GAME_ID);
+        event.setRoomId(TestFields.ROOM_ID);
+        event.setType(GameEventType.CODE_UPDATED);
+        event.setTime(Instant.now());
+        event.setUserId(TestFields.USER_ID);
+        event.setCode(code);
+        event.setLanguage(TestFields.PYTHON_LANGUAGE);
+        return event;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void appendAndReadAll() {
+        GameEventLog gameEventLog = new GameEventLog(true, directory.toString(), SEGMENT_BYTES, 4);
+
+        GameEventDto codeEvent = createEvent(TestFields.PYTHON_CODE);
+        gameEventLog.append(codeEvent);
+
+        Submission submission = new Submission();
+        submission.setPlayerCode(TestFields.PLAYER_CODE);
+        submission.setNumCorrect(1);
+        submission.setNumTestCases(1);
+        GameEventDto submissionEvent = createEvent(null);
+        submissionEvent.setType(GameEventType.SUBMISSION);
+        submissionEvent.setSubmission(submission);
+        gameEventLog.append(submissionEvent);
+
+        List<GameEventDto> events = gameEventLog.readAll();
+        assertEquals(2, events.size());
+        assertEquals(codeEvent, events.get(0));
+        assertEquals(submissionEvent, events.get(1));
+        assertEquals(1, events.get(0).getSequence());
+        assertEquals(2, events.get(1).getSequence());
+
+        PlayerCode playerCode = events.get(1).getSubmission().getPlayerCode();
+        assertEquals(TestFields.PLAYER_CODE, playerCode);
+        gameEventLog.close();
+    }
+
+    @Test
+    public void disabledLogRecordsNothing() throws IOException {
+        GameEventLog gameEventLog = new GameEventLog(false, directory.toString(), SEGMENT_BYTES, 4);
+
+        gameEventLog.append(createEvent(TestFields.PYTHON_CODE));
+        assertTrue(gameEventLog.readAll().isEmpty());
+        assertTrue(listSegments().isEmpty());
+    }
+
+    @Test
+    public void reopenResumesAfterLastEvent() {
+        GameEventLog gameEventLog = new GameEventLog(true, directory.toString(), SEGMENT_BYTES, 4);
+        gameEventLog.append(createEvent("first"));
+        gameEventLog.append(createEvent("second"));
+        gameEventLog.close();
+
+        GameEventLog reopened = new GameEventLog(true, directory.toString(), SEGMENT_BYTES, 4);
+        GameEventDto event = createEvent("third");
+        reopened.append(event);
+        assertEquals(3, event.getSequence());
+
+        List<GameEventDto> events = reopened.readAll();
+        assertEquals(3, events.size());
+        assertEquals("first", events.get(0).getCode());
+        assertEquals("third", events.get(2).getCode());
+        reopened.close();
+    }
+
+    @Test
+    public void rollsOverAndDeletesOldestSegments() throws IOException {
+        GameEventLog gameEventLog = new GameEventLog(true, directory.toString(), SEGMENT_BYTES, 2);
+
+        // Each event takes about a third of a segment.
+        String code = "x".repeat(SEGMENT_BYTES / 3);
+        for (int i = 0; i < 10; i++) {
+            gameEventLog.append(createEvent(code));
+        }
+
+        assertEquals(2, listSegments().size());
+
+        // Only the events in the remaining segments are read, in order.
+        List<GameEventDto> events = gameEventLog.readAll();
+        assertTrue(events.size() >= 2 && events.size() < 10);
+        assertEquals(10, events.get(events.size() - 1).getSequence());
+        for (int i = 1; i < events.size(); i++) {
+            assertEquals(events.get(i - 1).getSequence() + 1, events.get(i).getSequence());
+        }
+        gameEventLog.close();
+    }
+
+    @Test
+    public void tornRecordIsDroppedAndOverwritten() throws IOException {
+        GameEventLog gameEventLog = new GameEventLog(true, directory.toString(), SEGMENT_BYTES, 4);
+        gameEventLog.append(createEvent("first"));
+        gameEventLog.append(createEvent("second"));
+        gameEventLog.close();
+
+        // Corrupt the last byte of the second record, as if the write was cut short.
+        try (RandomAccessFile file = new RandomAccessFile(listSegments().get(0).toFile(), "rw")) {
+            long position = 0;
+            for (int i = 0; i < 2; i++) {
+                file.seek(position + 8);
+                position += GameEventLog.HEADER_BYTES + file.readInt();
+            }
+            file.seek(position - 1);
+            file.write('#');
+        }
+
+        GameEventLog reopened = new GameEventLog(true, directory.toString(), SEGMENT_BYTES, 4);
+        assertEquals(1, reopened.readAll().size());
+
+        GameEventDto event = createEvent("third");
+        reopened.append(event);
+        assertEquals(2, event.getSequence());
+
+        List<GameEventDto> events = reopened.readAll();
+        assertEquals(2, events.size());
+        assertEquals("third", events.get(1).getCode());
+        reopened.close();
+    }
+}
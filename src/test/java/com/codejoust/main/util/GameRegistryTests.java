@@ -0,0 +1,126 @@
+package com.codejoust.main.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.codejoust.main.game_object.Game;
+
+import org.junit.jupiter.api.Test;
+
+public class GameRegistryTests {
+
+    private static final String ROOM_ID_2 = "678910";
+
+    @Test
+    public void putGetAndRemove() {
+        GameRegistry registry = new GameRegistry();
+        Game game = new Game();
+
+        assertNull(registry.get(TestFields.ROOM_ID));
+        assertNull(registry.put(TestFields.ROOM_ID, game));
+        assertSame(game, registry.get(TestFields.ROOM_ID));
+        assertTrue(registry.contains(TestFields.ROOM_ID));
+        assertEquals(1, registry.size());
+
+        // Replacing returns the previous game.
+        Game game2 = new Game();
+        assertSame(game, registry.put(TestFields.ROOM_ID, game2));
+        assertSame(game2, registry.remove(TestFields.ROOM_ID));
+        assertNull(registry.get(TestFields.ROOM_ID));
+        assertNull(registry.get(null));
+    }
+
+    @Test
+    public void conditionalReplaceAndRemove() {
+        GameRegistry registry = new GameRegistry();
+        Game game = new Game();
+        Game stale = new Game();
+        Game replacement = new Game();
+        registry.put(TestFields.ROOM_ID, game);
+
+        // Operations against a stale instance do nothing.
+        assertFalse(registry.replace(TestFields.ROOM_ID, stale, replacement));
+        assertFalse(registry.remove(TestFields.ROOM_ID, stale));
+        assertSame(game, registry.get(TestFields.ROOM_ID));
+
+        assertTrue(registry.replace(TestFields.ROOM_ID, game, replacement));
+        assertTrue(registry.remove(TestFields.ROOM_ID, replacement));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void createIfAbsentOnlyCreatesOnce() {
+        GameRegistry registry = new GameRegistry();
+        Game game = new Game();
+
+        assertSame(game, registry.createIfAbsent(TestFields.ROOM_ID, () -> game));
+        assertSame(game, registry.createIfAbsent(TestFields.ROOM_ID, Game::new));
+    }
+
+    @Test
+    public void iterationApi() {
+        GameRegistry registry = new GameRegistry();
+        registry.put(TestFields.ROOM_ID, new Game());
+        registry.put(ROOM_ID_2, new Game());
+
+        assertEquals(2, registry.getGames().size());
+        assertTrue(registry.getRoomIds().contains(TestFields.ROOM_ID));
+        assertTrue(registry.getRoomIds().contains(ROOM_ID_2));
+        assertThrows(UnsupportedOperationException.class, () -> registry.getGames().clear());
+
+        AtomicInteger count = new AtomicInteger();
+        registry.forEach((roomId, game) -> count.incrementAndGet());
+        assertEquals(2, count.get());
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new GameRegistry(3));
+        assertThrows(IllegalArgumentException.class, () -> new GameRegistry().put(null, new Game()));
+    }
+
+    @Test
+    public void concurrentCreateIfAbsentCreatesExactlyOneGame() throws Exception {
+        GameRegistry registry = new GameRegistry(4);
+        int numRooms = 300;
+        int threadsPerRoom = 8;
+
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < numRooms * threadsPerRoom; i++) {
+            String roomId = String.valueOf(i % numRooms);
+            futures.add(executor.submit(() -> {
+                start.await();
+                return registry.createIfAbsent(roomId, () -> {
+                    created.incrementAndGet();
+                    return new Game();
+                });
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(numRooms, created.get());
+        assertEquals(numRooms, registry.size());
+    }
+}
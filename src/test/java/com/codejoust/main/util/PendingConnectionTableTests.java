@@ -0,0 +1,52 @@
+package com.codejoust.main.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.codejoust.main.util.PendingConnectionTable.PendingConnection;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+public class PendingConnectionTableTests {
+
+    @Test
+    public void takeReturnsLatestConnection() {
+        PendingConnectionTable table = new PendingConnectionTable(PendingConnectionTable.DEFAULT_TTL_MILLIS,
+            new SimpleMeterRegistry());
+        PendingConnection first = table.add(TestFields.USER_ID, TestFields.SESSION_ID);
+        table.add(TestFields.USER_ID, TestFields.SESSION_ID_2);
+
+        // A connection replaced can no longer be removed in place of the latest.
+        assertFalse(table.remove(TestFields.USER_ID, first));
+        assertEquals(TestFields.SESSION_ID_2, table.take(TestFields.USER_ID).getSessionId());
+        assertNull(table.take(TestFields.USER_ID));
+    }
+
+    @Test
+    public void removeOnlyOnce() {
+        PendingConnectionTable table = new PendingConnectionTable(PendingConnectionTable.DEFAULT_TTL_MILLIS,
+            new SimpleMeterRegistry());
+        PendingConnection connection = table.add(TestFields.USER_ID, TestFields.SESSION_ID);
+
+        assertTrue(table.remove(TestFields.USER_ID, connection));
+        assertFalse(table.remove(TestFields.USER_ID, connection));
+        assertNull(table.take(TestFields.USER_ID));
+    }
+
+    @Test
+    public void disconnectedAndExpiredConnectionsDropped() {
+        PendingConnectionTable table = new PendingConnectionTable(PendingConnectionTable.DEFAULT_TTL_MILLIS,
+            new SimpleMeterRegistry());
+        table.add(TestFields.USER_ID, TestFields.SESSION_ID);
+        table.removeSession(TestFields.SESSION_ID);
+        assertEquals(0, table.size());
+
+        table = new PendingConnectionTable(0, new SimpleMeterRegistry());
+        table.add(TestFields.USER_ID, TestFields.SESSION_ID);
+        table.expire();
+        assertEquals(0, table.size());
+    }
+}
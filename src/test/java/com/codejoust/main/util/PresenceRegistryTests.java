@@ -0,0 +1,131 @@
+package com.codejoust.main.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.codejoust.main.model.Room;
+import com.codejoust.main.model.User;
+import com.codejoust.main.socket.UserDisconnectedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+
+public class PresenceRegistryTests {
+
+    private static final long GRACE_MILLIS = 200;
+
+    private TimingWheel timingWheel;
+    private ApplicationEventPublisher eventPublisher;
+    private PresenceRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        timingWheel = new TimingWheel(10, 64, 1);
+        eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+        registry = new PresenceRegistry(timingWheel, eventPublisher, GRACE_MILLIS, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    public void teardown() {
+        timingWheel.stop();
+    }
+
+    private User createUser(Integer id, String userId) {
+        Room room = new Room();
+        room.setRoomId(TestFields.ROOM_ID);
+
+        User user = new User();
+        user.setId(id);
+        user.setUserId(userId);
+        user.setRoom(room);
+        return user;
+    }
+
+    @Test
+    public void reconnectWithinGracePeriodIsNotADisconnect() {
+        User user = createUser(1, TestFields.USER_ID);
+        registry.connect(user, TestFields.SESSION_ID);
+        assertEquals(TestFields.SESSION_ID, registry.getSessionId(user));
+
+        // The user is still shown as connected while they may come back.
+        registry.disconnect(TestFields.SESSION_ID);
+        assertEquals(TestFields.SESSION_ID, registry.getSessionId(user));
+
+        assertTrue(registry.reconnect(user, TestFields.SESSION_ID_2));
+        assertEquals(TestFields.SESSION_ID_2, registry.getSessionId(user));
+        verify(eventPublisher, after(GRACE_MILLIS * 3).never()).publishEvent(Mockito.any(Object.class));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void disconnectTakesEffectAfterGracePeriod() {
+        User user = createUser(1, TestFields.USER_ID);
+        registry.connect(user, TestFields.SESSION_ID);
+        registry.disconnect(TestFields.SESSION_ID);
+
+        ArgumentCaptor<UserDisconnectedEvent> captor = ArgumentCaptor.forClass(UserDisconnectedEvent.class);
+        verify(eventPublisher, timeout(GRACE_MILLIS * 10)).publishEvent(captor.capture());
+        assertEquals(1, captor.getValue().getId());
+        assertEquals(TestFields.ROOM_ID, captor.getValue().getRoomId());
+
+        assertNull(registry.getSessionId(user));
+        assertFalse(registry.reconnect(user, TestFields.SESSION_ID_2));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void disconnectOfReplacedSessionIgnored() {
+        User user = createUser(1, TestFields.USER_ID);
+        registry.connect(user, TestFields.SESSION_ID);
+        registry.connect(user, TestFields.SESSION_ID_2);
+
+        // The first connection closing after the second opened changes nothing.
+        registry.disconnect(TestFields.SESSION_ID);
+        verify(eventPublisher, after(GRACE_MILLIS * 3).never()).publishEvent(Mockito.any(Object.class));
+        assertEquals(TestFields.SESSION_ID_2, registry.getSessionId(user));
+    }
+
+    @Test
+    public void userSavedAgainIsNotConnected() {
+        registry.connect(createUser(1, TestFields.USER_ID), TestFields.SESSION_ID);
+
+        // A new user with the same user ID isn't connected through the old session.
+        User user = createUser(2, TestFields.USER_ID);
+        assertNull(registry.getSessionId(user));
+        assertFalse(registry.reconnect(user, TestFields.SESSION_ID_2));
+    }
+
+    @Test
+    public void removeRoomForgetsUsersWithoutEvents() {
+        User user = createUser(1, TestFields.USER_ID);
+        registry.connect(user, TestFields.SESSION_ID);
+        registry.disconnect(TestFields.SESSION_ID);
+
+        registry.removeRoom(TestFields.ROOM_ID);
+        assertNull(registry.getSessionId(user));
+        assertEquals(0, registry.size());
+        verify(eventPublisher, after(GRACE_MILLIS * 3).never()).publishEvent(Mockito.any(Object.class));
+    }
+
+    @Test
+    public void zeroGracePeriodDisconnectsAtOnce() {
+        registry = new PresenceRegistry(timingWheel, eventPublisher, 0, new SimpleMeterRegistry());
+        User user = createUser(1, TestFields.USER_ID);
+        registry.connect(user, TestFields.SESSION_ID);
+
+        registry.disconnect(TestFields.SESSION_ID);
+        verify(eventPublisher).publishEvent(Mockito.any(UserDisconnectedEvent.class));
+        assertNull(registry.getSessionId(user));
+    }
+}
@@ -0,0 +1,108 @@
+package com.codejoust.main.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.codejoust.main.exception.GameError;
+import com.codejoust.main.exception.api.ApiException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RoomMailboxTests {
+
+    private GameEventLoop eventLoop;
+
+    @BeforeEach
+    public void setup() {
+        eventLoop = new GameEventLoop(4);
+    }
+
+    @AfterEach
+    public void teardown() {
+        eventLoop.shutdown();
+    }
+
+    @Test
+    public void tasksAreAppliedInOrder() {
+        RoomMailbox mailbox = eventLoop.newMailbox();
+        List<Integer> applied = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            int value = i;
+            mailbox.execute(() -> applied.add(value));
+        }
+
+        // A blocking call is applied after everything enqueued before it.
+        int size = mailbox.call(applied::size);
+        assertEquals(1000, size);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, applied.get(i));
+        }
+    }
+
+    @Test
+    public void exceptionsArePropagatedToCaller() {
+        RoomMailbox mailbox = eventLoop.newMailbox();
+
+        ApiException exception = assertThrows(ApiException.class, () -> mailbox.run(() -> {
+            throw new ApiException(GameError.NOT_FOUND);
+        }));
+        assertEquals(GameError.NOT_FOUND, exception.getError());
+
+        // The mailbox keeps working after a failed task.
+        assertEquals("ok", mailbox.call(() -> "ok"));
+    }
+
+    @Test
+    public void reentrantCallRunsInline() {
+        RoomMailbox mailbox = eventLoop.newMailbox();
+
+        // Would deadlock if the nested call waited on the queue.
+        int result = mailbox.call(() -> mailbox.call(() -> 1) + 1);
+        assertEquals(2, result);
+
+        RoomMailbox inline = RoomMailbox.inline();
+        assertEquals(2, (int) inline.call(() -> inline.call(() -> 1) + 1));
+    }
+
+    @Test
+    public void concurrentTasksOnOneMailboxNeverOverlap() throws Exception {
+        RoomMailbox mailbox = eventLoop.newMailbox();
+        List<Integer> applied = Collections.synchronizedList(new ArrayList<>());
+        int[] counter = new int[1];
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    // Unsynchronized increment, safe only if tasks never overlap.
+                    mailbox.run(() -> applied.add(++counter[0]));
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(16 * 500, (int) mailbox.call(() -> counter[0]));
+        assertEquals(16 * 500, applied.size());
+    }
+}
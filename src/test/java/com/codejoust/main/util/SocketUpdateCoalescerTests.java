@@ -0,0 +1,124 @@
+package com.codejoust.main.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SocketUpdateCoalescerTests {
+
+    private static final long INTERVAL_MILLIS = 200;
+    private static final String DESTINATION = "/api/v1/socket/012345/subscribe-game";
+    private static final String DESTINATION_2 = "/api/v1/socket/678910/subscribe-game";
+
+    private SimpMessagingTemplate template;
+    private SocketUpdateCoalescer coalescer;
+
+    @BeforeEach
+    public void setup() {
+        template = Mockito.mock(SimpMessagingTemplate.class);
+        coalescer = new SocketUpdateCoalescer(template, INTERVAL_MILLIS, 1, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    public void teardown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    public void burstSendsFirstAndLatest() {
+        coalescer.send(DESTINATION, () -> "first");
+        coalescer.send(DESTINATION, () -> "second");
+        coalescer.send(DESTINATION, () -> "third");
+
+        // The first update is sent at once; the rest wait for the interval.
+        verify(template).convertAndSend(eq(DESTINATION), eq((Object) "first"));
+        verify(template, never()).convertAndSend(eq(DESTINATION), eq((Object) "third"));
+
+        // Only the latest held update is sent at the end of the interval.
+        verify(template, timeout(INTERVAL_MILLIS * 5)).convertAndSend(eq(DESTINATION), eq((Object) "third"));
+        verify(template, after(INTERVAL_MILLIS * 2).never()).convertAndSend(eq(DESTINATION), eq((Object) "second"));
+
+        assertEquals(2, coalescer.getSentCount());
+        assertEquals(1, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void destinationsAreIndependent() {
+        coalescer.send(DESTINATION, () -> "first");
+        coalescer.send(DESTINATION_2, () -> "other");
+
+        verify(template).convertAndSend(eq(DESTINATION), eq((Object) "first"));
+        verify(template).convertAndSend(eq(DESTINATION_2), eq((Object) "other"));
+    }
+
+    @Test
+    public void quietDestinationSendsAtOnceAgain() throws InterruptedException {
+        coalescer.send(DESTINATION, () -> "first");
+
+        // Once an interval passes without updates, the next one is not held.
+        Thread.sleep(INTERVAL_MILLIS * 3);
+        coalescer.send(DESTINATION, () -> "second");
+        verify(template).convertAndSend(eq(DESTINATION), eq((Object) "second"));
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void flushSendsAtOnceAndDropsHeldUpdate() {
+        coalescer.send(DESTINATION, () -> "first");
+        coalescer.send(DESTINATION, () -> "second");
+        coalescer.flush(DESTINATION, () -> "final");
+
+        verify(template).convertAndSend(eq(DESTINATION), eq((Object) "final"));
+        verify(template, after(INTERVAL_MILLIS * 3).never()).convertAndSend(eq(DESTINATION), eq((Object) "second"));
+        verify(template, times(2)).convertAndSend(eq(DESTINATION), Mockito.any(Object.class));
+        assertEquals(1, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void sendNowKeepsHeldUpdate() {
+        coalescer.send(DESTINATION, () -> "first");
+        coalescer.send(DESTINATION, () -> "second");
+        coalescer.sendNow(DESTINATION, () -> "now");
+
+        verify(template).convertAndSend(eq(DESTINATION), eq((Object) "now"));
+        verify(template, timeout(INTERVAL_MILLIS * 5)).convertAndSend(eq(DESTINATION), eq((Object) "second"));
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    public void replacedPayloadIsNeverBuiltAndNullIsNotSent() {
+        AtomicInteger built = new AtomicInteger();
+        coalescer.send(DESTINATION, () -> null);
+        coalescer.send(DESTINATION, () -> built.incrementAndGet());
+        coalescer.send(DESTINATION, () -> "latest");
+
+        verify(template, timeout(INTERVAL_MILLIS * 5)).convertAndSend(eq(DESTINATION), eq((Object) "latest"));
+        verify(template, times(1)).convertAndSend(eq(DESTINATION), Mockito.any(Object.class));
+        assertEquals(0, built.get());
+        assertEquals(1, coalescer.getSentCount());
+    }
+
+    @Test
+    public void zeroIntervalSendsEveryUpdate() {
+        coalescer.shutdown();
+        coalescer = new SocketUpdateCoalescer(template, 0, 1, new SimpleMeterRegistry());
+
+        coalescer.send(DESTINATION, () -> "first");
+        coalescer.send(DESTINATION, () -> "second");
+        verify(template, times(2)).convertAndSend(eq(DESTINATION), Mockito.any(Object.class));
+    }
+}
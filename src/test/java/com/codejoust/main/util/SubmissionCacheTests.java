@@ -0,0 +1,190 @@
+package com.codejoust.main.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.codejoust.main.dto.game.TesterRequest;
+import com.codejoust.main.dto.game.TesterResponse;
+import com.codejoust.main.dto.game.TesterResult;
+import com.codejoust.main.dto.problem.ProblemDto;
+import com.codejoust.main.dto.problem.ProblemTestCaseDto;
+import com.codejoust.main.model.report.CodeLanguage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SubmissionCacheTests {
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private ProblemDto createProblem(String output) {
+        ProblemTestCaseDto testCase = new ProblemTestCaseDto();
+        testCase.setInput(TestFields.INPUT);
+        testCase.setOutput(output);
+
+        ProblemDto problem = new ProblemDto();
+        problem.setTestCases(Collections.singletonList(testCase));
+        return problem;
+    }
+
+    private TesterRequest createRequest(String code, CodeLanguage language, ProblemDto problem) {
+        TesterRequest request = new TesterRequest();
+        request.setCode(code);
+        request.setLanguage(language);
+        request.setProblem(problem);
+        return request;
+    }
+
+    private TesterResponse createResponse(String userOutput) {
+        TesterResult result = new TesterResult();
+        result.setUserOutput(userOutput);
+
+        TesterResponse response = new TesterResponse();
+        response.setResults(new ArrayList<>(Collections.singletonList(result)));
+        return response;
+    }
+
+    private double count(String result) {
+        return meterRegistry.get(SubmissionCache.REQUESTS_COUNTER).tag("result", result).counter().count();
+    }
+
+    @Test
+    public void getKeyUsesExactCode() {
+        ProblemDto problem = createProblem(TestFields.OUTPUT);
+        String key = SubmissionCache.getKey(createRequest("x = 1\nprint(x)\n", CodeLanguage.PYTHON, problem));
+        assertEquals(key, SubmissionCache.getKey(createRequest("x = 1\nprint(x)\n", CodeLanguage.PYTHON, problem)));
+
+        // Whitespace can change what a program does, e.g. after a line continuation.
+        assertNotEquals(SubmissionCache.getKey(createRequest("x = 1 + \\\n2\n", CodeLanguage.PYTHON, problem)),
+            SubmissionCache.getKey(createRequest("x = 1 + \\ \n2\n", CodeLanguage.PYTHON, problem)));
+        assertNotEquals(key, SubmissionCache.getKey(createRequest("x = 1  \nprint(x)\n", CodeLanguage.PYTHON, problem)));
+        assertNotEquals(key, SubmissionCache.getKey(createRequest("x = 1\r\nprint(x)\r\n", CodeLanguage.PYTHON, problem)));
+        assertNotEquals(key, SubmissionCache.getKey(createRequest("x = 1\nprint(x)\n\n", CodeLanguage.PYTHON, problem)));
+
+        // So do indentation, language and test cases.
+        assertNotEquals(key, SubmissionCache.getKey(createRequest("  x = 1\nprint(x)\n", CodeLanguage.PYTHON, problem)));
+        assertNotEquals(key, SubmissionCache.getKey(createRequest("x = 1\nprint(x)\n", CodeLanguage.JAVA, problem)));
+        assertNotEquals(key, SubmissionCache.getKey(createRequest("x = 1\nprint(x)\n", CodeLanguage.PYTHON,
+            createProblem(TestFields.OUTPUT_2))));
+    }
+
+    @Test
+    public void getKeyDependsOnFailFastAndTestCaseOrder() {
+        ProblemTestCaseDto testCase = createProblem(TestFields.OUTPUT).getTestCases().get(0);
+        ProblemTestCaseDto testCase2 = createProblem(TestFields.OUTPUT_2).getTestCases().get(0);
+        ProblemDto problem = new ProblemDto();
+        problem.setTestCases(List.of(testCase, testCase2));
+        ProblemDto reordered = new ProblemDto();
+        reordered.setTestCases(List.of(testCase2, testCase));
+
+        TesterRequest request = createRequest(TestFields.PYTHON_CODE, CodeLanguage.PYTHON, problem);
+        TesterRequest failFastRequest = createRequest(TestFields.PYTHON_CODE, CodeLanguage.PYTHON, problem);
+        failFastRequest.setFailFast(true);
+        String key = SubmissionCache.getKey(request);
+
+        // Responses come back in test case order, and fail-fast ones may be cut short.
+        assertNotEquals(key, SubmissionCache.getKey(failFastRequest));
+        assertNotEquals(key, SubmissionCache.getKey(createRequest(TestFields.PYTHON_CODE, CodeLanguage.PYTHON, reordered)));
+
+        // But they all belong to the same problem.
+        assertEquals(SubmissionCache.fingerprint(problem), SubmissionCache.fingerprint(reordered));
+    }
+
+    @Test
+    public void getAndPutRecordHitsAndMisses() {
+        SubmissionCache cache = new SubmissionCache(10, 1 << 20, meterRegistry);
+        TesterRequest request = createRequest(TestFields.PYTHON_CODE, CodeLanguage.PYTHON, createProblem(TestFields.OUTPUT));
+        TesterResponse response = createResponse(TestFields.OUTPUT);
+        String key = SubmissionCache.getKey(request);
+
+        assertNull(cache.get(key));
+        cache.put(key, request, response);
+        assertSame(response, cache.get(key));
+
+        assertEquals(1.0, count("hit"));
+        assertEquals(1.0, count("miss"));
+        assertEquals(1.0, meterRegistry.get(SubmissionCache.ENTRIES_GAUGE).gauge().value());
+    }
+
+    @Test
+    public void putEvictsLeastRecentlyUsed() {
+        SubmissionCache cache = new SubmissionCache(2, 1 << 20, meterRegistry);
+        ProblemDto problem = createProblem(TestFields.OUTPUT);
+
+        String[] keys = new String[3];
+        for (int i = 0; i < keys.length; i++) {
+            TesterRequest request = createRequest("print(" + i + ")", CodeLanguage.PYTHON, problem);
+            keys[i] = SubmissionCache.getKey(request);
+            cache.put(keys[i], request, createResponse(TestFields.OUTPUT));
+
+            // Keep the first entry recently used.
+            cache.get(keys[0]);
+        }
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get(keys[1]));
+        assertEquals(TestFields.OUTPUT, cache.get(keys[0]).getResults().get(0).getUserOutput());
+        assertEquals(TestFields.OUTPUT, cache.get(keys[2]).getResults().get(0).getUserOutput());
+    }
+
+    @Test
+    public void putEvictsOverByteLimit() {
+        SubmissionCache cache = new SubmissionCache(100, 10_000, meterRegistry);
+        ProblemDto problem = createProblem(TestFields.OUTPUT);
+        String largeOutput = String.join("", Collections.nCopies(2000, "x"));
+
+        for (int i = 0; i < 5; i++) {
+            TesterRequest request = createRequest("print(" + i + ")", CodeLanguage.PYTHON, problem);
+            cache.put(SubmissionCache.getKey(request), request, createResponse(largeOutput));
+        }
+
+        // Each entry takes over 4000 bytes, so only two fit.
+        assertEquals(2, cache.size());
+        assertTrue(cache.getBytes() <= 10_000);
+
+        // Responses too large to ever fit are not cached at all.
+        String hugeOutput = String.join("", Collections.nCopies(10_000, "x"));
+        TesterRequest request = createRequest("print('huge')", CodeLanguage.PYTHON, problem);
+        cache.put(SubmissionCache.getKey(request), request, createResponse(hugeOutput));
+        assertNull(cache.get(SubmissionCache.getKey(request)));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void invalidateDropsResponsesForProblem() {
+        SubmissionCache cache = new SubmissionCache(10, 1 << 20, meterRegistry);
+        ProblemDto problem = createProblem(TestFields.OUTPUT);
+        ProblemDto otherProblem = createProblem(TestFields.OUTPUT_2);
+
+        TesterRequest request = createRequest(TestFields.PYTHON_CODE, CodeLanguage.PYTHON, problem);
+        TesterRequest request2 = createRequest("System.out.println(1);", CodeLanguage.JAVA, problem);
+        TesterRequest otherRequest = createRequest(TestFields.PYTHON_CODE, CodeLanguage.PYTHON, otherProblem);
+        cache.put(SubmissionCache.getKey(request), request, createResponse(TestFields.OUTPUT));
+        cache.put(SubmissionCache.getKey(request2), request2, createResponse(TestFields.OUTPUT));
+        cache.put(SubmissionCache.getKey(otherRequest), otherRequest, createResponse(TestFields.OUTPUT_2));
+
+        assertEquals(2, cache.invalidate(createProblem(TestFields.OUTPUT)));
+        assertEquals(0, cache.invalidate(problem));
+
+        assertEquals(1, cache.size());
+        assertNull(cache.get(SubmissionCache.getKey(request)));
+        assertNull(cache.get(SubmissionCache.getKey(request2)));
+        assertEquals(TestFields.OUTPUT_2, cache.get(SubmissionCache.getKey(otherRequest))
+            .getResults().get(0).getUserOutput());
+    }
+}
@@ -0,0 +1,197 @@
+package com.codejoust.main.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.codejoust.main.dto.game.SubmissionType;
+import com.codejoust.main.exception.GameError;
+import com.codejoust.main.exception.api.ApiException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SubmissionDispatcherTests {
+
+    private static final String ROOM_ID = "012345";
+    private static final String ROOM_ID_2 = "678910";
+
+    private MeterRegistry meterRegistry;
+    private SubmissionDispatcher dispatcher;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void teardown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    // Occupy the dispatcher's only thread until the returned latch is released.
+    private CountDownLatch block() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        dispatcher.dispatch("blocker", "blocker", SubmissionType.SUBMIT, 1, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, null);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        return release;
+    }
+
+    private Runnable record(List<String> order, String name, CountDownLatch finished) {
+        return () -> {
+            order.add(name);
+            finished.countDown();
+        };
+    }
+
+    @Test
+    public void dispatchRunsOnDispatcherThread() throws Exception {
+        dispatcher = new SubmissionDispatcher(1, 1, 1, meterRegistry);
+        CountDownLatch latch = new CountDownLatch(1);
+        String[] threadName = new String[1];
+
+        dispatcher.dispatch(ROOM_ID, TestFields.USER_ID, SubmissionType.TEST, 1, () -> {
+            threadName[0] = Thread.currentThread().getName();
+            latch.countDown();
+        }, null);
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertTrue(threadName[0].startsWith(SubmissionDispatcher.THREAD_PREFIX));
+    }
+
+    @Test
+    public void dispatchRejectsWhenQueueFull() throws Exception {
+        dispatcher = new SubmissionDispatcher(1, 1, 1, meterRegistry);
+        CountDownLatch release = block();
+        CountDownLatch finished = new CountDownLatch(1);
+
+        dispatcher.dispatch(ROOM_ID, TestFields.USER_ID, SubmissionType.TEST, 1, finished::countDown, null);
+        assertEquals(1, dispatcher.getQueuedCount());
+
+        ApiException exception = assertThrows(ApiException.class, () -> dispatcher.dispatch(ROOM_ID,
+            TestFields.USER_ID, SubmissionType.TEST, 1, () -> {}, null));
+        assertEquals(GameError.SUBMISSION_QUEUE_FULL, exception.getError());
+        assertEquals(1.0, meterRegistry.get(SubmissionDispatcher.REJECTED_COUNTER).counter().count());
+
+        // Queued submissions still run once the thread frees up.
+        release.countDown();
+        assertTrue(finished.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void dispatchServesSubmissionsBeforeCodeRuns() throws Exception {
+        dispatcher = new SubmissionDispatcher(1, 16, 1, meterRegistry);
+        CountDownLatch release = block();
+        CountDownLatch finished = new CountDownLatch(3);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        assertEquals(1, dispatcher.dispatch(ROOM_ID, TestFields.USER_ID, SubmissionType.TEST, 1,
+            record(order, "test", finished), null));
+        assertEquals(2, dispatcher.dispatch(ROOM_ID, TestFields.USER_ID_2, SubmissionType.TEST, 1,
+            record(order, "test2", finished), null));
+        assertEquals(1, dispatcher.dispatch(ROOM_ID_2, TestFields.USER_ID_3, SubmissionType.SUBMIT, 1,
+            record(order, "submit", finished), null));
+        assertEquals(1, dispatcher.getQueuedCount(SubmissionType.SUBMIT));
+        assertEquals(2, dispatcher.getQueuedCount(SubmissionType.TEST));
+
+        release.countDown();
+        assertTrue(finished.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of("submit", "test", "test2"), order);
+        assertEquals(2, meterRegistry.get(SubmissionDispatcher.WAIT_TIMER).tag("type", "test").timer().count());
+    }
+
+    @Test
+    public void dispatchSharesThreadsFairlyBetweenRooms() throws Exception {
+        dispatcher = new SubmissionDispatcher(1, 16, 1, meterRegistry);
+        CountDownLatch release = block();
+        CountDownLatch finished = new CountDownLatch(6);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        // The first room queues up a backlog before the others make any requests.
+        for (int i = 1; i <= 4; i++) {
+            dispatcher.dispatch(ROOM_ID, "a" + i, SubmissionType.TEST, 1, record(order, "a" + i, finished), null);
+        }
+        // The second room has twice the weight, so gets two turns for every one of the first's.
+        dispatcher.dispatch(ROOM_ID_2, "b1", SubmissionType.TEST, 2, record(order, "b1", finished), null);
+        dispatcher.dispatch(ROOM_ID_2, "b2", SubmissionType.TEST, 2, record(order, "b2", finished), null);
+
+        release.countDown();
+        assertTrue(finished.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of("b1", "a1", "b2", "a2", "a3", "a4"), order);
+    }
+
+    @Test
+    public void dispatchLimitsRequestsRunningPerPlayer() throws Exception {
+        dispatcher = new SubmissionDispatcher(2, 16, 1, meterRegistry);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch secondStarted = new CountDownLatch(1);
+        CountDownLatch otherStarted = new CountDownLatch(1);
+
+        dispatcher.dispatch(ROOM_ID, TestFields.USER_ID, SubmissionType.SUBMIT, 1, () -> {
+            firstStarted.countDown();
+            try {
+                releaseFirst.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, null);
+        assertTrue(firstStarted.await(1, TimeUnit.SECONDS));
+
+        dispatcher.dispatch(ROOM_ID, TestFields.USER_ID, SubmissionType.SUBMIT, 1, secondStarted::countDown, null);
+        dispatcher.dispatch(ROOM_ID, TestFields.USER_ID_2, SubmissionType.TEST, 1, otherStarted::countDown, null);
+
+        // The free thread skips the busy player's request in favor of the other player's.
+        assertTrue(otherStarted.await(1, TimeUnit.SECONDS));
+        assertFalse(secondStarted.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, dispatcher.getQueuedCount());
+
+        releaseFirst.countDown();
+        assertTrue(secondStarted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void publishPositionsReportsMovedRequests() throws Exception {
+        dispatcher = new SubmissionDispatcher(1, 16, 1, meterRegistry);
+        CountDownLatch release = block();
+        CountDownLatch finished = new CountDownLatch(2);
+        List<Integer> positions = Collections.synchronizedList(new ArrayList<>());
+
+        assertEquals(1, dispatcher.dispatch(ROOM_ID, TestFields.USER_ID, SubmissionType.TEST, 1,
+            finished::countDown, positions::add));
+        dispatcher.publishPositions();
+        assertEquals(Collections.emptyList(), positions);
+
+        // A submission jumps ahead of the code run.
+        dispatcher.dispatch(ROOM_ID, TestFields.USER_ID_2, SubmissionType.SUBMIT, 1, finished::countDown, null);
+        dispatcher.publishPositions();
+        dispatcher.publishPositions();
+        assertEquals(List.of(2), positions);
+
+        release.countDown();
+        assertTrue(finished.await(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,172 @@
+package com.codejoust.main.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codejoust.main.dto.game.SubmissionType;
+import com.codejoust.main.exception.GameError;
+import com.codejoust.main.exception.api.ApiException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SubmissionRateLimiterTests {
+
+    private static final String ROOM_ID_2 = "678910";
+    private static final String ROOM_ID_3 = "024681";
+    private static final String ROOM_ID_4 = "135791";
+
+    private AtomicLong now;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        now = new AtomicLong();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private void assertThrottled(SubmissionRateLimiter limiter, String roomId, String userId, SubmissionType type) {
+        ApiException exception = assertThrows(ApiException.class, () -> limiter.acquire(roomId, userId, type));
+        assertEquals(GameError.TOO_MANY_SUBMISSIONS, exception.getError());
+    }
+
+    private double throttled(SubmissionType type, String scope) {
+        return meterRegistry.get(SubmissionRateLimiter.THROTTLED_COUNTER)
+            .tag("type", type.name().toLowerCase()).tag("scope", scope).counter().count();
+    }
+
+    @Test
+    public void acquireAllowsBurstThenRefills() {
+        // Code runs: 60 per minute (one a second), bursts of 3. Submissions unlimited.
+        SubmissionRateLimiter limiter = new SubmissionRateLimiter(60, 3, 0, 0, 0, 0, 0, 0, now::get, meterRegistry);
+
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire(TestFields.ROOM_ID, TestFields.USER_ID, SubmissionType.TEST);
+        }
+        assertThrottled(limiter, TestFields.ROOM_ID, TestFields.USER_ID, SubmissionType.TEST);
+
+        // Other players and request types have their own buckets.
+        limiter.acquire(TestFields.ROOM_ID, TestFields.USER_ID_2, SubmissionType.TEST);
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(TestFields.ROOM_ID, TestFields.USER_ID, SubmissionType.SUBMIT);
+        }
+
+        // One token comes back every second.
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertThrottled(limiter, TestFields.ROOM_ID, TestFields.USER_ID, SubmissionType.TEST);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        limiter.acquire(TestFields.ROOM_ID, TestFields.USER_ID, SubmissionType.TEST);
+        assertThrottled(limiter, TestFields.ROOM_ID, TestFields.USER_ID, SubmissionType.TEST);
+
+        assertEquals(3.0, throttled(SubmissionType.TEST, "player"));
+    }
+
+    @Test
+    public void acquireReturnsPlayerTokenWhenRoomThrottled() {
+        // Submissions: players get 2 at once, the room only 1.
+        SubmissionRateLimiter limiter = new SubmissionRateLimiter(0, 0, 0, 0, 60, 2, 60, 1, now::get, meterRegistry);
+
+        limiter.acquire(TestFields.ROOM_ID, TestFields.USER_ID, SubmissionType.SUBMIT);
+        assertThrottled(limiter, TestFields.ROOM_ID, TestFields.USER_ID_2, SubmissionType.SUBMIT);
+        assertEquals(1.0, throttled(SubmissionType.SUBMIT, "room"));
+
+        // The second player's token was not spent, so they still have both.
+        limiter.acquire(ROOM_ID_2, TestFields.USER_ID_2, SubmissionType.SUBMIT);
+        limiter.acquire(ROOM_ID_3, TestFields.USER_ID_2, SubmissionType.SUBMIT);
+        assertEquals(0.0, throttled(SubmissionType.SUBMIT, "player"));
+        assertThrottled(limiter, ROOM_ID_4, TestFields.USER_ID_2, SubmissionType.SUBMIT);
+    }
+
+    @Test
+    public void evictFullBucketsDropsRefilledBuckets() {
+        SubmissionRateLimiter limiter = new SubmissionRateLimiter(60, 5, 60, 5, 0, 0, 0, 0, now::get, meterRegistry);
+
+        limiter.acquire(TestFields.ROOM_ID, TestFields.USER_ID, SubmissionType.TEST);
+        limiter.acquire(TestFields.ROOM_ID, TestFields.USER_ID_2, SubmissionType.TEST);
+        limiter.acquire(TestFields.ROOM_ID, TestFields.USER_ID_2, SubmissionType.TEST);
+        assertEquals(3, limiter.size());
+
+        // After one second, only the first player's bucket is full again.
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        limiter.evictFullBuckets();
+        assertEquals(2, limiter.size());
+
+        // The room's bucket takes a second per token it gave out.
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        limiter.evictFullBuckets();
+        assertEquals(0, limiter.size());
+    }
+
+    // Call the limiter from many threads at once; each thread acts as the given player.
+    private int acquireConcurrently(SubmissionRateLimiter limiter, List<String> userIds, int attemptsPerThread)
+            throws Exception {
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(userIds.size());
+        List<Future<?>> futures = new ArrayList<>();
+        for (String userId : userIds) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    try {
+                        limiter.acquire(TestFields.ROOM_ID, userId, SubmissionType.TEST);
+                        accepted.incrementAndGet();
+                    } catch (ApiException e) {
+                        assertEquals(GameError.TOO_MANY_SUBMISSIONS, e.getError());
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return accepted.get();
+    }
+
+    @Test
+    public void acquireIsExactUnderContention() throws Exception {
+        // With the clock stopped, exactly one burst gets through, however the calls interleave.
+        SubmissionRateLimiter limiter = new SubmissionRateLimiter(60, 50, 0, 0, 0, 0, 0, 0, now::get, meterRegistry);
+        List<String> userIds = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            userIds.add(t % 2 == 0 ? TestFields.USER_ID : "player" + t);
+        }
+
+        // Eight threads share one player, the other eight are a player each.
+        assertEquals(9 * 50, acquireConcurrently(limiter, userIds, 2000));
+        assertEquals(16 * 2000 - 9 * 50, throttled(SubmissionType.TEST, "player"));
+    }
+
+    @Test
+    public void acquireIsExactForRoomUnderContention() throws Exception {
+        SubmissionRateLimiter limiter = new SubmissionRateLimiter(0, 0, 60, 200, 0, 0, 0, 0, now::get, meterRegistry);
+        List<String> userIds = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            userIds.add("player" + t);
+        }
+
+        assertEquals(200, acquireConcurrently(limiter, userIds, 2000));
+        assertEquals(16 * 2000 - 200, throttled(SubmissionType.TEST, "room"));
+    }
+}
@@ -38,6 +38,7 @@ public class TestFields {
     // Room constants
     public static final String ROOM_ID = "012345";
     public static final long DURATION = 600;
+    public static final String GAME_ID = "2f1c6f3e-8d9b-4c57-a1d2-6b0e4f7a9c35";
 
     // Problem constants
     public static final String PROBLEM_NAME = "Sort an Array";
@@ -16,6 +16,7 @@ public class TestUrls {
     private static final String GET_GAME = "/api/v1/games/%s";
     private static final String POST_RUN_CODE = "/api/v1/games/%s/run-code";
     private static final String POST_SUBMISSION = "/api/v1/games/%s/submission";
+    private static final String POST_SUBMISSION_ASYNC = "/api/v1/games/%s/submission/async";
     private static final String POST_NOTIFICATION = "/api/v1/games/%s/notification";
 
     private static final String GET_PROBLEM = "/api/v1/problems/%s";
@@ -85,6 +86,10 @@ public class TestUrls {
         return String.format(POST_SUBMISSION, roomId);
     }
 
+    public static String submitCodeAsync(String roomId) {
+        return String.format(POST_SUBMISSION_ASYNC, roomId);
+    }
+
     public static String sendNotification(String roomId) {
         return String.format(POST_NOTIFICATION, roomId);
     }
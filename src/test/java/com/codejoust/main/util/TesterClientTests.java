@@ -0,0 +1,621 @@
+package com.codejoust.main.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codejoust.main.dto.game.TesterRequest;
+import com.codejoust.main.dto.game.TesterResponse;
+import com.codejoust.main.dto.problem.ProblemDto;
+import com.codejoust.main.dto.problem.ProblemTestCaseDto;
+import com.codejoust.main.exception.GameError;
+import com.codejoust.main.exception.api.ApiException;
+import com.codejoust.main.model.problem.Problem;
+import com.codejoust.main.model.problem.ProblemTestCase;
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class TesterClientTests {
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_MILLIS = 10_000;
+    private static final int READ_TIMEOUT_MILLIS = 300;
+    private static final int UNHEALTHY_THRESHOLD = 2;
+
+    private static final String SUCCESS_BODY = "{\"numCorrect\": 1, \"numTestCases\": 1, \"results\": []}";
+    private static final String ERROR_BODY = "{\"message\": \"Bad request\", \"type\": \"TesterError\"}";
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private final List<StubTester> stubs = new ArrayList<>();
+    private final List<TesterClient> clients = new ArrayList<>();
+    private ExecutorService executor;
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Local stand-in for a tester instance, with adjustable latency and
+     * responses. Runner requests are POSTs; health checks are GETs.
+     */
+    private static class StubTester {
+
+        private final HttpServer server;
+        private final AtomicInteger hits = new AtomicInteger();
+
+        private volatile int status = 200;
+        private volatile String body = SUCCESS_BODY;
+        private volatile long delayMillis = 0;
+        private volatile int healthStatus = 405;
+
+        // If set, requests that accept NDJSON get these lines, one at a time.
+        private volatile List<String> streamLines = null;
+        private volatile long lineDelayMillis = 0;
+
+        // The body of the latest runner request.
+        private volatile String requestBody;
+
+        private StubTester() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/", this::handle);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+        }
+
+        private String getUrl() {
+            return "http://localhost:" + server.getAddress().getPort() + "/api/v1/runner";
+        }
+
+        private void fail() {
+            status = 500;
+            body = ERROR_BODY;
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            byte[] requestBytes = exchange.getRequestBody().readAllBytes();
+            if ("GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, healthStatus, "");
+                return;
+            }
+
+            requestBody = new String(requestBytes, StandardCharsets.UTF_8);
+
+            hits.incrementAndGet();
+            sleep(delayMillis);
+
+            String accept = exchange.getRequestHeaders().getFirst("Accept");
+            if (streamLines != null && accept != null && accept.contains(TesterClient.NDJSON)) {
+                stream(exchange, streamLines);
+                return;
+            }
+            respond(exchange, status, body);
+        }
+
+        // Send the lines in chunks, pausing before each one.
+        private void stream(HttpExchange exchange, List<String> lines) {
+            exchange.getResponseHeaders().set("Content-Type", TesterClient.NDJSON);
+            try {
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream stream = exchange.getResponseBody()) {
+                    for (String line : lines) {
+                        sleep(lineDelayMillis);
+                        stream.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+                        stream.flush();
+                    }
+                }
+            } catch (IOException e) {
+                // The client gave up waiting.
+            }
+        }
+
+        private void sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void respond(HttpExchange exchange, int status, String body) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            try {
+                exchange.sendResponseHeaders(status, bytes.length > 0 ? bytes.length : -1);
+                try (OutputStream stream = exchange.getResponseBody()) {
+                    stream.write(bytes);
+                }
+            } catch (IOException e) {
+                // The client gave up waiting.
+            }
+        }
+    }
+
+    @BeforeEach
+    public void setup() {
+        executor = Executors.newCachedThreadPool();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void teardown() throws IOException {
+        executor.shutdownNow();
+        for (TesterClient client : clients) {
+            client.close();
+        }
+        for (StubTester stub : stubs) {
+            stub.server.stop(0);
+        }
+    }
+
+    private List<StubTester> createStubs(int count) throws IOException {
+        List<StubTester> created = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            created.add(new StubTester());
+        }
+        stubs.addAll(created);
+        return created;
+    }
+
+    private TesterClient createClient(List<StubTester> testers, int maxConcurrentRequests, long bulkheadWaitMillis) {
+        List<String> urls = new ArrayList<>();
+        for (StubTester tester : testers) {
+            urls.add(tester.getUrl());
+        }
+
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(now.get());
+            }
+        };
+
+        TesterClient client = new TesterClient(urls, 10, 1000, READ_TIMEOUT_MILLIS, maxConcurrentRequests,
+            bulkheadWaitMillis, 2, FAILURE_THRESHOLD, OPEN_MILLIS, 500, UNHEALTHY_THRESHOLD, clock, meterRegistry);
+        clients.add(client);
+        return client;
+    }
+
+    private long requestCount(StubTester tester, String outcome) {
+        return meterRegistry.get(TesterClient.REQUESTS_TIMER)
+            .tag("outcome", outcome).tag("endpoint", tester.getUrl()).timer().count();
+    }
+
+    private double rejectedCount(String reason) {
+        return meterRegistry.get(TesterClient.REJECTED_COUNTER).tag("reason", reason).counter().count();
+    }
+
+    private double gauge(String name, StubTester tester) {
+        return meterRegistry.get(name).tag("endpoint", tester.getUrl()).gauge().value();
+    }
+
+    private int totalHits(List<StubTester> testers) {
+        return testers.stream().mapToInt(tester -> tester.hits.get()).sum();
+    }
+
+    private void awaitHits(List<StubTester> testers, int hits) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (totalHits(testers) < hits && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void metersRegisteredUpFront() throws IOException {
+        StubTester tester = createStubs(1).get(0);
+        TesterClient client = createClient(stubs, 10, 0);
+
+        // Every request timer and counter exists before any request is made.
+        assertEquals(0, requestCount(tester, TesterClient.OUTCOME_SUCCESS));
+        assertEquals(0, requestCount(tester, TesterClient.OUTCOME_CLIENT_ERROR));
+        assertEquals(0, requestCount(tester, TesterClient.OUTCOME_ERROR));
+        assertEquals(0, rejectedCount(TesterClient.REASON_BULKHEAD));
+        assertEquals(0, rejectedCount(TesterClient.REASON_UNAVAILABLE));
+        assertEquals(0, meterRegistry.get(TesterClient.RETRIES_COUNTER)
+            .tag("endpoint", tester.getUrl()).counter().count());
+
+        // Requests only record on them.
+        int meters = meterRegistry.getMeters().size();
+        client.execute(new TesterRequest(), false);
+        assertEquals(1, requestCount(tester, TesterClient.OUTCOME_SUCCESS));
+        assertEquals(meters, meterRegistry.getMeters().size());
+    }
+
+    @Test
+    public void executeSuccess() throws IOException {
+        StubTester tester = createStubs(1).get(0);
+        TesterClient client = createClient(stubs, 10, 0);
+
+        TesterResponse response = client.execute(new TesterRequest(), false);
+
+        assertEquals(1, response.getNumCorrect());
+        assertEquals(1, tester.hits.get());
+        assertEquals(1, requestCount(tester, TesterClient.OUTCOME_SUCCESS));
+        assertEquals(0.0, gauge(TesterClient.CIRCUIT_OPEN_GAUGE, tester));
+        assertEquals(1.0, gauge(TesterClient.HEALTHY_GAUGE, tester));
+        assertEquals(0.0, gauge(TesterClient.OUTSTANDING_GAUGE, tester));
+    }
+
+    @Test
+    public void executeStreamsRequestAndResponseBodies() throws IOException {
+        StubTester tester = createStubs(1).get(0);
+        tester.body = "{\"numCorrect\": 1, \"results\": [{\"userOutput\": \"h\u00e9llo\", \"correct\": true}]}";
+        TesterClient client = createClient(stubs, 10, 0);
+
+        ProblemTestCaseDto testCase = new ProblemTestCaseDto();
+        testCase.setInput(TestFields.INPUT);
+        testCase.setOutput("h\u00e9llo");
+        ProblemDto problem = new ProblemDto();
+        problem.setTestCases(Collections.singletonList(testCase));
+
+        TesterRequest request = new TesterRequest();
+        request.setCode("print('h\u00e9llo')");
+        request.setLanguage(TestFields.PYTHON_LANGUAGE);
+        request.setProblem(problem);
+
+        TesterResponse response = client.execute(request, false);
+
+        // Non-ASCII text survives the trip both ways.
+        assertEquals(new Gson().toJson(request), tester.requestBody);
+        assertEquals("h\u00e9llo", response.getResults().get(0).getUserOutput());
+        assertTrue(response.getResults().get(0).isCorrect());
+    }
+
+    @Test
+    public void executeSendsSerializedProblem() throws IOException {
+        StubTester tester = createStubs(1).get(0);
+        TesterClient client = createClient(stubs, 10, 0);
+
+        Problem problem = new Problem();
+        problem.setOutputType(TestFields.IO_TYPE);
+        ProblemTestCase testCase = new ProblemTestCase();
+        testCase.setInput(TestFields.INPUT);
+        testCase.setOutput(TestFields.OUTPUT);
+        problem.addTestCase(testCase);
+        TesterProblemCache.Payload payload = TesterProblemCache.build(problem);
+
+        TesterRequest request = new TesterRequest();
+        request.setCode("print(\"h\u00e9llo\")\n");
+        request.setLanguage(TestFields.PYTHON_LANGUAGE);
+        request.setProblem(payload.getProblem());
+        request.setFailFast(true);
+        request.setProblemJson(payload.getJson());
+
+        client.execute(request, false);
+
+        // The same request as when the problem is serialized with the rest.
+        request.setProblemJson(null);
+        assertEquals(JsonParser.parseString(new Gson().toJson(request)), JsonParser.parseString(tester.requestBody));
+    }
+
+    @Test
+    public void executeReadTimeout() throws IOException {
+        StubTester tester = createStubs(1).get(0);
+        TesterClient client = createClient(stubs, 10, 0);
+        tester.delayMillis = READ_TIMEOUT_MILLIS * 3;
+
+        long start = System.nanoTime();
+        ApiException exception = assertThrows(ApiException.class, () -> client.execute(new TesterRequest(), false));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(GameError.TESTER_ERROR, exception.getError());
+        assertTrue(elapsed < READ_TIMEOUT_MILLIS * 3, "Took " + elapsed + "ms to time out");
+        assertEquals(1, requestCount(tester, TesterClient.OUTCOME_ERROR));
+    }
+
+    @Test
+    public void executeClientErrorDoesNotOpenCircuit() throws IOException {
+        List<StubTester> testers = createStubs(2);
+        TesterClient client = createClient(testers, 10, 0);
+        for (StubTester tester : testers) {
+            tester.status = 400;
+            tester.body = ERROR_BODY;
+        }
+
+        // Rejected requests are not retried either.
+        for (int i = 0; i < FAILURE_THRESHOLD + 1; i++) {
+            ApiException exception = assertThrows(ApiException.class, () -> client.execute(new TesterRequest(), true));
+            assertEquals(HttpStatus.BAD_REQUEST, exception.getError().getStatus());
+            assertEquals("Bad request", exception.getError().getResponse().getMessage());
+        }
+
+        assertEquals(FAILURE_THRESHOLD + 1, totalHits(testers));
+        for (StubTester tester : testers) {
+            assertEquals(0.0, gauge(TesterClient.CIRCUIT_OPEN_GAUGE, tester));
+        }
+    }
+
+    @Test
+    public void circuitOpensAfterFailuresAndClosesAfterTrial() throws IOException {
+        StubTester tester = createStubs(1).get(0);
+        TesterClient client = createClient(stubs, 10, 0);
+        tester.fail();
+
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertThrows(ApiException.class, () -> client.execute(new TesterRequest(), true));
+        }
+        assertEquals(FAILURE_THRESHOLD, tester.hits.get());
+        assertEquals(1.0, gauge(TesterClient.CIRCUIT_OPEN_GAUGE, tester));
+
+        // While the circuit is open, requests fail fast without reaching the tester.
+        ApiException exception = assertThrows(ApiException.class, () -> client.execute(new TesterRequest(), false));
+        assertEquals(GameError.TESTER_ERROR, exception.getError());
+        assertEquals(FAILURE_THRESHOLD, tester.hits.get());
+        assertEquals(1.0, rejectedCount(TesterClient.REASON_UNAVAILABLE));
+
+        // Once the tester recovers, a trial request closes the circuit again.
+        tester.status = 200;
+        tester.body = SUCCESS_BODY;
+        now.addAndGet(OPEN_MILLIS);
+
+        assertEquals(1, client.execute(new TesterRequest(), false).getNumCorrect());
+        assertEquals(FAILURE_THRESHOLD + 1, tester.hits.get());
+        assertEquals(0.0, gauge(TesterClient.CIRCUIT_OPEN_GAUGE, tester));
+    }
+
+    @Test
+    public void failedTrialReopensCircuit() {
+        TesterClient.CircuitBreaker breaker = new TesterClient.CircuitBreaker(1, OPEN_MILLIS,
+            Clock.fixed(Instant.ofEpochMilli(0), ZoneOffset.UTC));
+
+        assertTrue(breaker.tryAcquire());
+        breaker.recordFailure();
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.tryAcquire());
+
+        TesterClient.CircuitBreaker expired = new TesterClient.CircuitBreaker(1, 0,
+            Clock.fixed(Instant.ofEpochMilli(1000), ZoneOffset.UTC));
+        expired.recordFailure();
+
+        // Only one trial request is let through at a time.
+        assertTrue(expired.tryAcquire());
+        assertFalse(expired.tryAcquire());
+        expired.recordFailure();
+        assertTrue(expired.isOpen());
+        assertTrue(expired.tryAcquire());
+        expired.recordSuccess();
+        assertFalse(expired.isOpen());
+    }
+
+    @Test
+    public void bulkheadRejectsWhenFull() throws Exception {
+        StubTester tester = createStubs(1).get(0);
+        TesterClient client = createClient(stubs, 1, 0);
+        tester.delayMillis = 200;
+
+        Future<TesterResponse> slow = executor.submit(() -> client.execute(new TesterRequest(), false));
+
+        // Wait for the slow request to reach the tester and hold the bulkhead.
+        awaitHits(stubs, 1);
+
+        ApiException exception = assertThrows(ApiException.class, () -> client.execute(new TesterRequest(), false));
+        assertEquals(GameError.TESTER_ERROR, exception.getError());
+        assertEquals(1.0, rejectedCount(TesterClient.REASON_BULKHEAD));
+
+        assertEquals(1, slow.get(2, TimeUnit.SECONDS).getNumCorrect());
+        assertEquals(1, tester.hits.get());
+
+        // Rejections don't count against the tester.
+        assertEquals(0.0, gauge(TesterClient.CIRCUIT_OPEN_GAUGE, tester));
+    }
+
+    @Test
+    public void requestsSpreadEvenlyAcrossIdleEndpoints() throws IOException {
+        List<StubTester> testers = createStubs(3);
+        TesterClient client = createClient(testers, 10, 0);
+
+        for (int i = 0; i < 30; i++) {
+            client.execute(new TesterRequest(), false);
+        }
+
+        for (StubTester tester : testers) {
+            assertEquals(10, tester.hits.get());
+            assertEquals(10, requestCount(tester, TesterClient.OUTCOME_SUCCESS));
+        }
+    }
+
+    @Test
+    public void requestsGoToLeastOutstandingEndpoint() throws Exception {
+        List<StubTester> testers = createStubs(2);
+        TesterClient client = createClient(testers, 10, 0);
+        for (StubTester tester : testers) {
+            tester.delayMillis = 200;
+        }
+
+        // Hold a request on whichever endpoint is picked first.
+        Future<TesterResponse> first = executor.submit(() -> client.execute(new TesterRequest(), false));
+        awaitHits(testers, 1);
+        StubTester busy = testers.get(0).hits.get() == 1 ? testers.get(0) : testers.get(1);
+        StubTester idle = busy == testers.get(0) ? testers.get(1) : testers.get(0);
+        assertEquals(1.0, gauge(TesterClient.OUTSTANDING_GAUGE, busy));
+
+        // The next request avoids the busy endpoint, whichever way ties would fall.
+        Future<TesterResponse> second = executor.submit(() -> client.execute(new TesterRequest(), false));
+        awaitHits(testers, 2);
+        assertEquals(1, busy.hits.get());
+        assertEquals(1, idle.hits.get());
+
+        first.get(2, TimeUnit.SECONDS);
+        second.get(2, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void retryableRequestsRetryOnAnotherEndpoint() throws IOException {
+        List<StubTester> testers = createStubs(2);
+        StubTester failing = testers.get(0);
+        StubTester working = testers.get(1);
+        TesterClient client = createClient(testers, 10, 0);
+        failing.fail();
+
+        // Keep below the failure threshold so the circuit stays closed.
+        for (int i = 0; i < FAILURE_THRESHOLD - 1; i++) {
+            assertEquals(1, client.execute(new TesterRequest(), true).getNumCorrect());
+        }
+        assertTrue(failing.hits.get() > 0);
+        assertEquals(failing.hits.get(), meterRegistry.get(TesterClient.RETRIES_COUNTER)
+            .tag("endpoint", working.getUrl()).counter().count());
+
+        // Requests that aren't retryable fail when they land on the failing endpoint.
+        int failures = 0;
+        for (int i = 0; i < 2; i++) {
+            try {
+                client.execute(new TesterRequest(), false);
+            } catch (ApiException e) {
+                failures++;
+            }
+        }
+        assertEquals(1, failures);
+    }
+
+    @Test
+    public void healthCheckRemovesAndRestoresEndpoints() throws IOException {
+        List<StubTester> testers = createStubs(2);
+        StubTester unhealthy = testers.get(0);
+        StubTester healthy = testers.get(1);
+        TesterClient client = createClient(testers, 10, 0);
+
+        // A single failed check isn't enough to remove the endpoint.
+        unhealthy.healthStatus = 503;
+        client.checkHealth();
+        assertEquals(1.0, gauge(TesterClient.HEALTHY_GAUGE, unhealthy));
+        client.checkHealth();
+        assertEquals(0.0, gauge(TesterClient.HEALTHY_GAUGE, unhealthy));
+        assertEquals(1.0, gauge(TesterClient.HEALTHY_GAUGE, healthy));
+
+        for (int i = 0; i < 4; i++) {
+            client.execute(new TesterRequest(), false);
+        }
+        assertEquals(0, unhealthy.hits.get());
+        assertEquals(4, healthy.hits.get());
+
+        // One successful check puts it back into rotation.
+        unhealthy.healthStatus = 405;
+        client.checkHealth();
+        assertEquals(1.0, gauge(TesterClient.HEALTHY_GAUGE, unhealthy));
+
+        for (int i = 0; i < 4; i++) {
+            client.execute(new TesterRequest(), false);
+        }
+        assertEquals(2, unhealthy.hits.get());
+    }
+
+    @Test
+    public void noHealthyEndpointsFailsFast() throws IOException {
+        List<StubTester> testers = createStubs(2);
+        TesterClient client = createClient(testers, 10, 0);
+
+        // Stopped testers don't respond to health checks at all.
+        for (StubTester tester : testers) {
+            tester.server.stop(0);
+        }
+        for (int i = 0; i < UNHEALTHY_THRESHOLD; i++) {
+            client.checkHealth();
+        }
+
+        ApiException exception = assertThrows(ApiException.class, () -> client.execute(new TesterRequest(), true));
+        assertEquals(GameError.TESTER_ERROR, exception.getError());
+        assertEquals(1.0, rejectedCount(TesterClient.REASON_UNAVAILABLE));
+        assertEquals(0, totalHits(testers));
+    }
+
+    @Test
+    public void executeStreamsResultsAsTheyArrive() throws IOException {
+        StubTester tester = createStubs(1).get(0);
+        tester.lineDelayMillis = 100;
+        tester.streamLines = List.of(
+            "{\"results\": [{\"userOutput\": \"1\", \"correct\": true}]}",
+            "{\"results\": [{\"userOutput\": \"2\", \"correct\": false}]}",
+            "{\"numCorrect\": 1, \"numTestCases\": 2, \"runtime\": 0.5}");
+        TesterClient client = createClient(stubs, 10, 0);
+
+        List<String> outputs = new ArrayList<>();
+        long[] firstResultAt = new long[1];
+        TesterResponse response = client.execute(new TesterRequest(), false, result -> {
+            if (outputs.isEmpty()) {
+                firstResultAt[0] = System.nanoTime();
+            }
+            outputs.add(result.getUserOutput());
+        });
+        long respondedAt = System.nanoTime();
+
+        // The first result arrived well before the rest of the response.
+        assertEquals(List.of("1", "2"), outputs);
+        assertTrue(respondedAt - firstResultAt[0] >= TimeUnit.MILLISECONDS.toNanos(150));
+
+        assertEquals(2, response.getResults().size());
+        assertEquals(1, response.getNumCorrect());
+        assertEquals(2, response.getNumTestCases());
+        assertEquals(0.5, response.getRuntime());
+
+        // Requests that don't ask for a stream get a single response.
+        assertEquals(1, client.execute(new TesterRequest(), false).getNumCorrect());
+        assertTrue(client.execute(new TesterRequest(), false).getResults().isEmpty());
+    }
+
+    @Test
+    public void executeHandsOverResultsOfUnstreamedResponses() throws IOException {
+        StubTester tester = createStubs(1).get(0);
+        tester.body = "{\"numCorrect\": 1, \"numTestCases\": 1, \"results\": [{\"userOutput\": \"1\"}]}";
+        TesterClient client = createClient(stubs, 10, 0);
+
+        List<String> outputs = new ArrayList<>();
+        TesterResponse response = client.execute(new TesterRequest(), false, result -> outputs.add(result.getUserOutput()));
+
+        assertEquals(List.of("1"), outputs);
+        assertEquals(1, response.getResults().size());
+    }
+
+    @Test
+    public void streamedRequestsAreNotRetriedAfterResults() throws IOException {
+        List<StubTester> testers = createStubs(2);
+        for (StubTester tester : testers) {
+            // The stream breaks off after its first result.
+            tester.streamLines = List.of("{\"results\": [{\"userOutput\": \"1\"}]}", "{\"results\": [");
+        }
+        TesterClient client = createClient(testers, 10, 0);
+
+        List<String> outputs = new ArrayList<>();
+        ApiException exception = assertThrows(ApiException.class,
+            () -> client.execute(new TesterRequest(), true, result -> outputs.add(result.getUserOutput())));
+        assertEquals(GameError.TESTER_ERROR, exception.getError());
+
+        // Sending it again would repeat the result already handed over.
+        assertEquals(List.of("1"), outputs);
+        assertEquals(1, totalHits(testers));
+    }
+}
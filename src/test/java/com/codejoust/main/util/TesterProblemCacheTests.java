@@ -0,0 +1,144 @@
+package com.codejoust.main.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.codejoust.main.dto.problem.ProblemDto;
+import com.codejoust.main.dto.problem.ProblemTestCaseDto;
+import com.codejoust.main.model.problem.Problem;
+import com.codejoust.main.model.problem.ProblemInput;
+import com.codejoust.main.model.problem.ProblemTestCase;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+import org.junit.jupiter.api.Test;
+
+public class TesterProblemCacheTests {
+
+    private Problem createProblem(String problemId, String output) {
+        Problem problem = new Problem();
+        problem.setProblemId(problemId);
+        problem.setName(TestFields.NAME);
+        problem.setDescription(TestFields.DESCRIPTION);
+        problem.setOutputType(TestFields.IO_TYPE);
+        problem.addProblemInput(new ProblemInput(TestFields.INPUT_NAME, TestFields.IO_TYPE));
+
+        ProblemTestCase testCase = new ProblemTestCase();
+        testCase.setInput(TestFields.INPUT);
+        testCase.setOutput(output);
+        problem.addTestCase(testCase);
+        return problem;
+    }
+
+    @Test
+    public void buildKeepsOnlyTesterFields() {
+        TesterProblemCache.Payload payload = TesterProblemCache.build(createProblem(TestFields.PROBLEM_ID, TestFields.OUTPUT));
+        ProblemDto problem = payload.getProblem();
+
+        assertNull(problem.getProblemId());
+        assertNull(problem.getName());
+        assertNull(problem.getDescription());
+        assertNull(problem.getProblemTags());
+        assertEquals(TestFields.IO_TYPE, problem.getOutputType());
+        assertEquals(TestFields.INPUT_NAME, problem.getProblemInputs().get(0).getName());
+        assertEquals(TestFields.OUTPUT, problem.getTestCases().get(0).getOutput());
+
+        // The JSON is the DTO's
+        assertEquals(new Gson().toJson(problem), new String(payload.getJson(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void getJsonWithSomeTestCases() {
+        Problem problem = createProblem(TestFields.PROBLEM_ID, TestFields.OUTPUT);
+        ProblemTestCase testCase = new ProblemTestCase();
+        testCase.setInput(TestFields.INPUT_2);
+        testCase.setOutput(TestFields.OUTPUT_2);
+        testCase.setHidden(true);
+        problem.addTestCase(testCase);
+
+        TesterProblemCache.Payload payload = TesterProblemCache.build(problem);
+        List<ProblemTestCaseDto> testCases = payload.getProblem().getTestCases();
+
+        // The JSON is that of a copy of the problem with the test cases given.
+        ProblemDto copy = new ProblemDto();
+        copy.setProblemInputs(payload.getProblem().getProblemInputs());
+        copy.setOutputType(payload.getProblem().getOutputType());
+        copy.setTestCases(Arrays.asList(testCases.get(1), testCases.get(0)));
+        assertEquals(toTree(new Gson().toJson(copy).getBytes(StandardCharsets.UTF_8)),
+            toTree(payload.getJson(copy.getTestCases())));
+
+        copy.setTestCases(Collections.singletonList(testCases.get(1)));
+        assertEquals(toTree(new Gson().toJson(copy).getBytes(StandardCharsets.UTF_8)),
+            toTree(payload.getJson(copy.getTestCases())));
+
+        // Test cases that aren't the payload's own can't be put together from it.
+        assertNull(payload.getJson(Collections.singletonList(new ProblemTestCaseDto())));
+    }
+
+    private JsonElement toTree(byte[] json) {
+        return new Gson().fromJson(new String(json, StandardCharsets.UTF_8), JsonElement.class);
+    }
+
+    @Test
+    public void getCachesUntilInvalidated() {
+        TesterProblemCache cache = new TesterProblemCache(10, Long.MAX_VALUE);
+        Problem problem = createProblem(TestFields.PROBLEM_ID, TestFields.OUTPUT);
+
+        TesterProblemCache.Payload payload = cache.get(problem);
+        assertSame(payload, cache.get(problem));
+        assertEquals(1, cache.size());
+
+        // The edited problem is only seen once the payload is invalidated.
+        problem.getTestCases().get(0).setOutput(TestFields.OUTPUT_2);
+        assertEquals(TestFields.OUTPUT, cache.get(problem).getProblem().getTestCases().get(0).getOutput());
+
+        cache.invalidate(TestFields.PROBLEM_ID);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+        assertEquals(TestFields.OUTPUT_2, cache.get(problem).getProblem().getTestCases().get(0).getOutput());
+    }
+
+    @Test
+    public void problemsWithoutIdAreNotCached() {
+        TesterProblemCache cache = new TesterProblemCache(10, Long.MAX_VALUE);
+        Problem problem = createProblem(null, TestFields.OUTPUT);
+
+        assertNotSame(cache.get(problem), cache.get(problem));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        TesterProblemCache cache = new TesterProblemCache(2, Long.MAX_VALUE);
+        Problem first = createProblem("1", TestFields.OUTPUT);
+        Problem second = createProblem("2", TestFields.OUTPUT);
+        Problem third = createProblem("3", TestFields.OUTPUT);
+
+        TesterProblemCache.Payload firstPayload = cache.get(first);
+        TesterProblemCache.Payload secondPayload = cache.get(second);
+        cache.get(first);
+        cache.get(third);
+
+        assertEquals(2, cache.size());
+        assertSame(firstPayload, cache.get(first));
+        assertNotSame(secondPayload, cache.get(second));
+    }
+
+    @Test
+    public void evictsOverByteLimit() {
+        long bytes = 4L * TesterProblemCache.build(createProblem("1", TestFields.OUTPUT)).getJson().length + 256;
+        TesterProblemCache cache = new TesterProblemCache(10, bytes);
+
+        cache.get(createProblem("1", TestFields.OUTPUT));
+        cache.get(createProblem("2", TestFields.OUTPUT));
+        assertEquals(1, cache.size());
+        assertEquals(bytes, cache.getBytes());
+    }
+}
@@ -0,0 +1,45 @@
+package com.codejoust.main.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class TesterShardPoolTests {
+
+    private TesterShardPool pool;
+
+    @AfterEach
+    public void teardown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void getShardCountSplitsLargeSuites() {
+        pool = new TesterShardPool(1, 20, 4);
+
+        assertEquals(1, pool.getShardCount(0));
+        assertEquals(1, pool.getShardCount(20));
+        assertEquals(2, pool.getShardCount(21));
+        assertEquals(3, pool.getShardCount(60));
+        assertEquals(4, pool.getShardCount(1000));
+    }
+
+    @Test
+    public void getShardCountWithShardingDisabled() {
+        pool = new TesterShardPool(1, 20, 1);
+        assertEquals(1, pool.getShardCount(1000));
+    }
+
+    @Test
+    public void supplyRunsOnPoolThread() throws Exception {
+        pool = new TesterShardPool(1, 20, 4);
+        String threadName = pool.supply(() -> Thread.currentThread().getName()).get(1, TimeUnit.SECONDS);
+        assertTrue(threadName.startsWith(TesterShardPool.THREAD_PREFIX));
+    }
+}
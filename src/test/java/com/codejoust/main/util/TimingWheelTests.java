@@ -0,0 +1,134 @@
+package com.codejoust.main.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TimingWheelTests {
+
+    private static final long TICK_MILLIS = 10;
+    private static final int THREADS = 2;
+
+    private int initialWheelThreads;
+    private TimingWheel timingWheel;
+
+    @BeforeEach
+    public void setup() {
+        initialWheelThreads = countWheelThreads();
+        timingWheel = new TimingWheel(TICK_MILLIS, 512, THREADS);
+    }
+
+    @AfterEach
+    public void teardown() {
+        timingWheel.stop();
+    }
+
+    private int countWheelThreads() {
+        return (int) Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().startsWith("timing-wheel"))
+            .count();
+    }
+
+    @Test
+    public void timeoutFiresAfterDelay() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        TimingWheel.Timeout timeout = timingWheel.schedule(latch::countDown, 200, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 200, "Fired early after " + elapsed + "ms");
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    public void cancelledTimeoutNeverFires() throws Exception {
+        AtomicInteger fired = new AtomicInteger();
+        TimingWheel.Timeout timeout = timingWheel.schedule(fired::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertFalse(timeout.cancel());
+
+        // A later timeout acts as a barrier for the cancelled one.
+        CountDownLatch latch = new CountDownLatch(1);
+        timingWheel.schedule(latch::countDown, 150, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertEquals(0, fired.get());
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel(0, 512, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel(10, 500, 1));
+        assertThrows(IllegalArgumentException.class, () -> timingWheel.schedule(null, 1, TimeUnit.SECONDS));
+
+        timingWheel.stop();
+        assertThrows(RejectedExecutionException.class, () -> timingWheel.schedule(() -> {}, 1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void hundredThousandTimers() throws Exception {
+        int numTimers = 100_000;
+        long maxDelayMillis = 2000;
+
+        // Every tenth timer is cancelled; the rest record how late they fired.
+        int expectedFired = numTimers - numTimers / 10;
+        CountDownLatch latch = new CountDownLatch(expectedFired);
+        AtomicLongArray lateness = new AtomicLongArray(numTimers);
+        AtomicInteger cancelledFired = new AtomicInteger();
+        Random random = new Random(42);
+
+        for (int i = 0; i < numTimers; i++) {
+            int index = i;
+            long delay = random.nextInt((int) maxDelayMillis);
+            long expected = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+
+            if (i % 10 == 0) {
+                TimingWheel.Timeout timeout = timingWheel.schedule(cancelledFired::incrementAndGet, delay, TimeUnit.MILLISECONDS);
+                timeout.cancel();
+            } else {
+                timingWheel.schedule(() -> {
+                    lateness.set(index, System.nanoTime() - expected);
+                    latch.countDown();
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        // Only the ticker and the worker pool are ever created.
+        assertTrue(countWheelThreads() - initialWheelThreads <= THREADS + 1);
+        assertTrue(latch.await(maxDelayMillis + 10_000, TimeUnit.MILLISECONDS));
+        assertTrue(countWheelThreads() - initialWheelThreads <= THREADS + 1);
+
+        long[] latenessMillis = new long[expectedFired];
+        int count = 0;
+        for (int i = 0; i < numTimers; i++) {
+            if (i % 10 != 0) {
+                long millis = TimeUnit.NANOSECONDS.toMillis(lateness.get(i));
+                assertTrue(lateness.get(i) >= 0, "Timer " + i + " fired " + (-millis) + "ms early");
+                latenessMillis[count++] = millis;
+            }
+        }
+
+        // Timers fire within a few ticks of their deadline.
+        Arrays.sort(latenessMillis);
+        long p99 = latenessMillis[(int) (expectedFired * 0.99)];
+        assertTrue(p99 <= 25 * TICK_MILLIS, "p99 lateness was " + p99 + "ms");
+
+        assertEquals(0, cancelledFired.get());
+    }
+}